@@ -16,7 +16,7 @@
 
 package oharastream.ohara.agent
 
-import java.io.ByteArrayOutputStream
+import java.io.{ByteArrayOutputStream, OutputStream}
 import java.nio.charset.{Charset, StandardCharsets}
 import java.rmi.RemoteException
 import java.util.Objects
@@ -50,6 +50,16 @@ trait Agent extends Releasable {
     */
   def execute(command: String): Option[String]
 
+  /**
+    * execute a long-running command by ssh and pass each line of stdout to the consumer. The command keeps running
+    * until the returned subscription is closed or the remote command exits.
+    * NOTED: the consumer is called by the ssh thread so it should not do any blocking work.
+    * @param command command
+    * @param consumer line consumer
+    * @return subscription of the command
+    */
+  def stream(command: String, consumer: String => Unit): Agent.Subscription
+
   /**
     * @return true if this object is still available. Otherwise, all executions produce exception
     */
@@ -63,6 +73,30 @@ trait Agent extends Releasable {
 object Agent {
   def builder: Builder = new Builder()
 
+  /**
+    * represent a long-running command. Closing it terminates the command.
+    */
+  trait Subscription extends Releasable {
+    /**
+      * @return true if the command is still running
+      */
+    def isOpen: Boolean
+  }
+
+  /**
+    * split the bytes by new line and then pass the lines to consumer.
+    */
+  private[this] class LineOutputStream(charset: Charset, consumer: String => Unit) extends OutputStream {
+    private[this] val buffer = new ByteArrayOutputStream
+
+    override def write(b: Int): Unit =
+      if (b == '\n') {
+        val line = new String(buffer.toByteArray, charset)
+        buffer.reset()
+        if (line.nonEmpty) consumer(line)
+      } else buffer.write(b)
+  }
+
   class Builder private[agent] extends oharastream.ohara.common.pattern.Builder[Agent] {
     private[this] var hostname: String  = _
     private[this] var port: Int         = 22
@@ -189,6 +223,28 @@ object Agent {
         } finally stdOut.close()
       }
 
+      override def stream(command: String, consumer: String => Unit): Subscription = {
+        val s = session()
+        try {
+          val channel = s.createExecChannel(command)
+          channel.setOut(new LineOutputStream(charset, consumer))
+          channel.setErr(OutputStream.nullOutputStream())
+          channel.open().verify(timeout.toMillis)
+          new Subscription {
+            override def isOpen: Boolean = channel.isOpen
+
+            override def close(): Unit = {
+              Releasable.close(channel)
+              Releasable.close(s)
+            }
+          }
+        } catch {
+          case e: Throwable =>
+            Releasable.close(s)
+            throw e
+        }
+      }
+
       override def close(): Unit = {
         Releasable.close(client)
         client = null
@@ -131,6 +131,9 @@ trait BrokerCollie extends Collie {
                   BrokerApi.NUMBER_OF_REPLICATIONS_4_OFFSETS_TOPIC_KEY,
                   creation.numberOfReplications4OffsetsTopic
                 )
+                // the default replication of transaction log is 3 so the transaction can't work with a small cluster
+                .append("transaction.state.log.replication.factor", math.min(3, creation.nodeNames.size))
+                .append("transaction.state.log.min.isr", math.min(2, creation.nodeNames.size))
                 .append(BrokerApi.NUMBER_OF_NETWORK_THREADS_KEY, creation.numberOfNetworkThreads)
                 .append(BrokerApi.NUMBER_OF_IO_THREADS_KEY, creation.numberOfIoThreads)
                 .append(s"listeners=PLAINTEXT://:${creation.clientPort}")
@@ -18,6 +18,8 @@ package oharastream.ohara.agent
 
 import java.util.Objects
 
+import com.typesafe.scalalogging.Logger
+
 import oharastream.ohara.agent.Collie.ClusterCreator
 import oharastream.ohara.agent.container.{ContainerClient, ContainerName}
 import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
@@ -33,8 +35,8 @@ import oharastream.ohara.client.configurator.{ClusterInfo, ClusterRequest, Clust
 import oharastream.ohara.common.annotations.Optional
 import oharastream.ohara.common.setting.ObjectKey
 import oharastream.ohara.common.util.CommonUtils
-import oharastream.ohara.metrics.BeanChannel
-import oharastream.ohara.metrics.basic.CounterMBean
+import oharastream.ohara.metrics.{BeanChannel, MetricsPusher}
+import oharastream.ohara.metrics.basic.{CounterMBean, GaugeMBean, HistogramMBean, MeterMBean}
 import oharastream.ohara.metrics.kafka.TopicMeter
 
 import scala.jdk.CollectionConverters._
@@ -256,14 +258,25 @@ trait Collie {
     */
   def dataCollie: DataCollie
 
+  /**
+    * the url of endpoint receiving the counters pushed by services. It is passed to the containers of worker, stream
+    * and shabondi. None means the counters are fetched by remote jmx only.
+    * @return url of endpoint
+    */
+  protected def metricsPushUrl: Option[String] = None
+
+  /**
+    * @return the environment variables enabling the push mode of metrics
+    */
+  protected final def metricsPushEnvironments: Map[String, String] =
+    metricsPushUrl.map(url => MetricsPusher.URL_ENV -> url).toMap
+
   /**
     * the fake mode take the metrics from local jvm.
     */
   protected def topicMeters(cluster: ClusterInfo): Map[String, Seq[TopicMeter]] = cluster match {
     case _: BrokerClusterInfo =>
-      cluster.aliveNodes.map { hostname =>
-        hostname -> BeanChannel.builder().hostname(hostname).port(cluster.jmxPort).build().topicMeters().asScala.toSeq
-      }.toMap
+      Collie.beans(cluster, TopicMeter.DOMAIN, TopicMeter.TYPE_KEY, TopicMeter.TYPE_VALUE)(_.topicMeters())
     case _ => Map.empty
   }
 
@@ -277,18 +290,51 @@ trait Collie {
         */
       Map.empty
     case _ =>
-      cluster.aliveNodes.map { hostname =>
-        hostname -> BeanChannel.builder().hostname(hostname).port(cluster.jmxPort).build().counterMBeans().asScala.toSeq
-      }.toMap
+      Collie.beans(cluster, CounterMBean.DOMAIN, CounterMBean.TYPE_KEY, CounterMBean.TYPE_VALUE)(_.counterMBeans())
+  }
+
+  /**
+    * the gauges are used by stream to carry the metrics of kafka streams, and they are used by worker (connectors) and
+    * shabondi to carry the metrics of kafka producer/consumer (see ClientMetricsReporter).
+    * the fake mode take the metrics from local jvm.
+    */
+  protected def gaugeMBeans(cluster: ClusterInfo): Map[String, Seq[GaugeMBean]] = cluster match {
+    case _ @(_: StreamClusterInfo | _: WorkerClusterInfo | _: ShabondiClusterInfo) =>
+      Collie.beans(cluster, GaugeMBean.DOMAIN, GaugeMBean.TYPE_KEY, GaugeMBean.TYPE_VALUE)(_.gaugeMBeans())
+    case _ => Map.empty
+  }
+
+  /**
+    * the histograms are used by stream (latency of operators) and connectors (latency of poll/put).
+    * the fake mode take the metrics from local jvm.
+    */
+  protected def histogramMBeans(cluster: ClusterInfo): Map[String, Seq[HistogramMBean]] = cluster match {
+    case _ @(_: BrokerClusterInfo | _: ZookeeperClusterInfo) => Map.empty
+    case _ =>
+      Collie.beans(cluster, HistogramMBean.DOMAIN, HistogramMBean.TYPE_KEY, HistogramMBean.TYPE_VALUE)(
+        _.histogramMBeans()
+      )
+  }
+
+  /**
+    * the meters are used by connectors to carry the rates of messages.
+    * the fake mode take the metrics from local jvm.
+    */
+  protected def meterMBeans(cluster: ClusterInfo): Map[String, Seq[MeterMBean]] = cluster match {
+    case _ @(_: BrokerClusterInfo | _: ZookeeperClusterInfo) => Map.empty
+    case _ =>
+      Collie.beans(cluster, MeterMBean.DOMAIN, MeterMBean.TYPE_KEY, MeterMBean.TYPE_VALUE)(_.meterMBeans())
   }
 
   /**
     * Get all counter beans from cluster
     * @param key cluster key
+    * @param includeCounters false if the counters are pushed by services (see MetricsPusher)
     * @return counter beans. the key is mapped to the instance name and value is the meter
     */
   final def metrics(
-    key: ObjectKey
+    key: ObjectKey,
+    includeCounters: Boolean = true
   )(implicit executionContext: ExecutionContext): Future[Map[String, Map[ObjectKey, Metrics]]] =
     cluster(key)
       .flatMap { status =>
@@ -304,7 +350,7 @@ trait Collie {
           case ClusterKind.SHABONDI =>
             dataCollie.value[ShabondiClusterInfo](key).map(_.copy(aliveNodes = status.aliveNodes))
         }).map { clusterInfo =>
-          counterMBeans(clusterInfo)
+          val counters = (if (includeCounters) counterMBeans(clusterInfo) else Map.empty[String, Seq[CounterMBean]])
             .map {
               case (hostname, counters) =>
                 hostname -> counters.groupBy(_.key()).map {
@@ -322,7 +368,42 @@ trait Collie {
                       )
                     })
                 }
-            } ++ topicMeters(clusterInfo)
+            }
+          val gauges = gaugeMBeans(clusterInfo)
+            .map {
+              case (hostname, gauges) =>
+                hostname -> gauges.groupBy(_.key()).map {
+                  case (key, gauges) =>
+                    key -> Metrics(gauges.map { gauge =>
+                      Meter(
+                        name = gauge.item,
+                        value = gauge.getValue,
+                        unit = gauge.getUnit,
+                        document = gauge.getDocument,
+                        queryTime = gauge.getQueryTime,
+                        startTime = Some(gauge.getStartTime),
+                        lastModified = Some(gauge.getLastModified),
+                        valueInPerSec = None
+                      )
+                    })
+                }
+            }
+          val histograms = histogramMBeans(clusterInfo)
+            .map {
+              case (hostname, histograms) =>
+                hostname -> histograms.groupBy(_.key()).map {
+                  case (key, histograms) => key -> Metrics(histograms.flatMap(Collie.toMeters))
+                }
+            }
+          val meters = meterMBeans(clusterInfo)
+            .map {
+              case (hostname, meters) =>
+                hostname -> meters.groupBy(_.key()).map {
+                  case (key, meters) => key -> Metrics(meters.flatMap(Collie.toRateMeters))
+                }
+            }
+          (counters.toSeq ++ gauges ++ histograms ++ meters)
+            .foldLeft(Map.empty[String, Map[ObjectKey, Metrics]])(Collie.mergeMetrics) ++ topicMeters(clusterInfo)
             .map {
               case (hostname, meters) =>
                 hostname -> meters.groupBy(_.topicName()).flatMap {
@@ -380,6 +461,99 @@ trait Collie {
 }
 
 object Collie {
+  private[this] val LOG = Logger(classOf[Collie])
+
+  /**
+    * fetch the beans of specific type from all alive nodes. The domain and type are pushed to the remote bean server.
+    * The node which fails to respond in time is skipped so a slow node can't block the refresh of metrics.
+    */
+  private[agent] def beans[T](cluster: ClusterInfo, domain: String, typeKey: String, typeValue: String)(
+    f: BeanChannel => java.util.List[T]
+  ): Map[String, Seq[T]] =
+    cluster.aliveNodes.flatMap { hostname =>
+      try Some(
+        hostname -> f(
+          BeanChannel
+            .builder()
+            .hostname(hostname)
+            .port(cluster.jmxPort)
+            .domainName(domain)
+            .property(typeKey, typeValue)
+            .propertyListPattern()
+            .build()
+        ).asScala.toSeq
+      )
+      catch {
+        case e: Throwable =>
+          LOG.warn(s"failed to fetch $typeValue beans from $hostname:${cluster.jmxPort}", e)
+          None
+      }
+    }.toMap
+
+  /**
+    * merge the metrics of same host and same object.
+    */
+  private[agent] def mergeMetrics(
+    metrics: Map[String, Map[ObjectKey, Metrics]],
+    hostAndMetrics: (String, Map[ObjectKey, Metrics])
+  ): Map[String, Map[ObjectKey, Metrics]] = {
+    val (hostname, keyAndMetrics) = hostAndMetrics
+    val previous                  = metrics.getOrElse(hostname, Map.empty)
+    metrics + (hostname -> (previous ++ keyAndMetrics.map {
+      case (key, m) => key -> Metrics(previous.get(key).map(_.meters).getOrElse(Seq.empty) ++ m.meters)
+    }))
+  }
+
+  /**
+    * a histogram is converted to multiple meters (count, mean, max and percentiles).
+    */
+  private[agent] def toMeters(histogram: HistogramMBean): Seq[Meter] =
+    Seq(
+      "count" -> histogram.getCount.toDouble,
+      "mean"  -> histogram.getMean,
+      "max"   -> histogram.getMax.toDouble,
+      "p50"   -> histogram.getP50.toDouble,
+      "p95"   -> histogram.getP95.toDouble,
+      "p99"   -> histogram.getP99.toDouble,
+      "p999"  -> histogram.getP999.toDouble
+    ).map {
+      case (name, value) =>
+        Meter(
+          name = s"${histogram.item}.$name",
+          value = value,
+          unit = if (name == "count") "count" else histogram.getUnit,
+          document = histogram.getDocument,
+          queryTime = histogram.getQueryTime,
+          startTime = Some(histogram.getStartTime),
+          lastModified = Some(histogram.getLastModified),
+          valueInPerSec = None
+        )
+    }
+
+  /**
+    * a meter is converted to multiple meters (count and rates). The count carries the mean rate.
+    */
+  private[agent] def toRateMeters(meter: MeterMBean): Seq[Meter] =
+    Seq(
+      ("count", meter.getCount.toDouble, Some(meter.getMeanRate)),
+      ("rate", meter.getInstantRate, None),
+      ("m1Rate", meter.getOneMinuteRate, None),
+      ("m5Rate", meter.getFiveMinuteRate, None),
+      ("m15Rate", meter.getFifteenMinuteRate, None)
+    ).map {
+      case (name, value, valueInPerSec) =>
+        Meter(
+          name = s"${meter.item}.$name",
+          value = value,
+          unit = if (name == "count") meter.getUnit else s"${meter.getUnit} / second",
+          document = meter.getDocument,
+          queryTime = meter.getQueryTime,
+          startTime = Some(meter.getStartTime),
+          lastModified = Some(meter.getLastModified),
+          valueInPerSec = valueInPerSec
+        )
+    }
+
   /**
     * used to distinguish the cluster name and service name
     */
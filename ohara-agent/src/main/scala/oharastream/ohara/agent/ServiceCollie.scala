@@ -31,7 +31,7 @@ import oharastream.ohara.client.configurator.VolumeApi.VolumeState
 import oharastream.ohara.common.annotations.Optional
 import oharastream.ohara.common.pattern.Builder
 import oharastream.ohara.common.setting.{ObjectKey, WithDefinitions}
-import oharastream.ohara.common.util.Releasable
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
 import oharastream.ohara.kafka.RowPartitioner
 import oharastream.ohara.kafka.connector.{RowSinkConnector, RowSourceConnector}
 import oharastream.ohara.stream.Stream
@@ -299,7 +299,9 @@ object ServiceCollie {
   class DockerModeBuilder private[ServiceCollie] extends Builder[ServiceCollie] {
     private[this] var dataCollie: DataCollie           = _
     private[this] var cacheTimeout: Duration           = Duration(3, TimeUnit.SECONDS)
+    private[this] var cacheRefreshInterval: Duration   = Duration(30, TimeUnit.SECONDS)
     private[this] var cacheThreadPool: ExecutorService = _
+    private[this] var metricsPushUrl: Option[String]   = None
 
     def dataCollie(dataCollie: DataCollie): DockerModeBuilder = {
       this.dataCollie = Objects.requireNonNull(dataCollie)
@@ -312,22 +314,47 @@ object ServiceCollie {
       this
     }
 
+    /**
+      * the cache is updated by the container events so the full refresh, which inspects all containers, is a fallback
+      * used to catch up the lost events. It also reopens the broken event subscriptions.
+      * @param cacheRefreshInterval the interval of full refresh
+      * @return this builder
+      */
+    @Optional("default is 30 seconds")
+    def cacheRefreshInterval(cacheRefreshInterval: Duration): DockerModeBuilder = {
+      this.cacheRefreshInterval = Objects.requireNonNull(cacheRefreshInterval)
+      this
+    }
+
     @Optional("The initial size of default pool is equal with number of cores")
     def cacheThreadPool(cacheThreadPool: ExecutorService): DockerModeBuilder = {
       this.cacheThreadPool = Objects.requireNonNull(cacheThreadPool)
       this
     }
 
+    /**
+      * enable the push mode of metrics. The worker, stream and shabondi push their counters to the url.
+      * @param metricsPushUrl url of endpoint
+      * @return this builder
+      */
+    @Optional("default is disabled")
+    def metricsPushUrl(metricsPushUrl: String): DockerModeBuilder = {
+      this.metricsPushUrl = Some(CommonUtils.requireNonEmpty(metricsPushUrl))
+      this
+    }
+
     /**
       * We don't return ServiceCollieImpl since it is a private implementation
       * @return
       */
     override def build: ServiceCollie = new ServiceCollieImpl(
       cacheTimeout = Objects.requireNonNull(cacheTimeout),
+      cacheRefreshInterval = Objects.requireNonNull(cacheRefreshInterval),
       dataCollie = Objects.requireNonNull(dataCollie),
       cacheThreadPool =
         if (cacheThreadPool == null) Executors.newFixedThreadPool(Runtime.getRuntime.availableProcessors())
-        else cacheThreadPool
+        else cacheThreadPool,
+      metricsPushUrl = metricsPushUrl
     )
   }
 
@@ -339,8 +366,9 @@ object ServiceCollie {
   def k8sModeBuilder: K8sModeBuilder = new K8sModeBuilder
 
   class K8sModeBuilder private[ServiceCollie] extends Builder[ServiceCollie] {
-    private[this] var dataCollie: DataCollie = _
-    private[this] var k8sClient: K8SClient   = _
+    private[this] var dataCollie: DataCollie         = _
+    private[this] var k8sClient: K8SClient           = _
+    private[this] var metricsPushUrl: Option[String] = None
 
     def dataCollie(dataCollie: DataCollie): K8sModeBuilder = {
       this.dataCollie = Objects.requireNonNull(dataCollie)
@@ -352,13 +380,25 @@ object ServiceCollie {
       this
     }
 
+    /**
+      * enable the push mode of metrics. The worker, stream and shabondi push their counters to the url.
+      * @param metricsPushUrl url of endpoint
+      * @return this builder
+      */
+    @Optional("default is disabled")
+    def metricsPushUrl(metricsPushUrl: String): K8sModeBuilder = {
+      this.metricsPushUrl = Some(CommonUtils.requireNonEmpty(metricsPushUrl))
+      this
+    }
+
     /**
       * We don't return ServiceCollieImpl since it is a private implementation
       * @return
       */
     override def build: ServiceCollie = new K8SServiceCollieImpl(
       dataCollie = Objects.requireNonNull(dataCollie),
-      containerClient = Objects.requireNonNull(k8sClient)
+      containerClient = Objects.requireNonNull(k8sClient),
+      metricsPushUrl = metricsPushUrl
     )
   }
 }
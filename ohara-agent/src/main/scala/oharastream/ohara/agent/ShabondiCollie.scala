@@ -81,7 +81,7 @@ trait ShabondiCollie extends Collie {
                   "JMX_PORT"        -> creation.jmxPort.toString,
                   "JMX_HOSTNAME"    -> newNode.hostname,
                   "OHARA_HEAP_OPTS" -> s"-Xms${creation.initHeap}M -Xmx${creation.maxHeap}M"
-                )
+                ) ++ metricsPushEnvironments
 
                 val containerInfo = newContainerInfo(newNode, creation, env)
                 val arguments = creation.raw.map {
@@ -111,13 +111,16 @@ trait StreamCollie extends Collie {
                       // define the urls as string list so as to simplify the script for stream
                       "STREAM_JAR_URLS" -> fileInfo.url.get.toURI.toASCIIString,
                       "OHARA_HEAP_OPTS" -> s"-Xms${creation.initHeap}M -Xmx${creation.maxHeap}M"
-                    ),
+                    ) ++ metricsPushEnvironments,
                     // we should set the hostname to container name in order to avoid duplicate name with other containers
                     hostname = Collie.containerHostName(creation.group, creation.name, kind)
                   )
 
+                  // the node hostname is advertised by the query server since it is reachable by other instances
+                  // and configurator
+                  val queryHostname = s"${StreamSetting.QUERY_HOSTNAME_KEY}=${newNode.hostname}"
                   val arguments =
-                    Seq(classOf[Stream].getName) ++ creation.raw
+                    Seq(classOf[Stream].getName, queryHostname) ++ creation.raw
                       .map {
                         case (k, v) =>
                           k -> (v match {
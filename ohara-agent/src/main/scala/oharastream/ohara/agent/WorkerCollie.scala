@@ -124,7 +124,7 @@ trait WorkerCollie extends Collie {
                   // define the urls as string list so as to simplify the script for worker
                   "WORKER_PLUGIN_URLS"     -> pluginInfos.map(_.url.get.toURI.toASCIIString).mkString(","),
                   "WORKER_SHARED_JAR_URLS" -> sharedJarInfos.map(_.url.get.toURI.toASCIIString).mkString(",")
-                ),
+                ) ++ metricsPushEnvironments,
                 hostname = Collie.containerHostName(creation.group, creation.name, kind)
               )
 
@@ -26,7 +26,8 @@ import scala.concurrent.{ExecutionContext, Future}
 private abstract class BasicCollieImpl(
   val dataCollie: DataCollie,
   val containerClient: DockerClient,
-  clusterCache: ServiceCache
+  clusterCache: ServiceCache,
+  override protected val metricsPushUrl: Option[String]
 ) extends Collie {
   final override def clusters()(implicit executionContext: ExecutionContext): Future[Seq[ClusterStatus]] =
     Future.successful(clusterCache.snapshot.filter(_.kind == kind))
@@ -22,7 +22,7 @@ import java.util.concurrent.ConcurrentHashMap
 import com.typesafe.scalalogging.Logger
 import oharastream.ohara.agent.container.ContainerClient.VolumeCreator
 import oharastream.ohara.agent.container.{ContainerClient, ContainerName, ContainerVolume}
-import oharastream.ohara.agent.docker.DockerClient.{ContainerCreator, Inspector}
+import oharastream.ohara.agent.docker.DockerClient.{ContainerCreator, ContainerEvent, Inspector}
 import oharastream.ohara.agent.{Agent, DataCollie}
 import oharastream.ohara.client.configurator.ContainerApi.{ContainerInfo, PortMapping}
 import oharastream.ohara.client.configurator.NodeApi.{Node, Resource}
@@ -41,6 +41,34 @@ import scala.jdk.CollectionConverters._
 trait DockerClient extends ContainerClient {
   override def containerCreator: ContainerCreator
   def containerInspector: Inspector
+
+  /**
+    * list all containers. The size of container is expensive to docker so it is fetched only if it is requested.
+    * @param size true if the size of container is required. Otherwise, the size is -1
+    * @return containers
+    */
+  def containers(size: Boolean)(implicit executionContext: ExecutionContext): Future[Seq[ContainerInfo]]
+
+  /**
+    * inspect the containers of a node by single docker command. The ids which are not found are ignored.
+    * @param nodeName node name
+    * @param ids container ids
+    * @return the existent containers
+    */
+  def inspect(nodeName: String, ids: Set[String])(
+    implicit executionContext: ExecutionContext
+  ): Future[Seq[ContainerInfo]]
+
+  /**
+    * subscribe to the container events of a node. The events are pushed by a persistent ssh channel so the caller
+    * can update the status of containers without polling all containers.
+    * @param nodeName node name
+    * @param listener event listener. It is called by the ssh thread so it should not do any blocking work
+    * @return subscription
+    */
+  def events(nodeName: String, listener: ContainerEvent => Unit)(
+    implicit executionContext: ExecutionContext
+  ): Future[Agent.Subscription]
 }
 
 object DockerClient {
@@ -87,7 +115,7 @@ object DockerClient {
     Id: String,
     Created: String,
     Name: String,
-    SizeRw: Long,
+    SizeRw: Option[Long],
     State: State,
     Config: Config,
     NetworkSettings: ContainerNetwork
@@ -95,6 +123,20 @@ object DockerClient {
 
   private[this] implicit val DETAILS_FORMAT: RootJsonFormat[Details] = jsonFormat7(Details)
 
+  private[this] case class Actor(ID: String, Attributes: Map[String, String])
+
+  private[this] implicit val ACTOR_FORMAT: RootJsonFormat[Actor] = jsonFormat2(Actor)
+
+  private[this] case class Event(Action: String, Actor: Actor)
+
+  private[this] implicit val EVENT_FORMAT: RootJsonFormat[Event] = jsonFormat2(Event)
+
+  /**
+    * the docker events which change the state of container. Noted that "stop", "kill" and "restart" are followed by
+    * "die" and "start" so they are excluded.
+    */
+  private[this] val EVENT_ACTIONS = Seq("create", "start", "die", "pause", "unpause", "destroy")
+
   private[this] case class Info(NCPU: Int, MemTotal: Long)
 
   private[this] implicit val INFO_FORMAT: RootJsonFormat[Info] = jsonFormat2(Info)
@@ -344,64 +386,125 @@ object DockerClient {
       }
 
     override def containers()(implicit executionContext: ExecutionContext): Future[Seq[ContainerInfo]] =
+      containers(false)
+
+    override def containers(size: Boolean)(
+      implicit executionContext: ExecutionContext
+    ): Future[Seq[ContainerInfo]] =
       containerNames()
-        .flatMap { containerNames =>
-          Future.sequence(containerNames.map { containerName =>
-            agent(containerName.nodeName)
-              .map {
-                agent =>
-                  Some(
-                    agent
-                      .execute(s"docker inspect --format '{{json .}}' --size ${containerName.id}")
-                      .map(_.parseJson)
-                      .map(DETAILS_FORMAT.read)
-                      .map { details =>
-                        ContainerInfo(
-                          nodeName = agent.hostname,
-                          id = details.Id,
-                          imageName = details.Config.Image,
-                          // we prefer to use enum to list the finite state and the constant strings are all upper case
-                          // hence, we convert the string to upper case here.
-                          state = details.State.Status.toUpperCase,
-                          kind = "DOCKER",
-                          name = containerName.name,
-                          portMappings = details.NetworkSettings.Ports
-                            .filter(_._1.contains("/tcp"))
-                            .flatMap {
-                              case (portAndProtocol, hostIpAndPort) =>
-                                hostIpAndPort
-                                  .map(_.HostPort.toInt)
-                                  .map(
-                                    hostPort =>
-                                      PortMapping(
-                                        hostIp = agent.hostname,
-                                        hostPort = hostPort,
-                                        containerPort = portAndProtocol.replace("/tcp", "").toInt
-                                      )
-                                  )
-                            }
-                            .toSeq,
-                          size = details.SizeRw,
-                          environments = details.Config.Env.flatMap { line =>
-                            val index = line.indexOf("=")
-                            if (index != 0 && index != line.length - 1)
-                              Some(line.substring(0, index) -> line.substring(index + 1))
-                            else None
-                          }.toMap,
-                          hostname = details.Config.Hostname
+        .flatMap(
+          containerNames =>
+            Future.traverse(containerNames.groupBy(_.nodeName).toSeq) {
+              case (nodeName, containerNames) =>
+                inspect(nodeName, containerNames.map(_.id).toSet, size)
+                  .recover {
+                    case e: Throwable =>
+                      DockerClient.LOG.error(s"fail to inspect dockers on $nodeName", e)
+                      Seq.empty
+                  }
+            }
+        )
+        .map(_.flatten)
+
+    override def inspect(nodeName: String, ids: Set[String])(
+      implicit executionContext: ExecutionContext
+    ): Future[Seq[ContainerInfo]] = inspect(nodeName, ids, false)
+
+    /**
+      * inspect all containers by single command. docker fails to inspect the nonexistent containers but it still
+      * outputs the others so the exit code is ignored. The error messages are logged rather than thrown.
+      */
+    private[this] def inspect(nodeName: String, ids: Set[String], size: Boolean)(
+      implicit executionContext: ExecutionContext
+    ): Future[Seq[ContainerInfo]] =
+      if (ids.isEmpty) Future.successful(Seq.empty)
+      else
+        agent(nodeName).map { agent =>
+          agent
+            .execute(
+              Seq(
+                "docker inspect --format '{{json .}}'",
+                if (size) "--size" else "",
+                ids.mkString(" "),
+                "2>&1 || true"
+              ).filter(_.nonEmpty).mkString(" ")
+            )
+            .map(_.split("\n").toSeq.filter(_.nonEmpty))
+            .getOrElse(Seq.empty)
+            // the details are json objects and the others are the error messages of docker
+            .filter { line =>
+              val isJson = line.startsWith("{")
+              if (!isJson) LOG.warn(s"failed to inspect containers on $nodeName: $line")
+              isJson
+            }
+            .map(_.parseJson)
+            .map(DETAILS_FORMAT.read)
+            .map { details =>
+              ContainerInfo(
+                nodeName = agent.hostname,
+                id = details.Id,
+                imageName = details.Config.Image,
+                // we prefer to use enum to list the finite state and the constant strings are all upper case
+                // hence, we convert the string to upper case here.
+                state = details.State.Status.toUpperCase,
+                kind = "DOCKER",
+                // docker adds "/" to the head of container name
+                name = details.Name.stripPrefix("/"),
+                portMappings = details.NetworkSettings.Ports
+                  .filter(_._1.contains("/tcp"))
+                  .flatMap {
+                    case (portAndProtocol, hostIpAndPort) =>
+                      hostIpAndPort
+                        .map(_.HostPort.toInt)
+                        .map(
+                          hostPort =>
+                            PortMapping(
+                              hostIp = agent.hostname,
+                              hostPort = hostPort,
+                              containerPort = portAndProtocol.replace("/tcp", "").toInt
+                            )
                         )
-                      }
-                      .getOrElse(throw new IllegalArgumentException(s"no response from ${agent.hostname}"))
+                  }
+                  .toSeq,
+                size = details.SizeRw.getOrElse(-1),
+                environments = details.Config.Env.flatMap { line =>
+                  val index = line.indexOf("=")
+                  if (index != 0 && index != line.length - 1)
+                    Some(line.substring(0, index) -> line.substring(index + 1))
+                  else None
+                }.toMap,
+                hostname = details.Config.Hostname
+              )
+            }
+        }
+
+    override def events(nodeName: String, listener: ContainerEvent => Unit)(
+      implicit executionContext: ExecutionContext
+    ): Future[Agent.Subscription] =
+      agent(nodeName).map(
+        agent =>
+          agent.stream(
+            Seq(
+              "docker events --format '{{json .}}' --filter type=container",
+              s"--filter label=$LABEL_KEY=$LABEL_VALUE",
+              EVENT_ACTIONS.map(action => s"--filter event=$action").mkString(" ")
+            ).mkString(" "),
+            line =>
+              try {
+                val event = EVENT_FORMAT.read(line.parseJson)
+                listener(
+                  ContainerEvent(
+                    nodeName = agent.hostname,
+                    id = event.Actor.ID,
+                    name = event.Actor.Attributes.getOrElse("name", ""),
+                    action = event.Action
                   )
+                )
+              } catch {
+                case e: Throwable => LOG.error(s"failed to handle the docker event:$line from ${agent.hostname}", e)
               }
-              .recover {
-                case e: Throwable =>
-                  DockerClient.LOG.error(s"fail to inspect docker:${containerName.name}", e)
-                  None
-              }
-          })
-        }
-        .map(_.flatten.toSeq)
+          )
+      )
 
     override def imageNames()(implicit executionContext: ExecutionContext): Future[Map[String, Seq[String]]] =
       agents()
@@ -490,6 +593,22 @@ object DockerClient {
           })
         }.filter(_._2.nonEmpty).toMap)
   }
+  //-----------------------------[Event]-----------------------------//
+
+  /**
+    * the state change of container reported by docker daemon.
+    * @param nodeName the node hosting the container
+    * @param id container id
+    * @param name container name
+    * @param action docker action. for example, create, start, die and destroy
+    */
+  case class ContainerEvent(nodeName: String, id: String, name: String, action: String) {
+    /**
+      * @return true if the container is gone
+      */
+    def removed: Boolean = action == "destroy"
+  }
+
   //-----------------------------[Inspector]-----------------------------//
 
   /**
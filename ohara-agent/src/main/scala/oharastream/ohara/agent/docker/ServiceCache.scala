@@ -25,6 +25,8 @@ import oharastream.ohara.common.cache.RefreshableCache
 import oharastream.ohara.common.setting.ObjectKey
 import oharastream.ohara.common.util.{CommonUtils, Releasable}
 
+import scala.collection.mutable
+import scala.compat.java8.OptionConverters._
 import scala.concurrent.duration.Duration
 import scala.jdk.CollectionConverters._
 
@@ -43,6 +45,13 @@ trait ServiceCache extends Releasable {
     */
   def snapshot: Seq[ClusterStatus]
 
+  /**
+    * @param kind cluster kind
+    * @param key cluster key
+    * @return the cached cluster or None if the cluster is not cached
+    */
+  def get(kind: ClusterKind, key: ObjectKey): Option[ClusterStatus]
+
   /**
     * The inner time-based auto-refresher is enough to most use cases. However, we are always in a situation that we should
     * update the cache right now. This method save your life that you can request the inner thread to update the cache.
@@ -63,6 +72,16 @@ trait ServiceCache extends Releasable {
     * @param clusterStatus cluster info
     */
   def remove(clusterStatus: ClusterStatus): Unit
+
+  /**
+    * update the cached cluster by a function. The function is called with the cached cluster, and the returned cluster
+    * is put to cache. None means the cluster is removed. Noted: the read and write are atomic so the other puts and
+    * removes can't interleave them.
+    * @param kind cluster kind
+    * @param key cluster key
+    * @param f function generating the new cluster
+    */
+  def update(kind: ClusterKind, key: ObjectKey)(f: Option[ClusterStatus] => Option[ClusterStatus]): Unit
 }
 
 object ServiceCache {
@@ -122,19 +141,54 @@ object ServiceCache {
     override def build: ServiceCache = {
       checkArguments()
       new ServiceCache {
+        /**
+          * the time of last put/remove of each cluster. The data from supplier is older than the put/remove happening
+          * after the supplier is called so it does not overwrite the cluster. The removed clusters are kept by this map
+          * (as tombstones) until the following refresh. Noted: it is guarded by this object.
+          */
+        private[this] val writeTimes = mutable.Map[RequestKey, Long]()
+
         private[this] val cache = RefreshableCache
           .builder[RequestKey, ClusterStatus]()
-          .supplier(
-            () => supplier().map(clusterStatus => key(clusterStatus) -> clusterStatus).toMap.asJava
-          )
+          .supplier(() => {
+            val startTime = CommonUtils.current()
+            merge(startTime, supplier().map(clusterStatus => key(clusterStatus) -> clusterStatus).toMap)
+            // the data is merged to cache already so nothing is passed to RefreshableCache
+            java.util.Map.of[RequestKey, ClusterStatus]()
+          })
           .frequency(java.time.Duration.ofMillis(frequency.toMillis))
-          .preRemoveObserver((key, _) => CommonUtils.current() - key.createdTime > lazyRemove.toMillis)
+          // the removal is done by merge
+          .preRemoveObserver((_, _) => false)
           .build()
 
+        /**
+          * apply the data from supplier to cache. It is atomic with the put/remove so the newer writes are not lost.
+          * @param startTime the time of calling supplier
+          * @param data the data from supplier
+          */
+        private[this] def merge(startTime: Long, data: Map[RequestKey, ClusterStatus]): Unit = this.synchronized {
+          val now = CommonUtils.current()
+
+          def newer(key: RequestKey): Boolean = writeTimes.get(key).exists(_ >= startTime)
+          // the cluster which is just added is not removed. see lazyRemove
+          def recent(key: RequestKey): Boolean = writeTimes.get(key).exists(now - _ <= lazyRemove.toMillis)
+          cache
+            .snapshot()
+            .keySet()
+            .asScala
+            .filter(key => !data.contains(key) && !newer(key) && !recent(key))
+            .foreach(key => cache.remove(key))
+          cache.put(data.filter(e => !newer(e._1)).asJava)
+          writeTimes.filterInPlace((_, time) => time >= startTime || now - time <= lazyRemove.toMillis)
+        }
+
         override def close(): Unit = Releasable.close(cache)
 
         override def snapshot: Seq[ClusterStatus] = cache.snapshot().asScala.values.toSeq
 
+        override def get(kind: ClusterKind, key: ObjectKey): Option[ClusterStatus] =
+          cache.get(RequestKey(key = key, kind = kind, createdTime = CommonUtils.current())).asScala
+
         override def requestUpdate(): Unit = cache.requestUpdate()
 
         private def key(clusterStatus: ClusterStatus): RequestKey = RequestKey(
@@ -143,11 +197,27 @@ object ServiceCache {
           createdTime = CommonUtils.current()
         )
 
-        override def put(clusterStatus: ClusterStatus): Unit =
-          cache.put(key(clusterStatus), clusterStatus)
-
-        override def remove(clusterStatus: ClusterStatus): Unit =
-          cache.remove(key(clusterStatus))
+        override def put(clusterStatus: ClusterStatus): Unit = this.synchronized {
+          val requestKey = key(clusterStatus)
+          writeTimes.put(requestKey, requestKey.createdTime)
+          cache.put(requestKey, clusterStatus)
+        }
+
+        override def remove(clusterStatus: ClusterStatus): Unit = this.synchronized {
+          val requestKey = key(clusterStatus)
+          writeTimes.put(requestKey, requestKey.createdTime)
+          cache.remove(requestKey)
+        }
+
+        override def update(kind: ClusterKind, key: ObjectKey)(
+          f: Option[ClusterStatus] => Option[ClusterStatus]
+        ): Unit = this.synchronized {
+          val previous = get(kind, key)
+          f(previous) match {
+            case Some(clusterStatus) => put(clusterStatus)
+            case None                => previous.foreach(remove)
+          }
+        }
       }
     }
   }
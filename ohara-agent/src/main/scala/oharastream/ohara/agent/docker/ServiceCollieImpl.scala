@@ -16,8 +16,11 @@
 
 package oharastream.ohara.agent.docker
 
-import java.util.concurrent.ExecutorService
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.{ConcurrentHashMap, ExecutorService, Executors, LinkedBlockingQueue}
 
+import com.typesafe.scalalogging.Logger
+import oharastream.ohara.agent.docker.DockerClient.ContainerEvent
 import oharastream.ohara.agent.{ClusterKind, ClusterStatus, _}
 import oharastream.ohara.client.configurator.ContainerApi.ContainerInfo
 import oharastream.ohara.client.configurator.NodeApi.Node
@@ -26,30 +29,57 @@ import oharastream.ohara.common.util.Releasable
 
 import scala.concurrent.duration.Duration
 import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.jdk.CollectionConverters._
 
+/**
+  * The clusters are cached by ServiceCache. The cache is updated by the container events pushed by docker daemon, and
+  * the full refresh, which inspects all containers, is a fallback to catch up the events lost by broken connections.
+  */
 // accessible to configurator
-private[ohara] class ServiceCollieImpl(cacheTimeout: Duration, dataCollie: DataCollie, cacheThreadPool: ExecutorService)
-    extends ServiceCollie {
+private[ohara] class ServiceCollieImpl(
+  cacheTimeout: Duration,
+  cacheRefreshInterval: Duration,
+  dataCollie: DataCollie,
+  cacheThreadPool: ExecutorService,
+  metricsPushUrl: Option[String] = None
+) extends ServiceCollie {
   override val containerClient: DockerClient = DockerClient(dataCollie)
 
+  /**
+    * the event subscription of each node.
+    */
+  private[this] val subscriptions = new ConcurrentHashMap[String, Agent.Subscription]()
+
+  private[this] val events = new LinkedBlockingQueue[ContainerEvent]()
+
+  private[this] val eventScheduled = new AtomicBoolean(false)
+
+  /**
+    * a single thread is used to process the events so the updates are applied in order.
+    */
+  private[this] val eventExecutor = Executors.newSingleThreadExecutor()
+
   private[this] val clusterCache: ServiceCache = ServiceCache.builder
-    .frequency(cacheTimeout)
+    .frequency(cacheRefreshInterval)
     // TODO: 5 * timeout is enough ??? by chia
-    .supplier(() => Await.result(doClusters(ExecutionContext.fromExecutor(cacheThreadPool)), cacheTimeout * 5))
+    .supplier(() => {
+      implicit val executionContext: ExecutionContext = ExecutionContext.fromExecutor(cacheThreadPool)
+      Await.result(subscribe().flatMap(_ => doClusters), cacheTimeout * 5)
+    })
     // Giving some time to process to complete the build and then we can remove it from cache safety.
     .lazyRemove(cacheTimeout)
     .build()
 
-  override val zookeeperCollie: ZookeeperCollie = new BasicCollieImpl(dataCollie, containerClient, clusterCache)
-    with ZookeeperCollie
-  override val brokerCollie: BrokerCollie = new BasicCollieImpl(dataCollie, containerClient, clusterCache)
-    with BrokerCollie
-  override val workerCollie: WorkerCollie = new BasicCollieImpl(dataCollie, containerClient, clusterCache)
-    with WorkerCollie
-  override val streamCollie: StreamCollie = new BasicCollieImpl(dataCollie, containerClient, clusterCache)
-    with StreamCollie
-  override val shabondiCollie: ShabondiCollie = new BasicCollieImpl(dataCollie, containerClient, clusterCache)
-    with ShabondiCollie
+  override val zookeeperCollie: ZookeeperCollie =
+    new BasicCollieImpl(dataCollie, containerClient, clusterCache, metricsPushUrl) with ZookeeperCollie
+  override val brokerCollie: BrokerCollie =
+    new BasicCollieImpl(dataCollie, containerClient, clusterCache, metricsPushUrl) with BrokerCollie
+  override val workerCollie: WorkerCollie =
+    new BasicCollieImpl(dataCollie, containerClient, clusterCache, metricsPushUrl) with WorkerCollie
+  override val streamCollie: StreamCollie =
+    new BasicCollieImpl(dataCollie, containerClient, clusterCache, metricsPushUrl) with StreamCollie
+  override val shabondiCollie: ShabondiCollie =
+    new BasicCollieImpl(dataCollie, containerClient, clusterCache, metricsPushUrl) with ShabondiCollie
 
   private[this] def doClusters(
     implicit executionContext: ExecutionContext
@@ -80,7 +110,99 @@ private[ohara] class ServiceCollieImpl(cacheTimeout: Duration, dataCollie: DataC
           parse(ClusterKind.SHABONDI, shabondiCollie.toStatus)
       }
 
+  private[this] def collies: Seq[Collie] =
+    Seq(zookeeperCollie, brokerCollie, workerCollie, streamCollie, shabondiCollie)
+
+  /**
+    * open the event subscriptions for new nodes and the nodes having broken subscription. The subscriptions of removed
+    * nodes are closed.
+    */
+  private[this] def subscribe()(implicit executionContext: ExecutionContext): Future[Unit] =
+    dataCollie
+      .values[Node]()
+      .map(_.map(_.hostname).toSet)
+      .flatMap { hostnames =>
+        subscriptions.asScala.toSeq
+          .filter {
+            case (hostname, subscription) => !hostnames.contains(hostname) || !subscription.isOpen
+          }
+          .foreach {
+            case (hostname, subscription) =>
+              subscriptions.remove(hostname)
+              Releasable.close(subscription)
+          }
+        Future.traverse(hostnames.filterNot(subscriptions.containsKey)) { hostname =>
+          containerClient
+            .events(hostname, event => onEvent(event))
+            .map(subscription => Option(subscriptions.put(hostname, subscription)).foreach(s => Releasable.close(s)))
+            .recover {
+              case e: Throwable => ServiceCollieImpl.LOG.error(s"failed to subscribe to the events of $hostname", e)
+            }
+        }
+      }
+      .map(_ => ())
+      .recover {
+        case e: Throwable => ServiceCollieImpl.LOG.error("failed to subscribe to the events of nodes", e)
+      }
+
+  private[this] def onEvent(event: ContainerEvent): Unit = {
+    events.add(event)
+    if (eventScheduled.compareAndSet(false, true))
+      eventExecutor.execute { () =>
+        // reset the flag before draining the events so the events added later will be processed by next task
+        eventScheduled.set(false)
+        try processEvents()
+        catch {
+          case e: Throwable => ServiceCollieImpl.LOG.error("failed to process the container events", e)
+        }
+      }
+  }
+
+  /**
+    * apply the container events to cache. The changed containers of each node are inspected by single command, and
+    * only the clusters hosting the changed containers are updated.
+    */
+  private[this] def processEvents(): Unit = {
+    val drained = new java.util.ArrayList[ContainerEvent]()
+    events.drainTo(drained)
+    val (removed, changed) = drained.asScala.toSeq.partition(_.removed)
+    implicit val executionContext: ExecutionContext = ExecutionContext.fromExecutor(cacheThreadPool)
+    val latest = Await.result(
+      Future
+        .traverse(changed.groupBy(_.nodeName).toSeq) {
+          case (nodeName, nodeEvents) => containerClient.inspect(nodeName, nodeEvents.map(_.id).toSet)
+        }
+        .map(_.flatten),
+      cacheTimeout * 5
+    )
+
+    def belong(name: String, collie: Collie, key: ObjectKey): Boolean =
+      Collie.matched(name, collie.kind) && Collie.objectKeyOfContainerName(name) == key
+
+    (removed.map(_.name) ++ latest.map(_.name))
+      .flatMap(name => collies.find(collie => Collie.matched(name, collie.kind)).map(_ -> name))
+      .map {
+        case (collie, name) => collie -> Collie.objectKeyOfContainerName(name)
+      }
+      .distinct
+      .foreach {
+        case (collie, key) =>
+          // the read and write of cache are atomic so the concurrent updates from collies are not overwritten
+          clusterCache.update(collie.kind, key) { previous =>
+            val containers = ServiceCollieImpl.merge(
+              previous.map(_.containers).getOrElse(Seq.empty),
+              removed,
+              latest.filter(c => belong(c.name, collie, key))
+            )
+            if (containers.nonEmpty) Some(collie.toStatus(key, containers)) else None
+          }
+      }
+  }
+
   override def close(): Unit = {
+    subscriptions.values().asScala.foreach(subscription => Releasable.close(subscription))
+    subscriptions.clear()
+    Releasable.close(() => eventExecutor.shutdownNow())
     Releasable.close(containerClient)
     Releasable.close(clusterCache)
     Releasable.close(() => cacheThreadPool.shutdownNow())
@@ -99,4 +221,30 @@ private[ohara] class ServiceCollieImpl(cacheTimeout: Duration, dataCollie: DataC
           s"succeed to check the docker resources on ${node.name}"
         else throw new IllegalStateException(s"the docker on ${node.hostname} is unavailable")
       }
+
+  // load all clusters and subscribe to the events now rather than waiting for the first refresh.
+  // Noted: it must be the last statement since the refresh uses all collies.
+  clusterCache.requestUpdate()
+}
+
+object ServiceCollieImpl {
+  private[ServiceCollieImpl] val LOG = Logger(classOf[ServiceCollieImpl])
+
+  /**
+    * apply the container events to the containers of a cluster.
+    * @param containers the cached containers of cluster
+    * @param removed the events of removed containers
+    * @param latest the latest containers of cluster. They replace the cached containers having same node and name
+    * @return the containers of cluster
+    */
+  private[docker] def merge(
+    containers: Seq[ContainerInfo],
+    removed: Seq[ContainerEvent],
+    latest: Seq[ContainerInfo]
+  ): Seq[ContainerInfo] =
+    containers.filterNot(
+      container =>
+        removed.exists(e => container.nodeName == e.nodeName && container.name == e.name) ||
+          latest.exists(c => container.nodeName == c.nodeName && container.name == c.name)
+    ) ++ latest
 }
@@ -24,8 +24,11 @@ import oharastream.ohara.client.configurator.VolumeApi.Volume
 
 import scala.concurrent.{ExecutionContext, Future}
 
-private[this] abstract class K8SBasicCollieImpl(val dataCollie: DataCollie, val containerClient: K8SClient)
-    extends Collie {
+private[this] abstract class K8SBasicCollieImpl(
+  val dataCollie: DataCollie,
+  val containerClient: K8SClient,
+  override protected val metricsPushUrl: Option[String]
+) extends Collie {
   override protected def doRemove(clusterInfo: ClusterStatus, beRemovedContainer: Seq[ContainerInfo])(
     implicit executionContext: ExecutionContext
   ): Future[Unit] =
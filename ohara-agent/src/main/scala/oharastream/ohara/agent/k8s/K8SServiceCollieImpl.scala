@@ -22,18 +22,25 @@ import oharastream.ohara.client.configurator.NodeApi.Node
 import scala.concurrent.{ExecutionContext, Future}
 
 // accessible to configurator
-private[ohara] class K8SServiceCollieImpl(dataCollie: DataCollie, val containerClient: K8SClient)
-    extends ServiceCollie {
-  override val zookeeperCollie: ZookeeperCollie = new K8SBasicCollieImpl(dataCollie, containerClient)
-    with ZookeeperCollie
+private[ohara] class K8SServiceCollieImpl(
+  dataCollie: DataCollie,
+  val containerClient: K8SClient,
+  metricsPushUrl: Option[String] = None
+) extends ServiceCollie {
+  override val zookeeperCollie: ZookeeperCollie =
+    new K8SBasicCollieImpl(dataCollie, containerClient, metricsPushUrl) with ZookeeperCollie
 
-  override val brokerCollie: BrokerCollie = new K8SBasicCollieImpl(dataCollie, containerClient) with BrokerCollie
+  override val brokerCollie: BrokerCollie =
+    new K8SBasicCollieImpl(dataCollie, containerClient, metricsPushUrl) with BrokerCollie
 
-  override val workerCollie: WorkerCollie = new K8SBasicCollieImpl(dataCollie, containerClient) with WorkerCollie
+  override val workerCollie: WorkerCollie =
+    new K8SBasicCollieImpl(dataCollie, containerClient, metricsPushUrl) with WorkerCollie
 
-  override val streamCollie: StreamCollie = new K8SBasicCollieImpl(dataCollie, containerClient) with StreamCollie
+  override val streamCollie: StreamCollie =
+    new K8SBasicCollieImpl(dataCollie, containerClient, metricsPushUrl) with StreamCollie
 
-  override val shabondiCollie: ShabondiCollie = new K8SBasicCollieImpl(dataCollie, containerClient) with ShabondiCollie
+  override val shabondiCollie: ShabondiCollie =
+    new K8SBasicCollieImpl(dataCollie, containerClient, metricsPushUrl) with ShabondiCollie
 
   override def verifyNode(node: Node)(implicit executionContext: ExecutionContext): Future[String] =
     containerClient
@@ -16,8 +16,10 @@
 
 package oharastream.ohara.agent
 
+import java.util.concurrent.CopyOnWriteArrayList
+
 import oharastream.ohara.common.rule.OharaTest
-import oharastream.ohara.common.util.Releasable
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
 import oharastream.ohara.testing.service.SshdServer
 import org.junit.{After, Test}
 import org.scalatest.matchers.should.Matchers._
@@ -56,6 +58,22 @@ class TestAgent extends OharaTest {
     assertResponse("oharastream", java.util.List.of("ohara"))
   }
 
+  @Test
+  def testStream(): Unit = {
+    val agent =
+      Agent.builder.hostname(server.hostname).port(server.port).user(server.user).password(server.password).build
+    try {
+      val lines        = new CopyOnWriteArrayList[String]()
+      val subscription = agent.stream("hello", line => lines.add(line))
+      try {
+        CommonUtils.await(() => lines.size() == 1, java.time.Duration.ofSeconds(10))
+        lines.get(0) shouldBe "world"
+        // the command is done so the channel is closed by remote node
+        CommonUtils.await(() => !subscription.isOpen, java.time.Duration.ofSeconds(10))
+      } finally subscription.close()
+    } finally agent.close()
+  }
+
   @Test
   def nullHostname(): Unit = an[NullPointerException] should be thrownBy Agent.builder.hostname(null)
 
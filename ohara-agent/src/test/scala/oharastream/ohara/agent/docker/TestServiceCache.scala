@@ -16,7 +16,7 @@
 
 package oharastream.ohara.agent.docker
 
-import java.util.concurrent.TimeUnit
+import java.util.concurrent.{CountDownLatch, TimeUnit}
 import java.util.concurrent.atomic.AtomicInteger
 
 import oharastream.ohara.agent.docker.ServiceCache.RequestKey
@@ -134,10 +134,70 @@ class TestServiceCache extends OharaTest {
       .build
     try {
       cache.snapshot shouldBe Seq.empty
+      cache.get(clusterInfo0.kind, clusterInfo0.key) shouldBe None
       cache.put(clusterInfo0)
       cache.snapshot shouldBe Seq(clusterInfo0)
+      cache.get(clusterInfo0.kind, clusterInfo0.key) shouldBe Some(clusterInfo0)
+      cache.get(ClusterKind.BROKER, clusterInfo0.key) shouldBe None
       cache.remove(clusterInfo0)
       cache.snapshot shouldBe Seq.empty
+      cache.get(clusterInfo0.kind, clusterInfo0.key) shouldBe None
+    } finally cache.close()
+  }
+
+  @Test
+  def testUpdate(): Unit = {
+    val clusterInfo0 = status(CommonUtils.randomString())
+    val cache        = ServiceCache.builder.supplier(() => Seq.empty).frequency(Duration(1000, TimeUnit.SECONDS)).build
+    try {
+      cache.update(clusterInfo0.kind, clusterInfo0.key) { previous =>
+        previous shouldBe None
+        Some(clusterInfo0)
+      }
+      cache.snapshot shouldBe Seq(clusterInfo0)
+      val clusterInfo1 = clusterInfo0.copy(containers = Seq(fakeContainerInfo))
+      cache.update(clusterInfo0.kind, clusterInfo0.key) { previous =>
+        previous shouldBe Some(clusterInfo0)
+        Some(clusterInfo1)
+      }
+      cache.snapshot shouldBe Seq(clusterInfo1)
+      cache.update(clusterInfo0.kind, clusterInfo0.key)(_ => None)
+      cache.snapshot shouldBe Seq.empty
+    } finally cache.close()
+  }
+
+  @Test
+  def testRefreshDoesNotOverwriteNewerWrites(): Unit = {
+    val clusterInfo0 = status(CommonUtils.randomString())
+    val clusterInfo1 = status(CommonUtils.randomString())
+    val clusterInfo2 = status(CommonUtils.randomString())
+    val entered      = new CountDownLatch(1)
+    val release      = new CountDownLatch(1)
+    val cache = ServiceCache.builder
+      .supplier(() => {
+        entered.countDown()
+        release.await()
+        Seq(clusterInfo0, clusterInfo1, clusterInfo2)
+      })
+      .frequency(Duration(1000, TimeUnit.SECONDS))
+      .build
+    try {
+      // this write is older than refresh so it is overwritten
+      cache.put(clusterInfo2.copy(containers = Seq(fakeContainerInfo)))
+      cache.requestUpdate()
+      entered.await(10, TimeUnit.SECONDS) shouldBe true
+      // these writes are newer than the data from supplier
+      val newClusterInfo0 = clusterInfo0.copy(containers = Seq(fakeContainerInfo))
+      cache.put(newClusterInfo0)
+      cache.put(clusterInfo1)
+      cache.remove(clusterInfo1)
+      release.countDown()
+      CommonUtils.await(
+        () => cache.get(clusterInfo2.kind, clusterInfo2.key).contains(clusterInfo2),
+        java.time.Duration.ofSeconds(10)
+      )
+      cache.get(clusterInfo0.kind, clusterInfo0.key) shouldBe Some(newClusterInfo0)
+      cache.get(clusterInfo1.kind, clusterInfo1.key) shouldBe None
     } finally cache.close()
   }
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.agent.docker
+
+import oharastream.ohara.agent.docker.DockerClient.ContainerEvent
+import oharastream.ohara.client.configurator.ContainerApi.ContainerInfo
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.util.CommonUtils
+import org.junit.Test
+import org.scalatest.matchers.should.Matchers._
+
+class TestServiceCollieImpl extends OharaTest {
+  private[this] def container(nodeName: String, name: String): ContainerInfo = ContainerInfo(
+    nodeName = nodeName,
+    id = CommonUtils.randomString(),
+    imageName = CommonUtils.randomString(),
+    state = ContainerState.RUNNING.name,
+    kind = "DOCKER",
+    name = name,
+    size = -1,
+    portMappings = Seq.empty,
+    environments = Map.empty,
+    hostname = CommonUtils.randomString()
+  )
+
+  private[this] def removed(container: ContainerInfo): ContainerEvent =
+    ContainerEvent(nodeName = container.nodeName, id = container.id, name = container.name, action = "destroy")
+
+  @Test
+  def testAddContainer(): Unit = {
+    val c0 = container("node0", "c0")
+    val c1 = container("node1", "c1")
+    ServiceCollieImpl.merge(Seq.empty, Seq.empty, Seq(c0)) shouldBe Seq(c0)
+    ServiceCollieImpl.merge(Seq(c0), Seq.empty, Seq(c1)) shouldBe Seq(c0, c1)
+  }
+
+  @Test
+  def testReplaceContainer(): Unit = {
+    val c0    = container("node0", "c0")
+    val c1    = container("node1", "c1")
+    val newC0 = c0.copy(state = ContainerState.EXITED.name)
+    ServiceCollieImpl.merge(Seq(c0, c1), Seq.empty, Seq(newC0)) shouldBe Seq(c1, newC0)
+    // the containers having same name on different nodes are different containers
+    val c2 = container("node2", "c0")
+    ServiceCollieImpl.merge(Seq(c0, c1), Seq.empty, Seq(c2)) shouldBe Seq(c0, c1, c2)
+  }
+
+  @Test
+  def testRemoveContainer(): Unit = {
+    val c0 = container("node0", "c0")
+    val c1 = container("node1", "c1")
+    ServiceCollieImpl.merge(Seq(c0, c1), Seq(removed(c0)), Seq.empty) shouldBe Seq(c1)
+    ServiceCollieImpl.merge(Seq(c0, c1), Seq(removed(c0), removed(c1)), Seq.empty) shouldBe Seq.empty
+    // the event of nonexistent container is ignored
+    ServiceCollieImpl.merge(Seq(c1), Seq(removed(c0)), Seq.empty) shouldBe Seq(c1)
+  }
+
+  @Test
+  def testRecreateContainer(): Unit = {
+    val c0 = container("node0", "c0")
+    // the container is removed and then created again
+    val newC0 = container("node0", "c0")
+    ServiceCollieImpl.merge(Seq(c0), Seq(removed(c0)), Seq(newC0)) shouldBe Seq(newC0)
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.basic.Counter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the contention of atomic and striped {@link Counter}. All threads share the same counter,
+ * which is the case of connector tasks and stream threads updating the same metrics.
+ *
+ * <p>Run {@link #main(String[])} to see the throughput with 1 to 64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CounterBenchmark {
+  static final int[] NUMBER_OF_THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+  @Param({"atomic", "striped"})
+  public String mode;
+
+  private Counter counter;
+
+  @Setup
+  public void setup() {
+    Counter.Builder builder =
+        Counter.builder().key(CommonUtils.randomKey()).item(CommonUtils.randomString());
+    if (mode.equals("striped")) builder.striped();
+    counter = builder.build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    counter.close();
+  }
+
+  /** the hot path of connector and stream */
+  @Benchmark
+  public void add() {
+    counter.add(1);
+  }
+
+  /** the legacy path. The striped counter has to sum all cells to return the updated value */
+  @Benchmark
+  public long incrementAndGet() {
+    return counter.incrementAndGet();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    List<String> lines = new ArrayList<>();
+    for (int threads : NUMBER_OF_THREADS) {
+      Collection<RunResult> results =
+          new Runner(
+                  new OptionsBuilder()
+                      .include(Pattern.quote(CounterBenchmark.class.getName()))
+                      .threads(threads)
+                      .build())
+              .run();
+      results.forEach(
+          result ->
+              lines.add(
+                  String.format(
+                      "%-40s %-8s %3d threads %12.3f %s",
+                      result.getParams().getBenchmark(),
+                      result.getParams().getParam("mode"),
+                      threads,
+                      result.getPrimaryResult().getScore(),
+                      result.getPrimaryResult().getScoreUnit())));
+    }
+    lines.forEach(System.out::println);
+  }
+}
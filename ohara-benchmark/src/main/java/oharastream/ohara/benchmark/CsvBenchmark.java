@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Column;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.TimestampType;
+import oharastream.ohara.kafka.connector.RowSinkRecord;
+import oharastream.ohara.kafka.connector.RowSourceContext;
+import oharastream.ohara.kafka.connector.RowSourceRecord;
+import oharastream.ohara.kafka.connector.csv.sink.RecordUtils;
+import oharastream.ohara.kafka.connector.csv.source.CsvRecordConverter;
+import oharastream.ohara.kafka.connector.csv.source.OffsetCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * measure the conversions of csv connectors. The source converts a batch of lines to records by
+ * {@link CsvRecordConverter} and the sink converts each record to a line by {@link
+ * RecordUtils#toLine(List, RowSinkRecord)}. Noted that the files are excluded so the results are
+ * not impacted by the file systems.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvBenchmark {
+  /** the offsets are not tracked. All lines are converted by each invocation */
+  private static final OffsetCache NO_OFFSET_CACHE =
+      new OffsetCache() {
+        @Override
+        public void loadIfNeed(RowSourceContext context, String path) {}
+
+        @Override
+        public void update(String path, int index) {}
+
+        @Override
+        public boolean predicate(String path, int index) {
+          return true;
+        }
+      };
+
+  @Param({"5", "50"})
+  public int width;
+
+  @Param({"string", "long", "mixed"})
+  public String cellType;
+
+  @Param({"10", "1000"})
+  public int payloadSize;
+
+  @Param({"1000"})
+  public int numberOfLines;
+
+  private List<String> lines;
+  private List<Column> columns;
+  private CsvRecordConverter converter;
+  private RowSinkRecord record;
+
+  @Setup
+  public void setup() {
+    List<Row> rows =
+        IntStream.range(0, numberOfLines)
+            .mapToObj(index -> Rows.row(width, cellType, payloadSize))
+            .collect(Collectors.toUnmodifiableList());
+    lines = Rows.csv(rows);
+    columns = Rows.columns(rows.get(0));
+    converter =
+        CsvRecordConverter.builder()
+            .path(CommonUtils.randomString())
+            .topicKeys(Set.of(TopicKey.of("g", "n")))
+            .offsetCache(NO_OFFSET_CACHE)
+            .schema(columns)
+            .build();
+    record =
+        RowSinkRecord.builder()
+            .topicKey(TopicKey.of("g", "n"))
+            .row(rows.get(0))
+            .partition(0)
+            .offset(0)
+            .timestamp(CommonUtils.current())
+            .timestampType(TimestampType.CREATE_TIME)
+            .build();
+  }
+
+  /** convert all lines. The header is included */
+  @Benchmark
+  public List<RowSourceRecord> convert() {
+    return converter.convert(lines.stream());
+  }
+
+  /** convert a record to line */
+  @Benchmark
+  public String toLine() {
+    return RecordUtils.toLine(columns, record);
+  }
+}
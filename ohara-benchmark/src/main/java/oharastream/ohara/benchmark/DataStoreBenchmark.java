@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.client.configurator.ObjectApi;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.configurator.store.DataStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import scala.concurrent.Await;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+import scala.jdk.javaapi.CollectionConverters;
+import scala.reflect.ClassTag;
+import spray.json.JsNumber;
+import spray.json.JsString;
+import spray.json.JsValue;
+
+/**
+ * measure the operations of the RocksDB-based {@link DataStore} used by configurator. The store is
+ * located at a temporary folder and it is filled by {@link #numberOfObjects} objects before the
+ * measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataStoreBenchmark {
+  private static final ClassTag<ObjectApi.ObjectInfo> TAG =
+      ClassTag.apply(ObjectApi.ObjectInfo.class);
+  private static final ExecutionContext EXECUTOR = ExecutionContext.global();
+
+  @Param({"100", "10000"})
+  public int numberOfObjects;
+
+  @Param({"10", "1000"})
+  public int payloadSize;
+
+  private File folder;
+  private DataStore store;
+  private ObjectApi.ObjectInfo[] objects;
+
+  private static <T> T await(Future<T> f) throws Exception {
+    return Await.result(f, Duration.Inf());
+  }
+
+  private ObjectApi.ObjectInfo object(int index) {
+    Map<String, JsValue> settings =
+        Map.of(
+            "group", new JsString("benchmark"),
+            "name", new JsString(String.valueOf(index)),
+            "lastModified", JsNumber.apply(CommonUtils.current()),
+            "payload", new JsString(CommonUtils.randomString(payloadSize)));
+    return new ObjectApi.ObjectInfo(
+        scala.collection.immutable.Map.from(CollectionConverters.asScala(settings)));
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    folder = CommonUtils.createTempFolder("benchmark");
+    store = DataStore.builder().persistentFolder(folder.getCanonicalPath()).build();
+    objects = new ObjectApi.ObjectInfo[numberOfObjects];
+    for (int index = 0; index != numberOfObjects; ++index) {
+      objects[index] = object(index);
+      await(store.add(objects[index], EXECUTOR));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Releasable.close(store);
+    CommonUtils.deleteFiles(folder);
+  }
+
+  private ObjectApi.ObjectInfo randomObject() {
+    return objects[ThreadLocalRandom.current().nextInt(objects.length)];
+  }
+
+  @Benchmark
+  public Object get() throws Exception {
+    ObjectKey key = randomObject().key();
+    return await(store.get(key, TAG, EXECUTOR));
+  }
+
+  /** overwrite an existent object */
+  @Benchmark
+  public Object add() throws Exception {
+    return await(store.add(randomObject(), EXECUTOR));
+  }
+
+  @Benchmark
+  public Object values() throws Exception {
+    return await(store.values(TAG, EXECUTOR));
+  }
+
+  @Benchmark
+  public int size() {
+    return store.size();
+  }
+}
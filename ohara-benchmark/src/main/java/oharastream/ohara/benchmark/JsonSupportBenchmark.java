@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.shabondi.common.JsonSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spray.json.JsObject;
+
+/**
+ * measure the conversions between {@link Row} and json. Shabondi source converts each posted json
+ * to row and shabondi sink converts each row to json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSupportBenchmark {
+
+  @Param({"5", "50"})
+  public int width;
+
+  @Param({"string", "long", "mixed"})
+  public String cellType;
+
+  @Param({"10", "1000"})
+  public int payloadSize;
+
+  private Row row;
+  private JsObject json;
+
+  @Setup
+  public void setup() {
+    row = Rows.row(width, cellType, payloadSize);
+    json = JsonSupport.toJson(row);
+  }
+
+  @Benchmark
+  public JsObject toJson() {
+    return JsonSupport.toJson(row);
+  }
+
+  @Benchmark
+  public Row toRow() {
+    return JsonSupport.toRow(json);
+  }
+}
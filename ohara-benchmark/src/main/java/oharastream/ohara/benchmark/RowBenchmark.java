@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * measure the basic operations of {@link Row}. Every record passing through connectors and streams
+ * is serialized by {@link Serializer#ROW} and its cells are looked up by name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowBenchmark {
+
+  @Param({"5", "50"})
+  public int width;
+
+  @Param({"string", "long", "mixed"})
+  public String cellType;
+
+  @Param({"10", "1000"})
+  public int payloadSize;
+
+  private Row row;
+  private byte[] bytes;
+  private Cell<?>[] cells;
+  private String lastName;
+
+  @Setup
+  public void setup() {
+    row = Rows.row(width, cellType, payloadSize);
+    bytes = Serializer.ROW.to(row);
+    cells = row.cells().toArray(new Cell<?>[0]);
+    lastName = cells[cells.length - 1].name();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return Serializer.ROW.to(row);
+  }
+
+  @Benchmark
+  public Row deserialize() {
+    return Serializer.ROW.from(bytes);
+  }
+
+  /** Row.of checks the duplicate names */
+  @Benchmark
+  public Row of() {
+    return Row.of(cells);
+  }
+
+  /** the worst case of looking up cell since the cells are scanned in order */
+  @Benchmark
+  public Cell<?> cellByName() {
+    return row.cell(lastName);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.setting.ConnectorKey;
+import oharastream.ohara.common.setting.SettingDef;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.connector.RowSinkRecord;
+import oharastream.ohara.kafka.connector.RowSinkTask;
+import oharastream.ohara.kafka.connector.TaskSetting;
+import oharastream.ohara.kafka.connector.json.ConnectorFormatter;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * measure {@link RowSinkTask#put(java.util.Collection)} with the enforcing check rule. The schema
+ * of connector is checked for each record so the cost is dominated by the check. The records are
+ * dropped by the task, and the result is the time of each record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowSinkTaskBenchmark {
+  private static final int BATCH_SIZE = 100;
+
+  @Param({"5", "50"})
+  public int width;
+
+  @Param({"string", "long", "mixed"})
+  public String cellType;
+
+  @Param({"10", "1000"})
+  public int payloadSize;
+
+  private RowSinkTask task;
+  private List<SinkRecord> records;
+
+  /** a sink task which drops all records. */
+  public static class DropTask extends RowSinkTask {
+    @Override
+    protected void run(TaskSetting config) {}
+
+    @Override
+    protected void terminate() {}
+
+    @Override
+    protected void putRecords(List<RowSinkRecord> records) {}
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Row row = Rows.row(width, cellType, payloadSize);
+    String topicName = TopicKey.of("benchmark", CommonUtils.randomString(5)).topicNameOnKafka();
+    records =
+        IntStream.range(0, BATCH_SIZE)
+            .mapToObj(index -> new SinkRecord(topicName, 0, null, row, null, null, index))
+            .collect(Collectors.toUnmodifiableList());
+    task = new DropTask();
+    task.start(
+        ConnectorFormatter.of()
+            .connectorKey(ConnectorKey.of("benchmark", CommonUtils.randomString(5)))
+            .checkRule(SettingDef.CheckRule.ENFORCING)
+            .columns(Rows.columns(row))
+            .raw());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    task.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<SinkRecord> put() {
+    task.put(records);
+    return records;
+  }
+}
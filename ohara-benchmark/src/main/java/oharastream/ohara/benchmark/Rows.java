@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Column;
+import oharastream.ohara.common.data.DataType;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.util.CommonUtils;
+
+/**
+ * generate the rows used by benchmarks. The rows are shaped by three parameters.
+ *
+ * <ul>
+ *   <li>width: the number of cells
+ *   <li>cell type: "string", "long" or "mixed" (boolean, int, long, double and string in turn)
+ *   <li>payload size: the length of string values
+ * </ul>
+ */
+public final class Rows {
+
+  public static Row row(int width, String cellType, int payloadSize) {
+    return Row.of(
+        IntStream.range(0, width)
+            .mapToObj(index -> Cell.of("c" + index, value(index, cellType, payloadSize)))
+            .toArray(Cell<?>[]::new));
+  }
+
+  private static Object value(int index, String cellType, int payloadSize) {
+    switch (cellType) {
+      case "string":
+        return CommonUtils.randomString(payloadSize);
+      case "long":
+        return (long) index;
+      case "mixed":
+        switch (index % 5) {
+          case 0:
+            return index % 2 == 0;
+          case 1:
+            return index;
+          case 2:
+            return (long) index;
+          case 3:
+            return (double) index;
+          default:
+            return CommonUtils.randomString(payloadSize);
+        }
+      default:
+        throw new IllegalArgumentException("unsupported cell type:" + cellType);
+    }
+  }
+
+  /**
+   * @param row row
+   * @return the columns matching the cells of row. The new names are same to the names
+   */
+  public static List<Column> columns(Row row) {
+    return IntStream.range(0, row.size())
+        .mapToObj(
+            index ->
+                Column.builder()
+                    .name(row.cell(index).name())
+                    .dataType(dataType(row.cell(index).value()))
+                    .order(index)
+                    .build())
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  private static DataType dataType(Object value) {
+    if (value instanceof Boolean) return DataType.BOOLEAN;
+    if (value instanceof Integer) return DataType.INT;
+    if (value instanceof Long) return DataType.LONG;
+    if (value instanceof Double) return DataType.DOUBLE;
+    if (value instanceof String) return DataType.STRING;
+    return DataType.OBJECT;
+  }
+
+  /**
+   * @param rows rows having same cells
+   * @return the csv lines. The first line is the header
+   */
+  public static List<String> csv(List<Row> rows) {
+    return IntStream.range(-1, rows.size())
+        .mapToObj(
+            index ->
+                index < 0
+                    ? String.join(",", rows.get(0).names())
+                    : rows.get(index).cells().stream()
+                        .map(cell -> cell.value().toString())
+                        .collect(Collectors.joining(",")))
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  // prevent construction
+  private Rows() {
+    throw new AssertionError();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.kafka.Producer;
+import oharastream.ohara.kafka.TopicAdmin;
+import oharastream.ohara.testing.service.Brokers;
+import oharastream.ohara.testing.service.Zookeepers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * compare the throughput of producer acknowledged by all replicas with the transactional producer.
+ * Each invocation sends {@link #NUMBER_OF_RECORDS} records and then flushes the producer so all
+ * records are acknowledged (or committed) by the broker. The transactional producer commits a
+ * transaction for each {@link TransactionalProducerState#transactionSize} records, and hence the
+ * result shows the cost of commit markers against the transaction size. The broker is embedded in
+ * this benchmark and it is based on single node.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionalProducerBenchmark {
+  private static final int NUMBER_OF_RECORDS = 10000;
+
+  @State(Scope.Benchmark)
+  public static class BrokerState {
+    private Zookeepers zookeepers;
+    private Brokers brokers;
+    private TopicKey topicKey;
+
+    @Setup(Level.Trial)
+    public void setup() throws ExecutionException, InterruptedException {
+      zookeepers = Zookeepers.local(0);
+      brokers = Brokers.local(zookeepers, new int[] {0});
+      topicKey = TopicKey.of("benchmark", CommonUtils.randomString(5));
+      try (TopicAdmin admin = TopicAdmin.of(brokers.connectionProps())) {
+        admin
+            .topicCreator()
+            .numberOfReplications((short) 1)
+            .topicKey(topicKey)
+            .create()
+            .toCompletableFuture()
+            .get();
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      Releasable.close(brokers);
+      Releasable.close(zookeepers);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class AllAcksProducerState {
+    private Producer<String, String> producer;
+
+    @Setup(Level.Trial)
+    public void setup(BrokerState broker) {
+      producer =
+          Producer.builder()
+              .keySerializer(Serializer.STRING)
+              .valueSerializer(Serializer.STRING)
+              .connectionProps(broker.brokers.connectionProps())
+              .allAcks()
+              .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      Releasable.close(producer);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class TransactionalProducerState {
+    @Param({"100", "1000", "10000"})
+    public int transactionSize;
+
+    private Producer<String, String> producer;
+
+    @Setup(Level.Trial)
+    public void setup(BrokerState broker) {
+      producer =
+          Producer.builder()
+              .keySerializer(Serializer.STRING)
+              .valueSerializer(Serializer.STRING)
+              .connectionProps(broker.brokers.connectionProps())
+              .transactionalId(CommonUtils.randomString())
+              .transactionSize(transactionSize)
+              // the transaction is committed by size or flush only
+              .transactionInterval(Duration.ofDays(1))
+              .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      Releasable.close(producer);
+    }
+  }
+
+  private static void send(Producer<String, String> producer, TopicKey topicKey) {
+    for (int i = 0; i != NUMBER_OF_RECORDS; ++i)
+      producer.sender().key("k" + i).value("v" + i).topicKey(topicKey).send();
+    producer.flush();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUMBER_OF_RECORDS)
+  public void allAcks(BrokerState broker, AllAcksProducerState state) {
+    send(state.producer, broker.topicKey);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUMBER_OF_RECORDS)
+  public void transactional(BrokerState broker, TransactionalProducerState state) {
+    send(state.producer, broker.topicKey);
+  }
+}
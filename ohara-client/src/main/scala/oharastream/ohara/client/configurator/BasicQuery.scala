@@ -46,6 +46,22 @@ trait BasicQuery[T] {
 
   def lastModified(value: Long): BasicQuery.this.type = setting("lastModified", value.toString)
 
+  /**
+    * the returned objects are sorted by group and name when the paging is enabled.
+    * @param value the max number of returned objects
+    * @return this query
+    */
+  def limit(value: Int): BasicQuery.this.type =
+    setting(QueryRequest.LIMIT_KEY, CommonUtils.requireNonNegativeInt(value).toString)
+
+  /**
+    * the returned objects are sorted by group and name when the paging is enabled.
+    * @param value the number of skipped objects
+    * @return this query
+    */
+  def offset(value: Int): BasicQuery.this.type =
+    setting(QueryRequest.OFFSET_KEY, CommonUtils.requireNonNegativeInt(value).toString)
+
   def setting(key: String, value: JsValue): BasicQuery.this.type =
     setting(key, value match {
       case JsString(s) => s
@@ -35,6 +35,7 @@ import scala.concurrent.{ExecutionContext, Future}
 object InspectApi {
   val KIND: String                    = "inspect"
   val RDB_KIND: String                = "rdb"
+  val STORE_KIND: String              = "store"
   val TOPIC_TIMEOUT_KEY: String       = "timeout"
   val TOPIC_TIMEOUT_DEFAULT: Duration = Duration(3, TimeUnit.SECONDS)
   val TOPIC_LIMIT_KEY: String         = "limit"
@@ -66,6 +67,16 @@ object InspectApi {
 
   implicit val CONFIGURATOR_INFO_FORMAT: RootJsonFormat[ConfiguratorInfo] = jsonFormat3(ConfiguratorInfo)
 
+  //-------------[store]-------------//
+  /**
+    * the information of the store of configurator.
+    * @param counts the class name of stored type -> the number of stored objects
+    * @param cacheHits the number of reads served by the cache of deserialized objects
+    * @param cacheMisses the number of reads which have to load the objects from the storage
+    */
+  final case class StoreInfo(counts: Map[String, Int], cacheHits: Long, cacheMisses: Long)
+  implicit val STORE_INFO_FORMAT: RootJsonFormat[StoreInfo] = jsonFormat3(StoreInfo)
+
   case class ServiceDefinition(imageName: String, settingDefinitions: Seq[SettingDef], classInfos: Seq[ClassInfo])
 
   implicit val SERVICE_DEFINITION_FORMAT: RootJsonFormat[ServiceDefinition] = jsonFormat3(ServiceDefinition)
@@ -179,6 +190,9 @@ object InspectApi {
     def configuratorInfo()(implicit executionContext: ExecutionContext): Future[ConfiguratorInfo] =
       exec.get[ConfiguratorInfo, ErrorApi.Error](s"$url/$CONFIGURATOR_KIND")
 
+    def storeInfo()(implicit executionContext: ExecutionContext): Future[StoreInfo] =
+      exec.get[StoreInfo, ErrorApi.Error](s"$url/$STORE_KIND")
+
     def zookeeperInfo()(implicit executionContext: ExecutionContext): Future[ServiceDefinition] =
       exec.get[ServiceDefinition, ErrorApi.Error](s"$url/${ZookeeperApi.KIND}")
 
@@ -16,10 +16,27 @@
 
 package oharastream.ohara.client.configurator
 
+import java.net.URLEncoder
+import java.nio.charset.StandardCharsets
+
+import oharastream.ohara.client.Enum
+import oharastream.ohara.common.setting.ObjectKey
 import spray.json.DefaultJsonProtocol._
-import spray.json.RootJsonFormat
+import spray.json.{JsString, JsValue, RootJsonFormat}
+
+import scala.concurrent.{ExecutionContext, Future}
 
 object MetricsApi {
+  /**
+    * the history of meters is accessible by this kind
+    */
+  val KIND: String           = "metrics"
+  val FROM_KEY: String       = "from"
+  val TO_KEY: String         = "to"
+  val RESOLUTION_KEY: String = "resolution"
+  val METER_KEY: String      = "meter"
+  val HOSTNAME_KEY: String   = "hostname"
+
   /**
     * the metric information
     * @param name the name of this meter
@@ -48,4 +65,115 @@ object MetricsApi {
     val EMPTY: Metrics = Metrics(Seq.empty)
   }
   implicit val METRICS_FORMAT: RootJsonFormat[Metrics] = jsonFormat1(Metrics.apply)
+
+  /**
+    * the resolution of history. The raw samples are downsampled to minute and then to hour.
+    * @param name name
+    * @param millis the length of bucket
+    */
+  abstract sealed class Resolution(val name: String, val millis: Long) extends Serializable
+  object Resolution extends Enum[Resolution] {
+    case object RAW    extends Resolution("RAW", 0)
+    case object MINUTE extends Resolution("MINUTE", 60 * 1000L)
+    case object HOUR   extends Resolution("HOUR", 60 * 60 * 1000L)
+  }
+
+  implicit val RESOLUTION_FORMAT: RootJsonFormat[Resolution] = new RootJsonFormat[Resolution] {
+    override def read(json: JsValue): Resolution = Resolution.forName(json.convertTo[String].toUpperCase)
+    override def write(obj: Resolution): JsValue = JsString(obj.name)
+  }
+
+  /**
+    * a point of history. A raw sample is a point having count = 1.
+    * @param time the start time of bucket (or the query time of raw sample)
+    * @param count the number of raw samples in this point
+    * @param min min value
+    * @param max max value
+    * @param sum sum of values
+    * @param last the latest value
+    */
+  final case class Sample(time: Long, count: Long, min: Double, max: Double, sum: Double, last: Double) {
+    def avg: Double = if (count == 0) 0.0 else sum / count
+  }
+  implicit val SAMPLE_FORMAT: RootJsonFormat[Sample] = jsonFormat6(Sample)
+
+  /**
+    * the field of series which records the value of meter
+    */
+  val VALUE_FIELD: String = "value"
+
+  /**
+    * the field of series which records the throughput (valueInPerSec) of meter
+    */
+  val VALUE_IN_PER_SEC_FIELD: String = "valueInPerSec"
+
+  /**
+    * the history of a meter
+    * @param hostname the node running the meter
+    * @param name meter name
+    * @param field the field of meter recorded by this series. It is either VALUE_FIELD or VALUE_IN_PER_SEC_FIELD
+    * @param resolution resolution
+    * @param samples the samples in the queried range
+    * @param aggregate the aggregation of all samples. It is none if there is no sample
+    */
+  final case class Series(
+    hostname: String,
+    name: String,
+    field: String,
+    resolution: Resolution,
+    samples: Seq[Sample],
+    aggregate: Option[Sample]
+  )
+  implicit val SERIES_FORMAT: RootJsonFormat[Series] = jsonFormat6(Series)
+
+  final case class History(key: ObjectKey, series: Seq[Series])
+  implicit val HISTORY_FORMAT: RootJsonFormat[History] = jsonFormat2(History)
+
+  class Access extends BasicAccess(KIND) {
+    /**
+      * query the history of meters of specify object.
+      * @param key object key
+      * @param from start time (inclusive)
+      * @param to end time (inclusive)
+      * @param resolution resolution
+      * @param executionContext thread pool
+      * @return history
+      */
+    def history(key: ObjectKey, from: Long, to: Long, resolution: Resolution)(
+      implicit executionContext: ExecutionContext
+    ): Future[History] =
+      exec.get[History, ErrorApi.Error](
+        urlBuilder
+          .key(key)
+          .param(FROM_KEY, from.toString)
+          .param(TO_KEY, to.toString)
+          .param(RESOLUTION_KEY, resolution.name)
+          .build()
+      )
+
+    /**
+      * query the history of a meter of specify object.
+      * @param key object key
+      * @param meter meter name
+      * @param from start time (inclusive)
+      * @param to end time (inclusive)
+      * @param resolution resolution
+      * @param executionContext thread pool
+      * @return history
+      */
+    def history(key: ObjectKey, meter: String, from: Long, to: Long, resolution: Resolution)(
+      implicit executionContext: ExecutionContext
+    ): Future[History] =
+      exec.get[History, ErrorApi.Error](
+        urlBuilder
+          .key(key)
+          .param(METER_KEY, URLEncoder.encode(meter, StandardCharsets.UTF_8))
+          .param(FROM_KEY, from.toString)
+          .param(TO_KEY, to.toString)
+          .param(RESOLUTION_KEY, resolution.name)
+          .build()
+      )
+  }
+
+  def access: Access = new Access
 }
@@ -29,6 +29,46 @@ object PrivateApi {
 
   implicit val DELETION_FORMAT: RootJsonFormat[Deletion] = jsonFormat2(Deletion)
 
+  /**
+    * the path receiving the counters pushed by services.
+    */
+  val METRICS_PATH = "metrics"
+
+  /**
+    * the counter pushed by service. The unit and document are carried only if the counter is new to the receiver.
+    * @param id the unique id of counter in the process
+    * @param key the plain string of object key
+    */
+  case class PushedCounter(
+    id: String,
+    key: String,
+    item: String,
+    value: Long,
+    startTime: Long,
+    lastModified: Long,
+    unit: Option[String],
+    document: Option[String]
+  )
+
+  implicit val PUSHED_COUNTER_FORMAT: RootJsonFormat[PushedCounter] = jsonFormat8(PushedCounter)
+
+  /**
+    * the delta-encoded snapshot of the counters of a process. The process is identified by the hostname and jmx port.
+    * @param full true if the snapshot carries all counters of the process. Otherwise, it carries the changed counters
+    * @param counters the new or changed counters
+    * @param removed the ids of removed counters
+    */
+  case class MetricsSnapshot(
+    hostname: String,
+    jmxPort: Int,
+    full: Boolean,
+    queryTime: Long,
+    counters: Seq[PushedCounter],
+    removed: Set[String]
+  )
+
+  implicit val METRICS_SNAPSHOT_FORMAT: RootJsonFormat[MetricsSnapshot] = jsonFormat6(MetricsSnapshot)
+
   def delete(hostname: String, port: Int, deletion: Deletion)(
     implicit executionContext: ExecutionContext
   ): Future[Unit] =
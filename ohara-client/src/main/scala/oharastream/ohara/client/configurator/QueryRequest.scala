@@ -26,6 +26,16 @@ trait QueryRequest {
 }
 
 object QueryRequest {
+  /**
+    * the max number of returned objects. It is not a field of object so it is not used to match the objects.
+    */
+  val LIMIT_KEY: String = "limit"
+
+  /**
+    * the number of skipped objects. It is not a field of object so it is not used to match the objects.
+    */
+  val OFFSET_KEY: String = "offset"
+
   def apply(_raw: Map[String, String]): QueryRequest = new QueryRequest {
     override def raw: Map[String, String] = _raw
   }
@@ -15,6 +15,8 @@
  */
 
 package oharastream.ohara.client.configurator
+import java.net.URLEncoder
+import java.nio.charset.StandardCharsets
 import java.util.Objects
 
 import oharastream.ohara.client.configurator.QueryRequest
@@ -37,6 +39,13 @@ object StreamApi {
 
   def DEFINITIONS: Seq[SettingDef] = StreamDefUtils.DEFAULT.asScala.values.toSeq
 
+  /**
+    * the path used to query the state stores of running stream.
+    */
+  val STORES_PATH: String     = "stores"
+  val STORE_KEY_KEY: String   = "key"
+  val STORE_LIMIT_KEY: String = "limit"
+
   /**
     * Stream Docker Image name
     */
@@ -60,7 +69,12 @@ object StreamApi {
 
     def className: Option[String] = raw.className
 
-    override def ports: Set[Int] = Set(jmxPort)
+    override def ports: Set[Int] = Set(jmxPort) ++ queryPort
+
+    /**
+      * the port used to query the state stores. The stream created by older version does not have this port.
+      */
+    def queryPort: Option[Int] = raw.queryPort
 
     def jarKey: ObjectKey = raw.jarKey.get
 
@@ -100,6 +114,9 @@ object StreamApi {
 
     def toTopicKeys: Option[Set[TopicKey]] =
       raw.get(StreamDefUtils.TO_TOPIC_KEYS_DEFINITION.key()).map(_.convertTo[Set[TopicKey]])
+
+    def queryPort: Option[Int] =
+      raw.get(StreamDefUtils.QUERY_PORT_DEFINITION.key()).map(_.convertTo[Int])
   }
   implicit val UPDATING_FORMAT: JsonRefiner[Updating] =
     rulesOfUpdating[Updating](
@@ -149,6 +166,7 @@ object StreamApi {
     def fromTopicKeys: Set[TopicKey] = settings.fromTopicKeys
     def toTopicKeys: Set[TopicKey]   = settings.toTopicKeys
     def connectionProps: String      = settings.connectionProps
+    def queryPort: Option[Int]       = settings.queryPort
 
     override def raw: Map[String, JsValue] = STREAM_CLUSTER_INFO_FORMAT.write(this).asJsObject.fields
 
@@ -191,6 +209,10 @@ object StreamApi {
     def jmxPort(jmxPort: Int): Request.this.type =
       setting(StreamDefUtils.JMX_PORT_DEFINITION.key(), JsNumber(CommonUtils.requireConnectionPort(jmxPort)))
 
+    @Optional("default is disabled")
+    def queryPort(queryPort: Int): Request.this.type =
+      setting(StreamDefUtils.QUERY_PORT_DEFINITION.key(), JsNumber(CommonUtils.requireConnectionPort(queryPort)))
+
     @Optional("default value is empty array in creation and None in update")
     def tags(tags: Map[String, JsValue]): Request.this.type =
       setting(StreamDefUtils.TAGS_DEFINITION.key(), JsObject(tags))
@@ -247,6 +269,44 @@ object StreamApi {
       override def update()(implicit executionContext: ExecutionContext): Future[StreamClusterInfo] =
         put(key, updating)
     }
+
+    /**
+      * lookup the key from the queryable state store of a running stream.
+      * @param key stream key
+      * @param storeName store name
+      * @param rowKey the cells of key
+      * @return the row of key
+      */
+    def storeValue(key: ObjectKey, storeName: String, rowKey: JsObject)(
+      implicit executionContext: ExecutionContext
+    ): Future[JsObject] =
+      exec.get[JsObject, ErrorApi.Error](
+        urlBuilder
+          .key(key)
+          .postfix(s"$STORES_PATH/${CommonUtils.requireNonEmpty(storeName)}")
+          .param(STORE_KEY_KEY, URLEncoder.encode(rowKey.toString, StandardCharsets.UTF_8))
+          .build()
+      )
+
+    /**
+      * scan the queryable state store of a running stream.
+      * @param key stream key
+      * @param storeName store name
+      * @param limit the max number of rows from each stream instance
+      * @return rows
+      */
+    def storeValues(key: ObjectKey, storeName: String, limit: Int)(
+      implicit executionContext: ExecutionContext
+    ): Future[Seq[JsObject]] =
+      exec
+        .get[JsArray, ErrorApi.Error](
+          urlBuilder
+            .key(key)
+            .postfix(s"$STORES_PATH/${CommonUtils.requireNonEmpty(storeName)}")
+            .param(STORE_LIMIT_KEY, CommonUtils.requirePositiveInt(limit).toString)
+            .build()
+        )
+        .map(_.elements.map(_.asJsObject))
   }
 
   def access: Access = new Access
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.client.configurator
+
+import spray.json.DefaultJsonProtocol._
+import spray.json.{JsObject, RootJsonFormat}
+
+/**
+  * The changes of stored objects are streamed by server-sent events. Each event carries a sequence number (the event
+  * id) so the client is able to resume from the last event it saw by the parameter "sequence" or the header
+  * "Last-Event-ID". If the server does not keep the changes after the sequence, a "reset" event is sent and the
+  * client has to reload the objects by list APIs.
+  */
+object WatchApi {
+  val PREFIX: String       = "watch"
+  val SEQUENCE_KEY: String = "sequence"
+  val KIND_KEY: String     = "kind"
+
+  /**
+    * the event type of added or updated object
+    */
+  val PUT_EVENT: String = "put"
+
+  /**
+    * the event type of removed object
+    */
+  val DELETE_EVENT: String = "delete"
+
+  /**
+    * the event type sent when the changes after the sequence are not available. The data of event is the latest
+    * sequence.
+    */
+  val RESET_EVENT: String = "reset"
+
+  /**
+    * the data of put and delete events.
+    * @param sequence the sequence of this change
+    * @param kind the kind of object
+    * @param group the group of object
+    * @param name the name of object
+    * @param data the new object. It is None if the object is removed
+    */
+  final case class Change(sequence: Long, kind: String, group: String, name: String, data: Option[JsObject])
+
+  implicit val CHANGE_FORMAT: RootJsonFormat[Change] = jsonFormat5(Change)
+}
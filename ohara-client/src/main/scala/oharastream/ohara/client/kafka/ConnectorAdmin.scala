@@ -437,6 +437,8 @@ object ConnectorAdmin {
       */
     def connectorKey(connectorKey: ConnectorKey): Creator = {
       format.connectorKey(connectorKey)
+      // the metrics of producer/consumer used by connector are owned by connector
+      format.metricsKey(connectorKey)
       this
     }
 
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.client.stream
+
+import java.net.URLEncoder
+import java.nio.charset.StandardCharsets
+
+import oharastream.ohara.client.HttpExecutor
+import oharastream.ohara.client.configurator.StreamApi.{STORES_PATH, STORE_KEY_KEY, STORE_LIMIT_KEY}
+import oharastream.ohara.common.util.CommonUtils
+import spray.json.DefaultJsonProtocol._
+import spray.json._
+
+import scala.concurrent.{ExecutionContext, Future}
+
+/**
+  * a helper class used to query the state stores of a running stream. Each stream instance hosts a http server which
+  * serves the queries of local stores. The point lookup is sent to the instance hosting the key (it is found by the
+  * metadata of kafka streams) and the scan is sent to all instances.
+  */
+trait StoreQueryClient {
+  /**
+    * @param storeName store name
+    * @param rowKey the cells of key
+    * @return the row of key
+    */
+  def storeValue(storeName: String, rowKey: JsObject)(implicit executionContext: ExecutionContext): Future[JsObject]
+
+  /**
+    * @param storeName store name
+    * @param limit the max number of rows
+    * @return rows from all instances
+    */
+  def storeValues(storeName: String, limit: Int)(implicit executionContext: ExecutionContext): Future[Seq[JsObject]]
+}
+
+object StoreQueryClient {
+  final case class StoreError(message: String) extends HttpExecutor.Error
+  private[this] implicit val STORE_ERROR_FORMAT: RootJsonFormat[StoreError] = jsonFormat1(StoreError)
+
+  /**
+    * the instance hosting the key
+    */
+  final case class KeyMetadata(hostname: String, port: Int)
+  private[this] implicit val KEY_METADATA_FORMAT: RootJsonFormat[KeyMetadata] = jsonFormat2(KeyMetadata)
+
+  private[this] val METADATA_PATH = "metadata"
+
+  /**
+    * @param hostnames the hostnames of stream instances
+    * @param port the query port of stream
+    * @return client
+    */
+  def apply(hostnames: Set[String], port: Int): StoreQueryClient = {
+    if (hostnames.isEmpty) throw new IllegalArgumentException("there is no running stream instance")
+    CommonUtils.requireConnectionPort(port)
+    new StoreQueryClient {
+      private[this] def url(hostname: String, port: Int, storeName: String): String =
+        s"http://$hostname:$port/$STORES_PATH/${CommonUtils.requireNonEmpty(storeName)}"
+
+      private[this] def encode(rowKey: JsObject): String = URLEncoder.encode(rowKey.toString, StandardCharsets.UTF_8)
+
+      /**
+        * all instances share the same metadata so we try the next one if the instance is unavailable.
+        */
+      private[this] def metadata(storeName: String, rowKey: JsObject)(
+        implicit executionContext: ExecutionContext
+      ): Future[KeyMetadata] =
+        hostnames.tail.foldLeft(
+          HttpExecutor.SINGLETON.get[KeyMetadata, StoreError](
+            s"${url(hostnames.head, port, storeName)}/$METADATA_PATH?$STORE_KEY_KEY=${encode(rowKey)}"
+          )
+        ) {
+          case (f, hostname) =>
+            f.recoverWith {
+              case _: Throwable =>
+                HttpExecutor.SINGLETON.get[KeyMetadata, StoreError](
+                  s"${url(hostname, port, storeName)}/$METADATA_PATH?$STORE_KEY_KEY=${encode(rowKey)}"
+                )
+            }
+        }
+
+      override def storeValue(storeName: String, rowKey: JsObject)(
+        implicit executionContext: ExecutionContext
+      ): Future[JsObject] =
+        metadata(storeName, rowKey).flatMap { metadata =>
+          HttpExecutor.SINGLETON.get[JsObject, StoreError](
+            s"${url(metadata.hostname, metadata.port, storeName)}?$STORE_KEY_KEY=${encode(rowKey)}"
+          )
+        }
+
+      override def storeValues(storeName: String, limit: Int)(
+        implicit executionContext: ExecutionContext
+      ): Future[Seq[JsObject]] =
+        Future
+          .traverse(hostnames.toSeq) { hostname =>
+            HttpExecutor.SINGLETON.get[JsArray, StoreError](
+              s"${url(hostname, port, storeName)}?$STORE_LIMIT_KEY=${CommonUtils.requirePositiveInt(limit)}"
+            )
+          }
+          .map(_.flatMap(_.elements.map(_.asJsObject)).take(limit))
+    }
+  }
+}
@@ -146,6 +146,27 @@ class TestStreamApi extends OharaTest {
     )
   }
 
+  @Test
+  def queryPortFieldCheck(): Unit = {
+    an[IllegalArgumentException] should be thrownBy accessRequest.queryPort(0)
+    an[IllegalArgumentException] should be thrownBy accessRequest.queryPort(-1)
+
+    val request = accessRequest
+      .jarKey(fakeJar)
+      .name(CommonUtils.randomString(5))
+      .nodeName(CommonUtils.randomString(10))
+      .fromTopicKey(topicKey(CommonUtils.randomString()))
+      .toTopicKey(topicKey(CommonUtils.randomString()))
+      .brokerClusterKey(ObjectKey.of("group", "n"))
+    // default value
+    request.creation.queryPort shouldBe None
+
+    val queryPort = CommonUtils.availablePort()
+    val creation  = request.queryPort(queryPort).creation
+    creation.queryPort shouldBe Some(queryPort)
+    creation.ports should contain(queryPort)
+  }
+
   @Test
   def nodeNamesFieldCheck(): Unit = {
     an[NullPointerException] should be thrownBy accessRequest.nodeNames(null)
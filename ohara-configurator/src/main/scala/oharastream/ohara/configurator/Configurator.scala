@@ -31,6 +31,7 @@ import oharastream.ohara.agent.docker.ServiceCollieImpl
 import oharastream.ohara.agent.k8s.K8SClient
 import oharastream.ohara.client.HttpExecutor
 import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
+import oharastream.ohara.client.configurator.ConnectorApi.ConnectorInfo
 import oharastream.ohara.client.configurator.InspectApi.K8sUrls
 import oharastream.ohara.client.configurator.MetricsApi.Metrics
 import oharastream.ohara.client.configurator.ShabondiApi.ShabondiClusterInfo
@@ -38,22 +39,27 @@ import oharastream.ohara.client.configurator.StreamApi.StreamClusterInfo
 import oharastream.ohara.client.configurator.WorkerApi.WorkerClusterInfo
 import oharastream.ohara.client.configurator.ZookeeperApi.ZookeeperClusterInfo
 import oharastream.ohara.client.configurator._
-import oharastream.ohara.common.setting.ObjectKey
 import oharastream.ohara.common.util.{CommonUtils, Releasable, ReleaseOnce, VersionUtils}
 import oharastream.ohara.configurator.Configurator.Mode
 import oharastream.ohara.configurator.route._
-import oharastream.ohara.configurator.store.{DataStore, MetricsCache}
+import oharastream.ohara.configurator.store.{DataStore, LagTracker, MetricsCache, MetricsHistory, RocksDataStore}
 import spray.json.DeserializationException
 
 import scala.concurrent.duration.Duration
 import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.reflect.ClassTag
 
 /**
   * A simple impl from Configurator. This impl maintains all subclass from ohara data in a single ohara store.
   * NOTED: there are many route requiring the implicit variables so we make them be implicit in construction.
   *
   */
-class Configurator private[configurator] (val hostname: String, val port: Int)(
+class Configurator private[configurator] (
+  val hostname: String,
+  val port: Int,
+  metricsPush: Boolean = false,
+  metricsHistoryFolder: Option[String] = None
+)(
   implicit val store: DataStore,
   val dataCollie: DataCollie,
   val serviceCollie: ServiceCollie,
@@ -100,7 +106,13 @@ class Configurator private[configurator] (val hostname: String, val port: Int)(
   private[this] implicit val workerCollie: WorkerCollie       = serviceCollie.workerCollie
   private[this] implicit val streamCollie: StreamCollie       = serviceCollie.streamCollie
   private[this] implicit val shabondiCollie: ShabondiCollie   = serviceCollie.shabondiCollie
-  private[this] implicit val dataChecker: DataChecker         = DataChecker()
+  private[this] implicit val adminPool: AdminPool = AdminPool.builder
+    .topicAdmin(brokerCollie.topicAdmin(_))
+    .connectorAdmin(workerCollie.connectorAdmin(_))
+    .brokerClusterExist(brokerCollie.exist(_))
+    .workerClusterExist(workerCollie.exist(_))
+    .build
+  private[this] implicit val dataChecker: DataChecker = DataChecker()
 
   def mode: Mode = serviceCollie match {
     case _: ServiceCollieImpl                                     => Mode.DOCKER
@@ -116,6 +128,11 @@ class Configurator private[configurator] (val hostname: String, val port: Int)(
         log.error(s"Request to ${request.uri} with ${request.entity} is wrong", e)
         complete(StatusCodes.BadRequest -> ErrorApi.of(e))
       }
+    case e: DataStore.ConflictException =>
+      extractRequest { request =>
+        log.error(s"Request to ${request.uri} with ${request.entity} conflicts with another request", e)
+        complete(StatusCodes.Conflict -> ErrorApi.of(e))
+      }
     case e: Throwable =>
       extractRequest { request =>
         log.error(s"Request to ${request.uri} with ${request.entity} could not be handled normally", e)
@@ -136,68 +153,113 @@ class Configurator private[configurator] (val hostname: String, val port: Int)(
       }
       .result()
 
-  private[this] implicit val meterCache: MetricsCache = {
-    def metrics(
-      collie: Collie,
-      clusterInfos: Seq[ClusterInfo]
-    ): Future[Map[ClusterInfo, Map[String, Map[ObjectKey, Metrics]]]] =
-      Future
-        .sequence(clusterInfos.map { clusterInfo =>
-          collie
-            .metrics(clusterInfo.key)
-            .map(m => Some(clusterInfo -> m))
-            .recover {
-              case e: Throwable =>
-                log.error(
-                  s"failed to get metrics of service:${clusterInfo.key} from ${collie.getClass.getSimpleName}",
-                  e
-                )
-                None
-            }
-        })
-        .map(_.flatten.toMap)
+  /**
+    * the history of meters. It is persisted if the folder is defined.
+    */
+  private[this] implicit val metricsHistory: MetricsHistory = {
+    val builder = MetricsHistory.builder
+    metricsHistoryFolder.foreach(builder.persistentFolder)
+    builder.build
+  }
+
+  /**
+    * list the running clusters of collie.
+    */
+  private[this] def clusters[T <: ClusterInfo: ClassTag](collie: Collie): Future[Seq[T]] =
+    collie
+      .clusters()
+      .map(_.map(_.key))
+      .flatMap(keys => Future.traverse(keys)(store.get[T]))
+      .map(_.flatten)
 
+  /**
+    * track the lag of sink connectors, streams and shabondi sinks.
+    */
+  private[this] val lagTracker: LagTracker = LagTracker.builder
+    .targets { () =>
+      val brokerClusters   = clusters[BrokerClusterInfo](serviceCollie.brokerCollie)
+      val workerClusters   = clusters[WorkerClusterInfo](serviceCollie.workerCollie)
+      val streamClusters   = clusters[StreamClusterInfo](serviceCollie.streamCollie)
+      val shabondiClusters = clusters[ShabondiClusterInfo](serviceCollie.shabondiCollie)
+      val connectors       = store.values[ConnectorInfo]()
+      for {
+        bks       <- brokerClusters.map(_.map(c => c.key -> c).toMap)
+        wks       <- workerClusters.map(_.map(c => c.key -> c.brokerClusterKey).toMap)
+        streams   <- streamClusters
+        shabondis <- shabondiClusters
+        cs        <- connectors
+      } yield {
+        val connectorTargets = cs.flatMap { c =>
+          wks.get(c.workerClusterKey).flatMap(bks.get).map(LagTracker.Target.connector(c.key, _))
+        }
+        val streamTargets = streams.flatMap(c => bks.get(c.brokerClusterKey).map(LagTracker.Target.stream(c.key, _)))
+        // shabondi source has no consumer
+        val shabondiTargets = shabondis
+          .filter(_.shabondiClass == ShabondiApi.SHABONDI_SINK_CLASS_NAME)
+          .flatMap(c => bks.get(c.brokerClusterKey).map(LagTracker.Target.shabondiSink(c.key, _)))
+        connectorTargets ++ streamTargets ++ shabondiTargets
+      }
+    }
+    .admin(brokerCollie.topicAdmin(_))
+    .timeout(cacheTimeout * 3)
+    .hostname(hostname)
+    .history(metricsHistory)
+    .build
+
+  private[this] implicit val meterCache: MetricsCache =
     MetricsCache.builder
-      .refresher { () =>
-        // we do the sync here to simplify the interface
-        Await.result(
-          for {
-            zks <- serviceCollie.brokerCollie
-              .clusters()
-              .map(_.map(_.key))
-              .flatMap(keys => Future.traverse(keys)(store.get[ZookeeperClusterInfo]))
-              .map(_.flatten)
-              .flatMap(clusterInfos => metrics(serviceCollie.zookeeperCollie, clusterInfos))
-            bks <- serviceCollie.brokerCollie
-              .clusters()
-              .map(_.map(_.key))
-              .flatMap(keys => Future.traverse(keys)(store.get[BrokerClusterInfo]))
-              .map(_.flatten)
-              .flatMap(clusterInfos => metrics(serviceCollie.brokerCollie, clusterInfos))
-            wks <- serviceCollie.workerCollie
-              .clusters()
-              .map(_.map(_.key))
-              .flatMap(keys => Future.traverse(keys)(store.get[WorkerClusterInfo]))
-              .map(_.flatten)
-              .flatMap(clusterInfos => metrics(serviceCollie.workerCollie, clusterInfos))
-            streams <- serviceCollie.streamCollie
-              .clusters()
-              .map(_.map(_.key))
-              .flatMap(keys => Future.traverse(keys)(store.get[StreamClusterInfo]))
-              .map(_.flatten)
-              .flatMap(clusterInfos => metrics(serviceCollie.streamCollie, clusterInfos))
-            shabondis <- serviceCollie.shabondiCollie
-              .clusters()
-              .map(_.map(_.key))
-              .flatMap(keys => Future.traverse(keys)(store.get[ShabondiClusterInfo]))
-              .map(_.flatten)
-              .flatMap(clusterInfos => metrics(serviceCollie.shabondiCollie, clusterInfos))
-          } yield zks ++ bks ++ wks ++ streams ++ shabondis,
-          cacheTimeout * 10
-        )
+      .clusters(
+        () =>
+          Future
+            .sequence(
+              Seq(
+                clusters[ZookeeperClusterInfo](serviceCollie.zookeeperCollie),
+                clusters[BrokerClusterInfo](serviceCollie.brokerCollie),
+                clusters[WorkerClusterInfo](serviceCollie.workerCollie),
+                clusters[StreamClusterInfo](serviceCollie.streamCollie),
+                clusters[ShabondiClusterInfo](serviceCollie.shabondiCollie)
+              )
+            )
+            .map(_.flatten)
+      )
+      .fetcher { clusterInfo =>
+        val collie: Collie = clusterInfo match {
+          case _: ZookeeperClusterInfo => serviceCollie.zookeeperCollie
+          case _: BrokerClusterInfo    => serviceCollie.brokerCollie
+          case _: WorkerClusterInfo    => serviceCollie.workerCollie
+          case _: StreamClusterInfo    => serviceCollie.streamCollie
+          case _: ShabondiClusterInfo  => serviceCollie.shabondiCollie
+          case _                       => throw new IllegalArgumentException(s"unsupported cluster:${clusterInfo.key}")
+        }
+        // the counters are pushed by services if push mode is enabled
+        collie.metrics(clusterInfo.key, includeCounters = !metricsPush)
       }
       .frequency(cacheTimeout)
+      .timeout(cacheTimeout * 3)
+      .history(metricsHistory)
+      .lagTracker(lagTracker)
       .build
+
+  /**
+    * copy the stats of store to the history so they are available from the metrics route.
+    */
+  private[this] val storeStatsRecorder = {
+    val executor = Executors.newSingleThreadScheduledExecutor(r => {
+      val thread = new Thread(r, "store-stats-recorder")
+      thread.setDaemon(true)
+      thread
+    })
+    executor.scheduleWithFixedDelay(
+      () =>
+        try metricsHistory.record(Map(hostname -> Map(RocksDataStore.METRICS_KEY -> Metrics(store.meters))))
+        catch {
+          case e: Throwable => log.error("failed to record the stats of store", e)
+        },
+      0,
+      cacheTimeout.toMillis,
+      TimeUnit.MILLISECONDS
+    )
+    executor
   }
 
   /**
@@ -234,23 +296,33 @@ class Configurator private[configurator] (val hostname: String, val port: Int)(
         WorkerRoute.apply,
         FileInfoRoute.apply,
         LogRoute.apply,
+        MetricsRoute.apply,
         VolumeRoute.apply,
         ObjectRoute.apply,
-        ContainerRoute.apply
+        ContainerRoute.apply,
+        WatchRoute.apply
       ).reduce[server.Route]((a, b) => a ~ b)
     ) ~ pathPrefix(PrivateApi.PREFIX) {
-      delete {
+      path(PrivateApi.METRICS_PATH) {
+        post {
+          import PrivateApi._
+          entity(as[MetricsSnapshot]) { snapshot =>
+            // CONFLICT means the service should send full snapshot
+            complete(if (meterCache.push(snapshot)) StatusCodes.Accepted else StatusCodes.Conflict)
+          }
+        }
+      } ~ delete {
         import PrivateApi._
         entity(as[Deletion]) { deletion =>
           complete(
             store
               .raws()
-              .map(
+              .flatMap(
                 _.filter(d => deletion.groups.contains(d.group))
                   .filter(d => deletion.kinds.contains(d.kind))
-                  .map(store.remove)
+                  .foldLeft(store.transaction())(_.remove(_))
+                  .commit()
               )
-              .flatMap(Future.sequence(_))
               .map(_ => StatusCodes.NoContent)
           )
         }
@@ -285,6 +357,11 @@ class Configurator private[configurator] (val hostname: String, val port: Int)(
     val start = CommonUtils.current()
     // close the cache thread in order to avoid cache error in log
     Releasable.close(meterCache)
+    Releasable.close(lagTracker)
+    storeStatsRecorder.shutdownNow()
+    if (!storeStatsRecorder.awaitTermination(terminateTimeout.toMillis, TimeUnit.MILLISECONDS))
+      log.error("failed to terminate the store stats recorder")
+    Releasable.close(metricsHistory)
     val onceHttpTerminated =
       if (httpServer != null)
         Some(httpServer.terminate(terminateTimeout).flatMap(_ => actorSystem.terminate()))
@@ -303,6 +380,8 @@ class Configurator private[configurator] (val hostname: String, val port: Int)(
         log.error("failed to terminate all running threads!!!")
     }
 
+    // the routes are closed so it is safe to close the cached admins
+    Releasable.close(adminPool)
     Releasable.close(serviceCollie)
     Releasable.close(store)
     log.info(s"succeed to close Ohara Configurator. elapsed:${CommonUtils.current() - start} ms")
@@ -322,7 +401,15 @@ object Configurator {
   private[configurator] val K8S_KEY                 = "--k8s"
   private[configurator] val FAKE_KEY                = "--fake"
   private[configurator] val PORT_KEY                = "--port"
-  private val USAGE                                 = s"[Usage] $FOLDER_KEY $HOSTNAME_KEY $PORT_KEY $K8S_KEY $FAKE_KEY"
+  private[configurator] val METRICS_PUSH_KEY        = "--metrics-push"
+  private[configurator] val STORE_BLOCK_CACHE_KEY   = "--store-block-cache-size"
+  private[configurator] val STORE_BLOOM_FILTER_KEY  = "--store-bloom-filter-bits"
+  private[configurator] val STORE_COMPRESSION_KEY   = "--store-compression"
+  private[configurator] val STORE_WRITE_BUFFER_KEY  = "--store-write-buffer-size"
+  private[configurator] val STORE_STATS_KEY         = "--store-stats-interval"
+  private val USAGE =
+    s"[Usage] $FOLDER_KEY $HOSTNAME_KEY $PORT_KEY $K8S_KEY $FAKE_KEY $METRICS_PUSH_KEY $STORE_BLOCK_CACHE_KEY " +
+      s"$STORE_BLOOM_FILTER_KEY $STORE_COMPRESSION_KEY $STORE_WRITE_BUFFER_KEY $STORE_STATS_KEY"
 
   /**
     * parse input arguments and then generate a Configurator instance.
@@ -339,6 +426,15 @@ object Configurator {
         case Array(K8S_NAMESPACE_KEY, value)       => configuratorBuilder.k8sNamespace(value)
         case Array(K8S_METRICS_SERVICE_KEY, value) => configuratorBuilder.k8sMetricsServerURL(value)
         case Array(K8S_KEY, value)                 => configuratorBuilder.k8sApiServer(value)
+        case Array(METRICS_PUSH_KEY, value)        => configuratorBuilder.metricsPush(value.toBoolean)
+        case Array(STORE_BLOCK_CACHE_KEY, value)   => configuratorBuilder.storeBlockCacheSize(value.toLong)
+        case Array(STORE_BLOOM_FILTER_KEY, value)  => configuratorBuilder.storeBloomFilterBits(value.toInt)
+        case Array(STORE_COMPRESSION_KEY, value)   => configuratorBuilder.storeCompression(value)
+        case Array(STORE_WRITE_BUFFER_KEY, value)  => configuratorBuilder.storeWriteBufferSize(value.toLong)
+        case Array(STORE_STATS_KEY, value) =>
+          configuratorBuilder.storeStatsInterval(
+            Duration(CommonUtils.toDuration(value).toMillis, TimeUnit.MILLISECONDS)
+          )
         case Array(FAKE_KEY, value) =>
           if (value.toBoolean) configuratorBuilder.fake()
         case _ =>
@@ -28,7 +28,7 @@ import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.NodeApi.{Node, NodeService, State}
 import oharastream.ohara.client.configurator.WorkerApi.WorkerClusterInfo
 import oharastream.ohara.client.configurator.ZookeeperApi.ZookeeperClusterInfo
-import oharastream.ohara.client.configurator.{BrokerApi, ClusterState, NodeApi, WorkerApi, ZookeeperApi}
+import oharastream.ohara.client.configurator.{BrokerApi, ClusterState, NodeApi, PrivateApi, WorkerApi, ZookeeperApi}
 import oharastream.ohara.common.annotations.{Optional, VisibleForTesting}
 import oharastream.ohara.common.pattern.Builder
 import oharastream.ohara.common.setting.ObjectKey
@@ -50,6 +50,8 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
   private[this] var k8sClient: K8SClient         = _
   private[this] var metricsServiceURL: String    = _
   private[this] var k8sNamespace: String         = _
+  private[this] var metricsPush: Boolean         = false
+  private[this] val storeBuilder                 = DataStore.builder
 
   @Optional("default is random folder")
   def homeFolder(homeFolder: String): ConfiguratorBuilder = doOrReleaseObjects {
@@ -87,6 +89,77 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
     this
   }
 
+  /**
+    * enable the push mode of metrics. The worker, stream and shabondi push their counters to configurator so the
+    * configurator does not fetch the counters by remote jmx. Noted that it is ignored if the service collie is not
+    * created by this builder.
+    * @param metricsPush true if the counters are pushed by services
+    * @return this builder
+    */
+  @Optional("default is false")
+  def metricsPush(metricsPush: Boolean): ConfiguratorBuilder = {
+    this.metricsPush = metricsPush
+    this
+  }
+
+  /**
+    * the options of RocksDB storing the objects. Noted: the store options must be set before the store is created.
+    * @param blockCacheSize the capacity (in bytes) of shared block cache. zero disables the block cache
+    * @return this builder
+    */
+  @Optional("default is 32MB")
+  def storeBlockCacheSize(blockCacheSize: Long): ConfiguratorBuilder = doOrReleaseObjects {
+    if (this.store != null) throw new IllegalArgumentException(alreadyExistMessage("store"))
+    storeBuilder.blockCacheSize(blockCacheSize)
+    this
+  }
+
+  /**
+    * @param bloomFilterBits the bits per key of bloom filter. zero disables the bloom filter
+    * @return this builder
+    */
+  @Optional("default is 10")
+  def storeBloomFilterBits(bloomFilterBits: Int): ConfiguratorBuilder = doOrReleaseObjects {
+    if (this.store != null) throw new IllegalArgumentException(alreadyExistMessage("store"))
+    storeBuilder.bloomFilterBits(bloomFilterBits)
+    this
+  }
+
+  /**
+    * @param compression the compression of RocksDB. The bottommost level is compressed by zstd unless the compression
+    *                    is none
+    * @return this builder
+    */
+  @Optional("default is lz4")
+  def storeCompression(compression: String): ConfiguratorBuilder = doOrReleaseObjects {
+    if (this.store != null) throw new IllegalArgumentException(alreadyExistMessage("store"))
+    storeBuilder.compression(compression)
+    if (compression == "none") storeBuilder.bottommostCompression(compression)
+    this
+  }
+
+  /**
+    * @param writeBufferSize the size (in bytes) of memtable of each type
+    * @return this builder
+    */
+  @Optional("default is 16MB")
+  def storeWriteBufferSize(writeBufferSize: Long): ConfiguratorBuilder = doOrReleaseObjects {
+    if (this.store != null) throw new IllegalArgumentException(alreadyExistMessage("store"))
+    storeBuilder.writeBufferSize(writeBufferSize)
+    this
+  }
+
+  /**
+    * @param statsInterval the interval to copy the stats of RocksDB to the gauges. zero disables the stats
+    * @return this builder
+    */
+  @Optional("default is 1 minute")
+  def storeStatsInterval(statsInterval: Duration): ConfiguratorBuilder = doOrReleaseObjects {
+    if (this.store != null) throw new IllegalArgumentException(alreadyExistMessage("store"))
+    storeBuilder.statsInterval(statsInterval)
+    this
+  }
+
   /**
     * set all client to fake mode with a pre-created broker cluster and worker cluster.
     *
@@ -113,7 +186,7 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
       def nodes(s: String): Seq[String] = s.split(",").toIndexedSeq.map(_.split(":").head)
       import scala.concurrent.ExecutionContext.Implicits.global
 
-      (nodes(bkConnectionProps) ++ nodes(wkConnectionProps))
+      val fakeNodes = (nodes(bkConnectionProps) ++ nodes(wkConnectionProps))
       // DON'T add duplicate nodes!!!
         .toSet[String]
         .map { nodeName =>
@@ -135,7 +208,6 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
             tags = Map.empty
           )
         }
-        .foreach(r => store.addIfAbsent(r))
       val collie = new FakeServiceCollie(createCollie(), bkConnectionProps, wkConnectionProps)
       val bkCluster = {
         val pair = bkConnectionProps.split(",")
@@ -177,8 +249,12 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
       }
       //TODO: we need to add data into store to use the APIs
       //TODO: refactor this if cluster data could be stored automatically...by Sam
-      store.addIfAbsent[BrokerClusterInfo](bkCluster)
-      store.addIfAbsent[WorkerClusterInfo](wkCluster)
+      // write all fake objects in one batch so the store never exposes a half-initialized fake
+      fakeNodes
+        .foldLeft(store.transaction())(_.addIfAbsent(_))
+        .addIfAbsent(bkCluster)
+        .addIfAbsent(wkCluster)
+        .commit()
 
       collie.brokerCollie.addCluster(
         bkCluster.key,
@@ -281,6 +357,7 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
 
       //TODO: we need to add data into store to use the APIs
       //TODO: refactor this if cluster data could be stored automatically...by Sam
+      val transaction = store.transaction()
       zkCreations
         .map(
           creation =>
@@ -293,7 +370,7 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
               lastModified = CommonUtils.current()
             )
         )
-        .foreach(store.addIfAbsent[ZookeeperClusterInfo])
+        .foreach(transaction.addIfAbsent(_))
       bkCreations
         .map(
           creation =>
@@ -307,7 +384,7 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
               lastModified = CommonUtils.current()
             )
         )
-        .foreach(store.addIfAbsent[BrokerClusterInfo])
+        .foreach(transaction.addIfAbsent(_))
       wkCreations
         .map(
           creation =>
@@ -320,7 +397,7 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
               lastModified = CommonUtils.current()
             )
         )
-        .foreach(store.addIfAbsent[WorkerClusterInfo])
+        .foreach(transaction.addIfAbsent(_))
 
       // fake nodes
       zkCreations
@@ -328,7 +405,9 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
         // DON'T add duplicate nodes!!!
         .toSet[String]
         .map(name => Node(name, "fake", "fake"))
-        .foreach(store.addIfAbsent[Node])
+        .foreach(transaction.addIfAbsent(_))
+      // write all fake objects in one batch so the store never exposes a half-initialized fake
+      transaction.commit()
       serviceCollie(collie)
     }
 
@@ -414,8 +493,14 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
       this.k8sClient(client)
     }
 
+    val pushMode = metricsPush && serviceCollie == null
     doOrReleaseObjects(
-      new Configurator(hostname = getOrCreateHostname(), port = getOrCreatePort())(
+      new Configurator(
+        hostname = getOrCreateHostname(),
+        port = getOrCreatePort(),
+        metricsPush = pushMode,
+        metricsHistoryFolder = Some(folder("metrics"))
+      )(
         store = getOrCreateStore(),
         dataCollie = createCollie(),
         serviceCollie = getOrCreateCollie(),
@@ -441,6 +526,9 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
     port
   }
 
+  private[this] def metricsPushUrl: String =
+    s"http://${getOrCreateHostname()}:${getOrCreatePort()}/${PrivateApi.PREFIX}/${PrivateApi.METRICS_PATH}"
+
   private[this] def getOrCreateHomeFolder(): String = {
     if (homeFolder == null) homeFolder = CommonUtils.createTempFolder("configurator").getCanonicalPath
     homeFolder
@@ -448,7 +536,7 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
 
   private[this] def getOrCreateStore(): DataStore =
     if (store == null) try {
-      store = DataStore.builder.persistentFolder(folder("store")).build()
+      store = storeBuilder.persistentFolder(folder("store")).build()
       store
     } catch {
       case e: RocksDBException =>
@@ -465,8 +553,15 @@ class ConfiguratorBuilder private[configurator] extends Builder[Configurator] {
   private[this] def getOrCreateCollie(): ServiceCollie =
     if (serviceCollie == null) {
       this.serviceCollie =
-        if (k8sClient == null) ServiceCollie.dockerModeBuilder.dataCollie(createCollie()).build
-        else ServiceCollie.k8sModeBuilder.dataCollie(createCollie()).k8sClient(k8sClient).build()
+        if (k8sClient == null) {
+          val builder = ServiceCollie.dockerModeBuilder.dataCollie(createCollie())
+          if (metricsPush) builder.metricsPushUrl(metricsPushUrl)
+          builder.build
+        } else {
+          val builder = ServiceCollie.k8sModeBuilder.dataCollie(createCollie()).k8sClient(k8sClient)
+          if (metricsPush) builder.metricsPushUrl(metricsPushUrl)
+          builder.build
+        }
       serviceCollie
     } else serviceCollie
 
@@ -28,12 +28,13 @@ import oharastream.ohara.client.configurator.NodeApi.Node
 import oharastream.ohara.client.configurator.ShabondiApi.ShabondiClusterInfo
 import oharastream.ohara.client.configurator.StreamApi.StreamClusterInfo
 import oharastream.ohara.client.configurator.VolumeApi.Volume
+import oharastream.ohara.client.configurator.WorkerApi.WorkerClusterInfo
 import oharastream.ohara.client.configurator.{ClusterInfo, ClusterState, NodeApi}
 import oharastream.ohara.common.annotations.VisibleForTesting
 import oharastream.ohara.common.setting.ObjectKey
 import oharastream.ohara.common.util.CommonUtils
 import oharastream.ohara.metrics.BeanChannel
-import oharastream.ohara.metrics.basic.{Counter, CounterMBean}
+import oharastream.ohara.metrics.basic.{Counter, CounterMBean, GaugeMBean, HistogramMBean, MeterMBean}
 import oharastream.ohara.metrics.kafka.TopicMeter
 
 import scala.jdk.CollectionConverters._
@@ -170,6 +171,20 @@ private[configurator] abstract class FakeCollie(val dataCollie: DataCollie) exte
       Map(CommonUtils.hostname() -> BeanChannel.local().counterMBeans().asScala.toSeq)
   }
 
+  override protected def gaugeMBeans(cluster: ClusterInfo): Map[String, Seq[GaugeMBean]] = cluster match {
+    case _: WorkerClusterInfo =>
+      // the connectors are run by the embedded worker so the gauges of their clients are in local jvm
+      Map(CommonUtils.hostname() -> BeanChannel.local().gaugeMBeans().asScala.toSeq)
+    // stream and shabondi are not really running in fake collie mode so there is no gauges
+    case _ => Map.empty
+  }
+
+  // stream is not really running in fake collie mode so there is no histograms
+
+  override protected def histogramMBeans(cluster: ClusterInfo): Map[String, Seq[HistogramMBean]] = Map.empty
+
+  override protected def meterMBeans(cluster: ClusterInfo): Map[String, Seq[MeterMBean]] = Map.empty
+
   override protected def doCreator(
     executionContext: ExecutionContext,
     containerInfo: ContainerInfo,
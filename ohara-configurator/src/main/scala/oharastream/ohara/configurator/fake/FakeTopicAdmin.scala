@@ -20,6 +20,7 @@ import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentHashM
 import java.{lang, util}
 
 import oharastream.ohara.common.setting.TopicKey
+import oharastream.ohara.kafka.connector.TopicPartition
 import oharastream.ohara.kafka.{TopicAdmin, TopicCreator, TopicDescription, TopicOption}
 
 private[configurator] class FakeTopicAdmin extends TopicAdmin {
@@ -61,6 +62,9 @@ private[configurator] class FakeTopicAdmin extends TopicAdmin {
     f
   }
 
+  override def topicDescriptions(keys: util.Set[TopicKey]): CompletionStage[util.List[TopicDescription]] =
+    CompletableFuture.completedFuture(keys.asScala.flatMap(key => Option(cachedTopics.get(key))).toSeq.asJava)
+
   override def topicCreator(): TopicCreator =
     (_: Int, _: Short, options: util.Map[String, String], topicKey: TopicKey) => {
       val f = new CompletableFuture[Void]()
@@ -100,6 +104,18 @@ private[configurator] class FakeTopicAdmin extends TopicAdmin {
   override def brokerPorts(): CompletionStage[util.Map[String, Integer]] =
     CompletableFuture.completedFuture(java.util.Map.of())
 
+  override def consumerGroupIds(): CompletionStage[util.Set[String]] =
+    CompletableFuture.completedFuture(java.util.Set.of())
+
+  override def activeConsumerGroupIds(groupIds: util.Set[String]): CompletionStage[util.Set[String]] =
+    CompletableFuture.completedFuture(java.util.Set.of())
+
+  override def consumerGroupOffsets(groupId: String): CompletionStage[util.Map[TopicPartition, lang.Long]] =
+    CompletableFuture.completedFuture(java.util.Map.of())
+
+  override def endOffsets(partitions: util.Set[TopicPartition]): CompletionStage[util.Map[TopicPartition, lang.Long]] =
+    CompletableFuture.completedFuture(java.util.Map.of())
+
   override def exist(topicKey: TopicKey): CompletionStage[lang.Boolean] =
     CompletableFuture.completedFuture(cachedTopics.containsKey(topicKey))
 
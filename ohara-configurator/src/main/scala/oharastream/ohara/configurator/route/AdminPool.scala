@@ -0,0 +1,339 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.route
+
+import java.util.Objects
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import java.util.concurrent.atomic.AtomicBoolean
+
+import oharastream.ohara.agent.NoSuchClusterException
+import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
+import oharastream.ohara.client.configurator.WorkerApi.WorkerClusterInfo
+import oharastream.ohara.client.kafka.ConnectorAdmin
+import oharastream.ohara.common.annotations.Optional
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.kafka.TopicAdmin
+import oharastream.ohara.metrics.basic.Counter
+
+import scala.concurrent.duration.Duration
+import scala.concurrent.{ExecutionContext, Future}
+import scala.jdk.CollectionConverters._
+
+/**
+  * Keep a long-lived admin for each broker cluster and worker cluster. The admins are thread-safe so all requests
+  * share the same admin rather than bootstrapping a new admin (and the metadata of cluster) for each request.
+  * The admin is replaced if the connection props of cluster are changed, and it is closed if the cluster is removed
+  * (or it is not running) or it is not used for a while. The topic admins are reference-counted so the replaced
+  * (or removed) admin is closed after the running actions complete, and the admin used by a running action is never
+  * idle.
+  *
+  * Noted: the admins are owned by the pool so the caller must not close them.
+  *
+  * The pool reports following counters for each cluster. The counter key is the cluster key.
+  * 1) topic-admins.created / connector-admins.created - the number of created admins
+  * 2) topic-admins.reused / connector-admins.reused - the number of requests served by a pooled admin
+  * 3) topic-admins.closed / connector-admins.closed - the number of closed admins
+  */
+trait AdminPool extends Releasable {
+  /**
+    * run the action with the shared topic admin of broker cluster. The admin is not closed until the future returned
+    * by action completes.
+    * @param brokerClusterInfo broker cluster
+    * @param action action
+    * @param executionContext thread pool
+    * @return the result of action
+    */
+  def topicAdmin[T](brokerClusterInfo: BrokerClusterInfo)(action: TopicAdmin => Future[T])(
+    implicit executionContext: ExecutionContext
+  ): Future[T]
+
+  /**
+    * Noted: the connector admin is a http client so there is nothing to close, and it is not reference-counted.
+    * @param workerClusterInfo worker cluster
+    * @return the shared connector admin of worker cluster
+    */
+  def connectorAdmin(workerClusterInfo: WorkerClusterInfo): Future[ConnectorAdmin]
+
+  /**
+    * close the admins of cluster. It should be called when the cluster is removed.
+    * @param clusterKey cluster key
+    */
+  def invalidate(clusterKey: ObjectKey): Unit
+
+  /**
+    * @return the number of pooled admins
+    */
+  def size: Int
+}
+
+object AdminPool {
+  val TOPIC_ADMINS: String     = "topic-admins"
+  val CONNECTOR_ADMINS: String = "connector-admins"
+  val CREATED: String          = "created"
+  val REUSED: String           = "reused"
+  val CLOSED: String           = "closed"
+
+  def builder: Builder = new Builder
+
+  /**
+    * the admin of a cluster. A failed admin is never cached. The mutable fields are guarded by the lock of Admins.
+    */
+  private class Entry[T](val connectionProps: String, val admin: Future[T]) {
+    var lastUsed: Long = CommonUtils.current()
+    // the number of running actions
+    var references: Int = 0
+    // true if the entry is removed from pool. It is closed by the last action
+    var retired: Boolean = false
+    // true if the cluster is removed. The counters of removed cluster are not updated
+    var invalidated: Boolean = false
+  }
+
+  /**
+    * the admins and counters of a kind.
+    */
+  private class Admins[T](
+    name: String,
+    exist: ObjectKey => Future[Boolean],
+    closeAdmin: T => Unit,
+    isClosed: T => Boolean
+  ) {
+    private[this] val entries  = new ConcurrentHashMap[ObjectKey, Entry[T]]()
+    private[this] val counters = new ConcurrentHashMap[(ObjectKey, String), Counter]()
+
+    private[this] def counter(key: ObjectKey, item: String): Counter =
+      counters.computeIfAbsent(
+        key -> item,
+        _ =>
+          Counter
+            .builder()
+            .key(key)
+            .item(s"$name.$item")
+            .unit("admins")
+            .document(s"the number of $item $name")
+            .register()
+      )
+
+    private[this] def closeEntry(key: ObjectKey, entry: Entry[T]): Unit = {
+      if (!entry.invalidated) counter(key, CLOSED).increment()
+      entry.admin.foreach(closeAdmin)(ExecutionContext.parasitic)
+    }
+
+    /**
+      * remove the entry from pool. It is closed right now if there is no running action.
+      */
+    private[this] def retire(key: ObjectKey, entry: Entry[T]): Unit =
+      if (entries.remove(key, entry)) {
+        entry.retired = true
+        if (entry.references == 0) closeEntry(key, entry)
+      }
+
+    private[this] def broken(entry: Entry[T]): Boolean =
+      entry.admin.value.exists(_.fold(_ => true, isClosed))
+
+    private[this] def entry(key: ObjectKey, connectionProps: String, create: () => Future[T]): Entry[T] =
+      Option(entries.get(key)) match {
+        case Some(entry) if entry.connectionProps == connectionProps && !broken(entry) =>
+          counter(key, REUSED).increment()
+          entry.lastUsed = CommonUtils.current()
+          entry
+        case previous =>
+          previous.foreach(retire(key, _))
+          counter(key, CREATED).increment()
+          val entry = new Entry(connectionProps, create())
+          entries.put(key, entry)
+          // don't cache the failed admin
+          entry.admin.failed.foreach(_ => entries.remove(key, entry))(ExecutionContext.parasitic)
+          entry
+      }
+
+    /**
+      * the cluster may be removed by others so the pooled admin is closed if the cluster is not running.
+      */
+    private[this] def checkExist(key: ObjectKey): Future[Unit] =
+      exist(key).map { existent =>
+        if (!existent) {
+          invalidate(key)
+          throw new NoSuchClusterException(s"cluster:$key is not running")
+        }
+      }(ExecutionContext.parasitic)
+
+    def acquire(key: ObjectKey, connectionProps: String, create: () => Future[T]): Future[T] =
+      checkExist(key).flatMap(_ => this.synchronized(entry(key, connectionProps, create).admin))(
+        ExecutionContext.parasitic
+      )
+
+    /**
+      * run the action with the admin. The admin is not closed until the future returned by action completes.
+      */
+    def lease[R](key: ObjectKey, connectionProps: String, create: () => Future[T])(action: T => Future[R])(
+      implicit executionContext: ExecutionContext
+    ): Future[R] = checkExist(key).flatMap { _ =>
+      val leased = this.synchronized {
+        val e = entry(key, connectionProps, create)
+        e.references += 1
+        e
+      }
+      // the admin is released before the result is returned
+      leased.admin.flatMap(action).andThen {
+        case _ => done(key, leased)
+      }
+    }
+
+    private[this] def done(key: ObjectKey, entry: Entry[T]): Unit = this.synchronized {
+      entry.references -= 1
+      entry.lastUsed = CommonUtils.current()
+      if (entry.retired && entry.references == 0) closeEntry(key, entry)
+    }
+
+    def evict(idleTimeout: Long): Unit = this.synchronized {
+      val now = CommonUtils.current()
+      entries.asScala.filter(_._2.references == 0).filter(_._2.lastUsed + idleTimeout <= now).foreach {
+        case (key, entry) => retire(key, entry)
+      }
+    }
+
+    def invalidate(key: ObjectKey): Unit = this.synchronized {
+      Option(entries.get(key)).foreach { entry =>
+        entry.invalidated = true
+        retire(key, entry)
+      }
+      counters.asScala.keys.filter(_._1 == key).toSeq.foreach(k => Releasable.close(counters.remove(k)))
+    }
+
+    def size: Int = entries.size()
+
+    /**
+      * close all admins even if they are used by running actions.
+      */
+    def close(): Unit = this.synchronized {
+      entries.asScala.foreach {
+        case (key, entry) =>
+          entries.remove(key, entry)
+          closeEntry(key, entry)
+      }
+      counters.values().asScala.foreach(c => Releasable.close(c))
+      counters.clear()
+    }
+  }
+
+  class Builder private[AdminPool] extends oharastream.ohara.common.pattern.Builder[AdminPool] {
+    private[this] var topicAdmin: BrokerClusterInfo => Future[TopicAdmin]         = _
+    private[this] var connectorAdmin: WorkerClusterInfo => Future[ConnectorAdmin] = _
+    private[this] var idleTimeout: Duration                                       = Duration(5, TimeUnit.MINUTES)
+    private[this] var brokerClusterExist: ObjectKey => Future[Boolean]            = _ => Future.successful(true)
+    private[this] var workerClusterExist: ObjectKey => Future[Boolean]            = _ => Future.successful(true)
+
+    /**
+      * @param topicAdmin create the topic admin of broker cluster. It is called only if there is no available admin
+      * @return this builder
+      */
+    def topicAdmin(topicAdmin: BrokerClusterInfo => Future[TopicAdmin]): Builder = {
+      this.topicAdmin = Objects.requireNonNull(topicAdmin)
+      this
+    }
+
+    /**
+      * @param connectorAdmin create the connector admin of worker cluster. It is called only if there is no available
+      *                       admin
+      * @return this builder
+      */
+    def connectorAdmin(connectorAdmin: WorkerClusterInfo => Future[ConnectorAdmin]): Builder = {
+      this.connectorAdmin = Objects.requireNonNull(connectorAdmin)
+      this
+    }
+
+    /**
+      * @param brokerClusterExist check whether the broker cluster is running. It is called for each request
+      * @return this builder
+      */
+    @Optional("default value assumes all broker clusters are running")
+    def brokerClusterExist(brokerClusterExist: ObjectKey => Future[Boolean]): Builder = {
+      this.brokerClusterExist = Objects.requireNonNull(brokerClusterExist)
+      this
+    }
+
+    /**
+      * @param workerClusterExist check whether the worker cluster is running. It is called for each request
+      * @return this builder
+      */
+    @Optional("default value assumes all worker clusters are running")
+    def workerClusterExist(workerClusterExist: ObjectKey => Future[Boolean]): Builder = {
+      this.workerClusterExist = Objects.requireNonNull(workerClusterExist)
+      this
+    }
+
+    /**
+      * the admin which is not used in this period is closed.
+      * @param idleTimeout idle timeout
+      * @return this builder
+      */
+    @Optional("default value is 5 minutes")
+    def idleTimeout(idleTimeout: Duration): Builder = {
+      this.idleTimeout = Objects.requireNonNull(idleTimeout)
+      this
+    }
+
+    override def build: AdminPool = new AdminPool {
+      private[this] val createTopicAdmin     = Objects.requireNonNull(Builder.this.topicAdmin)
+      private[this] val createConnectorAdmin = Objects.requireNonNull(Builder.this.connectorAdmin)
+      private[this] val idleTimeout          = Builder.this.idleTimeout.toMillis
+      private[this] val closed               = new AtomicBoolean(false)
+      private[this] val topicAdmins =
+        new Admins[TopicAdmin](TOPIC_ADMINS, Builder.this.brokerClusterExist, a => Releasable.close(a), _.closed())
+      // connector admin is a http client so there is nothing to close
+      private[this] val connectorAdmins =
+        new Admins[ConnectorAdmin](CONNECTOR_ADMINS, Builder.this.workerClusterExist, _ => (), _ => false)
+
+      private[this] def checkClosed(): Unit = if (closed.get()) throw new IllegalStateException("pool is closed!!!")
+
+      override def topicAdmin[T](brokerClusterInfo: BrokerClusterInfo)(action: TopicAdmin => Future[T])(
+        implicit executionContext: ExecutionContext
+      ): Future[T] = {
+        checkClosed()
+        topicAdmins.evict(idleTimeout)
+        topicAdmins.lease(
+          brokerClusterInfo.key,
+          brokerClusterInfo.connectionProps,
+          () => createTopicAdmin(brokerClusterInfo)
+        )(action)
+      }
+
+      override def connectorAdmin(workerClusterInfo: WorkerClusterInfo): Future[ConnectorAdmin] = {
+        checkClosed()
+        connectorAdmins.evict(idleTimeout)
+        connectorAdmins.acquire(
+          workerClusterInfo.key,
+          workerClusterInfo.connectionProps,
+          () => createConnectorAdmin(workerClusterInfo)
+        )
+      }
+
+      override def invalidate(clusterKey: ObjectKey): Unit = {
+        topicAdmins.invalidate(clusterKey)
+        connectorAdmins.invalidate(clusterKey)
+      }
+
+      override def size: Int = topicAdmins.size + connectorAdmins.size
+
+      override def close(): Unit = if (closed.compareAndSet(false, true)) {
+        topicAdmins.close()
+        connectorAdmins.close()
+      }
+    }
+  }
+}
@@ -153,6 +153,7 @@ object BrokerRoute {
 
   private[this] def hookBeforeStop(
     implicit dataChecker: DataChecker,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[BrokerClusterInfo] =
     (brokerClusterInfo: BrokerClusterInfo, _: String, _: Map[String, String]) =>
@@ -167,9 +168,12 @@ object BrokerRoute {
           case (workerClusterInfos, streamClusterInfos, shabondiClusterInfos, topicInfos) =>
             checkConflict(brokerClusterInfo, workerClusterInfos, streamClusterInfos, shabondiClusterInfos, topicInfos)
         }
+        // the cached admin is useless after the cluster is stopped
+        .map(_ => adminPool.invalidate(brokerClusterInfo.key))
 
   private[this] def hookBeforeDelete(
     implicit dataChecker: DataChecker,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookBeforeDelete =
     key =>
@@ -199,7 +203,7 @@ object BrokerRoute {
           case e: DataCheckException if e.nonexistent.contains(key) => ()
           case e: Throwable                                         => throw e
         }
-        .map(_ => ())
+        .map(_ => adminPool.invalidate(key))
 
   @nowarn("cat=deprecation")
   def apply(
@@ -207,6 +211,7 @@ object BrokerRoute {
     dataChecker: DataChecker,
     meterCache: MetricsCache,
     brokerCollie: BrokerCollie,
+    adminPool: AdminPool,
     serviceCollie: ServiceCollie,
     executionContext: ExecutionContext
   ): server.Route =
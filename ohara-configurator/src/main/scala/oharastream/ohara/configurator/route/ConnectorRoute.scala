@@ -18,7 +18,6 @@ package oharastream.ohara.configurator.route
 
 import akka.http.scaladsl.server
 import com.typesafe.scalalogging.Logger
-import oharastream.ohara.agent.WorkerCollie
 import oharastream.ohara.client.configurator.ConnectorApi
 import oharastream.ohara.client.configurator.ConnectorApi._
 import oharastream.ohara.client.configurator.FileInfoApi.ClassInfo
@@ -38,7 +37,7 @@ private[configurator] object ConnectorRoute {
     creation: Creation
   )(
     implicit objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): Future[ConnectorInfo] =
     objectChecker.checkList
@@ -56,7 +55,7 @@ private[configurator] object ConnectorRoute {
         case (workerClusterInfo, condition) =>
           condition match {
             case DataCondition.RUNNING =>
-              try workerCollie.connectorAdmin(workerClusterInfo).flatMap(_.connectorDefinitions())
+              try adminPool.connectorAdmin(workerClusterInfo).flatMap(_.connectorDefinitions())
               catch {
                 case e: Throwable =>
                   LOG.error(s"failed to get definitions from worker cluster:${workerClusterInfo.key}", e)
@@ -91,7 +90,7 @@ private[configurator] object ConnectorRoute {
 
   private[this] def updateState(connectorInfo: ConnectorInfo)(
     implicit executionContext: ExecutionContext,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     objectChecker: DataChecker,
     meterCache: MetricsCache
   ): Future[ConnectorInfo] =
@@ -113,7 +112,7 @@ private[configurator] object ConnectorRoute {
                 )
               )
             case DataCondition.RUNNING =>
-              workerCollie.connectorAdmin(workerClusterInfo).flatMap { connectorAdmin =>
+              adminPool.connectorAdmin(workerClusterInfo).flatMap { connectorAdmin =>
                 // we check the active connectors first to avoid exception :)
                 connectorAdmin.exist(connectorInfo.key).flatMap {
                   if (_) connectorAdmin.status(connectorInfo.key).map { connectorInfoFromKafka =>
@@ -176,14 +175,14 @@ private[configurator] object ConnectorRoute {
       }
 
   private[this] def hookOfGet(
-    implicit workerCollie: WorkerCollie,
+    implicit adminPool: AdminPool,
     objectChecker: DataChecker,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
   ): HookOfGet[ConnectorInfo] = updateState
 
   private[this] def hookOfList(
-    implicit workerCollie: WorkerCollie,
+    implicit adminPool: AdminPool,
     objectChecker: DataChecker,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
@@ -192,14 +191,14 @@ private[configurator] object ConnectorRoute {
 
   private[this] def hookOfCreation(
     implicit objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfCreation[Creation, ConnectorInfo] =
     creationToConnectorInfo(_)
 
   private[this] def hookOfUpdating(
     implicit objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfUpdating[Updating, ConnectorInfo] =
     (key: ObjectKey, updating: Updating, previousOption: Option[ConnectorInfo]) =>
@@ -246,7 +245,7 @@ private[configurator] object ConnectorRoute {
 
   private[this] def hookOfStart(
     implicit objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[ConnectorInfo] =
     (connectorInfo: ConnectorInfo, _, _) =>
@@ -276,7 +275,7 @@ private[configurator] object ConnectorRoute {
                       s"but topic:${topicInfo.key} is on another broker cluster:${topicInfo.brokerClusterKey}"
                   )
                 }
-                workerCollie.connectorAdmin(workerClusterInfo).flatMap {
+                adminPool.connectorAdmin(workerClusterInfo).flatMap {
                   _.connectorCreator()
                     .settings(connectorInfo.plain)
                     // always override the name
@@ -291,7 +290,7 @@ private[configurator] object ConnectorRoute {
 
   private[this] def hookOfStop(
     implicit objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[ConnectorInfo] =
     (connectorInfo: ConnectorInfo, _, _) =>
@@ -302,13 +301,13 @@ private[configurator] object ConnectorRoute {
             .workerCluster(connectorInfo.workerClusterKey, DataCondition.RUNNING)
             .check()
             .map(_.runningWorkers.head)
-            .flatMap(workerCollie.connectorAdmin)
+            .flatMap(adminPool.connectorAdmin)
             .flatMap(connectorAdmin => connectorAdmin.delete(connectorInfo.key))
       }
 
   private[this] def hookOfPause(
     implicit objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[ConnectorInfo] =
     (connectorInfo: ConnectorInfo, _, _) =>
@@ -317,7 +316,7 @@ private[configurator] object ConnectorRoute {
         .connector(connectorInfo.key, DataCondition.RUNNING)
         .check()
         .map(_.runningWorkers.head)
-        .flatMap(workerCollie.connectorAdmin)
+        .flatMap(adminPool.connectorAdmin)
         .map { wkClient =>
           wkClient.status(connectorInfo.key).map(_.connector.state).flatMap {
             case State.PAUSED.name => Future.unit
@@ -327,7 +326,7 @@ private[configurator] object ConnectorRoute {
 
   private[this] def hookOfResume(
     implicit objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[ConnectorInfo] =
     (connectorInfo: ConnectorInfo, _, _) =>
@@ -336,7 +335,7 @@ private[configurator] object ConnectorRoute {
         .connector(connectorInfo.key, DataCondition.RUNNING)
         .check()
         .map(_.runningWorkers.head)
-        .flatMap(workerCollie.connectorAdmin)
+        .flatMap(adminPool.connectorAdmin)
         .map { wkClient =>
           wkClient.status(connectorInfo.key).map(_.connector.state).flatMap {
             case State.RUNNING.name => Future.unit
@@ -348,7 +347,7 @@ private[configurator] object ConnectorRoute {
   def apply(
     implicit store: DataStore,
     objectChecker: DataChecker,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
   ): server.Route =
@@ -16,7 +16,9 @@
 
 package oharastream.ohara.configurator.route
 
-import oharastream.ohara.agent.{BrokerCollie, ClusterStatus, Collie, ServiceCollie}
+import java.util.concurrent.ConcurrentHashMap
+
+import oharastream.ohara.agent.{Collie, ServiceCollie}
 import oharastream.ohara.client.configurator.Data
 import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.ConnectorApi.ConnectorInfo
@@ -444,7 +446,7 @@ object DataChecker {
     def check()(implicit executionContext: ExecutionContext): Future[DataReport]
   }
 
-  def apply()(implicit store: DataStore, serviceCollie: ServiceCollie): DataChecker =
+  def apply()(implicit store: DataStore, serviceCollie: ServiceCollie, adminPool: AdminPool): DataChecker =
     new DataChecker {
       override def checkList: CheckList = new CheckList {
         //---------------------[Broker]---------------------//
@@ -460,21 +462,11 @@ object DataChecker {
           this
         }
 
-        private[this] def checkBrokers()(
+        private[this] def checkBrokers(runningClusters: RunningClusters)(
           implicit executionContext: ExecutionContext
         ): Future[Map[BrokerClusterInfo, DataCondition]] =
-          if (requireAllBrokers)
-            store
-              .values[BrokerClusterInfo]()
-              .map(_.map(_.key))
-              .flatMap(
-                keys => checkClusters[ClusterStatus, BrokerClusterInfo](serviceCollie.brokerCollie, keys.toSet)
-              )
-          else
-            checkClusters[ClusterStatus, BrokerClusterInfo](
-              serviceCollie.brokerCollie,
-              requiredBrokers.keys.toSet
-            )
+          values[BrokerClusterInfo](requireAllBrokers, requiredBrokers.keys)
+            .flatMap(clusters => checkClusters(serviceCollie.brokerCollie, clusters, runningClusters))
 
         //---------------------[Connector]---------------------//
         private[this] var requireAllConnectors = false
@@ -489,37 +481,30 @@ object DataChecker {
           this
         }
 
-        private[this] def checkConnector(
-          key: ConnectorKey
-        )(implicit executionContext: ExecutionContext): Future[Option[(ConnectorInfo, DataCondition)]] =
-          store.get[ConnectorInfo](key).flatMap {
-            case None => Future.successful(None)
-            case Some(connectorInfo) =>
-              checkCluster[WorkerClusterInfo](
-                serviceCollie.workerCollie,
-                connectorInfo.workerClusterKey
-              ).flatMap {
-                case None => Future.successful(Some(connectorInfo -> DataCondition.STOPPED))
-                case Some((workerClusterInfo, condition)) =>
-                  condition match {
-                    case DataCondition.STOPPED => Future.successful(Some(connectorInfo -> DataCondition.STOPPED))
-                    case DataCondition.RUNNING =>
-                      serviceCollie.workerCollie
-                        .connectorAdmin(workerClusterInfo)
-                        .flatMap(_.activeConnectors())
-                        .map(_.contains(key))
-                        .map(if (_) DataCondition.RUNNING else DataCondition.STOPPED)
-                        .map(condition => Some(connectorInfo -> condition))
-                  }
-              }
-          }
-
-        private[this] def checkConnectors()(
+        private[this] def checkConnectors(runningClusters: RunningClusters)(
           implicit executionContext: ExecutionContext
         ): Future[Map[ConnectorInfo, DataCondition]] =
-          if (requireAllConnectors) store.values[ConnectorInfo]().map(_.map(_.key)).flatMap { keys =>
-            Future.traverse(keys)(checkConnector).map(_.flatten.toMap)
-          } else Future.traverse(requiredConnectors.keySet)(checkConnector).map(_.flatten.toMap)
+          values[ConnectorInfo](requireAllConnectors, requiredConnectors.keys)
+            .flatMap(
+              connectorInfos =>
+                Future.traverse(connectorInfos.groupBy(_.workerClusterKey).toSeq) {
+                  case (workerClusterKey, connectorInfos) =>
+                    store
+                      .get[WorkerClusterInfo](workerClusterKey)
+                      .flatMap(clusters => checkClusters(serviceCollie.workerCollie, clusters.toSeq, runningClusters))
+                      .flatMap(_.headOption match {
+                        case Some((workerClusterInfo, DataCondition.RUNNING)) =>
+                          // one call to get all active connectors of this worker cluster
+                          adminPool
+                            .connectorAdmin(workerClusterInfo)
+                            .flatMap(_.activeConnectors())
+                            .map(_.toSet)
+                            .map(activeKeys => connectorInfos.map(c => c -> condition(activeKeys.contains(c.key))))
+                        case _ => Future.successful(connectorInfos.map(_ -> DataCondition.STOPPED))
+                      })
+                }
+            )
+            .map(_.flatten.toMap)
 
         //---------------------[File]---------------------//
         private[this] var requireAllFiles = false
@@ -603,40 +588,29 @@ object DataChecker {
           this
         }
 
-        private[this] def checkTopic(
-          key: TopicKey
-        )(implicit executionContext: ExecutionContext): Future[Option[(TopicInfo, DataCondition)]] =
-          store.get[TopicInfo](key).flatMap {
-            case None => Future.successful(None)
-            case Some(topicInfo) =>
-              checkCluster[BrokerClusterInfo](
-                serviceCollie.brokerCollie,
-                topicInfo.brokerClusterKey
-              ).flatMap {
-                case None => Future.successful(Some(topicInfo -> DataCondition.STOPPED))
-                case Some((brokerClusterInfo, condition)) =>
-                  condition match {
-                    case DataCondition.STOPPED => Future.successful(Some(topicInfo -> DataCondition.STOPPED))
-                    case DataCondition.RUNNING =>
-                      implicit val bkService: BrokerCollie = serviceCollie.brokerCollie
-                      topicAdmin(brokerClusterInfo)(
-                        _.exist(topicInfo.key).toScala
-                          .map(
-                            existent =>
-                              if (existent) Some(topicInfo -> DataCondition.RUNNING)
-                              else Some(topicInfo          -> DataCondition.STOPPED)
-                          )
-                      )
-                  }
-              }
-          }
-
-        private[this] def checkTopics()(
+        private[this] def checkTopics(runningClusters: RunningClusters)(
           implicit executionContext: ExecutionContext
         ): Future[Map[TopicInfo, DataCondition]] =
-          if (requireAllTopics) store.values[TopicInfo]().map(_.map(_.key)).flatMap { keys =>
-            Future.traverse(keys)(checkTopic).map(_.flatten.toMap)
-          } else Future.traverse(requiredTopics.keySet)(checkTopic).map(_.flatten.toMap)
+          values[TopicInfo](requireAllTopics, requiredTopics.keys)
+            .flatMap(
+              topicInfos =>
+                Future.traverse(topicInfos.groupBy(_.brokerClusterKey).toSeq) {
+                  case (brokerClusterKey, topicInfos) =>
+                    store
+                      .get[BrokerClusterInfo](brokerClusterKey)
+                      .flatMap(clusters => checkClusters(serviceCollie.brokerCollie, clusters.toSeq, runningClusters))
+                      .flatMap(_.headOption match {
+                        case Some((brokerClusterInfo, DataCondition.RUNNING)) =>
+                          // one call to get all existent topics of this broker cluster
+                          topicAdmin(brokerClusterInfo)(
+                            _.topicKeys().toScala
+                              .map(existentKeys => topicInfos.map(t => t -> condition(existentKeys.contains(t.key))))
+                          )
+                        case _ => Future.successful(topicInfos.map(_ -> DataCondition.STOPPED))
+                      })
+                }
+            )
+            .map(_.flatten.toMap)
 
         //---------------------[Volume]---------------------//
         private[this] var requireAllVolumes = false
@@ -654,26 +628,13 @@ object DataChecker {
         private[this] def checkVolumes()(
           implicit executionContext: ExecutionContext
         ): Future[Map[Volume, DataCondition]] =
-          if (requireAllVolumes) store.values[Volume]().map(_.map(_.key)).flatMap { keys =>
-            Future.traverse(keys)(checkVolume).map(_.flatten.toMap)
-          } else Future.traverse(requiredVolumes.keySet)(checkVolume).map(_.flatten.toMap)
-
-        private[this] def checkVolume(
-          key: ObjectKey
-        )(implicit executionContext: ExecutionContext): Future[Option[(Volume, DataCondition)]] =
-          store.get[Volume](key).flatMap {
-            case None => Future.successful(None)
-            case Some(volume) =>
+          values[Volume](requireAllVolumes, requiredVolumes.keys).flatMap { volumes =>
+            if (volumes.isEmpty) Future.successful(Map.empty)
+            else
               serviceCollie
                 .volumes()
-                .map(_.filter(_.key == volume.key))
-                .map(
-                  existentVolumes =>
-                    Some(
-                      volume -> (if (existentVolumes.isEmpty) DataCondition.STOPPED
-                                 else DataCondition.RUNNING)
-                    )
-                )
+                .map(_.map(_.key).toSet)
+                .map(existentKeys => volumes.map(v => v -> condition(existentKeys.contains(v.key))).toMap)
           }
 
         //---------------------[Zookeeper]---------------------//
@@ -689,21 +650,11 @@ object DataChecker {
           this
         }
 
-        private[this] def checkZookeepers()(
+        private[this] def checkZookeepers(runningClusters: RunningClusters)(
           implicit executionContext: ExecutionContext
         ): Future[Map[ZookeeperClusterInfo, DataCondition]] =
-          if (requireAllZookeepers)
-            store
-              .values[ZookeeperClusterInfo]()
-              .map(_.map(_.key))
-              .flatMap(
-                keys => checkClusters[ClusterStatus, ZookeeperClusterInfo](serviceCollie.zookeeperCollie, keys.toSet)
-              )
-          else
-            checkClusters[ClusterStatus, ZookeeperClusterInfo](
-              serviceCollie.zookeeperCollie,
-              requiredZookeepers.keys.toSet
-            )
+          values[ZookeeperClusterInfo](requireAllZookeepers, requiredZookeepers.keys)
+            .flatMap(clusters => checkClusters(serviceCollie.zookeeperCollie, clusters, runningClusters))
         //---------------------[Worker]---------------------//
         private[this] var requireAllWorkers = false
         override def allWorkers(): CheckList = {
@@ -717,21 +668,11 @@ object DataChecker {
           this
         }
 
-        private[this] def checkWorkers()(
+        private[this] def checkWorkers(runningClusters: RunningClusters)(
           implicit executionContext: ExecutionContext
         ): Future[Map[WorkerClusterInfo, DataCondition]] =
-          if (requireAllWorkers)
-            store
-              .values[WorkerClusterInfo]()
-              .map(_.map(_.key))
-              .flatMap(
-                keys => checkClusters[ClusterStatus, WorkerClusterInfo](serviceCollie.workerCollie, keys.toSet)
-              )
-          else
-            checkClusters[ClusterStatus, WorkerClusterInfo](
-              serviceCollie.workerCollie,
-              requiredWorkers.keys.toSet
-            )
+          values[WorkerClusterInfo](requireAllWorkers, requiredWorkers.keys)
+            .flatMap(clusters => checkClusters(serviceCollie.workerCollie, clusters, runningClusters))
 
         //---------------------[Stream]---------------------//
         private[this] var requireAllStreams = false
@@ -746,21 +687,11 @@ object DataChecker {
           this
         }
 
-        private[this] def checkStreams()(
+        private[this] def checkStreams(runningClusters: RunningClusters)(
           implicit executionContext: ExecutionContext
         ): Future[Map[StreamClusterInfo, DataCondition]] =
-          if (requireAllStreams)
-            store
-              .values[StreamClusterInfo]()
-              .map(_.map(_.key))
-              .flatMap(
-                keys => checkClusters[ClusterStatus, StreamClusterInfo](serviceCollie.streamCollie, keys.toSet)
-              )
-          else
-            checkClusters[ClusterStatus, StreamClusterInfo](
-              serviceCollie.streamCollie,
-              requiredStreams.keys.toSet
-            )
+          values[StreamClusterInfo](requireAllStreams, requiredStreams.keys)
+            .flatMap(clusters => checkClusters(serviceCollie.streamCollie, clusters, runningClusters))
 
         //---------------------[Shabondi]---------------------//
         private[this] var requireAllShabondis = false
@@ -775,48 +706,34 @@ object DataChecker {
           this
         }
 
-        private[this] def checkShabondis()(
+        private[this] def checkShabondis(runningClusters: RunningClusters)(
           implicit executionContext: ExecutionContext
         ): Future[Map[ShabondiClusterInfo, DataCondition]] =
-          if (requireAllShabondis)
-            store
-              .values[ShabondiClusterInfo]()
-              .map(_.map(_.key))
-              .flatMap(
-                keys => checkClusters[ClusterStatus, ShabondiClusterInfo](serviceCollie.shabondiCollie, keys.toSet)
-              )
-          else
-            checkClusters[ClusterStatus, ShabondiClusterInfo](
-              serviceCollie.shabondiCollie,
-              requiredShabondis.keys.toSet
-            )
+          values[ShabondiClusterInfo](requireAllShabondis, requiredShabondis.keys)
+            .flatMap(clusters => checkClusters(serviceCollie.shabondiCollie, clusters, runningClusters))
 
         //---------------------[Others]---------------------//
 
-        private[this] def checkCluster[C <: ClusterInfo: ClassTag](
-          collie: Collie,
-          key: ObjectKey
-        )(implicit executionContext: ExecutionContext): Future[Option[(C, DataCondition)]] =
-          store.get[C](key).flatMap {
-            case None          => Future.successful(None)
-            case Some(cluster) =>
-              // TODO: currently the existence of cluster implies the cluster is running. However, it would be better
-              // to check the state of cluster as well.
-              collie
-                .exist(key)
-                .map(if (_) DataCondition.RUNNING else DataCondition.STOPPED)
-                .map(condition => Some(cluster -> condition))
-          }
+        private[this] def values[T <: Data: ClassTag](requireAll: Boolean, keys: Iterable[ObjectKey])(
+          implicit executionContext: ExecutionContext
+        ): Future[Seq[T]] =
+          if (requireAll) store.values[T]()
+          else Future.traverse(keys.toSeq)(store.get[T]).map(_.flatten)
 
-        private[this] def checkClusters[S <: ClusterStatus, C <: ClusterInfo: ClassTag](
+        private[this] def checkClusters[C <: ClusterInfo](
           collie: Collie,
-          keys: Set[ObjectKey]
+          clusters: Seq[C],
+          runningClusters: RunningClusters
         )(implicit executionContext: ExecutionContext): Future[Map[C, DataCondition]] =
-          Future
-            .traverse(keys) { key =>
-              checkCluster[C](collie, key)
-            }
-            .map(_.flatten.toMap)
+          if (clusters.isEmpty) Future.successful(Map.empty)
+          else
+            // TODO: currently the existence of cluster implies the cluster is running. However, it would be better
+            // to check the state of cluster as well.
+            runningClusters(collie)
+              .map(runningKeys => clusters.map(c => c -> condition(runningKeys.contains(c.key))).toMap)
+
+        private[this] def condition(running: Boolean): DataCondition =
+          if (running) DataCondition.RUNNING else DataCondition.STOPPED
 
         private[this] def compare(
           name: String,
@@ -843,7 +760,8 @@ object DataChecker {
             required.map(_   -> Option(DataCondition.RUNNING)).toMap
           )
 
-        override def check()(implicit executionContext: ExecutionContext): Future[DataReport] =
+        override def check()(implicit executionContext: ExecutionContext): Future[DataReport] = {
+          val runningClusters = new RunningClusters
           // check files
           checkFiles()
             .map { passed =>
@@ -871,35 +789,35 @@ object DataChecker {
             }
             // check zookeepers
             .flatMap { report =>
-              checkZookeepers().map { passed =>
+              checkZookeepers(runningClusters).map { passed =>
                 compare("zookeeper", passed.map(e => e._1.key -> e._2), requiredZookeepers.toMap)
                 report.copy(zookeeperClusterInfos = passed)
               }
             }
             // check brokers
             .flatMap { report =>
-              checkBrokers().map { passed =>
+              checkBrokers(runningClusters).map { passed =>
                 compare("broker", passed.map(e => e._1.key -> e._2), requiredBrokers.toMap)
                 report.copy(brokerClusterInfos = passed)
               }
             }
             // check streams
             .flatMap { report =>
-              checkStreams().map { passed =>
+              checkStreams(runningClusters).map { passed =>
                 compare("stream", passed.map(e => e._1.key -> e._2), requiredStreams.toMap)
                 report.copy(streamClusterInfos = passed)
               }
             }
             // check shabondis
             .flatMap { report =>
-              checkShabondis().map { passed =>
+              checkShabondis(runningClusters).map { passed =>
                 compare("shabondi", passed.map(e => e._1.key -> e._2), requiredShabondis.toMap)
                 report.copy(shabondiClusterInfos = passed)
               }
             }
             // check workers
             .flatMap { report =>
-              checkWorkers().map { passed =>
+              checkWorkers(runningClusters).map { passed =>
                 compare("worker", passed.map(e => e._1.key -> e._2), requiredWorkers.toMap)
                 report.copy(workerClusterInfos = passed)
               }
@@ -920,7 +838,7 @@ object DataChecker {
             }
             // check topics
             .flatMap { report =>
-              checkTopics().map { passed =>
+              checkTopics(runningClusters).map { passed =>
                 compare("topic", passed.map(e => e._1.key -> e._2).toMap, requiredTopics.toMap)
                 report.copy(topicInfos = passed)
               }
@@ -934,11 +852,22 @@ object DataChecker {
             }
             // check connectors
             .flatMap { report =>
-              checkConnectors().map { passed =>
+              checkConnectors(runningClusters).map { passed =>
                 compare("connector", passed.map(e => e._1.key -> e._2).toMap, requiredConnectors.toMap)
                 report.copy(connectorInfos = passed)
               }
             }
+        }
       }
     }
+
+  /**
+    * the running clusters fetched from each collie. It is shared by all checks in a single check so the collie is
+    * queried once no matter how many objects are hosted by its clusters.
+    */
+  private[this] class RunningClusters(implicit executionContext: ExecutionContext) {
+    private[this] val cache = new ConcurrentHashMap[Collie, Future[Set[ObjectKey]]]()
+    def apply(collie: Collie): Future[Set[ObjectKey]] =
+      cache.computeIfAbsent(collie, _ => collie.clusters().map(_.map(_.key).toSet))
+  }
 }
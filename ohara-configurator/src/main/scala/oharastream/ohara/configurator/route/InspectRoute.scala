@@ -22,7 +22,7 @@ import java.nio.charset.StandardCharsets
 import akka.http.scaladsl.marshallers.sprayjson.SprayJsonSupport._
 import akka.http.scaladsl.server
 import akka.http.scaladsl.server.Directives.{entity, _}
-import oharastream.ohara.agent.{BrokerCollie, ServiceCollie, WorkerCollie}
+import oharastream.ohara.agent.ServiceCollie
 import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.FileInfoApi.{ClassInfo, FileInfo}
 import oharastream.ohara.client.configurator.InspectApi._
@@ -124,10 +124,9 @@ private[configurator] object InspectRoute {
 
   @nowarn("cat=deprecation")
   def apply(mode: Mode, k8sUrls: Option[K8sUrls])(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     dataStore: DataStore,
     serviceCollie: ServiceCollie,
-    workerCollie: WorkerCollie,
     objectChecker: DataChecker,
     executionContext: ExecutionContext
   ): server.Route = pathPrefix(KIND) {
@@ -264,13 +263,21 @@ private[configurator] object InspectRoute {
           k8sUrls = k8sUrls
         )
       )
+    } ~ path(STORE_KIND) {
+      complete(
+        StoreInfo(
+          counts = dataStore.counts(),
+          cacheHits = dataStore.cacheHits,
+          cacheMisses = dataStore.cacheMisses
+        )
+      )
     } ~ pathPrefix(WorkerApi.KIND) {
       path(Segment) { name =>
         parameters(GROUP_KEY ? GROUP_DEFAULT) { group =>
           complete(
             dataStore
               .value[WorkerClusterInfo](ObjectKey.of(group, name))
-              .flatMap(workerCollie.connectorAdmin)
+              .flatMap(adminPool.connectorAdmin)
               .flatMap(_.connectorDefinitions())
               .recover {
                 case _: Throwable => Map.empty
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.route
+
+import akka.http.scaladsl.marshallers.sprayjson.SprayJsonSupport._
+import akka.http.scaladsl.server
+import akka.http.scaladsl.server.Directives._
+import oharastream.ohara.client.configurator.MetricsApi
+import oharastream.ohara.client.configurator.MetricsApi._
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.common.util.CommonUtils
+import oharastream.ohara.configurator.store.MetricsHistory
+
+/**
+  * Used to query the history of meters. The range is [from, to] and the default range is all samples until now. The
+  * resolution is RAW by default.
+  */
+object MetricsRoute {
+  def apply(implicit history: MetricsHistory): server.Route =
+    path(MetricsApi.KIND / Segment) { name =>
+      get {
+        parameter(
+          (
+            GROUP_KEY ? GROUP_DEFAULT,
+            FROM_KEY.as[Long].?,
+            TO_KEY.as[Long].?,
+            RESOLUTION_KEY.?,
+            METER_KEY.?,
+            HOSTNAME_KEY.?
+          )
+        ) {
+          case (group, from, to, resolution, meter, hostname) =>
+            val end   = to.getOrElse(CommonUtils.current())
+            val start = from.getOrElse(0L)
+            if (start > end) throw new IllegalArgumentException(s"$FROM_KEY:$start is bigger than $TO_KEY:$end")
+            val key = ObjectKey.of(group, name)
+            complete(
+              History(
+                key = key,
+                series = history
+                  .query(key, resolution.map(Resolution.forName).getOrElse(Resolution.RAW), start, end)
+                  .filter(s => meter.forall(_ == s.name))
+                  .filter(s => hostname.forall(_ == s.hostname))
+              )
+            )
+        }
+      }
+    }
+}
@@ -17,7 +17,7 @@
 package oharastream.ohara.configurator.route
 import akka.http.scaladsl.server
 import com.typesafe.scalalogging.Logger
-import oharastream.ohara.agent.{BrokerCollie, ServiceCollie, WorkerCollie}
+import oharastream.ohara.agent.ServiceCollie
 import oharastream.ohara.client.configurator.Data
 import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.ConnectorApi.ConnectorInfo
@@ -58,8 +58,7 @@ private[configurator] object PipelineRoute {
   private[this] def toAbstract(obj: Data)(
     implicit dataStore: DataStore,
     serviceCollie: ServiceCollie,
-    brokerCollie: BrokerCollie,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
   ): Future[ObjectAbstract] = obj match {
@@ -105,10 +104,7 @@ private[configurator] object PipelineRoute {
         topicAdmin
           .exist(data.key)
           .toScala
-          .map { existent =>
-            try if (existent) Some(TopicState.RUNNING) else None
-            finally topicAdmin.close()
-          }
+          .map(existent => if (existent) Some(TopicState.RUNNING) else None)
           .map(_.map(_.name))
           .map(
             state =>
@@ -178,9 +174,8 @@ private[configurator] object PipelineRoute {
     * @return updated pipeline
     */
   private[this] def updateObjectsAndJarKeys(pipeline: Pipeline)(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     serviceCollie: ServiceCollie,
-    workerCollie: WorkerCollie,
     store: DataStore,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
@@ -257,18 +252,16 @@ private[configurator] object PipelineRoute {
       }
 
   private[this] def hookOfGet(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     serviceCollie: ServiceCollie,
-    workerCollie: WorkerCollie,
     store: DataStore,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
   ): HookOfGet[Pipeline] = updateObjectsAndJarKeys(_)
 
   private[this] def hookOfList(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     serviceCollie: ServiceCollie,
-    workerCollie: WorkerCollie,
     store: DataStore,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
@@ -276,9 +269,8 @@ private[configurator] object PipelineRoute {
     Future.traverse(_)(updateObjectsAndJarKeys)
 
   private[this] def hookOfCreation(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     serviceCollie: ServiceCollie,
-    workerCollie: WorkerCollie,
     store: DataStore,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
@@ -297,9 +289,8 @@ private[configurator] object PipelineRoute {
       )
 
   private[this] def hookOfUpdating(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     serviceCollie: ServiceCollie,
-    workerCollie: WorkerCollie,
     store: DataStore,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
@@ -366,14 +357,21 @@ private[configurator] object PipelineRoute {
   ): HookOfAction[Pipeline] =
     (pipeline: Pipeline, _, _) =>
       refreshEndpoints(pipeline)
-        .flatMap(pipeline => store.add[Pipeline](pipeline))
+        // only drop the nonexistent endpoints from the latest pipeline since it may be updated by another request
+        .flatMap(
+          refreshed =>
+            store.addIfPresent[Pipeline](
+              pipeline.key,
+              (latest: Pipeline) =>
+                latest.copy(endpoints = latest.endpoints -- (pipeline.endpoints -- refreshed.endpoints))
+            )
+        )
         .map(_ => ())
 
   @nowarn("cat=deprecation")
   def apply(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     serviceCollie: ServiceCollie,
-    workerCollie: WorkerCollie,
     store: DataStore,
     executionContext: ExecutionContext,
     meterCache: MetricsCache
@@ -231,15 +231,30 @@ object RouteBuilder {
     ) => {
       def routeOfList = get {
         parameterMap { params =>
+          val request = QueryRequest(params.filter {
+            // the empty stuff causes false always since there is nothing matched to "empty"
+            // hence, we remove them from parameters for careless users :)
+            case (key, value) => key.nonEmpty && value.nonEmpty
+          } -- Set(QueryRequest.LIMIT_KEY, QueryRequest.OFFSET_KEY))
+          val offset = params.get(QueryRequest.OFFSET_KEY).map(s => CommonUtils.requireNonNegativeInt(s.toInt))
+          val limit  = params.get(QueryRequest.LIMIT_KEY).map(s => CommonUtils.requireNonNegativeInt(s.toInt))
+          // the paging requires a stable order
+          def page(objs: Seq[Res]): Seq[Res] =
+            if (offset.isEmpty && limit.isEmpty) objs
+            else {
+              val from = offset.getOrElse(0)
+              objs
+                .sortBy(obj => (obj.group, obj.name))
+                .slice(from, math.min(from.toLong + limit.getOrElse(objs.size), Int.MaxValue).toInt)
+            }
           complete(
-            store
-              .values[Res]()
-              .flatMap(hookOfList(_))
-              .map(_.filter(_.matched(QueryRequest(params.filter {
-                // the empty stuff causes false always since there is nothing matched to "empty"
-                // hence, we remove them from parameters for careless users :)
-                case (key, value) => key.nonEmpty && value.nonEmpty
-              }))))
+            // the stored fields are matched by index so the hook is not applied to the unmatched objects
+            if (request.raw.keySet.forall(DataStore.INDEXED_FIELDS.contains))
+              // the hook does not change the stored fields so the page is picked before running the hook
+              store.values[Res](request).map(_.filter(_.matched(request))).map(page).flatMap(hookOfList(_))
+            else
+              // the runtime fields (for example, state) are filled by hook so the page is picked after matching them
+              store.values[Res](request).flatMap(hookOfList(_)).map(_.filter(_.matched(request))).map(page)
           )
         }
       }
@@ -254,7 +269,14 @@ object RouteBuilder {
                 hook =>
                   complete(
                     hook(creation)
-                      .flatMap(res => store.addIfAbsent(res))
+                      .flatMap(
+                        res =>
+                          // creating an existent object is a bad request rather than a conflict
+                          store.addIfAbsent(res).recoverWith {
+                            case e: DataStore.ConflictException =>
+                              Future.failed(new IllegalArgumentException(e.getMessage, e))
+                          }
+                      )
                       .flatMap(res => hookAfterCreation.map(hook => hook(res)).getOrElse(Future.successful(res)))
                   )
               )
@@ -277,9 +299,20 @@ object RouteBuilder {
                 hook =>
                   complete(
                     store
-                      .get[Res](key)
-                      .flatMap(previous => hook(key = key, updating = update, previous = previous))
-                      .flatMap(store.add)
+                      .getWithRevision[Res](key)
+                      .flatMap(
+                        previous =>
+                          hook(key = key, updating = update, previous = previous.map(_._1)).flatMap(
+                            res =>
+                              // the data may be updated by another request during the hook
+                              previous
+                                .map {
+                                  case (_, revision) =>
+                                    store.transaction().compareAndSet(revision, res).commit().map(_ => res)
+                                }
+                                .getOrElse(store.addIfAbsent(res))
+                          )
+                      )
                       .flatMap(
                         res => hookAfterUpdating.map(hook => hook(res)).getOrElse(Future.successful(res))
                       )
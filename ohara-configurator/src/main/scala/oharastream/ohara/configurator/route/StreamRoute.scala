@@ -16,16 +16,19 @@
 
 package oharastream.ohara.configurator.route
 
+import akka.http.scaladsl.marshallers.sprayjson.SprayJsonSupport._
 import akka.http.scaladsl.server
+import akka.http.scaladsl.server.Directives._
 import oharastream.ohara.agent._
 import oharastream.ohara.client.configurator.StreamApi
 import oharastream.ohara.client.configurator.StreamApi._
+import oharastream.ohara.client.stream.StoreQueryClient
 import oharastream.ohara.common.setting.{ClassType, ObjectKey, SettingDef}
 import oharastream.ohara.common.util.CommonUtils
 import oharastream.ohara.configurator.route.hook.{HookBeforeDelete, HookOfAction, HookOfCreation, HookOfUpdating}
 import oharastream.ohara.configurator.store.{DataStore, MetricsCache}
 import oharastream.ohara.stream.config.StreamDefUtils
-import spray.json.DeserializationException
+import spray.json._
 
 import scala.annotation.nowarn
 import scala.concurrent.{ExecutionContext, Future}
@@ -224,6 +227,59 @@ private[configurator] object StreamRoute {
 
   private[this] def hookBeforeDelete: HookBeforeDelete = _ => Future.unit
 
+  /**
+    * the default number of rows returned by scanning state store
+    */
+  private[this] val DEFAULT_STORE_LIMIT = 100
+
+  private[this] def storeQueryClient(key: ObjectKey)(
+    implicit store: DataStore,
+    streamCollie: StreamCollie,
+    executionContext: ExecutionContext
+  ): Future[StoreQueryClient] =
+    store
+      .value[StreamClusterInfo](key)
+      .flatMap { streamClusterInfo =>
+        streamCollie.cluster(key).map { status =>
+          StoreQueryClient(
+            status.nodeNames,
+            streamClusterInfo.queryPort.getOrElse(
+              throw new IllegalArgumentException(
+                s"the query server of stream:$key is disabled. Please define the query port"
+              )
+            )
+          )
+        }
+      }
+
+  /**
+    * proxy the queries of state stores to the running stream. The point lookup is sent to the instance hosting the key
+    * and the scan is sent to all instances.
+    */
+  @nowarn("cat=deprecation")
+  private[this] def storeRoute(
+    implicit store: DataStore,
+    streamCollie: StreamCollie,
+    executionContext: ExecutionContext
+  ): server.Route =
+    path((STREAM_PREFIX_PATH | StreamApi.KIND) / Segment / STORES_PATH / Segment) {
+      case (name, storeName) =>
+        get {
+          parameters((GROUP_KEY ? GROUP_DEFAULT, STORE_KEY_KEY.?, STORE_LIMIT_KEY.as[Int].?)) {
+            case (group, rowKey, limit) =>
+              complete(storeQueryClient(ObjectKey.of(group, name)).flatMap[JsValue] { client =>
+                rowKey match {
+                  case Some(k) => client.storeValue(storeName, k.parseJson.asJsObject)
+                  case None =>
+                    client
+                      .storeValues(storeName, limit.getOrElse(DEFAULT_STORE_LIMIT))
+                      .map(rows => JsArray(rows.toVector))
+                }
+              })
+          }
+        }
+    }
+
   @nowarn("cat=deprecation")
   def apply(
     implicit store: DataStore,
@@ -241,5 +297,5 @@ private[configurator] object StreamRoute {
       hookOfStart = hookOfStart,
       hookBeforeStop = hookBeforeStop,
       hookBeforeDelete = hookBeforeDelete
-    )
+    ) ~ storeRoute
 }
@@ -16,7 +16,6 @@
 
 package oharastream.ohara.configurator.route
 import akka.http.scaladsl.server
-import oharastream.ohara.agent.BrokerCollie
 import oharastream.ohara.client.configurator.ConnectorApi.ConnectorInfo
 import oharastream.ohara.client.configurator.ShabondiApi.ShabondiClusterInfo
 import oharastream.ohara.client.configurator.StreamApi.StreamClusterInfo
@@ -36,93 +35,90 @@ import scala.jdk.CollectionConverters._
 
 private[configurator] object TopicRoute {
   /**
-    * update the metrics for input topic
-    * @param topicInfo topic info
-    * @return updated topic info
+    * update the metrics for input topics. The topics hosted by same broker cluster are described by a single batch
+    * request, so listing many topics does not cost a round trip for each topic.
+    * @param topicInfos topic infos
+    * @return updated topic infos. The order is same to input
     */
-  private[this] def updateState(topicInfo: TopicInfo)(
+  private[this] def updateStates(topicInfos: Seq[TopicInfo])(
     implicit meterCache: MetricsCache,
     objectChecker: DataChecker,
-    brokerCollie: BrokerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
-  ): Future[TopicInfo] =
-    objectChecker.checkList
-      .topic(topicInfo.key)
-      .check()
-      .map(_.topicInfos.head._2)
-      .flatMap {
-        case DataCondition.STOPPED =>
-          Future.successful(
-            topicInfo.copy(
-              partitionInfos = Seq.empty,
-              nodeMetrics = Map.empty,
-              state = None
-            )
-          )
-        case DataCondition.RUNNING =>
+  ): Future[Seq[TopicInfo]] =
+    Future
+      .traverse(topicInfos.groupBy(_.brokerClusterKey).toSeq) {
+        case (brokerClusterKey, infos) =>
           objectChecker.checkList
-            .brokerCluster(topicInfo.brokerClusterKey, DataCondition.RUNNING)
+            .brokerCluster(brokerClusterKey, DataCondition.RUNNING)
             .check()
             .map(_.runningBrokers.head)
             .flatMap { brokerClusterInfo =>
               topicAdmin(brokerClusterInfo) { topicAdmin =>
                 topicAdmin
-                  .exist(topicInfo.key)
+                  .topicDescriptions(infos.map(_.key).toSet.asJava)
                   .toScala
-                  .flatMap { existent =>
-                    if (existent)
-                      topicAdmin
-                        .topicDescription(topicInfo.key)
-                        .toScala
-                        .map(_.partitionInfos.asScala -> Some(TopicState.RUNNING))
-                    else Future.successful(Seq.empty  -> None)
-                  }
-                  .map {
-                    case (partitions, state) =>
-                      topicInfo.copy(
-                        partitionInfos = partitions
-                          .map(
-                            partition =>
-                              new PartitionInfo(
-                                partition.id,
-                                partition.leader,
-                                partition.replicas,
-                                partition.inSyncReplicas(),
-                                partition.beginningOffset,
-                                partition.endOffset
+                  .map(_.asScala.map(d => d.topicKey -> d).toMap)
+                  .map { descriptions =>
+                    infos.map { topicInfo =>
+                      descriptions.get(topicInfo.key) match {
+                        case Some(description) =>
+                          topicInfo.copy(
+                            partitionInfos = description.partitionInfos.asScala
+                              .map(
+                                partition =>
+                                  new PartitionInfo(
+                                    partition.id,
+                                    partition.leader,
+                                    partition.replicas,
+                                    partition.inSyncReplicas(),
+                                    partition.beginningOffset,
+                                    partition.endOffset
+                                  )
                               )
+                              .toSeq,
+                            state = Some(TopicState.RUNNING),
+                            nodeMetrics = meterCache.meters(brokerClusterInfo, topicInfo.key)
+                          )
+                        case None =>
+                          topicInfo.copy(
+                            partitionInfos = Seq.empty,
+                            nodeMetrics = Map.empty,
+                            state = None
                           )
-                          .toSeq,
-                        state = state,
-                        nodeMetrics = meterCache.meters(brokerClusterInfo, topicInfo.key)
-                      )
+                      }
+                    }
                   }
               }
             }
+            .recover {
+              case _: Throwable =>
+                infos.map(
+                  _.copy(
+                    partitionInfos = Seq.empty,
+                    nodeMetrics = Map.empty,
+                    state = None
+                  )
+                )
+            }
       }
-      .recover {
-        case _: Throwable =>
-          topicInfo.copy(
-            partitionInfos = Seq.empty,
-            nodeMetrics = Map.empty,
-            state = None
-          )
-      }
+      .map(_.flatten.map(t => t.key -> t).toMap)
+      .map(updated => topicInfos.map(t => updated(t.key)))
 
   private[this] def hookOfGet(
     implicit meterCache: MetricsCache,
     objectChecker: DataChecker,
-    brokerCollie: BrokerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
-  ): HookOfGet[TopicInfo] = (topicInfo: TopicInfo) => updateState(topicInfo)
+  ): HookOfGet[TopicInfo] = (topicInfo: TopicInfo) => updateStates(Seq(topicInfo)).map(_.head)
 
   private[this] def hookOfList(
     implicit meterCache: MetricsCache,
     objectChecker: DataChecker,
-    brokerCollie: BrokerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfList[TopicInfo] =
-    (topicInfos: Seq[TopicInfo]) => Future.traverse(topicInfos)(updateState)
+    (topicInfos: Seq[TopicInfo]) => updateStates(topicInfos)
 
   private[this] def creationToTopicInfo(
     creation: Creation
@@ -243,7 +239,7 @@ private[configurator] object TopicRoute {
 
   private[this] def hookOfStart(
     implicit objectChecker: DataChecker,
-    brokerCollie: BrokerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[TopicInfo] =
     (topicInfo: TopicInfo, _, _) =>
@@ -278,7 +274,7 @@ private[configurator] object TopicRoute {
 
   private[this] def hookOfStop(
     implicit objectChecker: DataChecker,
-    brokerCollie: BrokerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[TopicInfo] =
     (topicInfo: TopicInfo, _, _) =>
@@ -320,7 +316,7 @@ private[configurator] object TopicRoute {
     implicit store: DataStore,
     objectChecker: DataChecker,
     meterCache: MetricsCache,
-    brokerCollie: BrokerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): server.Route =
     RouteBuilder[Creation, Updating, TopicInfo]()
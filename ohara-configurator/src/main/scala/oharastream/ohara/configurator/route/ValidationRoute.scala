@@ -19,7 +19,6 @@ import akka.http.scaladsl.marshallers.sprayjson.SprayJsonSupport._
 import akka.http.scaladsl.model.{ContentTypes, _}
 import akka.http.scaladsl.server
 import akka.http.scaladsl.server.Directives.{as, complete, entity, path, pathPrefix, put, _}
-import oharastream.ohara.agent.WorkerCollie
 import oharastream.ohara.client.configurator.ConnectorApi
 import oharastream.ohara.client.configurator.ConnectorApi.Creation
 import oharastream.ohara.client.configurator.ValidationApi._
@@ -30,7 +29,7 @@ import scala.concurrent.ExecutionContext
 private[configurator] object ValidationRoute {
   def apply(
     implicit dataStore: DataStore,
-    workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): server.Route =
     pathPrefix(VALIDATION_KIND) {
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.route
+
+import akka.http.scaladsl.marshalling.sse.EventStreamMarshalling._
+import akka.http.scaladsl.model.sse.ServerSentEvent
+import akka.http.scaladsl.server
+import akka.http.scaladsl.server.Directives._
+import akka.stream.scaladsl.Source
+import oharastream.ohara.client.configurator.WatchApi
+import oharastream.ohara.client.configurator.WatchApi._
+import oharastream.ohara.configurator.store.DataStore
+import spray.json.JsObject
+
+import scala.concurrent.duration._
+
+/**
+  * Used to stream the changes of stored objects by server-sent events. The changes are read from the in-memory change
+  * log of store so the watchers neither scan the store nor query the clusters.
+  */
+object WatchRoute {
+  /**
+    * the interval to read the change log.
+    */
+  private[this] val INTERVAL: FiniteDuration = 500.millis
+
+  /**
+    * the heartbeat is sent if there is no change for a while. Otherwise, the idle connection is closed by server.
+    */
+  private[this] val KEEP_ALIVE: FiniteDuration = 10.seconds
+
+  private[this] def toEvent(change: DataStore.Change): ServerSentEvent =
+    ServerSentEvent(
+      data = CHANGE_FORMAT
+        .write(
+          Change(
+            sequence = change.sequence,
+            kind = change.data.kind,
+            group = change.data.group,
+            name = change.data.name,
+            data = change.after.map(obj => JsObject(obj.raw))
+          )
+        )
+        .toString,
+      eventType = Some(if (change.removed) DELETE_EVENT else PUT_EVENT),
+      id = Some(change.sequence.toString)
+    )
+
+  private[this] def reset(sequence: Long): ServerSentEvent =
+    ServerSentEvent(data = sequence.toString, eventType = Some(RESET_EVENT), id = Some(sequence.toString))
+
+  def apply(implicit store: DataStore): server.Route =
+    path(WatchApi.PREFIX) {
+      get {
+        parameter((SEQUENCE_KEY.as[Long].?, KIND_KEY.?)) {
+          case (sequence, kind) =>
+            optionalHeaderValueByName("Last-Event-ID") { lastEventId =>
+              // by default, only the changes after this request are sent
+              val start = sequence.orElse(lastEventId.map(_.toLong)).getOrElse(store.sequence)
+              complete(
+                Source
+                  .tick(Duration.Zero, INTERVAL, ())
+                  .statefulMapConcat { () =>
+                    var last = start
+                    _ =>
+                      store.changes(last) match {
+                        case Some(changes) =>
+                          changes.lastOption.foreach(change => last = change.sequence)
+                          changes.filter(change => kind.forall(_ == change.data.kind)).map(toEvent)
+                        case None =>
+                          last = store.sequence
+                          Seq(reset(last))
+                      }
+                  }
+                  .keepAlive(KEEP_ALIVE, () => ServerSentEvent.heartbeat)
+              )
+            }
+        }
+      }
+    }
+}
@@ -155,13 +155,21 @@ object WorkerRoute {
 
   private[this] def hookBeforeStop(
     implicit dataChecker: DataChecker,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookOfAction[WorkerClusterInfo] =
     (workerClusterInfo: WorkerClusterInfo, _, _) =>
-      dataChecker.checkList.allConnectors().check().map(_.runningConnectors).map(checkConflict(workerClusterInfo, _))
+      dataChecker.checkList
+        .allConnectors()
+        .check()
+        .map(_.runningConnectors)
+        .map(checkConflict(workerClusterInfo, _))
+        // the cached admin is useless after the cluster is stopped
+        .map(_ => adminPool.invalidate(workerClusterInfo.key))
 
   private[this] def hookBeforeDelete(
     implicit dataChecker: DataChecker,
+    adminPool: AdminPool,
     executionContext: ExecutionContext
   ): HookBeforeDelete =
     key =>
@@ -178,7 +186,7 @@ object WorkerRoute {
           case e: DataCheckException if e.nonexistent.contains(key) => ()
           case e: Throwable                                         => throw e
         }
-        .map(_ => ())
+        .map(_ => adminPool.invalidate(key))
 
   @nowarn("cat=deprecation")
   def apply(
@@ -186,6 +194,7 @@ object WorkerRoute {
     dataChecker: DataChecker,
     meterCache: MetricsCache,
     workerCollie: WorkerCollie,
+    adminPool: AdminPool,
     serviceCollie: ServiceCollie,
     executionContext: ExecutionContext
   ): server.Route =
@@ -30,7 +30,7 @@ import oharastream.ohara.client.configurator.{ClusterCreation, ClusterInfo, Clus
 import oharastream.ohara.client.kafka.ConnectorAdmin
 import oharastream.ohara.common.setting.SettingDef.Permission
 import oharastream.ohara.common.setting.{ObjectKey, SettingDef}
-import oharastream.ohara.common.util.{CommonUtils, Releasable, VersionUtils}
+import oharastream.ohara.common.util.{CommonUtils, VersionUtils}
 import oharastream.ohara.configurator.route.hook._
 import oharastream.ohara.configurator.store.{DataStore, MetricsCache}
 import oharastream.ohara.kafka.TopicAdmin
@@ -163,7 +163,14 @@ package object route {
           .create()
           // we have to update the nodeNames of stored cluster info. Otherwise, the following Get/List request
           // will see the out-of-date nodeNames
-          .flatMap(_ => store.add(clusterInfo.newNodeNames(clusterInfo.nodeNames + nodeName)))
+          // the update is based on the latest stored cluster info since it may be changed during the creation
+          .flatMap(
+            _ =>
+              store.addIfPresent[Cluster](
+                clusterInfo.key,
+                (cluster: Cluster) => cluster.newNodeNames(cluster.nodeNames + nodeName).asInstanceOf[Cluster]
+              )
+          )
           .flatMap(_ => Future.unit)
       })
       .hookOfFinalDeleteAction(
@@ -189,7 +196,11 @@ package object route {
                       .removeNode(key, nodeName)
                       .flatMap(
                         _ =>
-                          store.addIfPresent(cluster.newNodeNames(cluster.nodeNames - nodeName).asInstanceOf[Cluster])
+                          store.addIfPresent[Cluster](
+                            key,
+                            (cluster: Cluster) =>
+                              cluster.newNodeNames(cluster.nodeNames - nodeName).asInstanceOf[Cluster]
+                          )
                       )
                       .flatMap(_ => Future.unit)
                 }
@@ -394,29 +405,28 @@ package object route {
       .map(_.asInstanceOf[Cluster])
 
   /**
-    * Create a worker client according to passed cluster name.
+    * Get the pooled worker client according to passed cluster name.
     * Noted: if target cluster doesn't exist, an future with exception will return
     * @param clusterKey target cluster
     * @return cluster info and client
     */
   def connectorAdmin[T](clusterKey: ObjectKey)(action: (WorkerClusterInfo, ConnectorAdmin) => Future[T])(
-    implicit workerCollie: WorkerCollie,
+    implicit adminPool: AdminPool,
     store: DataStore,
     executionContext: ExecutionContext
   ): Future[T] =
     store
       .value[WorkerClusterInfo](clusterKey)
-      .flatMap(cluster => workerCollie.connectorAdmin(cluster).flatMap(admin => action(cluster, admin)))
+      .flatMap(cluster => adminPool.connectorAdmin(cluster).flatMap(admin => action(cluster, admin)))
 
   /**
-    * create worker client and topic admin based on input worker cluster key.
+    * get pooled worker client and topic admin based on input worker cluster key.
     */
   def both[T](
     workerClusterKey: ObjectKey
   )(action: (WorkerClusterInfo, ConnectorAdmin, BrokerClusterInfo, TopicAdmin) => Future[T])(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     store: DataStore,
-    workerCollie: WorkerCollie,
     executionContext: ExecutionContext
   ): Future[T] =
     connectorAdmin(workerClusterKey) { (workerClusterInfo, connectorAdmin) =>
@@ -426,33 +436,27 @@ package object route {
     }
 
   /**
-    * Create a topic admin according to passed cluster name. The topic admin will get closed when the future created
-    * by action is completed.
+    * Get the pooled topic admin according to passed cluster name. The topic admin is shared so the action must not
+    * close it.
     * Noted: if target cluster doesn't exist, an future with exception will return
     * @param clusterKey target cluster
     * @return cluster info and topic admin
     */
   def topicAdmin[T](clusterKey: ObjectKey)(action: (BrokerClusterInfo, TopicAdmin) => Future[T])(
-    implicit brokerCollie: BrokerCollie,
+    implicit adminPool: AdminPool,
     store: DataStore,
     executionContext: ExecutionContext
   ): Future[T] =
     store.value[BrokerClusterInfo](clusterKey).flatMap(cluster => topicAdmin(cluster)(admin => action(cluster, admin)))
 
   /**
-    * Create a topic admin according to passed cluster name. The topic admin will get closed when the future created
-    * by action is completed.
+    * Get the pooled topic admin according to passed cluster. The topic admin is shared so the action must not close
+    * it.
     */
   def topicAdmin[T](brokerClusterInfo: BrokerClusterInfo)(
     action: TopicAdmin => Future[T]
-  )(implicit brokerCollie: BrokerCollie, executionContext: ExecutionContext): Future[T] =
-    brokerCollie
-      .topicAdmin(brokerClusterInfo)
-      .flatMap { topicAdmin =>
-        val f = action(topicAdmin)
-        f.onComplete(_ => Releasable.close(topicAdmin))
-        f
-      }
+  )(implicit adminPool: AdminPool, executionContext: ExecutionContext): Future[T] =
+    adminPool.topicAdmin(brokerClusterInfo)(action)
 
   /**
     * a helper method to Updating request that it remove all fields declared as non-updatable.
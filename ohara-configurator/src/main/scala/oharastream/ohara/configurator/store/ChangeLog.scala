@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import java.util
+
+import oharastream.ohara.common.util.CommonUtils
+import oharastream.ohara.configurator.store.DataStore.Change
+
+/**
+  * a size-bounded log of the latest changes. Each change has a sequence number which is increased by one for each
+  * change, so the reader is able to resume from the last sequence it saw.
+  * Noted: the log is kept in memory only. The reader which falls behind the log has to reload all objects.
+  * @param logSize max number of kept changes. zero means the log is disabled
+  * @param initialSequence the sequence of latest change
+  */
+private[store] class ChangeLog(logSize: Int, initialSequence: Long) {
+  CommonUtils.requireNonNegativeInt(logSize)
+  private[this] val changes   = new util.ArrayDeque[Change]()
+  private[this] var _sequence = initialSequence
+
+  /**
+    * append the changes. The caller must assign the sequence numbers in order.
+    */
+  def append(newChanges: Seq[Change]): Unit = changes.synchronized {
+    newChanges.foreach { change =>
+      if (change.sequence != _sequence + 1)
+        throw new IllegalArgumentException(s"expected sequence:${_sequence + 1} but actual:${change.sequence}")
+      _sequence = change.sequence
+      if (logSize > 0) changes.addLast(change)
+      if (changes.size() > logSize) changes.removeFirst()
+    }
+  }
+
+  def sequence: Long = changes.synchronized(_sequence)
+
+  /**
+    * @param since the last sequence seen by reader
+    * @return the changes after the sequence, or None if the log does not cover the sequence
+    */
+  def since(since: Long): Option[Seq[Change]] = changes.synchronized {
+    if (since > _sequence || since < _sequence - changes.size()) None
+    else {
+      val iter   = changes.descendingIterator()
+      val result = List.newBuilder[Change]
+      var done   = false
+      while (!done && iter.hasNext) {
+        val change = iter.next()
+        if (change.sequence > since) result += change else done = true
+      }
+      Some(result.result().reverse)
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+
+import oharastream.ohara.client.configurator.{
+  Data,
+  GROUP_KEY,
+  LAST_MODIFIED_KEY,
+  NAME_KEY,
+  QueryRequest,
+  TAGS_KEY,
+  TopicApi
+}
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.kafka.connector.json.ConnectorDefUtils
+import spray.json._
+
+import scala.util.Try
+
+/**
+  * The secondary indexes of stored data. The index entry is a (field, value) pair and it is stored as a key of
+  * RocksDB. The layout of key is shown below.
+  * 1) class name
+  * 2) field
+  * 3) value
+  * 4) object key
+  * Hence, the objects having a specific value are found by a prefix seek.
+  *
+  * The indexed fields are group, name, lastModified, brokerClusterKey, workerClusterKey and the scalar tags. They are
+  * stored fields so they are not changed by the runtime information. Noted: the index is used to narrow the candidates
+  * only. The candidates are still matched by Data#matched.
+  */
+private[store] object DataIndex {
+  private[this] val TAGS_PREFIX = s"$TAGS_KEY."
+
+  private[this] val OBJECT_KEY_FIELDS = Set(
+    TopicApi.BROKER_CLUSTER_KEY_KEY,
+    ConnectorDefUtils.WORKER_CLUSTER_KEY_DEFINITION.key()
+  )
+
+  /**
+    * the query keys which can be served by index.
+    */
+  val FIELDS: Set[String] = Set(
+    GROUP_KEY,
+    NAME_KEY,
+    LAST_MODIFIED_KEY,
+    TAGS_KEY
+  ) ++ OBJECT_KEY_FIELDS
+
+  /**
+    * the number is converted to plain string without trailing zeros so 1 and 1.0 have same index value.
+    */
+  private[this] def number(value: BigDecimal): String = value.bigDecimal.stripTrailingZeros().toPlainString
+
+  private[this] def scalar(value: JsValue): Option[String] = value match {
+    case JsString(s)  => Some(s)
+    case JsNumber(n)  => Some(number(n))
+    case JsBoolean(b) => Some(b.toString)
+    case _            => None
+  }
+
+  private[this] def toObjectKey(value: JsValue): Option[ObjectKey] = value match {
+    case JsObject(fields) =>
+      (fields.get(GROUP_KEY), fields.get(NAME_KEY)) match {
+        case (Some(JsString(group)), Some(JsString(name))) => Some(ObjectKey.of(group, name))
+        case _                                             => None
+      }
+    case _ => None
+  }
+
+  /**
+    * @param data data
+    * @return the index entries of data
+    */
+  def entries(data: Data): Set[(String, String)] = {
+    val raw = Try(data.raw).getOrElse(Map.empty[String, JsValue])
+    Set(
+      Try(GROUP_KEY         -> data.group).toOption,
+      Try(NAME_KEY          -> data.name).toOption,
+      Try(LAST_MODIFIED_KEY -> number(BigDecimal(data.lastModified))).toOption
+    ).flatten ++
+      OBJECT_KEY_FIELDS.flatMap(field => raw.get(field).flatMap(toObjectKey).map(key => field -> key.toPlain)) ++
+      Try(data.tags).getOrElse(Map.empty[String, JsValue]).flatMap {
+        case (key, value) => scalar(value).map(s"$TAGS_PREFIX$key" -> _)
+      }
+  }
+
+  /**
+    * the possible index values of a query value. The query value is a "string", and it is matched to the number and
+    * boolean also.
+    */
+  private[this] def candidates(value: String): Set[String] =
+    Set(value) ++
+      Try(number(BigDecimal(value))).toOption ++
+      Set(value.toLowerCase).filter(v => v == "true" || v == "false")
+
+  /**
+    * convert the query to the index lookups. The objects matching the query must be in the intersection of lookups.
+    * Each lookup is a field and the possible values. The query which can't be served by index is ignored.
+    * @param request query request
+    * @return the lookups. empty if there is no query served by index
+    */
+  def lookups(request: QueryRequest): Seq[(String, Set[String])] =
+    request.raw.toSeq
+      .filter {
+        // "none" means the field is absent
+        case (key, value) => FIELDS.contains(key) && value.toLowerCase != "none"
+      }
+      .flatMap {
+        case (TAGS_KEY, value) =>
+          Try(value.parseJson).toOption.toSeq.flatMap {
+            case JsObject(fields) =>
+              fields.toSeq.flatMap {
+                case (key, v) =>
+                  val str = v match {
+                    case JsString(s) => s
+                    case _           => v.toString
+                  }
+                  v match {
+                    case _: JsArray | _: JsObject       => None
+                    case _ if str.toLowerCase == "none" => None
+                    case _                              => Some(s"$TAGS_PREFIX$key" -> candidates(str))
+                  }
+              }
+            case _ => Seq.empty
+          }
+        case (key, value) if OBJECT_KEY_FIELDS.contains(key) =>
+          Try(value.parseJson).toOption.flatMap(toObjectKey).map(k => key -> Set(k.toPlain)).toSeq
+        case (key, value) => Seq(key -> candidates(value))
+      }
+
+  /**
+    * @param request query request
+    * @return the query request consisting of indexed fields
+    */
+  def indexed(request: QueryRequest): QueryRequest = QueryRequest(request.raw.filter(e => FIELDS.contains(e._1)))
+
+  private[this] def write(output: DataOutputStream, strings: String*): Unit = strings.foreach(output.writeUTF)
+
+  private[this] def toBytes(strings: String*): Array[Byte] = {
+    val buffer = new ByteArrayOutputStream()
+    val output = new DataOutputStream(buffer)
+    try {
+      write(output, strings: _*)
+      output.flush()
+      buffer.toByteArray
+    } finally output.close()
+  }
+
+  /**
+    * @return the prefix of index key
+    */
+  def prefix(className: String, field: String, value: String): Array[Byte] = toBytes(className, field, value)
+
+  /**
+    * @return the index key
+    */
+  def key(className: String, field: String, value: String, key: ObjectKey): Array[Byte] =
+    toBytes(className, field, value, key.group(), key.name())
+
+  /**
+    * @param indexKey index key
+    * @param prefixLength the length of prefix
+    * @return the object key carried by index key
+    */
+  def objectKey(indexKey: Array[Byte], prefixLength: Int): ObjectKey = {
+    val input = new DataInputStream(new ByteArrayInputStream(indexKey, prefixLength, indexKey.length - prefixLength))
+    try ObjectKey.of(input.readUTF(), input.readUTF())
+    finally input.close()
+  }
+}
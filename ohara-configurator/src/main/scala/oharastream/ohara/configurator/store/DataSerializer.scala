@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+import java.nio.charset.StandardCharsets
+
+import oharastream.ohara.client.configurator.FileInfoApi.FileInfo
+import oharastream.ohara.client.configurator._
+import oharastream.ohara.common.data.Serializer
+import spray.json._
+
+import scala.reflect.{ClassTag, classTag}
+
+/**
+  * A compact binary serializer for the data stored by configurator. The data is encoded by the json representation
+  * (see Data#raw) rather than java serialization, so reading the data does not instantiate the whole object graph
+  * and the stored bytes are not bound to the class structure. The layout is shown below.
+  * 1) magic byte
+  * 2) schema version
+  * 3) type tag (the kind of data)
+  * 4) the raw of data in binary json
+  * 5) extra bytes which are not carried by json (for example, the content of file)
+  *
+  * The unregistered types (for example, the data used by tests) are still serialized by java serialization.
+  * The java-serialized bytes are readable also so the legacy store can be loaded.
+  */
+object DataSerializer extends Serializer[Data] {
+  val MAGIC: Byte   = 'O'.toByte
+  val VERSION: Byte = 1
+
+  private[this] val NULL: Byte    = 0
+  private[this] val TRUE: Byte    = 1
+  private[this] val FALSE: Byte   = 2
+  private[this] val LONG: Byte    = 3
+  private[this] val DECIMAL: Byte = 4
+  private[this] val STRING: Byte  = 5
+  private[this] val ARRAY: Byte   = 6
+  private[this] val OBJECT: Byte  = 7
+
+  private[this] case class Codec(
+    tag: String,
+    extra: Data => Array[Byte],
+    read: (JsValue, Array[Byte]) => Data
+  )
+
+  private[this] def codec[T <: Data: ClassTag](tag: String, format: RootJsonFormat[T]): (Class[_], Codec) =
+    classTag[T].runtimeClass -> Codec(
+      tag = tag,
+      extra = _ => Array.emptyByteArray,
+      read = (json, _) => format.read(json)
+    )
+
+  private[this] val codecs: Map[Class[_], Codec] = Map(
+    codec(ZookeeperApi.KIND, ZookeeperApi.ZOOKEEPER_CLUSTER_INFO_FORMAT),
+    codec(BrokerApi.KIND, BrokerApi.BROKER_CLUSTER_INFO_FORMAT),
+    codec(WorkerApi.KIND, WorkerApi.WORKER_CLUSTER_INFO_FORMAT),
+    codec(StreamApi.KIND, StreamApi.STREAM_CLUSTER_INFO_FORMAT),
+    codec(ShabondiApi.KIND, ShabondiApi.SHABONDI_CLUSTER_INFO_FORMAT),
+    codec(TopicApi.KIND, TopicApi.TOPIC_INFO_FORMAT),
+    codec(ConnectorApi.KIND, ConnectorApi.CONNECTOR_INFO_FORMAT),
+    codec(NodeApi.KIND, NodeApi.NODE_FORMAT),
+    codec(PipelineApi.KIND, PipelineApi.PIPELINE_FORMAT),
+    codec(ObjectApi.KIND, ObjectApi.OBJECT_FORMAT),
+    codec(VolumeApi.KIND, VolumeApi.VOLUME_FORMAT),
+    // the json of file info never carries the content of file
+    classOf[FileInfo] -> Codec(
+      tag = FileInfoApi.KIND,
+      extra = _.asInstanceOf[FileInfo].bytes,
+      read = (json, bytes) => {
+        val fileInfo = FileInfoApi.FILE_INFO_FORMAT.read(json)
+        new FileInfo(
+          group = fileInfo.group,
+          name = fileInfo.name,
+          url = fileInfo.url,
+          lastModified = fileInfo.lastModified,
+          bytes = bytes,
+          size = fileInfo.size,
+          classInfos = fileInfo.classInfos,
+          tags = fileInfo.tags
+        )
+      }
+    )
+  )
+
+  private[this] val codecsByTag: Map[String, Codec] = codecs.values.map(c => c.tag -> c).toMap
+
+  /**
+    * @param bytes serialized data
+    * @return true if the bytes are generated by java serialization
+    */
+  def isJavaSerialized(bytes: Array[Byte]): Boolean =
+    bytes.length >= 2 && bytes(0) == 0xac.toByte && bytes(1) == 0xed.toByte
+
+  override def to(obj: Data): Array[Byte] = codecs.get(obj.getClass) match {
+    case Some(codec) =>
+      val buffer = new ByteArrayOutputStream()
+      val output = new DataOutputStream(buffer)
+      try {
+        output.writeByte(MAGIC)
+        output.writeByte(VERSION)
+        output.writeUTF(codec.tag)
+        write(JsObject(obj.raw), output)
+        writeBytes(codec.extra(obj), output)
+        output.flush()
+        buffer.toByteArray
+      } finally output.close()
+    case None => Serializer.OBJECT.to(obj)
+  }
+
+  override def from(bytes: Array[Byte]): Data =
+    if (isJavaSerialized(bytes)) Serializer.OBJECT.from(bytes).asInstanceOf[Data]
+    else {
+      val input = new DataInputStream(new ByteArrayInputStream(bytes))
+      try {
+        val magic = input.readByte()
+        if (magic != MAGIC) throw new IllegalArgumentException(s"unknown magic byte:$magic")
+        val version = input.readByte()
+        if (version <= 0 || version > VERSION)
+          throw new IllegalArgumentException(s"unsupported version:$version. the latest version is $VERSION")
+        val tag   = input.readUTF()
+        val codec = codecsByTag.getOrElse(tag, throw new IllegalArgumentException(s"unknown type:$tag"))
+        val json  = read(input)
+        codec.read(json, readBytes(input))
+      } finally input.close()
+    }
+
+  private[this] def writeBytes(bytes: Array[Byte], output: DataOutputStream): Unit = {
+    output.writeInt(bytes.length)
+    output.write(bytes)
+  }
+
+  private[this] def readBytes(input: DataInputStream): Array[Byte] = {
+    val bytes = new Array[Byte](input.readInt())
+    input.readFully(bytes)
+    bytes
+  }
+
+  private[this] def writeString(s: String, output: DataOutputStream): Unit =
+    writeBytes(s.getBytes(StandardCharsets.UTF_8), output)
+
+  private[this] def readString(input: DataInputStream): String =
+    new String(readBytes(input), StandardCharsets.UTF_8)
+
+  private[this] def write(json: JsValue, output: DataOutputStream): Unit = json match {
+    case JsNull       => output.writeByte(NULL)
+    case JsBoolean(b) => output.writeByte(if (b) TRUE else FALSE)
+    case JsNumber(n) if n.isValidLong =>
+      output.writeByte(LONG)
+      output.writeLong(n.toLong)
+    case JsNumber(n) =>
+      output.writeByte(DECIMAL)
+      writeString(n.toString, output)
+    case JsString(s) =>
+      output.writeByte(STRING)
+      writeString(s, output)
+    case JsArray(elements) =>
+      output.writeByte(ARRAY)
+      output.writeInt(elements.size)
+      elements.foreach(write(_, output))
+    case JsObject(fields) =>
+      output.writeByte(OBJECT)
+      output.writeInt(fields.size)
+      fields.foreach {
+        case (key, value) =>
+          writeString(key, output)
+          write(value, output)
+      }
+  }
+
+  private[this] def read(input: DataInputStream): JsValue = input.readByte() match {
+    case NULL    => JsNull
+    case TRUE    => JsTrue
+    case FALSE   => JsFalse
+    case LONG    => JsNumber(input.readLong())
+    case DECIMAL => JsNumber(BigDecimal(readString(input)))
+    case STRING  => JsString(readString(input))
+    case ARRAY   => JsArray((0 until input.readInt()).map(_ => read(input)).toVector)
+    case OBJECT =>
+      JsObject((0 until input.readInt()).map { _ =>
+        val key = readString(input)
+        key -> read(input)
+      }.toMap)
+    case other => throw new IllegalArgumentException(s"unknown json type:$other")
+  }
+}
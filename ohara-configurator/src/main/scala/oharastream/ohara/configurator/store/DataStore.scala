@@ -17,13 +17,16 @@
 package oharastream.ohara.configurator.store
 
 import java.util.Objects
+import java.util.concurrent.TimeUnit
 
-import oharastream.ohara.client.configurator.Data
+import oharastream.ohara.client.configurator.MetricsApi.Meter
+import oharastream.ohara.client.configurator.{Data, QueryRequest}
 import oharastream.ohara.common.annotations.Optional
 import oharastream.ohara.common.data.Serializer
 import oharastream.ohara.common.setting.ObjectKey
 import oharastream.ohara.common.util.{CommonUtils, Releasable}
 
+import scala.concurrent.duration.Duration
 import scala.concurrent.{ExecutionContext, Future}
 import scala.reflect.ClassTag
 
@@ -40,6 +43,16 @@ trait DataStore extends Releasable {
     */
   def get[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[Option[T]]
 
+  /**
+    * get the data and its revision. The revision is used by the compare-and-set of transaction.
+    * @param key data key
+    * @param executor thread pool
+    * @return data associated to type and name, and the revision of data
+    */
+  def getWithRevision[T <: Data: ClassTag](key: ObjectKey)(
+    implicit executor: ExecutionContext
+  ): Future[Option[(T, Long)]]
+
   /**
     * Noted, the type of stored data must be equal to input type.
     * @param key data key
@@ -55,6 +68,17 @@ trait DataStore extends Releasable {
     */
   def values[T <: Data: ClassTag]()(implicit executor: ExecutionContext): Future[Seq[T]]
 
+  /**
+    * find the data by the secondary indexes. The indexed fields of request (group, name, lastModified, tags,
+    * brokerClusterKey and workerClusterKey) are matched by this method, and the cost is proportional to the number of
+    * matched data rather than all data. Noted: the other fields (for example, the state which is filled at runtime)
+    * are NOT matched so the caller should call Data#matched for the data.
+    * @param request query request
+    * @param executor thread pool
+    * @return the data matched by the indexed fields of request
+    */
+  def values[T <: Data: ClassTag](request: QueryRequest)(implicit executor: ExecutionContext): Future[Seq[T]]
+
   /**
     * @param executor thread pool
     * @return all data
@@ -108,8 +132,8 @@ trait DataStore extends Releasable {
   def addIfPresent[T <: Data: ClassTag](key: ObjectKey, updater: T => T)(implicit executor: ExecutionContext): Future[T]
 
   /**
-    * add a data associated to name to store. Noted, it throw exception if the input data is already associated to
-    * a value.
+    * add a data associated to name to store. Noted, it fails with [[DataStore.ConflictException]] if the input data
+    * is already associated to a value.
     * @param data data
     * @param executor thread pool
     * @tparam T data type
@@ -145,30 +169,157 @@ trait DataStore extends Releasable {
   def nonExist[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[Boolean]
 
   /**
-    * @return the number of stored data
+    * @return the sequence of latest change. It is increased by one for each changed object
+    */
+  def sequence: Long
+
+  /**
+    * get the changes from the in-memory change log. The log is bounded so the reader should resume from the latest
+    * sequence it saw periodically.
+    * @param since the latest sequence seen by the caller
+    * @return the changes after the sequence, or None if the log does not cover the sequence. The caller has to reload
+    *         all objects if it gets None
+    */
+  def changes(since: Long): Option[Seq[DataStore.Change]]
+
+  /**
+    * create a transaction to commit a group of writes by a single atomic write.
+    * @return a empty transaction
+    */
+  def transaction(): DataStore.Transaction
+
+  /**
+    * @return the number of stored data. It is cheap since the store keeps the counters of types.
     */
   def size(): Int
 
+  /**
+    * the number of stored data of each type. It does not scan the stored data so it is fine to be polled frequently.
+    * @return the class name of type -> the number of stored data. The empty types are excluded
+    */
+  def counts(): Map[String, Int]
+
   /**
     * @return number of stored data types.
     */
   def numberOfTypes(): Int
+
+  /**
+    * @return the number of reads served by the cache of deserialized objects
+    */
+  def cacheHits: Long
+
+  /**
+    * @return the number of reads which have to load the objects from the storage
+    */
+  def cacheMisses: Long
+
+  /**
+    * the current values of the stats of storage. The queryTime of meter is the time of latest update so the unchanged
+    * stats are not sampled repeatedly.
+    * @return the meters of storage. It is empty if the stats are disabled
+    */
+  def meters: Seq[Meter]
 }
 
 object DataStore {
   def builder: Builder = new Builder
 
+  /**
+    * the stored fields served by the secondary indexes. They are not changed by the runtime information.
+    */
+  val INDEXED_FIELDS: Set[String] = DataIndex.FIELDS
+
+  /**
+    * A group of writes committed by a single atomic write. The writes are applied in order so the later write sees the
+    * result of earlier writes. The conditions of writes are checked in committing, and nothing is written if any
+    * condition is not satisfied. Noted: this class is not thread-safe.
+    */
+  trait Transaction {
+    /**
+      * add the data. The existent data having the same key and type is replaced.
+      * @param data data
+      * @return this transaction
+      */
+    def add[T <: Data](data: T): Transaction
+
+    /**
+      * add the data. The commit fails with [[ConflictException]] if there is a existent data having the same key and
+      * type.
+      * @param data data
+      * @return this transaction
+      */
+    def addIfAbsent[T <: Data](data: T): Transaction
+
+    /**
+      * replace the existent data. The commit fails with [[ConflictException]] if the revision of existent data is not
+      * equal to the expected one, or there is no existent data.
+      * @param expectedRevision the revision of data read by caller
+      * @param data the new data
+      * @return this transaction
+      */
+    def compareAndSet[T <: Data](expectedRevision: Long, data: T): Transaction
+
+    /**
+      * remove the data having the same key and type. Nothing happens if the data does not exist.
+      * @param data data
+      * @return this transaction
+      */
+    def remove(data: Data): Transaction
+
+    /**
+      * remove the data. Nothing happens if the data does not exist.
+      * @param key data key
+      * @tparam T data type
+      * @return this transaction
+      */
+    def remove[T <: Data: ClassTag](key: ObjectKey): Transaction
+
+    /**
+      * write all changes by a single atomic write.
+      * @param executor thread pool
+      * @return async call
+      */
+    def commit()(implicit executor: ExecutionContext): Future[Unit]
+  }
+
+  /**
+    * a change of stored object.
+    * @param sequence the sequence of this change
+    * @param before the object before this change. It is None if the object is added
+    * @param after the object after this change. It is None if the object is removed
+    */
+  final case class Change(sequence: Long, before: Option[Data], after: Option[Data]) {
+    /**
+      * @return the new object, or the removed object if this change is a removal
+      */
+    def data: Data = after.orElse(before).get
+
+    def removed: Boolean = after.isEmpty
+  }
+
+  /**
+    * the write is rejected since the stored data is changed by another writer.
+    * @param message error message
+    */
+  class ConflictException(message: String) extends RuntimeException(message)
+
   def apply(): DataStore = builder.build()
 
   class Builder private[DataStore] extends oharastream.ohara.common.pattern.Builder[DataStore] {
-    private[this] var dataSerializer: Serializer[Data] = new Serializer[Data] {
-      override def to(obj: Data): Array[Byte] = Serializer.OBJECT.to(obj)
-      override def from(bytes: Array[Byte]): Data =
-        Serializer.OBJECT.from(bytes).asInstanceOf[Data]
-    }
-    private[this] var persistentFolder: String = CommonUtils.createTempFolder("store").getCanonicalPath
+    private[this] var dataSerializer: Serializer[Data] = DataSerializer
+    private[this] var persistentFolder: String         = CommonUtils.createTempFolder("store").getCanonicalPath
+    private[this] var cacheSize: Int                   = 10000
+    private[this] var changeLogSize: Int               = 1000
+    private[this] var blockCacheSize: Long             = 32 * 1024 * 1024L
+    private[this] var bloomFilterBits: Int             = 10
+    private[this] var compression: String              = "lz4"
+    private[this] var bottommostCompression: String    = "zstd"
+    private[this] var writeBufferSize: Long            = 16 * 1024 * 1024L
+    private[this] var maxBackgroundJobs: Int           = 2
+    private[this] var statsInterval: Duration          = Duration(1, TimeUnit.MINUTES)
 
-    @Optional("default implementation is Serializer.OBJECT")
+    @Optional("default implementation is DataSerializer")
     def dataSerializer(dataSerializer: Serializer[Data]): Builder = {
       this.dataSerializer = Objects.requireNonNull(dataSerializer)
       this
@@ -180,7 +331,121 @@ object DataStore {
       this
     }
 
+    /**
+      * the deserialized objects are cached in memory, and the cache is updated by the writes.
+      * @param cacheSize max number of cached objects. zero disables the cache
+      * @return this builder
+      */
+    @Optional("Default value is 10000")
+    def cacheSize(cacheSize: Int): Builder = {
+      this.cacheSize = CommonUtils.requireNonNegativeInt(cacheSize)
+      this
+    }
+
+    /**
+      * the latest changes are kept in memory so the watchers get the changes without reloading all objects.
+      * @param changeLogSize max number of kept changes. zero disables the change log
+      * @return this builder
+      */
+    @Optional("Default value is 1000")
+    def changeLogSize(changeLogSize: Int): Builder = {
+      this.changeLogSize = CommonUtils.requireNonNegativeInt(changeLogSize)
+      this
+    }
+
+    /**
+      * the block cache is shared by all column families.
+      * @param blockCacheSize the capacity (in bytes) of block cache. zero disables the block cache
+      * @return this builder
+      */
+    @Optional("Default value is 32MB")
+    def blockCacheSize(blockCacheSize: Long): Builder = {
+      this.blockCacheSize = CommonUtils.requireNonNegativeLong(blockCacheSize)
+      this
+    }
+
+    /**
+      * the bloom filter saves the disk reads of point lookups for nonexistent keys.
+      * @param bloomFilterBits the bits per key of bloom filter. zero disables the bloom filter
+      * @return this builder
+      */
+    @Optional("Default value is 10")
+    def bloomFilterBits(bloomFilterBits: Int): Builder = {
+      this.bloomFilterBits = CommonUtils.requireNonNegativeInt(bloomFilterBits)
+      this
+    }
+
+    /**
+      * @param compression the compression of all levels except for the bottommost level. The available values are
+      *                    none, snappy, z, bzip2, lz4, lz4hc, xpress and zstd
+      * @return this builder
+      */
+    @Optional("Default value is lz4")
+    def compression(compression: String): Builder = {
+      RocksDataStore.compressionType(compression)
+      this.compression = compression
+      this
+    }
+
+    /**
+      * @param bottommostCompression the compression of the bottommost level which has most data
+      * @return this builder
+      */
+    @Optional("Default value is zstd")
+    def bottommostCompression(bottommostCompression: String): Builder = {
+      RocksDataStore.compressionType(bottommostCompression)
+      this.bottommostCompression = bottommostCompression
+      this
+    }
+
+    /**
+      * @param writeBufferSize the size (in bytes) of memtable of each column family
+      * @return this builder
+      */
+    @Optional("Default value is 16MB")
+    def writeBufferSize(writeBufferSize: Long): Builder = {
+      this.writeBufferSize = CommonUtils.requirePositiveLong(writeBufferSize)
+      this
+    }
+
+    /**
+      * @param maxBackgroundJobs the max number of concurrent flushes and compactions
+      * @return this builder
+      */
+    @Optional("Default value is 2")
+    def maxBackgroundJobs(maxBackgroundJobs: Int): Builder = {
+      this.maxBackgroundJobs = CommonUtils.requirePositiveInt(maxBackgroundJobs)
+      this
+    }
+
+    /**
+      * the stats of RocksDB (memtable size, block cache usage and hit rate, pending compaction bytes) are copied to
+      * the gauges periodically.
+      * @param statsInterval the interval to dump the stats. zero disables the stats
+      * @return this builder
+      */
+    @Optional("Default value is 1 minute")
+    def statsInterval(statsInterval: Duration): Builder = {
+      this.statsInterval = Objects.requireNonNull(statsInterval)
+      if (statsInterval.toMillis < 0) throw new IllegalArgumentException(s"statsInterval:$statsInterval is negative")
+      this
+    }
+
     override def build(): DataStore =
-      new RocksDataStore(CommonUtils.requireNonEmpty(persistentFolder), Objects.requireNonNull(dataSerializer))
+      new RocksDataStore(
+        CommonUtils.requireNonEmpty(persistentFolder),
+        Objects.requireNonNull(dataSerializer),
+        CommonUtils.requireNonNegativeInt(cacheSize),
+        CommonUtils.requireNonNegativeInt(changeLogSize),
+        RocksDataStore.Tuning(
+          blockCacheSize = blockCacheSize,
+          bloomFilterBits = bloomFilterBits,
+          compression = RocksDataStore.compressionType(compression),
+          bottommostCompression = RocksDataStore.compressionType(bottommostCompression),
+          writeBufferSize = writeBufferSize,
+          maxBackgroundJobs = maxBackgroundJobs,
+          statsInterval = statsInterval
+        )
+      )
   }
 }
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import java.util.Objects
+import java.util.concurrent.{CompletionStage, ConcurrentHashMap, Executors, TimeUnit}
+import java.util.concurrent.atomic.AtomicBoolean
+
+import com.typesafe.scalalogging.Logger
+import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
+import oharastream.ohara.client.configurator.MetricsApi.{Meter, Metrics}
+import oharastream.ohara.common.annotations.Optional
+import oharastream.ohara.common.setting.{ConnectorKey, ObjectKey}
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.kafka.TopicAdmin
+import oharastream.ohara.kafka.connector.TopicPartition
+import oharastream.ohara.shabondi.ShabondiSink
+
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, Future}
+import scala.jdk.CollectionConverters._
+
+/**
+  * Track the lag of consumer groups. It compares the committed offsets of groups with the end offsets of partitions
+  * periodically, and it estimates the time to catch up by the rates of committed offsets and end offsets. Each broker
+  * cluster is accessed by a long-lived admin, and the end offsets of all tracked partitions are fetched in one request.
+  */
+trait LagTracker extends Releasable {
+  /**
+    * @return object key -> the latest lag. The objects having no committed offsets are excluded
+    */
+  def lags: Map[ObjectKey, LagTracker.Lag]
+
+  /**
+    * the lag is observed by configurator rather than the nodes running the consumers so the meters are reported by
+    * this hostname.
+    * @return hostname
+    */
+  def hostname: String
+
+  /**
+    * @return object key -> meters of lag
+    */
+  def meters: Map[ObjectKey, Metrics] = lags.map {
+    case (key, lag) => key -> Metrics(lag.meters)
+  }
+}
+
+object LagTracker {
+  def builder: Builder = new Builder
+
+  /**
+    * the consumer groups of an object.
+    * @param key object key
+    * @param brokerClusterInfo the broker cluster hosting the groups
+    * @param groupId accept the group ids of object
+    * @param activeOnly true if the groups having no active members are excluded
+    */
+  final case class Target(
+    key: ObjectKey,
+    brokerClusterInfo: BrokerClusterInfo,
+    groupId: String => Boolean,
+    activeOnly: Boolean
+  )
+
+  object Target {
+    /**
+      * the group of sink connector is "connect-" + connector name. see org.apache.kafka.connect.util.SinkUtils
+      */
+    def connector(key: ObjectKey, brokerClusterInfo: BrokerClusterInfo): Target = {
+      val groupId = s"connect-${ConnectorKey.of(key.group, key.name).connectorNameOnKafka}"
+      Target(key, brokerClusterInfo, _ == groupId, activeOnly = false)
+    }
+
+    /**
+      * the application id of stream is used as group id. see oharastream.ohara.stream.ostream.OStreamBuilder
+      */
+    def stream(key: ObjectKey, brokerClusterInfo: BrokerClusterInfo): Target =
+      Target(key, brokerClusterInfo, _ == key.toPlain, activeOnly = false)
+
+    /**
+      * each data group of shabondi sink has a random consumer group. The groups left by the previous data groups
+      * are excluded by checking the active members.
+      */
+    def shabondiSink(key: ObjectKey, brokerClusterInfo: BrokerClusterInfo): Target = {
+      val prefix = ShabondiSink.consumerGroupPrefix(key)
+      Target(key, brokerClusterInfo, _.startsWith(prefix), activeOnly = true)
+    }
+  }
+
+  /**
+    * @param partition partition
+    * @param committed committed offset. It is the sum of groups if the partition is consumed by many groups
+    * @param end end offset. It is multiplied by the number of groups if the partition is consumed by many groups
+    */
+  final case class PartitionLag(partition: TopicPartition, committed: Long, end: Long) {
+    def lag: Long = Math.max(0L, end - committed)
+  }
+
+  /**
+    * @param time the time of sampling
+    * @param partitions the lag of partitions
+    * @param consumeRate the rate (records per second) of committed offsets
+    * @param produceRate the rate (records per second) of end offsets
+    */
+  final case class Lag(time: Long, partitions: Seq[PartitionLag], consumeRate: Double, produceRate: Double) {
+    def total: Long = partitions.map(_.lag).sum
+
+    /**
+      * @return the estimated time (in milliseconds) to catch up. None if the consumers are not faster than producers
+      */
+    def timeToCatchUp: Option[Long] =
+      if (total == 0) Some(0)
+      else if (consumeRate <= produceRate) None
+      else Some((total / (consumeRate - produceRate) * 1000).toLong)
+
+    def meters: Seq[Meter] = {
+      def meter(name: String, value: Double, unit: String, document: String): Meter = Meter(
+        name = name,
+        value = value,
+        valueInPerSec = None,
+        unit = unit,
+        document = document,
+        queryTime = time,
+        startTime = None,
+        lastModified = Some(time)
+      )
+      Seq(
+        meter(LAG, total.toDouble, "records", "the number of records which are not consumed yet"),
+        meter(
+          TIME_TO_CATCH_UP,
+          timeToCatchUp.map(_.toDouble).getOrElse(-1d),
+          "ms",
+          "the estimated time to consume all records. -1 means the consumers are not faster than producers"
+        ),
+        meter(CONSUME_RATE, consumeRate, "records/second", "the rate of committed offsets"),
+        meter(PRODUCE_RATE, produceRate, "records/second", "the rate of end offsets")
+      ) ++ partitions.map { p =>
+        meter(
+          s"$LAG.${p.partition.topicKey.toPlain}.${p.partition.partition}",
+          p.lag.toDouble,
+          "records",
+          s"the number of records which are not consumed yet in partition ${p.partition}"
+        )
+      }
+    }
+  }
+
+  val LAG: String              = "lag"
+  val TIME_TO_CATCH_UP: String = s"$LAG.time-to-catch-up"
+  val CONSUME_RATE: String     = s"$LAG.consume-rate"
+  val PRODUCE_RATE: String     = s"$LAG.produce-rate"
+
+  /**
+    * the rates are smoothed by exponentially weighted moving average since the committed offsets move in bursts.
+    */
+  private[this] val ALPHA = 0.5
+
+  /**
+    * compute the next lag.
+    * @param previous previous lag
+    * @param time the time of sampling
+    * @param partitions the lag of partitions
+    * @return lag
+    */
+  private[store] def lag(previous: Option[Lag], time: Long, partitions: Seq[PartitionLag]): Lag = previous match {
+    case Some(p) if time > p.time =>
+      val before = p.partitions.map(l => l.partition -> l).toMap
+      val common = partitions.filter(l => before.contains(l.partition))
+      def rate(previousRate: Double, offset: PartitionLag => Long): Double = {
+        val delta   = common.map(l => offset(l) - offset(before(l.partition))).sum
+        val current = Math.max(0L, delta).toDouble / (time - p.time) * 1000
+        ALPHA * current + (1 - ALPHA) * previousRate
+      }
+      Lag(
+        time = time,
+        partitions = partitions,
+        consumeRate = rate(p.consumeRate, _.committed),
+        produceRate = rate(p.produceRate, _.end)
+      )
+    case _ => Lag(time = time, partitions = partitions, consumeRate = 0d, produceRate = 0d)
+  }
+
+  class Builder private[LagTracker] extends oharastream.ohara.common.pattern.Builder[LagTracker] {
+    private[this] var targets: () => Future[Seq[Target]]             = _
+    private[this] var admin: BrokerClusterInfo => Future[TopicAdmin] = _
+    private[this] var frequency: Duration                            = Duration(10, TimeUnit.SECONDS)
+    private[this] var timeout: Duration                              = Duration(10, TimeUnit.SECONDS)
+    private[this] var hostname: String                               = CommonUtils.hostname()
+    private[this] var history: MetricsHistory                        = _
+
+    /**
+      * @param targets list the objects which should be tracked. The lag of absent objects is removed
+      * @return this builder
+      */
+    def targets(targets: () => Future[Seq[Target]]): Builder = {
+      this.targets = Objects.requireNonNull(targets)
+      this
+    }
+
+    /**
+      * the admin is created once for each broker cluster, and it is closed when the broker cluster is gone.
+      * @param admin create the admin of broker cluster
+      * @return this builder
+      */
+    def admin(admin: BrokerClusterInfo => Future[TopicAdmin]): Builder = {
+      this.admin = Objects.requireNonNull(admin)
+      this
+    }
+
+    @Optional("default value is 10 seconds")
+    def frequency(frequency: Duration): Builder = {
+      this.frequency = Objects.requireNonNull(frequency)
+      this
+    }
+
+    /**
+      * the timeout of each remote call.
+      * @param timeout timeout
+      * @return this builder
+      */
+    @Optional("default value is 10 seconds")
+    def timeout(timeout: Duration): Builder = {
+      this.timeout = Objects.requireNonNull(timeout)
+      this
+    }
+
+    @Optional("default value is the hostname of local machine")
+    def hostname(hostname: String): Builder = {
+      this.hostname = CommonUtils.requireNonEmpty(hostname)
+      this
+    }
+
+    /**
+      * the meters of lag are recorded by the history also. Noted that the history is not closed by tracker.
+      * @param history metrics history
+      * @return this builder
+      */
+    @Optional("default is no history")
+    def history(history: MetricsHistory): Builder = {
+      this.history = Objects.requireNonNull(history)
+      this
+    }
+
+    override def build: LagTracker = new LagTracker {
+      override val hostname: String = Builder.this.hostname
+
+      private[this] val log      = Logger(classOf[LagTracker])
+      private[this] val targets  = Objects.requireNonNull(Builder.this.targets)
+      private[this] val admin    = Objects.requireNonNull(Builder.this.admin)
+      private[this] val timeout  = Builder.this.timeout
+      private[this] val history  = Option(Builder.this.history)
+      private[this] val closed   = new AtomicBoolean(false)
+      private[this] val _lags    = new ConcurrentHashMap[ObjectKey, Lag]()
+      private[this] val executor = Executors.newSingleThreadScheduledExecutor(r => {
+        val thread = new Thread(r, "lag-tracker")
+        thread.setDaemon(true)
+        thread
+      })
+
+      // broker cluster key -> (connection props, admin). It is accessed by the tracker thread only
+      private[this] var admins = Map.empty[ObjectKey, (String, TopicAdmin)]
+
+      executor.scheduleWithFixedDelay(() => tick(), 0, Builder.this.frequency.toMillis, TimeUnit.MILLISECONDS)
+
+      private[this] def await[T](f: CompletionStage[T]): T =
+        f.toCompletableFuture.get(timeout.toMillis, TimeUnit.MILLISECONDS)
+
+      /**
+        * reuse the admin unless the broker cluster is changed.
+        */
+      private[this] def adminOf(brokerClusterInfo: BrokerClusterInfo): TopicAdmin =
+        admins.get(brokerClusterInfo.key) match {
+          case Some((connectionProps, a)) if connectionProps == brokerClusterInfo.connectionProps => a
+          case previous =>
+            previous.foreach { case (_, a) => Releasable.close(a) }
+            val a = Await.result(admin(brokerClusterInfo), timeout)
+            admins = admins + (brokerClusterInfo.key -> (brokerClusterInfo.connectionProps -> a))
+            a
+        }
+
+      private[this] def tick(): Unit =
+        try if (!closed.get()) {
+          val all = Await.result(targets(), timeout)
+          // close the admins of absent broker clusters
+          val brokerKeys = all.map(_.brokerClusterInfo.key).toSet
+          admins.filter { case (key, _) => !brokerKeys.contains(key) }.values.foreach {
+            case (_, a) => Releasable.close(a)
+          }
+          admins = admins.filter { case (key, _) => brokerKeys.contains(key) }
+          _lags.keySet().retainAll(all.map(_.key).toSet.asJava)
+          all.groupBy(_.brokerClusterInfo.key).values.foreach { ts =>
+            try track(adminOf(ts.head.brokerClusterInfo), ts)
+            catch {
+              case e: Throwable =>
+                log.warn(s"failed to track the lag of broker cluster:${ts.head.brokerClusterInfo.key}", e)
+            }
+          }
+          history.foreach(_.record(Map(hostname -> meters)))
+        } catch {
+          case e: Throwable => log.error("failed to track the lag", e)
+        }
+
+      private[this] def track(admin: TopicAdmin, ts: Seq[Target]): Unit = {
+        val groupIds = await(admin.consumerGroupIds()).asScala.toSeq
+        val matched  = ts.map(t => t -> groupIds.filter(t.groupId))
+        val inactive = {
+          val candidates = matched.filter(_._1.activeOnly).flatMap(_._2).toSet
+          candidates -- await(admin.activeConsumerGroupIds(candidates.asJava)).asScala
+        }
+        // send all requests before waiting for the responses
+        val requests = matched.map {
+          case (t, ids) =>
+            t -> ids.filterNot(id => t.activeOnly && inactive.contains(id)).map(admin.consumerGroupOffsets)
+        }
+        // object key -> partition -> (sum of committed offsets, number of groups)
+        val committed: Map[ObjectKey, Map[TopicPartition, (Long, Int)]] = requests.map {
+          case (t, fs) =>
+            t.key -> fs
+              .flatMap(f => await(f).asScala.toSeq)
+              .groupBy(_._1)
+              .map {
+                case (partition, offsets) => partition -> ((offsets.map(_._2.longValue()).sum, offsets.size))
+              }
+        }.toMap
+        val ends = await(admin.endOffsets(committed.values.flatMap(_.keys).toSet.asJava)).asScala
+        val now  = CommonUtils.current()
+        committed.foreach {
+          case (key, offsets) =>
+            if (offsets.isEmpty) _lags.remove(key)
+            else
+              _lags.put(
+                key,
+                lag(
+                  previous = Option(_lags.get(key)),
+                  time = now,
+                  partitions = offsets.map {
+                    case (partition, (sum, groups)) =>
+                      PartitionLag(
+                        partition = partition,
+                        committed = sum,
+                        end = ends.get(partition).map(_.longValue() * groups).getOrElse(sum)
+                      )
+                  }.toSeq
+                )
+              )
+        }
+      }
+
+      override def lags: Map[ObjectKey, Lag] = _lags.asScala.toMap
+
+      override def close(): Unit = if (closed.compareAndSet(false, true)) {
+        executor.shutdownNow()
+        if (!executor.awaitTermination(3, TimeUnit.SECONDS)) log.error("failed to terminate the tracker thread")
+        admins.values.foreach { case (_, a) => Releasable.close(a) }
+        admins = Map.empty
+      }
+    }
+  }
+}
@@ -17,31 +17,54 @@
 package oharastream.ohara.configurator.store
 
 import java.util.Objects
-import java.util.concurrent.TimeUnit
+import java.util.concurrent.{ConcurrentHashMap, Executors, RejectedExecutionException, TimeUnit, TimeoutException}
 import java.util.concurrent.atomic.AtomicBoolean
 
+import com.typesafe.scalalogging.Logger
 import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.ClusterInfo
-import oharastream.ohara.client.configurator.MetricsApi.Metrics
+import oharastream.ohara.client.configurator.MetricsApi.{Meter, Metrics}
+import oharastream.ohara.client.configurator.PrivateApi.{MetricsSnapshot, PushedCounter}
 import oharastream.ohara.client.configurator.ShabondiApi.ShabondiClusterInfo
 import oharastream.ohara.client.configurator.StreamApi.StreamClusterInfo
 import oharastream.ohara.client.configurator.WorkerApi.WorkerClusterInfo
 import oharastream.ohara.client.configurator.ZookeeperApi.ZookeeperClusterInfo
 import oharastream.ohara.common.annotations.{Optional, VisibleForTesting}
-import oharastream.ohara.common.cache.RefreshableCache
 import oharastream.ohara.common.setting.ObjectKey
-import oharastream.ohara.common.util.Releasable
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
 
 import scala.concurrent.duration.Duration
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.util.{Failure, Success}
 
+/**
+  * The cache of meters. Each cluster is refreshed independently so a slow (or dead) cluster does not hold back the
+  * others. The query never waits for the refresh. It returns the latest meters, which may be stale, and the time of
+  * the latest refresh is available by lastUpdated.
+  */
 trait MetricsCache extends Releasable {
   /**
-    * get the metrics of specify cluster
+    * get the metrics of specify cluster. Noted that it triggers a refresh if the cluster is not queried recently.
     * @param clusterInfo cluster
     * @return node -> object key -> meters
     */
   def meters(clusterInfo: ClusterInfo): Map[String, Map[ObjectKey, Metrics]]
 
+  /**
+    * @param clusterInfo cluster
+    * @return the time of the latest successful refresh of the cluster. None if the cluster is never refreshed
+    */
+  def lastUpdated(clusterInfo: ClusterInfo): Option[Long]
+
+  /**
+    * update the counters pushed by a process. The pushed counters are merged into the meters of the cluster which has
+    * the same node and jmx port.
+    * @param snapshot snapshot
+    * @return false if the snapshot is a delta but there is no previous state of the process. The process should send
+    *         a full snapshot.
+    */
+  def push(snapshot: MetricsSnapshot): Boolean
+
   /**
     * get the metrics of specify object from specify cluster
     * @param clusterInfo cluster
@@ -69,36 +92,192 @@ object MetricsCache {
     override def toString: String = s"key:$key, service:$service"
   }
 
+  /**
+    * the counters pushed by a process.
+    * @param receivedTime the time of receiving last snapshot
+    * @param queryTime the time of generating last snapshot
+    * @param counters id -> counter
+    */
+  private case class Pushed(receivedTime: Long, queryTime: Long, counters: Map[String, PushedCounter]) {
+    def metrics: Map[ObjectKey, Metrics] =
+      counters.values.groupBy(_.key).map {
+        case (key, counters) =>
+          ObjectKey.requirePlain(key) -> Metrics(counters.map { counter =>
+            Meter(
+              name = counter.item,
+              value = counter.value.toDouble,
+              unit = counter.unit.getOrElse(""),
+              document = counter.document.getOrElse(""),
+              queryTime = queryTime,
+              startTime = Some(counter.startTime),
+              lastModified = Some(counter.lastModified),
+              valueInPerSec = Some {
+                val duration = counter.lastModified - counter.startTime
+                if (duration <= 0) 0.0 else counter.value.toDouble / duration * 1000
+              }
+            )
+          }.toSeq)
+      }
+  }
+
+  /**
+    * the refresh state of a cluster. It is updated by the single thread of cache so only the fields read by query
+    * are volatile.
+    */
+  private class Entry(@volatile var clusterInfo: ClusterInfo) {
+    @volatile var meters: Map[String, Map[ObjectKey, Metrics]] = Map.empty
+    @volatile var lastUpdated: Long                            = -1
+    var failures: Int                                          = 0
+    var nextRefresh: Long                                      = 0
+    var running: Boolean                                       = false
+  }
+
   class Builder private[MetricsCache] extends oharastream.ohara.common.pattern.Builder[MetricsCache] {
-    private[this] var refresher: () => Map[ClusterInfo, Map[String, Map[ObjectKey, Metrics]]] = _
-    private[this] var frequency: Duration                                                     = Duration(5, TimeUnit.SECONDS)
+    private[this] var clusters: () => Future[Seq[ClusterInfo]]                              = _
+    private[this] var fetcher: ClusterInfo => Future[Map[String, Map[ObjectKey, Metrics]]] = _
 
-    def refresher(refresher: () => Map[ClusterInfo, Map[String, Map[ObjectKey, Metrics]]]): Builder = {
-      this.refresher = Objects.requireNonNull(refresher)
+    private[this] var frequency: Duration      = Duration(5, TimeUnit.SECONDS)
+    private[this] var timeout: Duration        = Duration(10, TimeUnit.SECONDS)
+    private[this] var maxBackoff: Duration     = Duration(1, TimeUnit.MINUTES)
+    private[this] var idleTimeout: Duration    = Duration(1, TimeUnit.MINUTES)
+    private[this] var idleFrequency: Duration  = Duration(1, TimeUnit.MINUTES)
+    private[this] var pushExpiration: Duration = Duration(30, TimeUnit.SECONDS)
+    private[this] var history: MetricsHistory  = _
+    private[this] var lagTracker: LagTracker   = _
+
+    /**
+      * @param clusters list the clusters which should be refreshed. The cached meters of absent clusters are removed
+      * @return this builder
+      */
+    def clusters(clusters: () => Future[Seq[ClusterInfo]]): Builder = {
+      this.clusters = Objects.requireNonNull(clusters)
       this
     }
 
-    @Optional("default value is equal to timeout")
+    /**
+      * @param fetcher fetch the meters of a cluster
+      * @return this builder
+      */
+    def fetcher(fetcher: ClusterInfo => Future[Map[String, Map[ObjectKey, Metrics]]]): Builder = {
+      this.fetcher = Objects.requireNonNull(fetcher)
+      this
+    }
+
+    @Optional("default value is 5 seconds")
     def frequency(frequency: Duration): Builder = {
       this.frequency = Objects.requireNonNull(frequency)
       this
     }
 
+    /**
+      * the listing of clusters and the refresh of each cluster fail if they don't complete in this period.
+      * @param timeout timeout
+      * @return this builder
+      */
+    @Optional("default value is 10 seconds")
+    def timeout(timeout: Duration): Builder = {
+      this.timeout = Objects.requireNonNull(timeout)
+      this
+    }
+
+    /**
+      * the failed cluster is retried after frequency * 2 ^ failures, and the backoff is capped by this value.
+      * @param maxBackoff max backoff
+      * @return this builder
+      */
+    @Optional("default value is 1 minute")
+    def maxBackoff(maxBackoff: Duration): Builder = {
+      this.maxBackoff = Objects.requireNonNull(maxBackoff)
+      this
+    }
+
+    /**
+      * the cluster is idle if nobody queries it in this period. The idle cluster is not refreshed unless there is a
+      * history (see idleFrequency).
+      * @param idleTimeout idle timeout
+      * @return this builder
+      */
+    @Optional("default value is 1 minute")
+    def idleTimeout(idleTimeout: Duration): Builder = {
+      this.idleTimeout = Objects.requireNonNull(idleTimeout)
+      this
+    }
+
+    /**
+      * the idle clusters are refreshed in this frequency if there is a history. It keeps the minute buckets of history.
+      * @param idleFrequency the frequency to refresh idle cluster
+      * @return this builder
+      */
+    @Optional("default value is 1 minute")
+    def idleFrequency(idleFrequency: Duration): Builder = {
+      this.idleFrequency = Objects.requireNonNull(idleFrequency)
+      this
+    }
+
+    /**
+      * the pushed counters of a process are dropped if the process does not push anything in this period.
+      * @param pushExpiration expiration
+      * @return this builder
+      */
+    @Optional("default value is 30 seconds")
+    def pushExpiration(pushExpiration: Duration): Builder = {
+      this.pushExpiration = Objects.requireNonNull(pushExpiration)
+      this
+    }
+
+    /**
+      * the refreshed and pushed meters are recorded by the history also. Noted that the history is not closed by cache.
+      * @param history metrics history
+      * @return this builder
+      */
+    @Optional("default is no history")
+    def history(history: MetricsHistory): Builder = {
+      this.history = Objects.requireNonNull(history)
+      this
+    }
+
+    /**
+      * the meters of lag are merged into the cluster which hosts the object. Noted that the tracker is not closed by
+      * cache.
+      * @param lagTracker lag tracker
+      * @return this builder
+      */
+    @Optional("default is no lag tracker")
+    def lagTracker(lagTracker: LagTracker): Builder = {
+      this.lagTracker = Objects.requireNonNull(lagTracker)
+      this
+    }
+
     override def build: MetricsCache = new MetricsCache {
-      import scala.jdk.CollectionConverters._
-      private[this] val refresher = Objects.requireNonNull(Builder.this.refresher)
-      private[this] val closed    = new AtomicBoolean(false)
-      private[this] val cache = RefreshableCache
-        .builder[RequestKey, Map[String, Map[ObjectKey, Metrics]]]()
-        .supplier(
-          () =>
-            refresher().map {
-              case (clusterInfo, meters) =>
-                key(clusterInfo) -> meters
-            }.asJava
-        )
-        .frequency(java.time.Duration.ofMillis(frequency.toMillis))
-        .build()
+      private[this] val log           = Logger(classOf[MetricsCache])
+      private[this] val clusters      = Objects.requireNonNull(Builder.this.clusters)
+      private[this] val fetcher       = Objects.requireNonNull(Builder.this.fetcher)
+      private[this] val frequency     = Builder.this.frequency.toMillis
+      private[this] val timeout       = Builder.this.timeout.toMillis
+      private[this] val maxBackoff    = Builder.this.maxBackoff.toMillis
+      private[this] val idleTimeout   = Builder.this.idleTimeout.toMillis
+      private[this] val idleFrequency = Builder.this.idleFrequency.toMillis
+      private[this] val expiration    = Builder.this.pushExpiration.toMillis
+      private[this] val history       = Option(Builder.this.history)
+      private[this] val lagTracker    = Option(Builder.this.lagTracker)
+      private[this] val closed        = new AtomicBoolean(false)
+
+      // all states are updated by this thread
+      private[this] val scheduler = Executors.newSingleThreadScheduledExecutor(r => {
+        val thread = new Thread(r, "metrics-cache")
+        thread.setDaemon(true)
+        thread
+      })
+      private[this] implicit val executionContext: ExecutionContext = ExecutionContext.fromExecutor(scheduler)
+
+      private[this] val entries     = new ConcurrentHashMap[RequestKey, Entry]()
+      private[this] val lastQueried = new ConcurrentHashMap[RequestKey, java.lang.Long]()
+      private[this] var listing     = false
+
+      // (hostname, jmx port) -> pushed counters
+      private[this] val pushed = new ConcurrentHashMap[(String, Int), Pushed]()
+
+      scheduler.scheduleWithFixedDelay(() => tick(), 0, frequency, TimeUnit.MILLISECONDS)
 
       private[this] def key(clusterInfo: ClusterInfo): RequestKey = RequestKey(
         key = clusterInfo.key,
@@ -112,10 +291,172 @@ object MetricsCache {
         }
       )
 
-      override def meters(clusterInfo: ClusterInfo): Map[String, Map[ObjectKey, Metrics]] =
-        cache.get(key(clusterInfo)).orElse(Map.empty)
+      /**
+        * convert the exception thrown by action to a failed future.
+        */
+      private[this] def attempt[T](action: => Future[T]): Future[T] =
+        try action
+        catch {
+          case e: Throwable => Future.failed(e)
+        }
+
+      /**
+        * complete the future with TimeoutException if the underlying future does not complete in time. Noted that the
+        * underlying future is still running after timeout.
+        */
+      private[this] def withTimeout[T](future: Future[T]): Future[T] = {
+        val promise = Promise[T]()
+        val expire: Runnable = () => promise.tryFailure(new TimeoutException(s"it is not completed in $timeout ms"))
+        val timer            = scheduler.schedule(expire, timeout, TimeUnit.MILLISECONDS)
+        future.onComplete { result =>
+          timer.cancel(false)
+          promise.tryComplete(result)
+        }
+        promise.future
+      }
+
+      private[this] def queried(k: RequestKey, now: Long): Boolean =
+        Option(lastQueried.get(k)).exists(now - _ <= idleTimeout)
+
+      private[this] def tick(): Unit =
+        try if (!closed.get()) {
+          val now = CommonUtils.current()
+          lastQueried.values().removeIf(now - _ > idleTimeout)
+          if (!listing) {
+            listing = true
+            val listed = attempt(clusters())
+            listed.onComplete(_ => listing = false)
+            withTimeout(listed).onComplete { result =>
+              result match {
+                case Success(clusterInfos) =>
+                  val latest = clusterInfos.map(c => key(c) -> c).toMap
+                  entries.keySet().removeIf(k => !latest.contains(k))
+                  latest.foreach {
+                    case (k, c) => entries.computeIfAbsent(k, _ => new Entry(c)).clusterInfo = c
+                  }
+                // the known clusters are still refreshed
+                case Failure(e) => log.warn("failed to list clusters", e)
+              }
+              refresh()
+            }
+          } else refresh()
+        } catch {
+          case e: Throwable => log.error("failed to refresh metrics", e)
+        }
+
+      /**
+        * refresh the clusters which are not running, not in backoff and queried recently. The idle clusters are
+        * refreshed only if there is a history.
+        */
+      private[this] def refresh(): Unit = if (!closed.get()) {
+        val now = CommonUtils.current()
+        entries.forEach { (k, entry) =>
+          val needed = queried(k, now) || (history.nonEmpty && now - entry.lastUpdated >= idleFrequency)
+          if (!entry.running && now >= entry.nextRefresh && needed) refresh(k, entry)
+        }
+      }
 
-      override def close(): Unit = if (closed.compareAndSet(false, true)) Releasable.close(cache)
+      private[this] def refresh(k: RequestKey, entry: Entry): Unit = {
+        entry.running = true
+        val fetched = attempt(fetcher(entry.clusterInfo))
+        // the cluster is not refreshed again until the previous fetch is done, even if it is timeout. Otherwise, the
+        // fetches to a hanging cluster pile up.
+        fetched.onComplete(_ => entry.running = false)
+        // the late result of timeout refresh is dropped by withTimeout
+        withTimeout(fetched).onComplete { result =>
+          val now = CommonUtils.current()
+          result match {
+            case Success(meters) =>
+              entry.meters = meters
+              entry.lastUpdated = now
+              entry.failures = 0
+              entry.nextRefresh = now + frequency
+              history.foreach(_.record(meters))
+            case Failure(e) =>
+              entry.failures += 1
+              val backoff = Math.min(frequency << Math.min(entry.failures, 30), maxBackoff)
+              entry.nextRefresh = now + backoff
+              log.warn(s"failed to refresh metrics of $k. failures:${entry.failures}. retry after $backoff ms", e)
+          }
+        }
+      }
+
+      private[this] def alive(p: Pushed): Boolean = CommonUtils.current() - p.receivedTime <= expiration
+
+      override def meters(clusterInfo: ClusterInfo): Map[String, Map[ObjectKey, Metrics]] = {
+        if (closed.get()) throw new IllegalStateException("cache is closed!!!")
+        val k   = key(clusterInfo)
+        val now = CommonUtils.current()
+        // refresh the idle cluster right now
+        if (!queried(k, now)) {
+          lastQueried.put(k, now)
+          try scheduler.execute(() => refresh())
+          catch {
+            case _: RejectedExecutionException => // the cache is closed
+          }
+        } else lastQueried.put(k, now)
+        val pulled = Option(entries.get(k)).map(_.meters).getOrElse(Map.empty)
+        val merged =
+          if (pushed.isEmpty) pulled
+          else
+            clusterInfo.nodeNames
+              .flatMap(hostname => Option(pushed.get(hostname -> clusterInfo.jmxPort)).filter(alive).map(hostname -> _))
+              .foldLeft(pulled) {
+                case (result, (hostname, p)) => merge(result, hostname, p.metrics)
+              }
+        lagTracker.fold(merged) { tracker =>
+          // the lag belongs to the objects hosted by this cluster
+          val hosted = merged.values.flatMap(_.keys).toSet
+          val lags   = tracker.meters.filter { case (key, _) => hosted.contains(key) }
+          if (lags.isEmpty) merged else merge(merged, tracker.hostname, lags)
+        }
+      }
+
+      private[this] def merge(
+        result: Map[String, Map[ObjectKey, Metrics]],
+        hostname: String,
+        metrics: Map[ObjectKey, Metrics]
+      ): Map[String, Map[ObjectKey, Metrics]] = {
+        val previous = result.getOrElse(hostname, Map.empty)
+        result + (hostname -> (previous ++ metrics.map {
+          case (key, m) => key -> Metrics(previous.get(key).map(_.meters).getOrElse(Seq.empty) ++ m.meters)
+        }))
+      }
+
+      override def lastUpdated(clusterInfo: ClusterInfo): Option[Long] =
+        Option(entries.get(key(clusterInfo))).map(_.lastUpdated).filter(_ >= 0)
+
+      override def push(snapshot: MetricsSnapshot): Boolean = this.synchronized {
+        if (closed.get()) throw new IllegalStateException("cache is closed!!!")
+        // remove the processes which are gone
+        pushed.values().removeIf(p => !alive(p))
+        val process  = snapshot.hostname -> snapshot.jmxPort
+        val previous = Option(pushed.get(process))
+        if (!snapshot.full && previous.isEmpty) false
+        else {
+          val counters = (if (snapshot.full) Map.empty[String, PushedCounter] else previous.get.counters) --
+            snapshot.removed
+          val p = Pushed(
+            receivedTime = CommonUtils.current(),
+            queryTime = snapshot.queryTime,
+            counters = counters ++ snapshot.counters.map { counter =>
+              // the unit and document are sent only once
+              counter.id -> counter.copy(
+                unit = counter.unit.orElse(counters.get(counter.id).flatMap(_.unit)),
+                document = counter.document.orElse(counters.get(counter.id).flatMap(_.document))
+              )
+            }
+          )
+          pushed.put(process, p)
+          history.foreach(_.record(Map(snapshot.hostname -> p.metrics)))
+          true
+        }
+      }
+
+      override def close(): Unit = if (closed.compareAndSet(false, true)) {
+        scheduler.shutdownNow()
+        if (!scheduler.awaitTermination(3, TimeUnit.SECONDS)) log.error("failed to terminate the refresh thread")
+      }
     }
   }
 }
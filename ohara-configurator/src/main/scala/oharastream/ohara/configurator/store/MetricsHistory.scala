@@ -0,0 +1,491 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+import java.util.Objects
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicLong}
+
+import com.typesafe.scalalogging.Logger
+import oharastream.ohara.client.configurator.MetricsApi.{
+  Metrics,
+  Resolution,
+  Sample,
+  Series,
+  VALUE_FIELD,
+  VALUE_IN_PER_SEC_FIELD
+}
+import oharastream.ohara.common.annotations.{Optional, VisibleForTesting}
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import org.rocksdb.{Options, RocksDB}
+
+import scala.jdk.CollectionConverters._
+
+/**
+  * A bounded time-series store of meters. Each series (object, node and meter) is composed of three ring buffers:
+  * raw samples, 1-minute buckets and 1-hour buckets. The raw samples are folded into the minute bucket and the sealed
+  * minute buckets are folded into the hour bucket. The buffers are allocated when the series is created and they are
+  * never resized so the memory of a series is about 16 * raw capacity + 48 * (minute capacity + hour capacity) bytes.
+  */
+trait MetricsHistory extends Releasable {
+  /**
+    * record the meters. A series accepts only the samples which are newer than the latest sample.
+    * @param meters hostname -> object key -> meters
+    */
+  def record(meters: Map[String, Map[ObjectKey, Metrics]]): Unit
+
+  /**
+    * query the history of specify object.
+    * @param key object key
+    * @param resolution resolution
+    * @param from start time (inclusive)
+    * @param to end time (inclusive)
+    * @return the series of the object. The series having no samples in the range are excluded
+    */
+  def query(key: ObjectKey, resolution: Resolution, from: Long, to: Long): Seq[Series]
+
+  /**
+    * @return the number of series
+    */
+  def size: Int
+}
+
+object MetricsHistory {
+  private val VERSION: Byte = 1
+
+  def builder: Builder = new Builder
+
+  /**
+    * merge two samples.
+    * @param a sample
+    * @param b sample
+    * @return a sample covering both samples
+    */
+  def merge(a: Sample, b: Sample): Sample = Sample(
+    time = Math.min(a.time, b.time),
+    count = a.count + b.count,
+    min = Math.min(a.min, b.min),
+    max = Math.max(a.max, b.max),
+    sum = a.sum + b.sum,
+    last = if (a.time > b.time) a.last else b.last
+  )
+
+  private[store] def floor(time: Long, resolution: Resolution): Long = time - time % resolution.millis
+
+  @VisibleForTesting
+  private[store] case class SeriesKey(key: ObjectKey, hostname: String, name: String, field: String)
+
+  /**
+    * a ring buffer of samples. The fields are stored by primitive arrays to avoid the overhead of objects. The raw ring
+    * keeps only the time and value.
+    * @param capacity the max number of samples
+    * @param raw true if this ring stores raw samples
+    */
+  private[store] final class Ring(val capacity: Int, raw: Boolean) {
+    private[this] val times  = new Array[Long](capacity)
+    private[this] val lasts  = new Array[Double](capacity)
+    private[this] val counts = if (raw) null else new Array[Long](capacity)
+    private[this] val mins   = if (raw) null else new Array[Double](capacity)
+    private[this] val maxs   = if (raw) null else new Array[Double](capacity)
+    private[this] val sums   = if (raw) null else new Array[Double](capacity)
+    // the index of next sample
+    private[this] var head  = 0
+    private[this] var _size = 0
+
+    def size: Int = _size
+
+    def add(sample: Sample): Unit = {
+      times(head) = sample.time
+      lasts(head) = sample.last
+      if (!raw) {
+        counts(head) = sample.count
+        mins(head) = sample.min
+        maxs(head) = sample.max
+        sums(head) = sample.sum
+      }
+      head = (head + 1) % capacity
+      if (_size < capacity) _size += 1
+    }
+
+    private[this] def sample(index: Int): Sample =
+      if (raw) Sample(times(index), 1, lasts(index), lasts(index), lasts(index), lasts(index))
+      else Sample(times(index), counts(index), mins(index), maxs(index), sums(index), lasts(index))
+
+    /**
+      * @param filter used to check the time of sample
+      * @return the samples (the oldest first) accepted by filter
+      */
+    def samples(filter: Long => Boolean): Seq[Sample] =
+      (0 until _size)
+        .map(i => (head - _size + i + capacity) % capacity)
+        .filter(index => filter(times(index)))
+        .map(sample)
+  }
+
+  /**
+    * a series of meter. It is thread-safe.
+    */
+  private[store] final class TimeSeries(rawCapacity: Int, minuteCapacity: Int, hourCapacity: Int) {
+    private[this] val raw     = new Ring(rawCapacity, raw = true)
+    private[this] val minutes = new Ring(minuteCapacity, raw = false)
+    private[this] val hours   = new Ring(hourCapacity, raw = false)
+    // the buckets which are not sealed yet
+    private[this] var minute: Option[Sample] = None
+    private[this] var hour: Option[Sample]   = None
+    private[this] var _lastTime: Long        = -1
+
+    def lastTime: Long = this.synchronized(_lastTime)
+
+    /**
+      * @param time sample time
+      * @param value sample value
+      * @return true if a minute bucket is sealed by this sample
+      */
+    def add(time: Long, value: Double): Boolean = this.synchronized {
+      if (time <= _lastTime) false
+      else {
+        _lastTime = time
+        val sample = Sample(time, 1, value, value, value, value)
+        raw.add(sample)
+        val bucket = sample.copy(time = floor(time, Resolution.MINUTE))
+        minute match {
+          case Some(m) if m.time == bucket.time =>
+            minute = Some(merge(m, bucket))
+            false
+          case Some(m) =>
+            seal(m)
+            minute = Some(bucket)
+            true
+          case None =>
+            minute = Some(bucket)
+            false
+        }
+      }
+    }
+
+    private[this] def seal(m: Sample): Unit = {
+      minutes.add(m)
+      val bucket = m.copy(time = floor(m.time, Resolution.HOUR))
+      hour = hour match {
+        case Some(h) if h.time == bucket.time => Some(merge(h, bucket))
+        case Some(h) =>
+          hours.add(h)
+          Some(bucket)
+        case None => Some(bucket)
+      }
+    }
+
+    def samples(resolution: Resolution, from: Long, to: Long): Seq[Sample] = this.synchronized {
+      // the bucket is included if it overlaps the range
+      def filter(time: Long): Boolean = time + Math.max(resolution.millis - 1, 0) >= from && time <= to
+      resolution match {
+        case Resolution.RAW    => raw.samples(filter)
+        case Resolution.MINUTE => minutes.samples(filter) ++ minute.filter(m => filter(m.time))
+        case Resolution.HOUR =>
+          hours.samples(filter) ++ (hour.toSeq ++ minute.map(m => m.copy(time = floor(m.time, Resolution.HOUR))))
+            .groupBy(_.time)
+            .values
+            .map(_.reduce(merge))
+            .filter(s => filter(s.time))
+            .toSeq
+            .sortBy(_.time)
+      }
+    }
+
+    def toBytes: Array[Byte] = this.synchronized {
+      val bytesBuf = new ByteArrayOutputStream()
+      try {
+        val writer = new DataOutputStream(bytesBuf)
+        try {
+          def writeSample(s: Sample): Unit = {
+            writer.writeLong(s.time)
+            writer.writeLong(s.count)
+            writer.writeDouble(s.min)
+            writer.writeDouble(s.max)
+            writer.writeDouble(s.sum)
+            writer.writeDouble(s.last)
+          }
+          def writeSamples(samples: Seq[Sample]): Unit = {
+            writer.writeInt(samples.size)
+            samples.foreach(writeSample)
+          }
+          writer.writeByte(VERSION)
+          writer.writeLong(_lastTime)
+          writeSamples(raw.samples(_ => true))
+          writeSamples(minutes.samples(_ => true))
+          writeSamples(hours.samples(_ => true))
+          writeSamples(minute.toSeq)
+          writeSamples(hour.toSeq)
+        } finally writer.close()
+        bytesBuf.toByteArray
+      } finally bytesBuf.close()
+    }
+
+    /**
+      * load the samples from bytes. The oldest samples are dropped if the capacity is smaller than stored samples.
+      * @param bytes bytes
+      */
+    def load(bytes: Array[Byte]): Unit = this.synchronized {
+      val bytesBuf = new ByteArrayInputStream(bytes)
+      try {
+        val reader = new DataInputStream(bytesBuf)
+        try {
+          def readSamples(): Seq[Sample] =
+            (0 until reader.readInt()).map(
+              _ =>
+                Sample(
+                  time = reader.readLong(),
+                  count = reader.readLong(),
+                  min = reader.readDouble(),
+                  max = reader.readDouble(),
+                  sum = reader.readDouble(),
+                  last = reader.readDouble()
+                )
+            )
+          val version = reader.readByte()
+          if (version != VERSION) throw new IllegalArgumentException(s"unsupported version:$version")
+          _lastTime = reader.readLong()
+          readSamples().foreach(raw.add)
+          readSamples().foreach(minutes.add)
+          readSamples().foreach(hours.add)
+          minute = readSamples().headOption
+          hour = readSamples().headOption
+        } finally reader.close()
+      } finally bytesBuf.close()
+    }
+  }
+
+  class Builder private[MetricsHistory] extends oharastream.ohara.common.pattern.Builder[MetricsHistory] {
+    private[this] var rawCapacity: Int         = 100
+    private[this] var minuteCapacity: Int      = 120
+    private[this] var hourCapacity: Int        = 168
+    private[this] var maxSeries: Int           = 4096
+    private[this] var persistentFolder: String = _
+
+    /**
+      * @param rawCapacity the max number of raw samples of a series
+      * @return this builder
+      */
+    @Optional("default value is 100")
+    def rawCapacity(rawCapacity: Int): Builder = {
+      this.rawCapacity = CommonUtils.requirePositiveInt(rawCapacity)
+      this
+    }
+
+    /**
+      * @param minuteCapacity the max number of minute buckets of a series
+      * @return this builder
+      */
+    @Optional("default value is 120")
+    def minuteCapacity(minuteCapacity: Int): Builder = {
+      this.minuteCapacity = CommonUtils.requirePositiveInt(minuteCapacity)
+      this
+    }
+
+    /**
+      * the series which has no new samples in hour capacity * 1 hour is removed.
+      * @param hourCapacity the max number of hour buckets of a series
+      * @return this builder
+      */
+    @Optional("default value is 168")
+    def hourCapacity(hourCapacity: Int): Builder = {
+      this.hourCapacity = CommonUtils.requirePositiveInt(hourCapacity)
+      this
+    }
+
+    /**
+      * the samples of new series are dropped if the number of series reaches this limit.
+      * @param maxSeries the max number of series
+      * @return this builder
+      */
+    @Optional("default value is 4096")
+    def maxSeries(maxSeries: Int): Builder = {
+      this.maxSeries = CommonUtils.requirePositiveInt(maxSeries)
+      this
+    }
+
+    /**
+      * the series are stored in RocksDB when a minute bucket is sealed and when the history is closed.
+      * @param persistentFolder folder
+      * @return this builder
+      */
+    @Optional("default is in-memory only")
+    def persistentFolder(persistentFolder: String): Builder = {
+      this.persistentFolder = CommonUtils.requireNonEmpty(persistentFolder)
+      this
+    }
+
+    override def build: MetricsHistory =
+      new RingMetricsHistory(rawCapacity, minuteCapacity, hourCapacity, maxSeries, Option(persistentFolder))
+  }
+
+  private class RingMetricsHistory(
+    rawCapacity: Int,
+    minuteCapacity: Int,
+    hourCapacity: Int,
+    maxSeries: Int,
+    persistentFolder: Option[String]
+  ) extends MetricsHistory {
+    private[this] val log          = Logger(classOf[MetricsHistory])
+    private[this] val closed       = new AtomicBoolean(false)
+    private[this] val retention    = hourCapacity * Resolution.HOUR.millis
+    private[this] val lastEviction = new AtomicLong(CommonUtils.current())
+    private[this] val full         = new AtomicBoolean(false)
+    private[this] val series       = new ConcurrentHashMap[SeriesKey, TimeSeries]()
+
+    private[this] val db: Option[RocksDB] = persistentFolder.map { folder =>
+      RocksDB.loadLibrary()
+      val options = new Options().setCreateIfMissing(true)
+      try RocksDB.open(options, folder)
+      finally options.close()
+    }
+
+    private[this] def toBytes(key: SeriesKey): Array[Byte] = {
+      val bytesBuf = new ByteArrayOutputStream()
+      try {
+        val writer = new DataOutputStream(bytesBuf)
+        try {
+          writer.writeUTF(key.key.group())
+          writer.writeUTF(key.key.name())
+          writer.writeUTF(key.hostname)
+          writer.writeUTF(key.name)
+          writer.writeUTF(key.field)
+        } finally writer.close()
+        bytesBuf.toByteArray
+      } finally bytesBuf.close()
+    }
+
+    private[this] def toKey(bytes: Array[Byte]): SeriesKey = {
+      val bytesBuf = new ByteArrayInputStream(bytes)
+      try {
+        val reader = new DataInputStream(bytesBuf)
+        try SeriesKey(
+          ObjectKey.of(reader.readUTF(), reader.readUTF()),
+          reader.readUTF(),
+          reader.readUTF(),
+          reader.readUTF()
+        )
+        finally reader.close()
+      } finally bytesBuf.close()
+    }
+
+    private[this] def newSeries(): TimeSeries = new TimeSeries(rawCapacity, minuteCapacity, hourCapacity)
+
+    // load the stored series
+    db.foreach { db =>
+      val iter = db.newIterator()
+      try {
+        iter.seekToFirst()
+        while (iter.isValid && series.size() < maxSeries) {
+          try {
+            val key = toKey(iter.key())
+            val s   = newSeries()
+            s.load(iter.value())
+            series.put(key, s)
+          } catch {
+            case e: Throwable => log.warn("failed to load the stored series. It is skipped", e)
+          }
+          iter.next()
+        }
+      } finally iter.close()
+    }
+
+    private[this] def persist(key: SeriesKey, s: TimeSeries): Unit =
+      db.foreach { db =>
+        try db.put(toBytes(key), s.toBytes)
+        catch {
+          case e: Throwable => log.warn(s"failed to persist the series:$key", e)
+        }
+      }
+
+    private[this] def add(key: SeriesKey, time: Long, value: Double): Unit =
+      if (!value.isNaN && !value.isInfinite) {
+        val s = series.get(key) match {
+          case null if series.size() >= maxSeries =>
+            if (full.compareAndSet(false, true))
+              log.warn(s"the number of series reaches the limit:$maxSeries. The new series are dropped")
+            null
+          case null => series.computeIfAbsent(key, _ => newSeries())
+          case s    => s
+        }
+        if (s != null && s.add(time, value)) persist(key, s)
+      }
+
+    /**
+      * remove the series which have no new samples in retention.
+      */
+    private[this] def evict(): Unit = {
+      val now  = CommonUtils.current()
+      val last = lastEviction.get()
+      if (now - last >= Resolution.MINUTE.millis && lastEviction.compareAndSet(last, now))
+        series.entrySet().removeIf { entry =>
+          val expired = now - entry.getValue.lastTime > retention
+          if (expired) db.foreach(_.delete(toBytes(entry.getKey)))
+          expired
+        }
+      if (series.size() < maxSeries) full.set(false)
+    }
+
+    override def record(meters: Map[String, Map[ObjectKey, Metrics]]): Unit =
+      if (!closed.get()) {
+        meters.foreach {
+          case (hostname, keyAndMetrics) =>
+            keyAndMetrics.foreach {
+              case (key, metrics) =>
+                metrics.meters.foreach { meter =>
+                  add(SeriesKey(key, hostname, meter.name, VALUE_FIELD), meter.queryTime, meter.value)
+                  meter.valueInPerSec.foreach(
+                    v => add(SeriesKey(key, hostname, meter.name, VALUE_IN_PER_SEC_FIELD), meter.queryTime, v)
+                  )
+                }
+            }
+        }
+        evict()
+      }
+
+    override def query(key: ObjectKey, resolution: Resolution, from: Long, to: Long): Seq[Series] = {
+      Objects.requireNonNull(key)
+      Objects.requireNonNull(resolution)
+      series.asScala
+        .filter(_._1.key == key)
+        .map {
+          case (k, s) =>
+            val samples = s.samples(resolution, from, to)
+            Series(
+              hostname = k.hostname,
+              name = k.name,
+              field = k.field,
+              resolution = resolution,
+              samples = samples,
+              aggregate = samples.reduceOption(merge)
+            )
+        }
+        .filter(_.samples.nonEmpty)
+        .toSeq
+        .sortBy(s => (s.hostname, s.name, s.field))
+    }
+
+    override def size: Int = series.size()
+
+    override def close(): Unit = if (closed.compareAndSet(false, true)) db.foreach { db =>
+      series.forEach((key, s) => persist(key, s))
+      Releasable.close(db)
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import java.util
+import java.util.concurrent.atomic.LongAdder
+
+import oharastream.ohara.client.configurator.Data
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.common.util.CommonUtils
+
+/**
+  * a size-bounded LRU cache of deserialized objects. It is keyed by (class name, object key) and it caches the
+  * nonexistent objects also (None) so the duplicate existence checks don't hit the store.
+  * Noted: this cache does not load the objects by itself. The store is responsible for keeping the cache consistent.
+  * @param cacheSize max number of cached objects. zero means the cache is disabled
+  */
+private[store] class ObjectCache(cacheSize: Int) {
+  CommonUtils.requireNonNegativeInt(cacheSize)
+  private[this] val _hits   = new LongAdder
+  private[this] val _misses = new LongAdder
+  private[this] val objects = new util.LinkedHashMap[(String, ObjectKey), Option[Data]](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: util.Map.Entry[(String, ObjectKey), Option[Data]]): Boolean =
+      size() > cacheSize
+  }
+
+  /**
+    * @param className class name
+    * @param key object key
+    * @return None if the object is not cached. Some(None) if the object is cached as nonexistent.
+    */
+  def get(className: String, key: ObjectKey): Option[Option[Data]] = {
+    val obj = if (cacheSize == 0) None else objects.synchronized(Option(objects.get(className -> key)))
+    if (obj.isDefined) _hits.increment() else _misses.increment()
+    obj
+  }
+
+  /**
+    * get the cached object without counting the hit/miss. It is used by the store internally.
+    */
+  def peek(className: String, key: ObjectKey): Option[Option[Data]] =
+    if (cacheSize == 0) None else objects.synchronized(Option(objects.get(className -> key)))
+
+  def put(className: String, key: ObjectKey, obj: Option[Data]): Unit =
+    if (cacheSize > 0) objects.synchronized(objects.put(className -> key, obj))
+
+  def clear(): Unit = objects.synchronized(objects.clear())
+
+  def size: Int = objects.synchronized(objects.size())
+
+  /**
+    * @return the number of reads served by this cache
+    */
+  def hits: Long = _hits.sum()
+
+  /**
+    * @return the number of reads which are not served by this cache
+    */
+  def misses: Long = _misses.sum()
+}
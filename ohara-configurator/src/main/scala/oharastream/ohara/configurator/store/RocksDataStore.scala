@@ -19,25 +19,43 @@ package oharastream.ohara.configurator.store
 import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
 import java.util
 import java.util.Objects
-import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.{ConcurrentHashMap, Executors, TimeUnit}
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicLong}
 
-import oharastream.ohara.client.configurator.Data
+import com.typesafe.scalalogging.Logger
+import oharastream.ohara.client.configurator.MetricsApi.Meter
+import oharastream.ohara.client.configurator.{Data, QueryRequest}
 import oharastream.ohara.common.data.Serializer
 import oharastream.ohara.common.setting.ObjectKey
-import oharastream.ohara.common.util.Releasable
+import oharastream.ohara.common.util.{ByteUtils, Releasable}
+import oharastream.ohara.configurator.store.DataStore.{Change, ConflictException}
+import oharastream.ohara.metrics.basic.Gauge
 import org.rocksdb.{ColumnFamilyDescriptor, _}
 
+import scala.collection.mutable
 import scala.jdk.CollectionConverters._
+import scala.concurrent.duration.Duration
 import scala.concurrent.{ExecutionContext, Future}
 import scala.reflect.{ClassTag, classTag}
+import scala.util.Try
 
 /**
   * RocksStore is based on Facebook RocksDB. The different type is stored in different column family.
   * @param folder used to store data in disk
   * @param dataSerializer value serializer
+  * @param cacheSize max number of deserialized objects kept in memory
+  * @param changeLogSize max number of changes kept in memory
+  * @param tuning the options of RocksDB
   */
-private[store] class RocksDataStore(folder: String, dataSerializer: Serializer[Data]) extends DataStore {
+private[store] class RocksDataStore(
+  folder: String,
+  dataSerializer: Serializer[Data],
+  cacheSize: Int,
+  changeLogSize: Int,
+  tuning: RocksDataStore.Tuning
+) extends DataStore {
+  private[this] val log = Logger(classOf[RocksDataStore])
+
   /**
     * ObjectKey is an interface without Serializable mark. Hence, we do the serialization manually.
     * TODO: Should we have a specific case class for ObjectKey to complete the serialization ??? by chia
@@ -66,21 +84,64 @@ private[store] class RocksDataStore(folder: String, dataSerializer: Serializer[D
   private[this] val closed            = new AtomicBoolean(false)
   private[this] val classesAndHandles = new ConcurrentHashMap[String, ColumnFamilyHandle]()
 
+  /**
+    * the writes are serialized by this lock so the lazy migration does not overwrite the newer data.
+    */
+  private[this] val writeLock = new Object
+
+  /**
+    * the cache is updated by the writes (write-through). The readers fill the cache only if there is no write during
+    * the read, since the data read from RocksDB may be stale. This counter is increased by each write.
+    */
+  private[this] val generation = new AtomicLong(0)
+  private[this] val cache      = new ObjectCache(cacheSize)
+
+  RocksDB.loadLibrary()
+
+  /**
+    * the block cache is shared by all column families so the memory usage does not grow with the number of types.
+    */
+  private[this] val blockCache =
+    if (tuning.blockCacheSize > 0) Some(new LRUCache(tuning.blockCacheSize)) else None
+  private[this] val bloomFilter =
+    if (tuning.bloomFilterBits > 0) Some(new BloomFilter(tuning.bloomFilterBits)) else None
+  private[this] val statistics = new Statistics()
+
+  /**
+    * all column families share the same options.
+    */
+  private[this] val columnFamilyOptions = {
+    val tableConfig = new BlockBasedTableConfig()
+    blockCache match {
+      case Some(cache) => tableConfig.setBlockCache(cache)
+      case None        => tableConfig.setNoBlockCache(true)
+    }
+    bloomFilter.foreach(tableConfig.setFilter)
+    new ColumnFamilyOptions()
+      .setTableFormatConfig(tableConfig)
+      .setCompressionType(tuning.compression)
+      .setBottommostCompressionType(tuning.bottommostCompression)
+      .setWriteBufferSize(tuning.writeBufferSize)
+  }
+
   private[this] val db = {
-    RocksDB.loadLibrary()
     val cfs = {
       val options = new Options().setCreateIfMissing(true)
       try RocksDB.listColumnFamilies(options, folder)
       finally options.close()
     }.asScala
     val lists   = new util.ArrayList[ColumnFamilyHandle]()
-    val options = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true)
+    val options = new DBOptions()
+      .setCreateIfMissing(true)
+      .setCreateMissingColumnFamilies(true)
+      .setMaxBackgroundJobs(tuning.maxBackgroundJobs)
+      .setStatistics(statistics)
     try RocksDB.open(
       options,
       folder,
-      (cfs.map(name => new ColumnFamilyDescriptor(name, new ColumnFamilyOptions))
+      (cfs.map(name => new ColumnFamilyDescriptor(name, columnFamilyOptions))
       // RocksDB demands us to define Default column family
-        ++ Seq(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, new ColumnFamilyOptions))).asJava,
+        ++ Seq(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptions))).asJava,
       lists
     )
     finally {
@@ -89,59 +150,362 @@ private[store] class RocksDataStore(folder: String, dataSerializer: Serializer[D
     }
   }
 
+  private[this] val writeOptions = new WriteOptions()
+
+  /**
+    * the store created by the older version has no index so the index is built in starting.
+    */
+  private[this] val indexHandler: ColumnFamilyHandle = {
+    val existent = classesAndHandles.containsKey(RocksDataStore.INDEX_FAMILY)
+    val handler  = getOrCreateHandler(RocksDataStore.INDEX_FAMILY)
+    if (!existent) classNames().foreach { className =>
+      val iter = db.newIterator(getOrCreateHandler(className))
+      try write { batch =>
+        iter.seekToFirst()
+        while (iter.isValid) {
+          val key = toKey(iter.key())
+          DataIndex
+            .entries(toData(iter.value()))
+            .foreach(entry => batch.put(handler, indexKey(className, entry, key), Array.emptyByteArray))
+          iter.next()
+        }
+      } finally iter.close()
+    }
+    handler
+  }
+
+  /**
+    * the number of objects of each type. It is persisted to the counter family and it is updated by the same batch
+    * writing the data. The store created by the older version has no counters so they are counted in starting.
+    */
+  private[this] val counterHandler: ColumnFamilyHandle = {
+    val existent = classesAndHandles.containsKey(RocksDataStore.COUNTER_FAMILY)
+    val handler  = getOrCreateHandler(RocksDataStore.COUNTER_FAMILY)
+    if (!existent) write { batch =>
+      classNames().foreach { className =>
+        val iter = db.newIterator(getOrCreateHandler(className))
+        try {
+          var count = 0L
+          iter.seekToFirst()
+          while (iter.isValid) {
+            count = count + 1
+            iter.next()
+          }
+          batch.put(handler, className.getBytes, ByteUtils.toBytes(count))
+        } finally iter.close()
+      }
+    }
+    handler
+  }
+
+  /**
+    * the in-memory copy of counters. It is updated under the write lock after the batch is written.
+    */
+  private[this] val counters: ConcurrentHashMap[String, java.lang.Long] = {
+    val counters = new ConcurrentHashMap[String, java.lang.Long]()
+    val iter     = db.newIterator(counterHandler)
+    try {
+      iter.seekToFirst()
+      while (iter.isValid) {
+        val name = new String(iter.key())
+        if (name != RocksDataStore.SEQUENCE_KEY) counters.put(name, ByteUtils.toLong(iter.value()))
+        iter.next()
+      }
+    } finally iter.close()
+    counters
+  }
+
+  /**
+    * the sequence is persisted with the counters so it keeps increasing after restart.
+    */
+  private[this] val changeLog = new ChangeLog(
+    changeLogSize,
+    Option(db.get(counterHandler, RocksDataStore.SEQUENCE_KEY.getBytes)).map(ByteUtils.toLong).getOrElse(0L)
+  )
+
+  /**
+    * the revision of object is the sequence of latest change of object, and it is zero if the object is not written
+    * since the store is opened. The sequence is persisted so the revision never goes back after restart. It is updated
+    * under the write lock after the batch is written, and the removed objects are excluded.
+    */
+  private[this] val revisions = new ConcurrentHashMap[(String, ObjectKey), java.lang.Long]()
+
+  private[this] def revision(className: String, key: ObjectKey): Long =
+    Option(revisions.get(className -> key)).map(_.longValue()).getOrElse(0L)
+
+  private[this] def dumpStats(): Unit =
+    try if (!closed.get()) {
+      val handlers = classesAndHandles.values().asScala.toSeq
+      def sum(property: String): Long = handlers.map(handler => db.getLongProperty(handler, property)).sum
+      val hits   = statistics.getTickerCount(TickerType.BLOCK_CACHE_HIT)
+      val misses = statistics.getTickerCount(TickerType.BLOCK_CACHE_MISS)
+      gauges(RocksDataStore.MEMTABLE_BYTES).set(sum("rocksdb.cur-size-all-mem-tables").toDouble)
+      gauges(RocksDataStore.BLOCK_CACHE_BYTES).set(
+        blockCache.map(_ => db.getLongProperty("rocksdb.block-cache-usage")).getOrElse(0L).toDouble
+      )
+      gauges(RocksDataStore.BLOCK_CACHE_HIT_RATE).set(if (hits + misses == 0) 0 else hits.toDouble / (hits + misses))
+      gauges(RocksDataStore.PENDING_COMPACTION_BYTES).set(sum("rocksdb.estimate-pending-compaction-bytes").toDouble)
+      gauges(RocksDataStore.OBJECTS).set(size().toDouble)
+    } catch {
+      case e: Throwable => log.error("failed to dump the stats of RocksDB", e)
+    }
+
   private[this] def doIfNotClosed[T](action: => T): T =
     if (closed.get())
       throw new RuntimeException("RocksDataStore is closed!!!")
     else action
 
-  private[this] def getOrCreateHandler[T <: Data: ClassTag]: ColumnFamilyHandle =
-    getOrCreateHandler(classTag[T].runtimeClass)
+  /**
+    * the data and the index are written atomically by a batch.
+    */
+  private[this] def write(action: WriteBatch => Unit): Unit = {
+    val batch = new WriteBatch()
+    try {
+      action(batch)
+      db.write(writeOptions, batch)
+    } finally batch.close()
+  }
+
+  private[this] def indexKey(className: String, entry: (String, String), key: ObjectKey): Array[Byte] =
+    DataIndex.key(className, entry._1, entry._2, key)
+
+  /**
+    * @return the keys of objects having the index entry
+    */
+  private[this] def lookup(className: String, field: String, value: String): Set[ObjectKey] = {
+    val prefix = DataIndex.prefix(className, field, value)
+    val iter   = db.newIterator(indexHandler)
+    try {
+      val keys = Set.newBuilder[ObjectKey]
+      iter.seek(prefix)
+      while (iter.isValid && iter.key().startsWith(prefix)) {
+        keys += DataIndex.objectKey(iter.key(), prefix.length)
+        iter.next()
+      }
+      keys.result()
+    } finally iter.close()
+  }
+
+  /**
+    * the current object. It is called by the writes to remove the stale index entries.
+    */
+  private[this] def current(className: String, handler: ColumnFamilyHandle, key: ObjectKey): Option[Data] =
+    cache.peek(className, key).getOrElse(Option(db.get(handler, toBytes(key))).map(toData))
 
   /**
     * get a existent handles or create an new one if the input class is not associated to a existtent handles.
     * Noted: it throws exception if this RocksDB is closed!!!
     * @return handles
     */
-  private[this] def getOrCreateHandler(clz: Class[_]): ColumnFamilyHandle =
+  private[this] def getOrCreateHandler(className: String): ColumnFamilyHandle =
     doIfNotClosed(
       classesAndHandles
-        .computeIfAbsent(clz.getName, name => db.createColumnFamily(new ColumnFamilyDescriptor(name.getBytes)))
+        .computeIfAbsent(
+          className,
+          name => db.createColumnFamily(new ColumnFamilyDescriptor(name.getBytes, columnFamilyOptions))
+        )
     )
 
   /**
-    * collect all handles if RocksDB is not closed.
-    * @return collection of handles
+    * collect all class names if RocksDB is not closed. The default family and internal families are excluded.
+    * @return collection of class names
     */
-  private[this] def handlers(): Seq[ColumnFamilyHandle] = doIfNotClosed(classesAndHandles.values().asScala.toList)
+  private[this] def classNames(): Seq[String] =
+    doIfNotClosed(classesAndHandles.keySet().asScala.filter(RocksDataStore.isDataFamily).toList)
 
-  private[this] def toMap(iter: RocksIterator, firstKey: ObjectKey, endKey: ObjectKey): Map[ObjectKey, Data] =
-    try {
-      if (firstKey == null) iter.seekToFirst() else iter.seek(toBytes(firstKey))
-      Iterator
-        .continually(
-          if (iter.isValid)
-            try Some((toKey(iter.key()), toData(iter.value())))
-            finally iter.next()
-          else None
-        )
-        .takeWhile(_.exists {
-          case (k, _) => endKey == null || k == endKey
-        })
-        .flatten
-        .toList
-        .toMap
-    } finally iter.close()
+  /**
+    * fill the cache if there is no write since the generation is got.
+    */
+  private[this] def fill(generation: Long, className: String, objs: Map[ObjectKey, Option[Data]]): Unit =
+    writeLock.synchronized {
+      if (this.generation.get() == generation) objs.foreach {
+        case (key, obj) => cache.put(className, key, obj)
+      }
+    }
+
+  private[this] def toMap(className: String, firstKey: ObjectKey, endKey: ObjectKey): Map[ObjectKey, Data] = {
+    val currentGeneration = generation.get()
+    val handler           = getOrCreateHandler(className)
+    val iter              = db.newIterator(handler)
+    // the objects which are not cached
+    val loaded = Map.newBuilder[ObjectKey, Option[Data]]
+    val objs =
+      try {
+        if (firstKey == null) iter.seekToFirst() else iter.seek(toBytes(firstKey))
+        Iterator
+          .continually(
+            if (iter.isValid)
+              try {
+                val keyBytes = iter.key()
+                val key      = toKey(keyBytes)
+                // the cached object is never older than the data in iterator
+                Some(key -> (cache.get(className, key) match {
+                  case Some(obj) =>
+                    // the negative entry means the object is removed after the iterator is created
+                    obj
+                  case None =>
+                    val obj = toData(handler, keyBytes, iter.value())
+                    loaded += key -> Some(obj)
+                    Some(obj)
+                }))
+              } finally iter.next()
+            else None
+          )
+          .takeWhile(_.exists {
+            case (k, _) => endKey == null || k == endKey
+          })
+          .flatten
+          .collect {
+            case (k, Some(obj)) => k -> obj
+          }
+          .toList
+          .toMap
+      } finally iter.close()
+    fill(currentGeneration, className, loaded.result().filter(e => objs.contains(e._1)))
+    objs
+  }
 
   private[this] def toBytes(key: ObjectKey): Array[Byte] = keySerializer.to(Objects.requireNonNull(key))
   private[this] def toKey(key: Array[Byte]): ObjectKey   = keySerializer.from(Objects.requireNonNull(key))
   private[this] def toBytes(value: Data): Array[Byte]    = dataSerializer.to(Objects.requireNonNull(value))
   private[this] def toData(value: Array[Byte]): Data     = dataSerializer.from(Objects.requireNonNull(value))
 
-  private[this] def _get(handler: ColumnFamilyHandle, key: ObjectKey): Option[Data] =
-    Option(db.get(handler, toBytes(key))).map(toData)
+  /**
+    * convert the stored bytes to data. The legacy bytes (java serialization) are rewritten by current serializer
+    * so the store is migrated lazily.
+    */
+  private[this] def toData(handler: ColumnFamilyHandle, key: Array[Byte], value: Array[Byte]): Data = {
+    val data = toData(value)
+    if (DataSerializer.isJavaSerialized(value)) {
+      val newValue = toBytes(data)
+      // the data may be serialized by java serialization still (for example, the unregistered type)
+      if (!DataSerializer.isJavaSerialized(newValue)) writeLock.synchronized {
+        // the data may be updated by another thread
+        if (util.Arrays.equals(db.get(handler, key), value)) db.put(handler, key, newValue)
+      }
+    }
+    data
+  }
+
+  /**
+    * a write of transaction. The action converts the current object to the new object, and None means the object is
+    * removed. It throws exception if the condition of write is not satisfied.
+    */
+  private[this] case class Write(className: String, key: ObjectKey, action: Option[Data] => Option[Data])
+
+  /**
+    * commit the writes by a single batch so the data, the index and the counters are updated atomically. The writes
+    * are applied in order, and nothing is written if any write fails.
+    * @return the objects before and after each write
+    */
+  private[this] def commit(writes: Seq[Write]): Seq[(Option[Data], Option[Data])] = doIfNotClosed {
+    writeLock.synchronized {
+      // the stored objects
+      val previous = mutable.Map[(String, ObjectKey), Option[Data]]()
+      // the objects after this commit
+      val next = mutable.LinkedHashMap[(String, ObjectKey), Option[Data]]()
+      val results = writes.map { w =>
+        val id = w.className -> w.key
+        val obj = next.getOrElse(
+          id,
+          previous.getOrElseUpdate(id, current(w.className, getOrCreateHandler(w.className), w.key))
+        )
+        val newObj = w.action(obj)
+        next.put(id, newObj)
+        obj -> newObj
+      }
+      val newCounts = next.toSeq
+        .groupMapReduce(_._1._1) {
+          case (id, obj) => (if (obj.isDefined) 1 else 0) - (if (previous(id).isDefined) 1 else 0)
+        }(_ + _)
+        .filter(_._2 != 0)
+        .map {
+          case (className, delta) => className -> (counters.getOrDefault(className, 0L) + delta)
+        }
+      val sequence = changeLog.sequence
+      val changed = next.toSeq
+        .filter {
+          case (id, obj) => obj.isDefined || previous(id).isDefined
+        }
+        .zipWithIndex
+        .map {
+          case ((id, obj), index) => id -> Change(sequence + index + 1, previous(id), obj)
+        }
+      val changes = changed.map(_._2)
+      write { batch =>
+        next.foreach {
+          case ((className, key), obj) =>
+            val handler = getOrCreateHandler(className)
+            val before  = previous((className, key)).map(DataIndex.entries).getOrElse(Set.empty[(String, String)])
+            val after   = obj.map(DataIndex.entries).getOrElse(Set.empty[(String, String)])
+            (before -- after).foreach(entry => batch.delete(indexHandler, indexKey(className, entry, key)))
+            (after -- before).foreach(
+              entry => batch.put(indexHandler, indexKey(className, entry, key), Array.emptyByteArray)
+            )
+            obj match {
+              case Some(value) => batch.put(handler, toBytes(key), toBytes(value))
+              case None        => batch.delete(handler, toBytes(key))
+            }
+        }
+        newCounts.foreach {
+          case (className, count) => batch.put(counterHandler, className.getBytes, ByteUtils.toBytes(count))
+        }
+        changes.lastOption.foreach(
+          change =>
+            batch.put(counterHandler, RocksDataStore.SEQUENCE_KEY.getBytes, ByteUtils.toBytes(change.sequence))
+        )
+      }
+      newCounts.foreach {
+        case (className, count) => counters.put(className, count)
+      }
+      changed.foreach {
+        case (id, change) =>
+          if (change.removed) revisions.remove(id) else revisions.put(id, change.sequence)
+      }
+      generation.incrementAndGet()
+      next.foreach {
+        case ((className, key), obj) => cache.put(className, key, obj)
+      }
+      changeLog.append(changes)
+      results
+    }
+  }
+
+  private[this] def writeIfAbsent(data: Data): Write =
+    Write(
+      data.getClass.getName,
+      data.key,
+      obj =>
+        if (obj.isDefined)
+          throw new ConflictException(s"(${data.group}, ${data.name}) already exists on ${data.getClass.getName}")
+        else Some(data)
+    )
+
+  private[this] def _get(className: String, key: ObjectKey): Option[Data] = doIfNotClosed {
+    cache.get(className, key).getOrElse {
+      val currentGeneration = generation.get()
+      val handler           = getOrCreateHandler(className)
+      val keyBytes          = toBytes(key)
+      val obj               = Option(db.get(handler, keyBytes)).map(toData(handler, keyBytes, _))
+      fill(currentGeneration, className, Map(key -> obj))
+      obj
+    }
+  }
+
+  private[this] def classNameOf[T <: Data: ClassTag]: String = classTag[T].runtimeClass.getName
 
   override def get[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[Option[T]] =
-    Future.successful(_get(getOrCreateHandler[T], key).map(_.asInstanceOf[T]))
+    Future.successful(_get(classNameOf[T], key).map(_.asInstanceOf[T]))
+
+  override def getWithRevision[T <: Data: ClassTag](
+    key: ObjectKey
+  )(implicit executor: ExecutionContext): Future[Option[(T, Long)]] = {
+    val className = classNameOf[T]
+    // the revision is read before the data. A concurrent write makes the revision stale, and it is safe since the
+    // stale revision fails the compare-and-set
+    val rev = revision(className, key)
+    Future.successful(_get(className, key).map(_.asInstanceOf[T] -> rev))
+  }
 
   override def value[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[T] =
     get[T](key)
@@ -149,7 +513,7 @@ private[store] class RocksDataStore(folder: String, dataSerializer: Serializer[D
 
   override def values[T <: Data: ClassTag]()(implicit executor: ExecutionContext): Future[Seq[T]] =
     Future.successful(
-      toMap(db.newIterator(getOrCreateHandler[T]), null, null)
+      toMap(classNameOf[T], null, null)
         .map {
           case (k, v) => k -> v.asInstanceOf[T]
         }
@@ -157,86 +521,267 @@ private[store] class RocksDataStore(folder: String, dataSerializer: Serializer[D
         .toList
     )
 
+  override def values[T <: Data: ClassTag](
+    request: QueryRequest
+  )(implicit executor: ExecutionContext): Future[Seq[T]] = doIfNotClosed {
+    val lookups = DataIndex.lookups(request)
+    if (lookups.isEmpty) values[T]()
+    else {
+      val className = classNameOf[T]
+      val indexed   = DataIndex.indexed(request)
+      Future.successful(
+        lookups
+          .map {
+            case (field, candidates) => candidates.flatMap(lookup(className, field, _))
+          }
+          .reduce(_ intersect _)
+          .toSeq
+          .flatMap(_get(className, _))
+          .filter(_.matched(indexed))
+          .map(_.asInstanceOf[T])
+      )
+    }
+  }
+
   override def remove(data: Data)(implicit executor: ExecutionContext): Future[Boolean] =
-    Future.successful(
-      _get(getOrCreateHandler(data.getClass), data.key)
-        .map(_ => db.delete(getOrCreateHandler(data.getClass), toBytes(data.key)))
-        .isDefined
-    )
+    Future.fromTry(Try(commit(Seq(Write(data.getClass.getName, data.key, _ => None))).head._1.isDefined))
 
   override def remove[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[Boolean] =
-    get[T](key).map { obj =>
-      if (obj.isDefined) db.delete(getOrCreateHandler[T], toBytes(key))
-      obj.isDefined
-    }
+    Future.fromTry(Try(commit(Seq(Write(classNameOf[T], key, _ => None))).head._1.isDefined))
 
   override def addIfPresent[T <: Data: ClassTag](key: ObjectKey, updater: T => T)(
     implicit executor: ExecutionContext
-  ): Future[T] =
-    value[T](key)
-      .map(updater)
-      .map(newValue => {
-        if (newValue.group != key.group)
-          throw new IllegalArgumentException(
-            s"""the new group:\"${newValue.group}\" is not equal to group:\"${key.group}\""""
-          )
-        if (newValue.name != key.name)
-          throw new IllegalArgumentException(
-            s"""the new name:\"${newValue.name}\" is not equal to name:\"${key.name}\""""
-          )
-        db.put(getOrCreateHandler(newValue.getClass), toBytes(key), toBytes(newValue))
-        newValue
-      })
+  ): Future[T] = {
+    def update(obj: Option[Data]): Option[Data] = {
+      val newValue = updater(
+        obj
+          .getOrElse(throw new NoSuchElementException(s"$key doesn't exist in ${classTag[T].runtimeClass.getName}"))
+          .asInstanceOf[T]
+      )
+      if (newValue.group != key.group)
+        throw new IllegalArgumentException(
+          s"""the new group:\"${newValue.group}\" is not equal to group:\"${key.group}\""""
+        )
+      if (newValue.name != key.name)
+        throw new IllegalArgumentException(
+          s"""the new name:\"${newValue.name}\" is not equal to name:\"${key.name}\""""
+        )
+      Some(newValue)
+    }
+    Future.fromTry(Try(commit(Seq(Write(classNameOf[T], key, update))).head._2.get.asInstanceOf[T]))
+  }
 
   override def addIfAbsent[T <: Data](data: T)(implicit executor: ExecutionContext): Future[T] =
-    if (_get(getOrCreateHandler(data.getClass), ObjectKey.of(data.group, data.name)).isDefined)
-      Future.failed(
-        new IllegalStateException(s"(${data.group}, ${data.name}} already exists on ${data.getClass.getName}")
-      )
-    else add(data)
+    Future.fromTry(Try {
+      commit(Seq(writeIfAbsent(data)))
+      data
+    })
 
   override def add[T <: Data](data: T)(implicit executor: ExecutionContext): Future[T] =
-    Future.successful {
-      db.put(getOrCreateHandler(data.getClass), toBytes(ObjectKey.of(data.group, data.name)), toBytes(data))
+    Future.fromTry(Try {
+      commit(Seq(Write(data.getClass.getName, data.key, _ => Some(data))))
       data
+    })
+
+  override def sequence: Long = doIfNotClosed(changeLog.sequence)
+
+  override def changes(since: Long): Option[Seq[Change]] = doIfNotClosed(changeLog.since(since))
+
+  override def transaction(): DataStore.Transaction = new DataStore.Transaction {
+    private[this] val writes = Seq.newBuilder[Write]
+
+    private[this] def append(write: Write): DataStore.Transaction = {
+      writes += write
+      this
     }
 
+    override def add[T <: Data](data: T): DataStore.Transaction =
+      append(Write(data.getClass.getName, data.key, _ => Some(data)))
+
+    override def addIfAbsent[T <: Data](data: T): DataStore.Transaction =
+      append(writeIfAbsent(data))
+
+    override def compareAndSet[T <: Data](expectedRevision: Long, data: T): DataStore.Transaction = {
+      val className = data.getClass.getName
+      append(
+        Write(
+          className,
+          data.key,
+          obj =>
+            // the write is done under the write lock so the revision is not changed by other writers
+            if (obj.isDefined && revision(className, data.key) == expectedRevision) Some(data)
+            else
+              throw new ConflictException(
+                s"${data.key} on $className is modified. expected revision:$expectedRevision " +
+                  s"actual:${obj.map(_ => revision(className, data.key))}"
+              )
+        )
+      )
+    }
+
+    override def remove(data: Data): DataStore.Transaction =
+      append(Write(data.getClass.getName, data.key, _ => None))
+
+    override def remove[T <: Data: ClassTag](key: ObjectKey): DataStore.Transaction =
+      append(Write(classNameOf[T], key, _ => None))
+
+    override def commit()(implicit executor: ExecutionContext): Future[Unit] =
+      Future.fromTry(Try(RocksDataStore.this.commit(writes.result()))).map(_ => ())
+  }
+
   override def exist[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[Boolean] =
     get[T](key).map(_.isDefined)
 
   override def nonExist[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[Boolean] =
     get[T](key).map(_.isEmpty)
 
-  override def size(): Int =
-    handlers().map { handler =>
-      // TODO: is there a counter for rocksdb ???  by chia
-      val iter = db.newIterator(handler)
-      iter.seekToFirst()
-      try {
-        var count = 0
-        while (iter.isValid) {
-          count = count + 1
-          iter.next()
-        }
-        count
-      } finally iter.close()
-    }.sum
+  override def size(): Int = doIfNotClosed(counters.values().asScala.map(_.intValue()).sum)
+
+  override def counts(): Map[String, Int] =
+    doIfNotClosed(counters.asScala.filter(_._2 > 0).map { case (k, v) => k -> v.intValue() }.toMap)
 
   override def close(): Unit = if (closed.compareAndSet(false, true)) {
+    // the stats thread must be stopped before closing RocksDB since it accesses the native objects
+    statsExecutor.foreach { executor =>
+      executor.shutdownNow()
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS)) log.error("failed to stop the stats thread of RocksDB")
+    }
+    gauges.values.foreach(Releasable.close)
+    Releasable.close(writeOptions)
     classesAndHandles.values().asScala.foreach(Releasable.close)
     Releasable.close(db)
+    Releasable.close(columnFamilyOptions)
+    bloomFilter.foreach(Releasable.close)
+    blockCache.foreach(Releasable.close)
+    Releasable.close(statistics)
     classesAndHandles.clear()
+    cache.clear()
+    revisions.clear()
   }
 
+  override def cacheHits: Long = cache.hits
+
+  override def cacheMisses: Long = cache.misses
+
+  override def meters: Seq[Meter] = doIfNotClosed(
+    gauges.values.map { gauge =>
+      Meter(
+        name = gauge.item(),
+        value = gauge.getValue,
+        valueInPerSec = None,
+        unit = gauge.getUnit,
+        document = gauge.getDocument,
+        queryTime = gauge.getLastModified,
+        startTime = Some(gauge.getStartTime),
+        lastModified = Some(gauge.getLastModified)
+      )
+    }.toSeq
+  )
+
   override def raws()(implicit executor: ExecutionContext): Future[Seq[Data]] =
-    Future.successful(handlers().flatMap(handler => toMap(db.newIterator(handler), null, null).values.toList))
+    Future.successful(classNames().flatMap(className => toMap(className, null, null).values.toList))
 
   override def raws(key: ObjectKey)(implicit executor: ExecutionContext): Future[Seq[Data]] =
-    Future.successful(handlers().flatMap(handler => toMap(db.newIterator(handler), key, key).values.toList))
+    Future.successful(classNames().flatMap(className => toMap(className, key, key).values.toList))
 
   /**
-    * RocksDB has a default cf in creating, and the cf is useless to us so we should not count it.
+    * RocksDB has a default cf in creating, and the cf is useless to us so we should not count it. The internal cf
+    * (for example, the index) is not counted also.
     * @return number of stored data types.
     */
-  override def numberOfTypes(): Int = doIfNotClosed(classesAndHandles.size() - 1)
+  override def numberOfTypes(): Int = classNames().size
+
+  /**
+    * the stats of RocksDB are copied to the gauges periodically. The gauges are not registered if the stats is
+    * disabled. Noted: the stats thread is started after all members are initialized.
+    */
+  private[this] val gauges: Map[String, Gauge] =
+    if (tuning.statsInterval.toMillis <= 0) Map.empty
+    else
+      Seq(
+        (RocksDataStore.MEMTABLE_BYTES, "bytes", "the size of memtables of all types"),
+        (RocksDataStore.BLOCK_CACHE_BYTES, "bytes", "the memory used by the block cache"),
+        (RocksDataStore.BLOCK_CACHE_HIT_RATE, "ratio", "the hit rate of block cache since the store is opened"),
+        (RocksDataStore.PENDING_COMPACTION_BYTES, "bytes", "the estimated bytes to be rewritten by compactions"),
+        (RocksDataStore.OBJECTS, "objects", "the number of stored objects")
+      ).map {
+        case (item, unit, document) =>
+          item -> Gauge.builder().key(RocksDataStore.METRICS_KEY).item(item).unit(unit).document(document).register()
+      }.toMap
+
+  private[this] val statsExecutor =
+    if (gauges.isEmpty) None
+    else {
+      val executor = Executors.newSingleThreadScheduledExecutor(r => {
+        val thread = new Thread(r, "rocks-data-store-stats")
+        thread.setDaemon(true)
+        thread
+      })
+      executor.scheduleWithFixedDelay(() => dumpStats(), 0, tuning.statsInterval.toMillis, TimeUnit.MILLISECONDS)
+      Some(executor)
+    }
+}
+
+object RocksDataStore {
+  /**
+    * the options of RocksDB.
+    * @param blockCacheSize the capacity of shared block cache. zero disables the block cache
+    * @param bloomFilterBits the bits per key of bloom filter. zero disables the bloom filter
+    * @param compression the compression of all levels except for the bottommost level
+    * @param bottommostCompression the compression of the bottommost level
+    * @param writeBufferSize the size of memtable of each column family
+    * @param maxBackgroundJobs the max number of concurrent flushes and compactions
+    * @param statsInterval the interval to dump the stats to gauges. zero disables the stats
+    */
+  private[store] case class Tuning(
+    blockCacheSize: Long,
+    bloomFilterBits: Int,
+    compression: CompressionType,
+    bottommostCompression: CompressionType,
+    writeBufferSize: Long,
+    maxBackgroundJobs: Int,
+    statsInterval: Duration
+  )
+
+  /**
+    * the key of gauges reporting the stats of store.
+    */
+  val METRICS_KEY: ObjectKey           = ObjectKey.of("configurator", "store")
+  val MEMTABLE_BYTES: String           = "store.memtable-bytes"
+  val BLOCK_CACHE_BYTES: String        = "store.block-cache-bytes"
+  val BLOCK_CACHE_HIT_RATE: String     = "store.block-cache-hit-rate"
+  val PENDING_COMPACTION_BYTES: String = "store.pending-compaction-bytes"
+  val OBJECTS: String                  = "store.objects"
+
+  /**
+    * @param name the library name of compression or "none"
+    * @return compression type
+    */
+  private[store] def compressionType(name: String): CompressionType =
+    if (name == "none") CompressionType.NO_COMPRESSION
+    else
+      CompressionType
+        .values()
+        .find(c => c != CompressionType.NO_COMPRESSION && c.getLibraryName == name)
+        .getOrElse(throw new IllegalArgumentException(s"unsupported compression:$name"))
+
+  /**
+    * the family storing the secondary indexes. The prefix "@" is illegal to class name so it does not conflict with
+    * the data families.
+    */
+  private[store] val INDEX_FAMILY: String = "@index"
+
+  /**
+    * the family storing the number of objects of each type.
+    */
+  private[store] val COUNTER_FAMILY: String = "@counter"
+
+  /**
+    * the key of the sequence of latest change. It is stored in the counter family and the prefix "@" is illegal to
+    * class name.
+    */
+  private[store] val SEQUENCE_KEY: String = "@sequence"
+
+  private[store] def isDataFamily(name: String): Boolean =
+    name != new String(RocksDB.DEFAULT_COLUMN_FAMILY) && !name.startsWith("@")
 }
@@ -64,6 +64,34 @@ class TestConfiguratorMain extends OharaTest {
       configurator => configurator.mode shouldBe Mode.DOCKER
     )
 
+  @Test
+  def testStoreOptions(): Unit =
+    runMain(
+      Array[String](
+        Configurator.STORE_BLOCK_CACHE_KEY,
+        "0",
+        Configurator.STORE_BLOOM_FILTER_KEY,
+        "0",
+        Configurator.STORE_COMPRESSION_KEY,
+        "none",
+        Configurator.STORE_WRITE_BUFFER_KEY,
+        "1048576",
+        Configurator.STORE_STATS_KEY,
+        "10 seconds",
+        Configurator.PORT_KEY,
+        "0",
+        Configurator.FAKE_KEY,
+        "true"
+      ),
+      configurator => configurator.mode shouldBe Mode.FAKE
+    )
+
+  @Test
+  def unsupportedCompression(): Unit =
+    an[IllegalArgumentException] should be thrownBy Configurator.main(
+      Array[String](Configurator.STORE_COMPRESSION_KEY, CommonUtils.randomString())
+    )
+
   private[this] def runMain(args: Array[String], action: Configurator => Unit): Unit = {
     Configurator.GLOBAL_CONFIGURATOR_SHOULD_CLOSE = false
     val service = ExecutionContext.fromExecutorService(Executors.newSingleThreadExecutor())
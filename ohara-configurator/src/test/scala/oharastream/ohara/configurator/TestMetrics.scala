@@ -165,6 +165,35 @@ class TestMetrics extends WithBrokerWorker {
     }, java.time.Duration.ofSeconds(20))
   }
 
+  @Test
+  def testGaugesOfConnector(): Unit = {
+    val topic = createTopic()
+    result(topicApi.start(topic.key))
+
+    val sink = result(
+      connectorApi.request
+        .name(CommonUtils.randomString(10))
+        .className(classOf[FallibleSink].getName)
+        .topicKey(topic.key)
+        .numberOfTasks(1)
+        .workerClusterKey(workerClusterInfo.key)
+        .create()
+    )
+    result(connectorApi.start(sink.key))
+
+    // the metrics of consumer used by sink are reported by gauges
+    CommonUtils.await(
+      () => result(connectorApi.get(sink.key)).meters.exists(_.name.startsWith("consumer.")),
+      java.time.Duration.ofSeconds(30)
+    )
+    result(connectorApi.get(sink.key)).meters.filter(_.name.startsWith("consumer.")).foreach { meter =>
+      meter.queryTime should be > 0L
+      meter.valueInPerSec shouldBe None
+    }
+
+    result(connectorApi.stop(sink.key))
+  }
+
   @Test
   def testPipeline(): Unit = {
     val topic = createTopic()
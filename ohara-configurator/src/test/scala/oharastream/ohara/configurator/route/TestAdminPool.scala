@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.route
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicInteger}
+
+import oharastream.ohara.agent.NoSuchClusterException
+import oharastream.ohara.client.configurator.BrokerApi
+import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
+import oharastream.ohara.client.kafka.ConnectorAdmin
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.configurator.fake.FakeTopicAdmin
+import oharastream.ohara.kafka.TopicAdmin
+import oharastream.ohara.metrics.BeanChannel
+import org.junit.Test
+import org.scalatest.matchers.should.Matchers._
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, Future, Promise}
+import scala.jdk.CollectionConverters._
+
+class TestAdminPool extends OharaTest {
+  private[this] val name = CommonUtils.randomString(10)
+
+  private[this] def brokerClusterInfo(nodeName: String): BrokerClusterInfo = BrokerClusterInfo(
+    settings = BrokerApi.access.request
+      .name(name)
+      .zookeeperClusterKey(ObjectKey.of("g", "n"))
+      .nodeNames(Set(nodeName))
+      .creation
+      .raw,
+    aliveNodes = Set.empty,
+    state = None,
+    error = None,
+    lastModified = 0
+  )
+
+  private[this] def pool(count: AtomicInteger, idleTimeout: Duration = Duration(5, TimeUnit.MINUTES)): AdminPool =
+    AdminPool.builder
+      .topicAdmin { _ =>
+        count.incrementAndGet()
+        Future.successful(new FakeTopicAdmin)
+      }
+      .connectorAdmin(_ => Future.failed(new UnsupportedOperationException))
+      .idleTimeout(idleTimeout)
+      .build
+
+  private[this] def result[T](f: Future[T]): T = Await.result(f, Duration(10, TimeUnit.SECONDS))
+
+  private[this] def topicAdmin(adminPool: AdminPool, cluster: BrokerClusterInfo): TopicAdmin =
+    result(adminPool.topicAdmin(cluster)(Future.successful))
+
+  /**
+    * run an action which is not completed until the returned promise is completed.
+    */
+  private[this] def hold(adminPool: AdminPool, cluster: BrokerClusterInfo): (TopicAdmin, Promise[Unit]) = {
+    val promise = Promise[Unit]()
+    val admin   = Promise[TopicAdmin]()
+    adminPool.topicAdmin(cluster) { a =>
+      admin.success(a)
+      promise.future
+    }
+    result(admin.future) -> promise
+  }
+
+  private[this] def counter(key: ObjectKey, item: String): Long =
+    BeanChannel
+      .local()
+      .counterMBeans()
+      .asScala
+      .find(c => c.key() == key && c.item() == s"${AdminPool.TOPIC_ADMINS}.$item")
+      .map(_.getValue)
+      .getOrElse(0L)
+
+  @Test
+  def nullTopicAdmin(): Unit = an[NullPointerException] should be thrownBy AdminPool.builder.topicAdmin(null)
+
+  @Test
+  def nullConnectorAdmin(): Unit = an[NullPointerException] should be thrownBy AdminPool.builder.connectorAdmin(null)
+
+  @Test
+  def nullIdleTimeout(): Unit = an[NullPointerException] should be thrownBy AdminPool.builder.idleTimeout(null)
+
+  @Test
+  def testReuse(): Unit = {
+    val count     = new AtomicInteger(0)
+    val cluster   = brokerClusterInfo(CommonUtils.randomString(10))
+    val adminPool = pool(count)
+    try {
+      val admin = topicAdmin(adminPool, cluster)
+      (0 until 10).foreach(_ => topicAdmin(adminPool, cluster) shouldBe admin)
+      count.get() shouldBe 1
+      adminPool.size shouldBe 1
+      counter(cluster.key, AdminPool.CREATED) shouldBe 1
+      counter(cluster.key, AdminPool.REUSED) shouldBe 10
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testReplaceIfConnectionPropsChanged(): Unit = {
+    val count     = new AtomicInteger(0)
+    val adminPool = pool(count)
+    try {
+      val admin0 = topicAdmin(adminPool, brokerClusterInfo(CommonUtils.randomString(10)))
+      val admin1 = topicAdmin(adminPool, brokerClusterInfo(CommonUtils.randomString(10)))
+      admin0 should not be admin1
+      admin0.closed() shouldBe true
+      admin1.closed() shouldBe false
+      count.get() shouldBe 2
+      adminPool.size shouldBe 1
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testReplaceClosedAdmin(): Unit = {
+    val count     = new AtomicInteger(0)
+    val cluster   = brokerClusterInfo(CommonUtils.randomString(10))
+    val adminPool = pool(count)
+    try {
+      val admin0 = topicAdmin(adminPool, cluster)
+      admin0.close()
+      val admin1 = topicAdmin(adminPool, cluster)
+      admin0 should not be admin1
+      count.get() shouldBe 2
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testInvalidate(): Unit = {
+    val count     = new AtomicInteger(0)
+    val cluster   = brokerClusterInfo(CommonUtils.randomString(10))
+    val adminPool = pool(count)
+    try {
+      val admin = topicAdmin(adminPool, cluster)
+      adminPool.invalidate(cluster.key)
+      admin.closed() shouldBe true
+      adminPool.size shouldBe 0
+      // the counters of removed cluster are removed also
+      counter(cluster.key, AdminPool.CREATED) shouldBe 0
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testCloseAdminOfRemovedCluster(): Unit = {
+    val count   = new AtomicInteger(0)
+    val running = new AtomicBoolean(true)
+    val cluster = brokerClusterInfo(CommonUtils.randomString(10))
+    val adminPool = AdminPool.builder
+      .topicAdmin { _ =>
+        count.incrementAndGet()
+        Future.successful(new FakeTopicAdmin)
+      }
+      .connectorAdmin(_ => Future.failed[ConnectorAdmin](new UnsupportedOperationException))
+      .brokerClusterExist(_ => Future.successful(running.get()))
+      .build
+    try {
+      val admin = topicAdmin(adminPool, cluster)
+      // the cluster is removed by others
+      running.set(false)
+      an[NoSuchClusterException] should be thrownBy topicAdmin(adminPool, cluster)
+      admin.closed() shouldBe true
+      adminPool.size shouldBe 0
+      count.get() shouldBe 1
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testIdleTimeout(): Unit = {
+    val count     = new AtomicInteger(0)
+    val cluster   = brokerClusterInfo(CommonUtils.randomString(10))
+    val adminPool = pool(count, Duration(100, TimeUnit.MILLISECONDS))
+    try {
+      val admin0 = topicAdmin(adminPool, cluster)
+      TimeUnit.MILLISECONDS.sleep(500)
+      val admin1 = topicAdmin(adminPool, cluster)
+      admin0.closed() shouldBe true
+      admin0 should not be admin1
+      count.get() shouldBe 2
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testKeepAdminInUseIfConnectionPropsChanged(): Unit = {
+    val count     = new AtomicInteger(0)
+    val adminPool = pool(count)
+    try {
+      val (admin0, promise) = hold(adminPool, brokerClusterInfo(CommonUtils.randomString(10)))
+      val admin1            = topicAdmin(adminPool, brokerClusterInfo(CommonUtils.randomString(10)))
+      admin0 should not be admin1
+      // the replaced admin is closed after the running action completes
+      admin0.closed() shouldBe false
+      promise.success(())
+      CommonUtils.await(() => admin0.closed(), java.time.Duration.ofSeconds(10))
+      admin1.closed() shouldBe false
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testIdleTimeoutDoesNotCloseAdminInUse(): Unit = {
+    val count             = new AtomicInteger(0)
+    val cluster           = brokerClusterInfo(CommonUtils.randomString(10))
+    val adminPool         = pool(count, Duration(100, TimeUnit.MILLISECONDS))
+    val (admin0, promise) = hold(adminPool, cluster)
+    try {
+      TimeUnit.MILLISECONDS.sleep(500)
+      // the admin used by running action is not idle
+      topicAdmin(adminPool, cluster) shouldBe admin0
+      admin0.closed() shouldBe false
+      count.get() shouldBe 1
+    } finally {
+      promise.success(())
+      Releasable.close(adminPool)
+    }
+  }
+
+  @Test
+  def testFailedAdminIsNotCached(): Unit = {
+    val count = new AtomicInteger(0)
+    val adminPool = AdminPool.builder
+      .topicAdmin { _ =>
+        if (count.incrementAndGet() == 1) Future.failed(new IllegalStateException)
+        else Future.successful(new FakeTopicAdmin)
+      }
+      .connectorAdmin(_ => Future.failed[ConnectorAdmin](new UnsupportedOperationException))
+      .build
+    val cluster = brokerClusterInfo(CommonUtils.randomString(10))
+    try {
+      an[IllegalStateException] should be thrownBy topicAdmin(adminPool, cluster)
+      topicAdmin(adminPool, cluster) should not be null
+      count.get() shouldBe 2
+    } finally Releasable.close(adminPool)
+  }
+
+  @Test
+  def testClose(): Unit = {
+    val count     = new AtomicInteger(0)
+    val adminPool = pool(count)
+    val admin     = topicAdmin(adminPool, brokerClusterInfo(CommonUtils.randomString(10)))
+    adminPool.close()
+    admin.closed() shouldBe true
+    an[IllegalStateException] should be thrownBy topicAdmin(adminPool, brokerClusterInfo(CommonUtils.randomString(10)))
+  }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.route
+
+import java.util
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentHashMap, TimeUnit}
+
+import oharastream.ohara.agent.container.{ContainerClient, ContainerName, ContainerVolume}
+import oharastream.ohara.agent.{ClusterKind, ClusterStatus, DataCollie}
+import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
+import oharastream.ohara.client.configurator.ConnectorApi.ConnectorInfo
+import oharastream.ohara.client.configurator.ContainerApi.ContainerInfo
+import oharastream.ohara.client.configurator.NodeApi.Resource
+import oharastream.ohara.client.configurator.TopicApi.TopicInfo
+import oharastream.ohara.client.configurator.VolumeApi.Volume
+import oharastream.ohara.client.configurator.WorkerApi.WorkerClusterInfo
+import oharastream.ohara.client.configurator.{BrokerApi, ConnectorApi, Data, TopicApi, WorkerApi}
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.setting.{ConnectorKey, ObjectKey, TopicKey}
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.configurator.fake._
+import oharastream.ohara.configurator.store.DataStore
+import org.junit.{After, Test}
+import org.scalatest.matchers.should.Matchers._
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.reflect.ClassTag
+
+class TestDataChecker extends OharaTest {
+  private[this] val store = DataStore()
+
+  private[this] val dataCollie = new DataCollie {
+    override def value[T <: Data: ClassTag](key: ObjectKey)(implicit executor: ExecutionContext): Future[T] =
+      store.value[T](key)(implicitly[ClassTag[T]], executor)
+    override def values[T <: Data: ClassTag]()(implicit executor: ExecutionContext): Future[Seq[T]] =
+      store.values[T]()(implicitly[ClassTag[T]], executor)
+  }
+
+  /**
+    * the name of remote call -> the number of calls
+    */
+  private[this] val calls = new ConcurrentHashMap[String, AtomicInteger]()
+
+  private[this] def call(name: String): Unit = calls.computeIfAbsent(name, _ => new AtomicInteger(0)).incrementAndGet()
+
+  private[this] def calls(name: String): Int = Option(calls.get(name)).map(_.get()).getOrElse(0)
+
+  private[this] val serviceCollie = new FakeServiceCollie(dataCollie) {
+    private[this] val client = super.containerClient
+
+    override val brokerCollie: FakeBrokerCollie = new FakeBrokerCollie(client, dataCollie, null) {
+      override def clusters()(implicit executionContext: ExecutionContext): Future[Seq[ClusterStatus]] = {
+        call("broker.clusters")
+        super.clusters()(executionContext)
+      }
+    }
+
+    override val workerCollie: FakeWorkerCollie = new FakeWorkerCollie(client, dataCollie, null) {
+      override def clusters()(implicit executionContext: ExecutionContext): Future[Seq[ClusterStatus]] = {
+        call("worker.clusters")
+        super.clusters()(executionContext)
+      }
+    }
+
+    override val containerClient: ContainerClient = new ContainerClient {
+      override def containers()(implicit executionContext: ExecutionContext): Future[Seq[ContainerInfo]] =
+        client.containers()(executionContext)
+      override def remove(name: String)(implicit executionContext: ExecutionContext): Future[Unit] =
+        client.remove(name)(executionContext)
+      override def forceRemove(name: String)(implicit executionContext: ExecutionContext): Future[Unit] =
+        client.forceRemove(name)(executionContext)
+      override def log(name: String, sinceSeconds: Option[Long])(
+        implicit executionContext: ExecutionContext
+      ): Future[Map[ContainerName, String]] = client.log(name, sinceSeconds)(executionContext)
+      override def containerCreator: ContainerClient.ContainerCreator = client.containerCreator
+      override def imageNames()(implicit executionContext: ExecutionContext): Future[Map[String, Seq[String]]] =
+        client.imageNames()(executionContext)
+      override def resources()(implicit executionContext: ExecutionContext): Future[Map[String, Seq[Resource]]] =
+        client.resources()(executionContext)
+      override def volumeCreator: ContainerClient.VolumeCreator = client.volumeCreator
+      override def volumes()(implicit executionContext: ExecutionContext): Future[Seq[ContainerVolume]] = {
+        call("volumes")
+        client.volumes()(executionContext)
+      }
+      override def removeVolumes(name: String)(implicit executionContext: ExecutionContext): Future[Unit] =
+        client.removeVolumes(name)(executionContext)
+      override def close(): Unit = client.close()
+    }
+  }
+
+  /**
+    * the existent topics and active connectors of running clusters.
+    */
+  private[this] val existentTopics   = ConcurrentHashMap.newKeySet[TopicKey]()
+  private[this] val activeConnectors = ConcurrentHashMap.newKeySet[ConnectorKey]()
+
+  private[this] val adminPool = AdminPool.builder
+    .topicAdmin(
+      cluster =>
+        Future.successful(new FakeTopicAdmin {
+          override def topicKeys: CompletionStage[util.Set[TopicKey]] = {
+            call(s"${cluster.key}.topicKeys")
+            CompletableFuture.completedFuture(existentTopics)
+          }
+        })
+    )
+    .connectorAdmin(
+      cluster =>
+        Future.successful(new FakeConnectorAdmin {
+          override def activeConnectors()(implicit executionContext: ExecutionContext): Future[Seq[ConnectorKey]] = {
+            call(s"${cluster.key}.activeConnectors")
+            Future.successful(TestDataChecker.this.activeConnectors.toArray(Array.empty[ConnectorKey]).toSeq)
+          }
+        })
+    )
+    .build
+
+  private[this] val checker = DataChecker()(store, serviceCollie, adminPool)
+
+  private[this] def result[T](f: Future[T]): T = Await.result(f, Duration(20, TimeUnit.SECONDS))
+
+  private[this] def add[T <: Data](data: T): T = result(store.add(data))
+
+  private[this] def brokerCluster(running: Boolean): BrokerClusterInfo = {
+    val cluster = add(
+      BrokerClusterInfo(
+        settings = BrokerApi.access.request
+          .name(CommonUtils.randomString(5))
+          .zookeeperClusterKey(ObjectKey.of("g", "n"))
+          .nodeNames(Set(CommonUtils.randomString(5)))
+          .creation
+          .raw,
+        aliveNodes = Set.empty,
+        state = None,
+        error = None,
+        lastModified = CommonUtils.current()
+      )
+    )
+    if (running) serviceCollie.brokerCollie.addCluster(cluster.key, ClusterKind.BROKER, cluster.nodeNames, "bk", Set(1))
+    cluster
+  }
+
+  private[this] def workerCluster(brokerClusterKey: ObjectKey, running: Boolean): WorkerClusterInfo = {
+    val cluster = add(
+      WorkerClusterInfo(
+        settings = WorkerApi.access.request
+          .name(CommonUtils.randomString(5))
+          .brokerClusterKey(brokerClusterKey)
+          .nodeNames(Set(CommonUtils.randomString(5)))
+          .creation
+          .raw,
+        aliveNodes = Set.empty,
+        state = None,
+        error = None,
+        lastModified = CommonUtils.current()
+      )
+    )
+    if (running) serviceCollie.workerCollie.addCluster(cluster.key, ClusterKind.WORKER, cluster.nodeNames, "wk", Set(1))
+    cluster
+  }
+
+  private[this] def topic(brokerClusterKey: ObjectKey, existent: Boolean): TopicInfo = {
+    val topicInfo = add(
+      TopicInfo(
+        settings = TopicApi.access.request
+          .name(CommonUtils.randomString(5))
+          .brokerClusterKey(brokerClusterKey)
+          .creation
+          .raw,
+        partitionInfos = Seq.empty,
+        nodeMetrics = Map.empty,
+        state = None,
+        lastModified = CommonUtils.current()
+      )
+    )
+    if (existent) existentTopics.add(topicInfo.key)
+    topicInfo
+  }
+
+  private[this] def connector(workerClusterKey: ObjectKey, active: Boolean): ConnectorInfo = {
+    val connectorInfo = add(
+      ConnectorInfo(
+        settings = ConnectorApi.access.request
+          .name(CommonUtils.randomString(5))
+          .className(CommonUtils.randomString(5))
+          .workerClusterKey(workerClusterKey)
+          .creation
+          .raw,
+        state = None,
+        aliveNodes = Set.empty,
+        error = None,
+        tasksStatus = Seq.empty,
+        nodeMetrics = Map.empty,
+        lastModified = CommonUtils.current()
+      )
+    )
+    if (active) activeConnectors.add(connectorInfo.key)
+    connectorInfo
+  }
+
+  private[this] def volume(existent: Boolean): Volume = {
+    val volume = add(
+      Volume(
+        group = CommonUtils.randomString(5),
+        name = CommonUtils.randomString(5),
+        nodeNames = Set("node0"),
+        path = "/tmp",
+        state = None,
+        error = None,
+        tags = Map.empty,
+        lastModified = CommonUtils.current()
+      )
+    )
+    if (existent)
+      result(
+        serviceCollie.containerClient.volumeCreator
+          .nodeName("node0")
+          .name(volume.key.toPlain)
+          .path(volume.path)
+          .threadPool(global)
+          .create()
+      )
+    volume
+  }
+
+  @Test
+  def testRemoteCallsAreBatched(): Unit = {
+    val runningBk = brokerCluster(running = true)
+    val stoppedBk = brokerCluster(running = false)
+    val runningWk = workerCluster(runningBk.key, running = true)
+    val stoppedWk = workerCluster(stoppedBk.key, running = false)
+    val topics =
+      (0 until 3).map(_ => topic(runningBk.key, existent = true)) ++
+        (0 until 3).map(_ => topic(runningBk.key, existent = false)) ++
+        (0 until 3).map(_ => topic(stoppedBk.key, existent = false))
+    val connectors =
+      (0 until 3).map(_ => connector(runningWk.key, active = true)) ++
+        (0 until 3).map(_ => connector(runningWk.key, active = false)) ++
+        (0 until 3).map(_ => connector(stoppedWk.key, active = false))
+    val volumes = (0 until 3).map(_ => volume(existent = true)) ++ (0 until 3).map(_ => volume(existent = false))
+
+    val report = result(
+      checker.checkList.allBrokers().allWorkers().allTopics().allConnectors().allVolumes().check()
+    )
+
+    // each remote call is invoked once no matter how many objects are hosted by the clusters
+    calls("broker.clusters") shouldBe 1
+    calls("worker.clusters") shouldBe 1
+    calls("volumes") shouldBe 1
+    calls(s"${runningBk.key}.topicKeys") shouldBe 1
+    calls(s"${runningWk.key}.activeConnectors") shouldBe 1
+    // the stopped clusters are not queried
+    calls(s"${stoppedBk.key}.topicKeys") shouldBe 0
+    calls(s"${stoppedWk.key}.activeConnectors") shouldBe 0
+
+    // the conditions are same to the check of each object
+    report.brokerClusterInfos shouldBe Map(runningBk -> DataCondition.RUNNING, stoppedBk -> DataCondition.STOPPED)
+    report.workerClusterInfos shouldBe Map(runningWk -> DataCondition.RUNNING, stoppedWk -> DataCondition.STOPPED)
+    report.topicInfos shouldBe topics
+      .map(
+        t =>
+          t -> (if (t.brokerClusterKey == runningBk.key && existentTopics.contains(t.key)) DataCondition.RUNNING
+                else DataCondition.STOPPED)
+      )
+      .toMap
+    report.connectorInfos shouldBe connectors
+      .map(
+        c =>
+          c -> (if (c.workerClusterKey == runningWk.key && activeConnectors.contains(c.key)) DataCondition.RUNNING
+                else DataCondition.STOPPED)
+      )
+      .toMap
+    report.volumes shouldBe volumes.zipWithIndex
+      .map {
+        case (v, index) => v -> (if (index < 3) DataCondition.RUNNING else DataCondition.STOPPED)
+      }
+      .toMap
+  }
+
+  @Test
+  def testCheckEachObject(): Unit = {
+    val runningBk = brokerCluster(running = true)
+    val stoppedBk = brokerCluster(running = false)
+    val topics    = Seq(topic(runningBk.key, existent = true), topic(runningBk.key, existent = false))
+    val stopped   = topic(stoppedBk.key, existent = false)
+
+    // the objects are checked one by one
+    (topics :+ stopped).foreach { t =>
+      val expected =
+        if (t.brokerClusterKey == runningBk.key && existentTopics.contains(t.key)) DataCondition.RUNNING
+        else DataCondition.STOPPED
+      result(checker.checkList.topic(t.key, expected).check()).topicInfos shouldBe Map(t -> expected)
+    }
+
+    // all objects are checked by a single check
+    val report = result(
+      checker.checkList
+        .topic(topics.head.key, DataCondition.RUNNING)
+        .topic(topics.last.key, DataCondition.STOPPED)
+        .topic(stopped.key, DataCondition.STOPPED)
+        .check()
+    )
+    report.topicInfos shouldBe Map(
+      topics.head -> DataCondition.RUNNING,
+      topics.last -> DataCondition.STOPPED,
+      stopped     -> DataCondition.STOPPED
+    )
+  }
+
+  @Test
+  def testUnmatchedObjects(): Unit = {
+    val runningBk   = brokerCluster(running = true)
+    val existent    = topic(runningBk.key, existent = true)
+    val nonexistent = TopicKey.of(CommonUtils.randomString(5), CommonUtils.randomString(5))
+    val e = intercept[DataCheckException](
+      result(
+        checker.checkList
+          .topic(existent.key, DataCondition.STOPPED)
+          .topic(nonexistent)
+          .check()
+      )
+    )
+    e.objectType shouldBe "topic"
+    e.nonexistent shouldBe Set(nonexistent)
+    e.illegalObjs shouldBe Map(existent.key -> DataCondition.STOPPED)
+  }
+
+  @After
+  def tearDown(): Unit = {
+    Releasable.close(adminPool)
+    Releasable.close(store)
+  }
+}
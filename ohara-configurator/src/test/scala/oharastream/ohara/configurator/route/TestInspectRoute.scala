@@ -19,7 +19,9 @@ package oharastream.ohara.configurator.route
 import java.io.FileOutputStream
 import java.util.concurrent.TimeUnit
 
+import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.InspectApi.{RdbColumn, RdbInfo}
+import oharastream.ohara.client.configurator.TopicApi.TopicInfo
 import oharastream.ohara.client.configurator.{
   BrokerApi,
   InspectApi,
@@ -216,6 +218,28 @@ class TestInspectRoute extends OharaTest {
     clusterInformation.mode shouldBe Mode.FAKE.toString
   }
 
+  @Test
+  def testStoreInfo(): Unit = {
+    val storeInfo = result(inspectApi.storeInfo())
+    storeInfo.counts.values.sum shouldBe configurator.size
+    storeInfo.counts(classOf[BrokerClusterInfo].getName) shouldBe 1
+
+    result(
+      TopicApi.access
+        .hostname(configurator.hostname)
+        .port(configurator.port)
+        .request
+        .brokerClusterKey(brokerClusterInfo.key)
+        .create()
+    )
+    result(inspectApi.storeInfo()).counts(classOf[TopicInfo].getName) shouldBe 1
+
+    // the objects are read by the store
+    result(BrokerApi.access.hostname(configurator.hostname).port(configurator.port).get(brokerClusterInfo.key))
+    val latest = result(inspectApi.storeInfo())
+    latest.cacheHits + latest.cacheMisses should be > storeInfo.cacheHits + storeInfo.cacheMisses
+  }
+
   @Test
   def testZookeeperInfo(): Unit = {
     val info = result(inspectApi.zookeeperInfo())
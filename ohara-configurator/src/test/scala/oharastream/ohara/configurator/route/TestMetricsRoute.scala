@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.route
+
+import java.util.concurrent.TimeUnit
+
+import oharastream.ohara.client.configurator.MetricsApi
+import oharastream.ohara.client.configurator.MetricsApi.Resolution
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.configurator.Configurator
+import oharastream.ohara.configurator.store.RocksDataStore
+import org.junit.{After, Test}
+import org.scalatest.matchers.should.Matchers._
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, Future}
+
+class TestMetricsRoute extends OharaTest {
+  private[this] val configurator = Configurator.builder.fake().build()
+  private[this] val metricsApi   = MetricsApi.access.hostname(configurator.hostname).port(configurator.port)
+
+  private[this] def result[T](f: Future[T]): T = Await.result(f, Duration("20 seconds"))
+
+  @Test
+  def testNonexistentObject(): Unit = {
+    val key = ObjectKey.of(CommonUtils.randomString(), CommonUtils.randomString())
+    Resolution.all.foreach { resolution =>
+      val history = result(metricsApi.history(key, 0, CommonUtils.current(), resolution))
+      history.key shouldBe key
+      history.series shouldBe Seq.empty
+    }
+    result(metricsApi.history(key, "a b", 0, CommonUtils.current(), Resolution.RAW)).series shouldBe Seq.empty
+  }
+
+  @Test
+  def testIllegalRange(): Unit =
+    an[IllegalArgumentException] should be thrownBy result(
+      metricsApi.history(ObjectKey.of("a", "b"), CommonUtils.current(), 0, Resolution.RAW)
+    )
+
+  @Test
+  def testStoreStats(): Unit = {
+    val c = Configurator.builder.storeStatsInterval(Duration(100, TimeUnit.MILLISECONDS)).fake().build()
+    try {
+      val api = MetricsApi.access.hostname(c.hostname).port(c.port)
+      CommonUtils.await(
+        () =>
+          result(api.history(RocksDataStore.METRICS_KEY, 0, CommonUtils.current(), Resolution.RAW)).series
+            .exists(_.name == RocksDataStore.OBJECTS),
+        java.time.Duration.ofSeconds(20)
+      )
+      val series = result(api.history(RocksDataStore.METRICS_KEY, 0, CommonUtils.current(), Resolution.RAW)).series
+      series.map(_.hostname).toSet shouldBe Set(c.hostname)
+      series.find(_.name == RocksDataStore.OBJECTS).get.samples.last.last should be > 0d
+    } finally Releasable.close(c)
+  }
+
+  @After
+  def tearDown(): Unit = Releasable.close(configurator)
+}
@@ -16,6 +16,8 @@
 
 package oharastream.ohara.configurator.route
 
+import java.net.HttpRetryException
+
 import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
 import oharastream.ohara.client.configurator.TopicApi.{Request, TopicInfo, TopicState}
 import oharastream.ohara.client.configurator.{BrokerApi, TopicApi, ZookeeperApi}
@@ -593,6 +595,75 @@ class TestTopicRoute extends OharaTest {
     result(topicApi.query.tags(tags2).name(topic.name).execute()).size shouldBe 1
   }
 
+  @Test
+  def testPaging(): Unit = {
+    val group = CommonUtils.randomString(10)
+    val topics =
+      (0 until 5).map(_ => result(topicApi.request.group(group).brokerClusterKey(brokerClusterInfo.key).create()))
+    (0 until 3).foreach(_ => result(topicApi.request.brokerClusterKey(brokerClusterInfo.key).create()))
+    val sorted = topics.map(_.key).sortBy(key => (key.group, key.name))
+    result(topicApi.query.group(group).limit(2).execute()).map(_.key) shouldBe sorted.take(2)
+    result(topicApi.query.group(group).offset(1).limit(2).execute()).map(_.key) shouldBe sorted.slice(1, 3)
+    result(topicApi.query.group(group).offset(4).execute()).map(_.key) shouldBe sorted.drop(4)
+    result(topicApi.query.group(group).offset(5).execute()) shouldBe Seq.empty
+    result(topicApi.query.limit(0).execute()) shouldBe Seq.empty
+    result(topicApi.query.limit(100).execute()).size shouldBe 8
+    // the end of page must not overflow
+    result(topicApi.query.group(group).offset(1).limit(Int.MaxValue).execute()).map(_.key) shouldBe sorted.drop(1)
+  }
+
+  @Test
+  def testPagingWithState(): Unit = {
+    val group = CommonUtils.randomString(10)
+    val topics =
+      (0 until 5).map(_ => result(topicApi.request.group(group).brokerClusterKey(brokerClusterInfo.key).create()))
+    val running = topics.map(_.key).sortBy(key => (key.group, key.name)).zipWithIndex.filter(_._2 % 2 == 0).map(_._1)
+    running.foreach(key => result(topicApi.start(key)))
+    // the page is picked from the running topics rather than all topics
+    def query = topicApi.query.group(group).state(TopicState.RUNNING)
+    result(query.limit(2).execute()).map(_.key) shouldBe running.take(2)
+    result(query.offset(2).execute()).map(_.key) shouldBe running.drop(2)
+  }
+
+  @Test
+  def testConcurrentUpdate(): Unit = {
+    val topicDesc = result(topicApi.request.brokerClusterKey(brokerClusterInfo.key).create())
+    val updates = (0 until 20).map(
+      index =>
+        topicApi.request
+          .key(topicDesc.key)
+          .tags(Map("index" -> JsNumber(index)))
+          .update()
+          .map(Right(_))
+          // the conflict (409) is converted to HttpRetryException
+          .recover { case e: HttpRetryException => Left(e) }
+    )
+    val results = result(Future.sequence(updates))
+    results.foreach(_.left.foreach(_.responseCode() shouldBe 409))
+    results.exists(_.isRight) shouldBe true
+    result(topicApi.get(topicDesc.key)).tags.keySet shouldBe Set("index")
+  }
+
+  @Test
+  def testConcurrentCreateByUpdate(): Unit = {
+    val key = TopicKey.of(CommonUtils.randomString(5), CommonUtils.randomString(5))
+    val updates = (0 until 20).map(
+      index =>
+        topicApi.request
+          .key(key)
+          .brokerClusterKey(brokerClusterInfo.key)
+          .tags(Map("index" -> JsNumber(index)))
+          .update()
+          .map(Right(_))
+          // the loser of creation gets conflict (409) rather than internal error (500)
+          .recover { case e: HttpRetryException => Left(e) }
+    )
+    val results = result(Future.sequence(updates))
+    results.foreach(_.left.foreach(_.responseCode() shouldBe 409))
+    results.exists(_.isRight) shouldBe true
+    result(topicApi.list()).count(_.key == key) shouldBe 1
+  }
+
   @After
   def tearDown(): Unit = Releasable.close(configurator)
 }
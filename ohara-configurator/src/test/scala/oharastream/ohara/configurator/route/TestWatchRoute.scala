@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.route
+
+import java.util.concurrent.TimeUnit
+
+import akka.NotUsed
+import akka.actor.ActorSystem
+import akka.http.scaladsl.Http
+import akka.http.scaladsl.model.HttpRequest
+import akka.http.scaladsl.model.headers.RawHeader
+import akka.http.scaladsl.model.sse.ServerSentEvent
+import akka.http.scaladsl.unmarshalling.Unmarshal
+import akka.http.scaladsl.unmarshalling.sse.EventStreamUnmarshalling._
+import akka.stream.scaladsl.{Sink, Source}
+import oharastream.ohara.client.configurator.WatchApi._
+import oharastream.ohara.client.configurator.{NodeApi, WatchApi}
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.configurator.Configurator
+import org.junit.{After, Test}
+import org.scalatest.matchers.should.Matchers._
+import spray.json._
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, Future}
+
+class TestWatchRoute extends OharaTest {
+  private[this] val configurator = Configurator.builder.fake().build()
+
+  private[this] implicit val actorSystem: ActorSystem = ActorSystem("Executor-TestWatchRoute")
+
+  private[this] val nodeApi = NodeApi.access.hostname(configurator.hostname).port(configurator.port)
+
+  private[this] def result[T](f: Future[T]): T = Await.result(f, Duration(20, TimeUnit.SECONDS))
+
+  private[this] def createNode(): NodeApi.Node =
+    result(
+      nodeApi.request
+        .nodeName(CommonUtils.randomString(10))
+        .port(CommonUtils.availablePort())
+        .user(CommonUtils.randomString())
+        .password(CommonUtils.randomString())
+        .create()
+    )
+
+  /**
+    * @return the events (heartbeats are excluded) until the predicate is true
+    */
+  private[this] def watch(query: String, headers: RawHeader*)(until: ServerSentEvent => Boolean): Seq[ServerSentEvent] =
+    result(
+      Http()
+        .singleRequest(
+          HttpRequest(
+            uri = s"http://${configurator.hostname}:${configurator.port}/${oharastream.ohara.client.configurator.V0}/" +
+              s"${WatchApi.PREFIX}?$query",
+            headers = headers.toList
+          )
+        )
+        .flatMap(response => Unmarshal(response.entity).to[Source[ServerSentEvent, NotUsed]])
+        .flatMap(_.filter(_.eventType.isDefined).takeWhile(e => !until(e), inclusive = true).runWith(Sink.seq))
+    )
+
+  private[this] def change(event: ServerSentEvent): Change = CHANGE_FORMAT.read(event.data.parseJson)
+
+  @Test
+  def testWatch(): Unit = {
+    val node = createNode()
+    result(nodeApi.request.nodeName(node.hostname).user(CommonUtils.randomString()).update())
+    result(nodeApi.delete(node.key))
+
+    val events = watch(s"$SEQUENCE_KEY=0&$KIND_KEY=${NodeApi.KIND}")(
+      e => e.eventType.contains(DELETE_EVENT) && change(e).name == node.name
+    ).filter(e => change(e).name == node.name)
+    events.flatMap(_.eventType) shouldBe Seq(PUT_EVENT, PUT_EVENT, DELETE_EVENT)
+    events.map(change).foreach(_.kind shouldBe NodeApi.KIND)
+    events.map(change).map(_.data.isDefined) shouldBe Seq(true, true, false)
+    events.map(change).map(_.sequence) shouldBe events.flatMap(_.id).map(_.toLong)
+    events.map(change).map(_.sequence).sorted shouldBe events.map(change).map(_.sequence)
+  }
+
+  @Test
+  def testResumeFromLastEventId(): Unit = {
+    val node0 = createNode()
+    val node1 = createNode()
+    val first = watch(s"$SEQUENCE_KEY=0&$KIND_KEY=${NodeApi.KIND}")(e => change(e).name == node0.name).last
+    watch(s"$KIND_KEY=${NodeApi.KIND}", RawHeader("Last-Event-ID", first.id.get))(_ => true)
+      .map(change)
+      .map(_.name) shouldBe Seq(node1.name)
+  }
+
+  @Test
+  def testReset(): Unit = {
+    val events = watch(s"$SEQUENCE_KEY=${Long.MaxValue}")(_ => true)
+    events.flatMap(_.eventType) shouldBe Seq(RESET_EVENT)
+    events.head.data.toLong should be < Long.MaxValue
+  }
+
+  @After
+  def tearDown(): Unit = {
+    Releasable.close(configurator)
+    result(actorSystem.terminate())
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
+import oharastream.ohara.client.configurator.ConnectorApi.{ConnectorInfo, Status}
+import oharastream.ohara.client.configurator.FileInfoApi.FileInfo
+import oharastream.ohara.client.configurator.MetricsApi.{Meter, Metrics}
+import oharastream.ohara.client.configurator.NodeApi.Node
+import oharastream.ohara.client.configurator.ObjectApi.ObjectInfo
+import oharastream.ohara.client.configurator.PipelineApi.{Endpoint, ObjectAbstract, Pipeline}
+import oharastream.ohara.client.configurator.ShabondiApi.ShabondiClusterInfo
+import oharastream.ohara.client.configurator.StreamApi.StreamClusterInfo
+import oharastream.ohara.client.configurator.TopicApi.TopicInfo
+import oharastream.ohara.client.configurator.VolumeApi.{Volume, VolumeState}
+import oharastream.ohara.client.configurator.WorkerApi.WorkerClusterInfo
+import oharastream.ohara.client.configurator.ZookeeperApi.ZookeeperClusterInfo
+import oharastream.ohara.client.configurator.{
+  BrokerApi,
+  ClusterState,
+  ConnectorApi,
+  Data,
+  GROUP_KEY,
+  NAME_KEY,
+  ObjectApi,
+  PipelineApi,
+  ShabondiApi,
+  StreamApi,
+  TopicApi,
+  VolumeApi,
+  WorkerApi,
+  ZookeeperApi
+}
+import oharastream.ohara.common.data.Serializer
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.setting.{ObjectKey, TopicKey}
+import oharastream.ohara.common.util.CommonUtils
+import org.junit.Test
+import org.scalatest.matchers.should.Matchers._
+import spray.json.{JsArray, JsNull, JsNumber, JsObject, JsString, JsTrue, RootJsonFormat}
+
+class TestDataSerializer extends OharaTest {
+  private[this] def copy[T <: Data](data: T): T = DataSerializer.from(DataSerializer.to(data)).asInstanceOf[T]
+
+  /**
+    * the registered codec encodes the raw of data, so the format of data must be able to rebuild the data from raw.
+    */
+  private[this] def checkRoundTrip[T <: Data](data: T, format: RootJsonFormat[T]): Unit = {
+    format.read(JsObject(data.raw)) shouldBe data
+    val bytes = DataSerializer.to(data)
+    bytes.head shouldBe DataSerializer.MAGIC
+    DataSerializer.isJavaSerialized(bytes) shouldBe false
+    copy(data) shouldBe data
+  }
+
+  private[this] def nodeName: String = CommonUtils.randomString(10)
+
+  private[this] def metrics: Map[String, Metrics] = Map(
+    nodeName -> Metrics(
+      Seq(
+        Meter(
+          name = CommonUtils.randomString(),
+          value = 1.5,
+          valueInPerSec = Some(0.5),
+          unit = "bytes",
+          document = CommonUtils.randomString(),
+          queryTime = CommonUtils.current(),
+          startTime = Some(CommonUtils.current()),
+          lastModified = None
+        )
+      )
+    )
+  )
+
+  @Test
+  def testNode(): Unit = {
+    val node = Node(CommonUtils.randomString(10), CommonUtils.randomString(10), CommonUtils.randomString(10))
+      .copy(tags = Map("a" -> JsArray(JsNull, JsTrue, JsNumber(1.5), JsObject("b" -> JsString("c")))))
+    val bytes = DataSerializer.to(node)
+    bytes.head shouldBe DataSerializer.MAGIC
+    DataSerializer.isJavaSerialized(bytes) shouldBe false
+    copy(node) shouldBe node
+  }
+
+  @Test
+  def testTopicInfo(): Unit = {
+    val topicInfo = TopicInfo(
+      settings = TopicApi.access.request.brokerClusterKey(ObjectKey.of("a", "b")).creation.raw,
+      partitionInfos = Seq.empty,
+      state = None,
+      nodeMetrics = Map.empty,
+      lastModified = CommonUtils.current()
+    )
+    copy(topicInfo) shouldBe topicInfo
+  }
+
+  @Test
+  def testZookeeperClusterInfo(): Unit =
+    checkRoundTrip(
+      ZookeeperClusterInfo(
+        settings = ZookeeperApi.access.request.nodeName(nodeName).creation.raw,
+        aliveNodes = Set(nodeName),
+        lastModified = CommonUtils.current(),
+        state = Some(ClusterState.RUNNING),
+        error = None
+      ),
+      ZookeeperApi.ZOOKEEPER_CLUSTER_INFO_FORMAT
+    )
+
+  @Test
+  def testBrokerClusterInfo(): Unit =
+    checkRoundTrip(
+      BrokerClusterInfo(
+        settings = BrokerApi.access.request
+          .nodeName(nodeName)
+          .zookeeperClusterKey(ObjectKey.of("a", "b"))
+          .creation
+          .raw,
+        aliveNodes = Set.empty,
+        lastModified = CommonUtils.current(),
+        state = None,
+        error = Some(CommonUtils.randomString())
+      ),
+      BrokerApi.BROKER_CLUSTER_INFO_FORMAT
+    )
+
+  @Test
+  def testWorkerClusterInfo(): Unit =
+    checkRoundTrip(
+      WorkerClusterInfo(
+        settings = WorkerApi.access.request
+          .nodeName(nodeName)
+          .brokerClusterKey(ObjectKey.of("a", "b"))
+          .creation
+          .raw,
+        aliveNodes = Set(nodeName),
+        lastModified = CommonUtils.current(),
+        state = Some(ClusterState.FAILED),
+        error = Some(CommonUtils.randomString())
+      ),
+      WorkerApi.WORKER_CLUSTER_INFO_FORMAT
+    )
+
+  @Test
+  def testStreamClusterInfo(): Unit =
+    checkRoundTrip(
+      StreamClusterInfo(
+        settings = StreamApi.access.request
+          .jarKey(ObjectKey.of("a", "jar"))
+          .nodeName(nodeName)
+          .fromTopicKey(TopicKey.of("a", "from"))
+          .toTopicKey(TopicKey.of("a", "to"))
+          .brokerClusterKey(ObjectKey.of("a", "b"))
+          .creation
+          .raw,
+        aliveNodes = Set(nodeName),
+        state = Some(ClusterState.RUNNING),
+        error = None,
+        nodeMetrics = metrics,
+        lastModified = CommonUtils.current()
+      ),
+      StreamApi.STREAM_CLUSTER_INFO_FORMAT
+    )
+
+  @Test
+  def testShabondiClusterInfo(): Unit =
+    checkRoundTrip(
+      ShabondiClusterInfo(
+        settings = ShabondiApi.access.request
+          .shabondiClass(ShabondiApi.SHABONDI_SOURCE_CLASS_NAME)
+          .clientPort(CommonUtils.availablePort())
+          .nodeName(nodeName)
+          .brokerClusterKey(ObjectKey.of("a", "b"))
+          .sourceToTopics(Set(TopicKey.of("a", "to")))
+          .creation
+          .raw,
+        aliveNodes = Set.empty,
+        state = None,
+        error = None,
+        nodeMetrics = metrics,
+        lastModified = CommonUtils.current()
+      ),
+      ShabondiApi.SHABONDI_CLUSTER_INFO_FORMAT
+    )
+
+  @Test
+  def testConnectorInfo(): Unit =
+    checkRoundTrip(
+      ConnectorInfo(
+        settings = ConnectorApi.access.request
+          .className(CommonUtils.randomString())
+          .workerClusterKey(ObjectKey.of("a", "b"))
+          .topicKey(TopicKey.of("a", "topic"))
+          .creation
+          .raw,
+        state = Some(ConnectorApi.State.RUNNING),
+        aliveNodes = Set(nodeName),
+        error = None,
+        tasksStatus = Seq(Status(ConnectorApi.State.FAILED, nodeName, Some(CommonUtils.randomString()), false)),
+        nodeMetrics = metrics,
+        lastModified = CommonUtils.current()
+      ),
+      ConnectorApi.CONNECTOR_INFO_FORMAT
+    )
+
+  @Test
+  def testPipeline(): Unit =
+    checkRoundTrip(
+      Pipeline(
+        group = CommonUtils.randomString(),
+        name = CommonUtils.randomString(),
+        endpoints = Set(Endpoint("a", "topic", TopicApi.KIND)),
+        objects = Set(
+          ObjectAbstract(
+            group = "a",
+            name = "topic",
+            kind = TopicApi.KIND,
+            className = None,
+            state = Some(CommonUtils.randomString()),
+            error = None,
+            nodeMetrics = metrics,
+            lastModified = CommonUtils.current(),
+            tags = Map("a" -> JsString("b"))
+          )
+        ),
+        jarKeys = Set(ObjectKey.of("a", "jar")),
+        lastModified = CommonUtils.current(),
+        tags = Map("a" -> JsNumber(1))
+      ),
+      PipelineApi.PIPELINE_FORMAT
+    )
+
+  @Test
+  def testObjectInfo(): Unit =
+    checkRoundTrip(
+      ObjectInfo(
+        Map(
+          GROUP_KEY -> JsString(CommonUtils.randomString()),
+          NAME_KEY  -> JsString(CommonUtils.randomString()),
+          "a"       -> JsArray(JsNull, JsTrue, JsNumber(1.5))
+        ),
+        CommonUtils.current()
+      ),
+      ObjectApi.OBJECT_FORMAT
+    )
+
+  @Test
+  def testVolume(): Unit =
+    checkRoundTrip(
+      Volume(
+        group = CommonUtils.randomString(10),
+        name = CommonUtils.randomString(10),
+        nodeNames = Set(nodeName),
+        path = "/tmp",
+        state = Some(VolumeState.RUNNING),
+        error = None,
+        tags = Map.empty,
+        lastModified = CommonUtils.current()
+      ),
+      VolumeApi.VOLUME_FORMAT
+    )
+
+  @Test
+  def testFileInfoKeepsBytes(): Unit = {
+    val fileInfo = new FileInfo(
+      group = CommonUtils.randomString(),
+      name = CommonUtils.randomString(),
+      lastModified = CommonUtils.current(),
+      bytes = CommonUtils.randomString().getBytes(),
+      url = None,
+      classInfos = Seq.empty,
+      tags = Map("a" -> JsString("b"))
+    )
+    val result = copy(fileInfo)
+    result.key shouldBe fileInfo.key
+    result.bytes shouldBe fileInfo.bytes
+    result.size shouldBe fileInfo.size
+    result.tags shouldBe fileInfo.tags
+  }
+
+  @Test
+  def testUnregisteredType(): Unit = {
+    val data  = SimpleData(CommonUtils.randomString(), CommonUtils.randomString(), CommonUtils.current(), "kind")
+    val bytes = DataSerializer.to(data)
+    DataSerializer.isJavaSerialized(bytes) shouldBe true
+    DataSerializer.from(bytes) shouldBe data
+  }
+
+  @Test
+  def testReadJavaSerializedData(): Unit = {
+    val node = Node(CommonUtils.randomString(10), CommonUtils.randomString(10), CommonUtils.randomString(10))
+    DataSerializer.from(Serializer.OBJECT.to(node)) shouldBe node
+  }
+
+  @Test
+  def testUnsupportedVersion(): Unit = {
+    val bytes = DataSerializer.to(
+      Node(CommonUtils.randomString(10), CommonUtils.randomString(10), CommonUtils.randomString(10))
+    )
+    bytes(1) = (DataSerializer.VERSION + 1).toByte
+    an[IllegalArgumentException] should be thrownBy DataSerializer.from(bytes)
+  }
+}
@@ -33,6 +33,14 @@ class TestDataStoreBuilder extends OharaTest {
   def testEmptyFolder(): Unit =
     an[IllegalArgumentException] should be thrownBy DataStore.builder.persistentFolder("")
 
+  @Test
+  def testNegativeCacheSize(): Unit =
+    an[IllegalArgumentException] should be thrownBy DataStore.builder.cacheSize(-1)
+
+  @Test
+  def testNegativeChangeLogSize(): Unit =
+    an[IllegalArgumentException] should be thrownBy DataStore.builder.changeLogSize(-1)
+
   @Test
   def allDefault(): Unit = DataStore.builder.build().close()
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import java.util.concurrent.atomic.{AtomicInteger, AtomicReference}
+import java.util.concurrent.{CompletableFuture, CompletionStage, TimeUnit}
+import java.{lang, util}
+
+import oharastream.ohara.client.configurator.BrokerApi
+import oharastream.ohara.client.configurator.BrokerApi.BrokerClusterInfo
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.setting.{ObjectKey, TopicKey}
+import oharastream.ohara.common.util.CommonUtils
+import oharastream.ohara.configurator.fake.FakeTopicAdmin
+import oharastream.ohara.configurator.store.LagTracker.{PartitionLag, Target}
+import oharastream.ohara.kafka.connector.TopicPartition
+import oharastream.ohara.shabondi.ShabondiSink
+import org.junit.Test
+import org.scalatest.matchers.should.Matchers._
+
+import scala.concurrent.Future
+import scala.concurrent.duration.Duration
+import scala.jdk.CollectionConverters._
+
+class TestLagTracker extends OharaTest {
+  private[this] val brokerClusterInfo = BrokerClusterInfo(
+    settings = BrokerApi.access.request
+      .name(CommonUtils.randomString(10))
+      .zookeeperClusterKey(ObjectKey.of("g", "n"))
+      .nodeNames(Set(CommonUtils.randomString(10)))
+      .creation
+      .raw,
+    aliveNodes = Set.empty,
+    state = None,
+    error = None,
+    lastModified = 0
+  )
+
+  private[this] val tp0 = new TopicPartition(TopicKey.of("g", CommonUtils.randomString(10)), 0)
+  private[this] val tp1 = new TopicPartition(tp0.topicKey, 1)
+
+  private[this] class OffsetAdmin extends FakeTopicAdmin {
+    @volatile var groups: Map[String, Map[TopicPartition, Long]] = Map.empty
+    @volatile var ends: Map[TopicPartition, Long]                = Map.empty
+    @volatile var inactive: Set[String]                          = Set.empty
+
+    override def consumerGroupIds(): CompletionStage[util.Set[String]] =
+      CompletableFuture.completedFuture(groups.keySet.asJava)
+
+    override def activeConsumerGroupIds(groupIds: util.Set[String]): CompletionStage[util.Set[String]] =
+      CompletableFuture.completedFuture((groupIds.asScala.toSet -- inactive).asJava)
+
+    override def consumerGroupOffsets(groupId: String): CompletionStage[util.Map[TopicPartition, lang.Long]] =
+      CompletableFuture.completedFuture(
+        groups.getOrElse(groupId, Map.empty).map { case (tp, offset) => tp -> lang.Long.valueOf(offset) }.asJava
+      )
+
+    override def endOffsets(
+      partitions: util.Set[TopicPartition]
+    ): CompletionStage[util.Map[TopicPartition, lang.Long]] =
+      CompletableFuture.completedFuture(
+        ends.filter(e => partitions.contains(e._1)).map { case (tp, offset) => tp -> lang.Long.valueOf(offset) }.asJava
+      )
+  }
+
+  private[this] def tracker(admin: OffsetAdmin, targets: () => Seq[Target], count: AtomicInteger): LagTracker =
+    LagTracker.builder
+      .targets(() => Future.successful(targets()))
+      .admin { _ =>
+        count.incrementAndGet()
+        Future.successful(admin)
+      }
+      .frequency(Duration(300, TimeUnit.MILLISECONDS))
+      .build
+
+  @Test
+  def nullTargets(): Unit = an[NullPointerException] should be thrownBy LagTracker.builder.targets(null)
+
+  @Test
+  def nullAdmin(): Unit = an[NullPointerException] should be thrownBy LagTracker.builder.admin(null)
+
+  @Test
+  def testTimeToCatchUp(): Unit = {
+    val first = LagTracker.lag(None, 1000, Seq(PartitionLag(tp0, 0, 100)))
+    first.total shouldBe 100L
+    first.consumeRate shouldBe 0d
+    // the rate is unknown
+    first.timeToCatchUp shouldBe None
+
+    // consume 50 records and produce 10 records in 1 second
+    val second = LagTracker.lag(Some(first), 2000, Seq(PartitionLag(tp0, 50, 110)))
+    second.total shouldBe 60L
+    second.consumeRate shouldBe 25d
+    second.produceRate shouldBe 5d
+    second.timeToCatchUp shouldBe Some(3000L)
+
+    LagTracker.lag(Some(second), 3000, Seq(PartitionLag(tp0, 110, 110))).timeToCatchUp shouldBe Some(0L)
+    // the consumers are slower than producers
+    LagTracker.lag(Some(second), 3000, Seq(PartitionLag(tp0, 50, 210))).timeToCatchUp shouldBe None
+  }
+
+  @Test
+  def testMeters(): Unit = {
+    val meters = LagTracker.lag(None, 1000, Seq(PartitionLag(tp0, 0, 100), PartitionLag(tp1, 10, 20))).meters
+    meters.find(_.name == LagTracker.LAG).get.value shouldBe 110d
+    meters.find(_.name == LagTracker.TIME_TO_CATCH_UP).get.value shouldBe -1d
+    meters.find(_.name == s"${LagTracker.LAG}.${tp1.topicKey.toPlain}.1").get.value shouldBe 10d
+  }
+
+  @Test
+  def testConnector(): Unit = {
+    val key   = ObjectKey.of("g", CommonUtils.randomString(10))
+    val admin = new OffsetAdmin
+    admin.groups = Map(
+      s"connect-${key.toPlain}"    -> Map(tp0 -> 5L, tp1 -> 10L),
+      CommonUtils.randomString(10) -> Map(tp0 -> 0L)
+    )
+    admin.ends = Map(tp0 -> 10L, tp1 -> 10L)
+    val count   = new AtomicInteger(0)
+    val tracker = this.tracker(admin, () => Seq(Target.connector(key, brokerClusterInfo)), count)
+    try {
+      CommonUtils.await(() => tracker.lags.contains(key), java.time.Duration.ofSeconds(10))
+      tracker.lags(key).total shouldBe 5L
+      tracker.lags(key).partitions.size shouldBe 2
+      tracker.meters(key).meters.find(_.name == LagTracker.LAG).get.value shouldBe 5d
+
+      admin.groups = Map(s"connect-${key.toPlain}" -> Map(tp0 -> 10L, tp1 -> 10L))
+      CommonUtils.await(() => tracker.lags(key).total == 0, java.time.Duration.ofSeconds(10))
+      // the admin is reused
+      count.get() shouldBe 1
+    } finally tracker.close()
+    admin.closed() shouldBe true
+  }
+
+  @Test
+  def testShabondi(): Unit = {
+    val key   = ObjectKey.of("g", CommonUtils.randomString(10))
+    val admin = new OffsetAdmin
+    val stale = ShabondiSink.consumerGroupId(key)
+    admin.groups = Map(
+      ShabondiSink.consumerGroupId(key) -> Map(tp0 -> 5L),
+      ShabondiSink.consumerGroupId(key) -> Map(tp0 -> 8L),
+      stale                             -> Map(tp0 -> 1L)
+    )
+    admin.ends = Map(tp0 -> 10L)
+    admin.inactive = Set(stale)
+    val tracker = this.tracker(admin, () => Seq(Target.shabondiSink(key, brokerClusterInfo)), new AtomicInteger(0))
+    try {
+      CommonUtils.await(() => tracker.lags.contains(key), java.time.Duration.ofSeconds(10))
+      // the lag of active data groups. The group left by previous data group is excluded
+      tracker.lags(key).total shouldBe 7L
+    } finally tracker.close()
+  }
+
+  @Test
+  def testRemoveAbsentTarget(): Unit = {
+    val key   = ObjectKey.of("g", CommonUtils.randomString(10))
+    val admin = new OffsetAdmin
+    admin.groups = Map(key.toPlain -> Map(tp0 -> 5L))
+    admin.ends = Map(tp0 -> 10L)
+    val targets = new AtomicReference(Seq(Target.stream(key, brokerClusterInfo)))
+    val tracker = this.tracker(admin, () => targets.get(), new AtomicInteger(0))
+    try {
+      CommonUtils.await(() => tracker.lags.contains(key), java.time.Duration.ofSeconds(10))
+      targets.set(Seq.empty)
+      CommonUtils.await(() => tracker.lags.isEmpty, java.time.Duration.ofSeconds(10))
+      // the admin of absent broker cluster is closed
+      CommonUtils.await(() => admin.closed(), java.time.Duration.ofSeconds(10))
+    } finally tracker.close()
+  }
+}
@@ -17,8 +17,10 @@
 package oharastream.ohara.configurator.store
 
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 import oharastream.ohara.client.configurator.MetricsApi.{Meter, Metrics}
+import oharastream.ohara.client.configurator.PrivateApi.{MetricsSnapshot, PushedCounter}
 import oharastream.ohara.common.rule.OharaTest
 import oharastream.ohara.common.setting.ObjectKey
 import oharastream.ohara.common.util.CommonUtils
@@ -27,8 +29,16 @@ import org.junit.Test
 import org.scalatest.matchers.should.Matchers._
 
 import scala.concurrent.duration.Duration
+import scala.concurrent.{Future, Promise}
 
 class TestMetricsCache extends OharaTest {
+  private[this] def emptyCache(): MetricsCache =
+    MetricsCache.builder
+      .clusters(() => Future.successful(Seq.empty))
+      .fetcher(_ => Future.successful(Map.empty))
+      .frequency(Duration(2, TimeUnit.SECONDS))
+      .build
+
   @Test
   def testRequestKey(): Unit = {
     val key = RequestKey(
@@ -42,8 +52,12 @@ class TestMetricsCache extends OharaTest {
   }
 
   @Test
-  def nullRefresher(): Unit =
-    an[NullPointerException] should be thrownBy MetricsCache.builder.refresher(null)
+  def nullClusters(): Unit =
+    an[NullPointerException] should be thrownBy MetricsCache.builder.clusters(null)
+
+  @Test
+  def nullFetcher(): Unit =
+    an[NullPointerException] should be thrownBy MetricsCache.builder.fetcher(null)
 
   @Test
   def nullFrequency(): Unit =
@@ -69,7 +83,8 @@ class TestMetricsCache extends OharaTest {
     )
     val clusterInfo = FakeClusterInfo(CommonUtils.randomString())
     val cache = MetricsCache.builder
-      .refresher(() => Map(clusterInfo -> Map(CommonUtils.hostname() -> data)))
+      .clusters(() => Future.successful(Seq(clusterInfo)))
+      .fetcher(_ => Future.successful(Map(CommonUtils.hostname() -> data)))
       .frequency(Duration(2, TimeUnit.SECONDS))
       .build
     try {
@@ -81,9 +96,165 @@ class TestMetricsCache extends OharaTest {
 
   @Test
   def failToOperateAfterClose(): Unit = {
-    val cache = MetricsCache.builder.refresher(() => Map.empty).frequency(Duration(2, TimeUnit.SECONDS)).build
+    val cache = emptyCache()
     cache.close()
 
     an[IllegalStateException] should be thrownBy cache.meters(FakeClusterInfo(CommonUtils.randomString()))
   }
+
+  @Test
+  def testPush(): Unit = {
+    val hostname = CommonUtils.hostname()
+    val port     = CommonUtils.availablePort()
+    val key      = ObjectKey.of("a", "b")
+    val clusterInfo = new FakeClusterInfo(CommonUtils.randomString()) {
+      override def nodeNames: Set[String] = Set(hostname)
+      override def jmxPort: Int           = port
+    }
+    val counter = PushedCounter(
+      id = CommonUtils.randomString(),
+      key = key.toPlain,
+      item = "item",
+      value = 10,
+      startTime = CommonUtils.current(),
+      lastModified = CommonUtils.current(),
+      unit = Some("unit"),
+      document = Some("document")
+    )
+    val snapshot = MetricsSnapshot(
+      hostname = hostname,
+      jmxPort = port,
+      full = false,
+      queryTime = CommonUtils.current(),
+      counters = Seq(counter),
+      removed = Set.empty
+    )
+    val cache = emptyCache()
+    try {
+      // the delta is rejected since there is no previous state
+      cache.push(snapshot) shouldBe false
+      cache.meters(clusterInfo) shouldBe Map.empty
+
+      cache.push(snapshot.copy(full = true)) shouldBe true
+      cache.meters(clusterInfo, key)(hostname).meters.head.value shouldBe 10.0
+
+      // the unit and document are kept
+      cache.push(snapshot.copy(counters = Seq(counter.copy(value = 20, unit = None, document = None)))) shouldBe true
+      val meter = cache.meters(clusterInfo, key)(hostname).meters.head
+      meter.value shouldBe 20.0
+      meter.unit shouldBe "unit"
+      meter.document shouldBe "document"
+
+      cache.push(snapshot.copy(counters = Seq.empty, removed = Set(counter.id))) shouldBe true
+      cache.meters(clusterInfo, key)(hostname).meters shouldBe Seq.empty
+    } finally cache.close()
+  }
+
+  @Test
+  def testLag(): Unit = {
+    val key         = ObjectKey.of("a", "b")
+    val clusterInfo = FakeClusterInfo(CommonUtils.randomString())
+    val tracker = new LagTracker {
+      override val lags: Map[ObjectKey, LagTracker.Lag] = Map(
+        key                    -> LagTracker.lag(None, CommonUtils.current(), Seq.empty),
+        ObjectKey.of("c", "d") -> LagTracker.lag(None, CommonUtils.current(), Seq.empty)
+      )
+      override val hostname: String = "configurator"
+      override def close(): Unit    = {}
+    }
+    val cache = MetricsCache.builder
+      .clusters(() => Future.successful(Seq(clusterInfo)))
+      .fetcher(_ => Future.successful(Map(CommonUtils.hostname() -> Map(key -> Metrics(Seq.empty)))))
+      .frequency(Duration(300, TimeUnit.MILLISECONDS))
+      .lagTracker(tracker)
+      .build
+    try {
+      cache.meters(clusterInfo)
+      CommonUtils.await(() => cache.lastUpdated(clusterInfo).nonEmpty, java.time.Duration.ofSeconds(5))
+      // the lag of objects which are not hosted by this cluster is excluded
+      cache.meters(clusterInfo)(tracker.hostname).keySet shouldBe Set(key)
+      cache.meters(clusterInfo, key)(tracker.hostname).meters.map(_.name) should contain(LagTracker.LAG)
+    } finally cache.close()
+  }
+
+  @Test
+  def testIdleCluster(): Unit = {
+    val count       = new AtomicInteger(0)
+    val clusterInfo = FakeClusterInfo(CommonUtils.randomString())
+    val cache = MetricsCache.builder
+      .clusters(() => Future.successful(Seq(clusterInfo)))
+      .fetcher { _ =>
+        count.incrementAndGet()
+        Future.successful(Map.empty)
+      }
+      .frequency(Duration(300, TimeUnit.MILLISECONDS))
+      .build
+    try {
+      // nobody queries the cluster
+      TimeUnit.SECONDS.sleep(2)
+      count.get() shouldBe 0
+      cache.lastUpdated(clusterInfo) shouldBe None
+
+      cache.meters(clusterInfo)
+      CommonUtils.await(() => count.get() > 0, java.time.Duration.ofSeconds(5))
+      CommonUtils.await(() => cache.lastUpdated(clusterInfo).nonEmpty, java.time.Duration.ofSeconds(5))
+    } finally cache.close()
+  }
+
+  @Test
+  def testSlowCluster(): Unit = {
+    val slow  = FakeClusterInfo(CommonUtils.randomString())
+    val fast  = FakeClusterInfo(CommonUtils.randomString())
+    val count   = new AtomicInteger(0)
+    val data    = Map(CommonUtils.hostname() -> Map(ObjectKey.of("a", "b") -> Metrics.EMPTY))
+    val promise = Promise[Map[String, Map[ObjectKey, Metrics]]]()
+    val cache = MetricsCache.builder
+      .clusters(() => Future.successful(Seq(slow, fast)))
+      .fetcher { clusterInfo =>
+        if (clusterInfo == slow) {
+          count.incrementAndGet()
+          // completed manually
+          promise.future
+        } else Future.successful(data)
+      }
+      .frequency(Duration(300, TimeUnit.MILLISECONDS))
+      .timeout(Duration(500, TimeUnit.MILLISECONDS))
+      .maxBackoff(Duration(1, TimeUnit.SECONDS))
+      .build
+    try {
+      cache.meters(slow)
+      cache.meters(fast)
+      // the slow cluster does not block the fast cluster
+      CommonUtils.await(() => cache.meters(fast) == data, java.time.Duration.ofSeconds(5))
+      cache.meters(slow) shouldBe Map.empty
+      cache.lastUpdated(slow) shouldBe None
+      // the slow cluster is not retried until the running fetch is done, even if the fetch is timeout
+      TimeUnit.SECONDS.sleep(3)
+      count.get() shouldBe 1
+      promise.failure(new IllegalArgumentException("this is a test"))
+      CommonUtils.await(() => count.get() > 1, java.time.Duration.ofSeconds(10))
+    } finally cache.close()
+  }
+
+  @Test
+  def testBackoff(): Unit = {
+    val count       = new AtomicInteger(0)
+    val clusterInfo = FakeClusterInfo(CommonUtils.randomString())
+    val cache = MetricsCache.builder
+      .clusters(() => Future.successful(Seq(clusterInfo)))
+      .fetcher { _ =>
+        count.incrementAndGet()
+        Future.failed(new IllegalArgumentException("this is a test"))
+      }
+      .frequency(Duration(100, TimeUnit.MILLISECONDS))
+      .maxBackoff(Duration(10, TimeUnit.SECONDS))
+      .build
+    try {
+      cache.meters(clusterInfo)
+      TimeUnit.SECONDS.sleep(3)
+      // the retries are delayed by 200, 400, 800 and 1600 ms
+      count.get() should be <= 6
+      cache.meters(clusterInfo) shouldBe Map.empty
+    } finally cache.close()
+  }
 }
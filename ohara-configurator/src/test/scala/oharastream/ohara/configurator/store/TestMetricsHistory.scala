@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.configurator.store
+
+import oharastream.ohara.client.configurator.MetricsApi._
+import oharastream.ohara.common.rule.OharaTest
+import oharastream.ohara.common.setting.ObjectKey
+import oharastream.ohara.common.util.CommonUtils
+import oharastream.ohara.configurator.store.MetricsHistory.{Ring, TimeSeries}
+import org.junit.Test
+import org.scalatest.matchers.should.Matchers._
+
+class TestMetricsHistory extends OharaTest {
+  // aligned to hour
+  private[this] val base = MetricsHistory.floor(CommonUtils.current(), Resolution.HOUR)
+
+  private[this] def meters(key: ObjectKey, time: Long, value: Double): Map[String, Map[ObjectKey, Metrics]] =
+    Map(
+      "node" -> Map(
+        key -> Metrics(
+          Seq(
+            Meter(
+              name = "meter",
+              value = value,
+              valueInPerSec = None,
+              unit = "unit",
+              document = "document",
+              queryTime = time,
+              startTime = None,
+              lastModified = None
+            )
+          )
+        )
+      )
+    )
+
+  @Test
+  def testRing(): Unit = {
+    val ring = new Ring(3, raw = true)
+    (1 to 5).map(_.toLong).foreach(i => ring.add(Sample(i, 1, i.toDouble, i.toDouble, i.toDouble, i.toDouble)))
+    ring.size shouldBe 3
+    ring.samples(_ => true).map(_.time) shouldBe Seq(3L, 4L, 5L)
+    ring.samples(_ > 3).map(_.last) shouldBe Seq(4.0, 5.0)
+  }
+
+  @Test
+  def testDownsampling(): Unit = {
+    val series = new TimeSeries(10, 10, 10)
+    // 3 samples per minute and 3 minutes
+    (0 until 9).map(i => series.add(base + i * 20 * 1000, i.toDouble)).count(identity) shouldBe 2
+
+    val raws = series.samples(Resolution.RAW, base, base + Resolution.HOUR.millis)
+    raws.size shouldBe 9
+    raws.head.time shouldBe base
+
+    val minutes = series.samples(Resolution.MINUTE, base, base + Resolution.HOUR.millis)
+    minutes.map(_.time) shouldBe Seq(base, base + 60 * 1000, base + 120 * 1000)
+    minutes.map(_.count) shouldBe Seq(3L, 3L, 3L)
+    minutes.map(_.min) shouldBe Seq(0.0, 3.0, 6.0)
+    minutes.map(_.max) shouldBe Seq(2.0, 5.0, 8.0)
+    minutes.map(_.last) shouldBe Seq(2.0, 5.0, 8.0)
+    minutes.map(_.avg) shouldBe Seq(1.0, 4.0, 7.0)
+
+    val hours = series.samples(Resolution.HOUR, base, base + Resolution.HOUR.millis)
+    hours.size shouldBe 1
+    hours.head shouldBe Sample(base, 9, 0, 8, 36, 8)
+
+    // the older sample is ignored
+    series.add(base, 100) shouldBe false
+    series.samples(Resolution.RAW, base, base + Resolution.HOUR.millis).size shouldBe 9
+  }
+
+  @Test
+  def testHourRollover(): Unit = {
+    val series = new TimeSeries(10, 10, 10)
+    series.add(base, 1)
+    series.add(base + Resolution.HOUR.millis, 2)
+    series.add(base + Resolution.HOUR.millis + Resolution.MINUTE.millis, 3)
+    series.samples(Resolution.HOUR, base, base + 2 * Resolution.HOUR.millis) shouldBe Seq(
+      Sample(base, 1, 1, 1, 1, 1),
+      Sample(base + Resolution.HOUR.millis, 2, 2, 3, 5, 3)
+    )
+    // the range overlaps the first bucket
+    series.samples(Resolution.HOUR, base + 1, base + 1).size shouldBe 1
+  }
+
+  @Test
+  def testQuery(): Unit = {
+    val key     = ObjectKey.of(CommonUtils.randomString(), CommonUtils.randomString())
+    val history = MetricsHistory.builder.build
+    try {
+      (0 until 5).foreach(i => history.record(meters(key, base + i * 1000, i.toDouble)))
+      history.size shouldBe 1
+      val series = history.query(key, Resolution.RAW, base + 1000, base + 3000)
+      series.size shouldBe 1
+      series.head.hostname shouldBe "node"
+      series.head.name shouldBe "meter"
+      series.head.samples.map(_.last) shouldBe Seq(1.0, 2.0, 3.0)
+      series.head.aggregate shouldBe Some(Sample(base + 1000, 3, 1, 3, 6, 3))
+
+      history.query(key, Resolution.RAW, base + 10000, base + 20000) shouldBe Seq.empty
+      history.query(ObjectKey.of("a", "b"), Resolution.RAW, base, base + 20000) shouldBe Seq.empty
+    } finally history.close()
+  }
+
+  @Test
+  def testPerSec(): Unit = {
+    val key     = ObjectKey.of(CommonUtils.randomString(), CommonUtils.randomString())
+    val history = MetricsHistory.builder.build
+    try {
+      history.record(meters(key, base, 10).map {
+        case (hostname, keyAndMetrics) =>
+          hostname -> keyAndMetrics.map {
+            case (k, metrics) => k -> Metrics(metrics.meters.map(_.copy(valueInPerSec = Some(2))))
+          }
+      })
+      history.query(key, Resolution.RAW, base, base).map(s => (s.name, s.field)) shouldBe
+        Seq(("meter", VALUE_FIELD), ("meter", VALUE_IN_PER_SEC_FIELD))
+    } finally history.close()
+  }
+
+  @Test
+  def testMeterNameEndingWithPerSec(): Unit = {
+    val key     = ObjectKey.of(CommonUtils.randomString(), CommonUtils.randomString())
+    val history = MetricsHistory.builder.build
+    try {
+      history.record(meters(key, base, 10).map {
+        case (hostname, keyAndMetrics) =>
+          hostname -> keyAndMetrics.map {
+            case (k, metrics) =>
+              k -> Metrics(
+                metrics.meters.map(_.copy(valueInPerSec = Some(2))) ++
+                  metrics.meters.map(_.copy(name = "meterPerSec", value = 20))
+              )
+          }
+      })
+      history
+        .query(key, Resolution.RAW, base, base)
+        .map(s => (s.name, s.field, s.samples.map(_.last))) shouldBe Seq(
+        ("meter", VALUE_FIELD, Seq(10.0)),
+        ("meter", VALUE_IN_PER_SEC_FIELD, Seq(2.0)),
+        ("meterPerSec", VALUE_FIELD, Seq(20.0))
+      )
+    } finally history.close()
+  }
+
+  @Test
+  def testMaxSeries(): Unit = {
+    val history = MetricsHistory.builder.maxSeries(2).build
+    try {
+      (0 until 5).foreach(
+        _ => history.record(meters(ObjectKey.of(CommonUtils.randomString(), CommonUtils.randomString()), base, 1))
+      )
+      history.size shouldBe 2
+    } finally history.close()
+  }
+
+  @Test
+  def testPersistence(): Unit = {
+    val key    = ObjectKey.of(CommonUtils.randomString(), CommonUtils.randomString())
+    val folder = CommonUtils.createTempFolder(CommonUtils.randomString(5))
+    try {
+      val history = MetricsHistory.builder.persistentFolder(folder.getCanonicalPath).build
+      val expected =
+        try {
+          (0 until 5).foreach(i => history.record(meters(key, base + i * 30 * 1000, i.toDouble)))
+          Resolution.all.map(r => history.query(key, r, base, base + Resolution.HOUR.millis))
+        } finally history.close()
+      expected.foreach(_.size shouldBe 1)
+
+      val history2 = MetricsHistory.builder.persistentFolder(folder.getCanonicalPath).build
+      try {
+        history2.size shouldBe 1
+        Resolution.all.map(r => history2.query(key, r, base, base + Resolution.HOUR.millis)) shouldBe expected
+      } finally history2.close()
+
+      // smaller capacity drops the oldest samples
+      val history3 = MetricsHistory.builder.rawCapacity(2).persistentFolder(folder.getCanonicalPath).build
+      try history3.query(key, Resolution.RAW, base, base + Resolution.HOUR.millis).head.samples.map(_.last) shouldBe
+        Seq(3.0, 4.0)
+      finally history3.close()
+    } finally CommonUtils.deleteFiles(folder)
+  }
+
+  @Test
+  def negativeCapacity(): Unit = {
+    an[IllegalArgumentException] should be thrownBy MetricsHistory.builder.rawCapacity(-1)
+    an[IllegalArgumentException] should be thrownBy MetricsHistory.builder.minuteCapacity(-1)
+    an[IllegalArgumentException] should be thrownBy MetricsHistory.builder.hourCapacity(-1)
+    an[IllegalArgumentException] should be thrownBy MetricsHistory.builder.maxSeries(-1)
+  }
+
+  @Test
+  def nullFolder(): Unit = an[NullPointerException] should be thrownBy MetricsHistory.builder.persistentFolder(null)
+}
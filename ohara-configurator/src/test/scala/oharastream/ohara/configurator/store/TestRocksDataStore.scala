@@ -19,15 +19,23 @@ package oharastream.ohara.configurator.store
 import java.util.concurrent.TimeUnit
 
 import oharastream.ohara.client.configurator.ConnectorApi.ConnectorInfo
+import oharastream.ohara.client.configurator.NodeApi.Node
+import oharastream.ohara.client.configurator.TopicApi.TopicInfo
+import oharastream.ohara.client.configurator.{Data, QueryRequest, TopicApi}
+import oharastream.ohara.common.data.Serializer
 import oharastream.ohara.common.rule.OharaTest
 import oharastream.ohara.common.setting.ObjectKey
 import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.metrics.BeanChannel
 import org.junit.{After, Test}
+import org.rocksdb.{ColumnFamilyDescriptor, ColumnFamilyHandle, DBOptions, Options, RocksDB}
 import org.scalatest.matchers.should.Matchers._
+import spray.json.{JsNumber, JsObject, JsString, JsValue}
 
 import scala.concurrent.ExecutionContext.Implicits.global
 import scala.concurrent.duration.Duration
 import scala.concurrent.{Await, Future}
+import scala.jdk.CollectionConverters._
 
 class TestRocksDataStore extends OharaTest {
   private[this] val store: DataStore = DataStore()
@@ -68,6 +76,67 @@ class TestRocksDataStore extends OharaTest {
     } finally s1.close()
   }
 
+  /**
+    * write the node to a legacy store which is serialized by java serialization.
+    * @return the folder of store
+    */
+  private[this] def legacyStore(node: Node): String = {
+    val folder = CommonUtils.createTempFolder(CommonUtils.randomString(10)).getCanonicalPath
+    val s0 = DataStore.builder
+      .persistentFolder(folder)
+      .dataSerializer(new Serializer[Data] {
+        override def to(obj: Data): Array[Byte]     = Serializer.OBJECT.to(obj)
+        override def from(bytes: Array[Byte]): Data = Serializer.OBJECT.from(bytes).asInstanceOf[Data]
+      })
+      .build()
+    try result(s0.add(node))
+    finally s0.close()
+    folder
+  }
+
+  /**
+    * check the java-serialized data is gone.
+    */
+  private[this] def checkMigrated(folder: String, node: Node): Unit = {
+    val s = DataStore.builder
+      .persistentFolder(folder)
+      .dataSerializer(new Serializer[Data] {
+        override def to(obj: Data): Array[Byte] = DataSerializer.to(obj)
+        override def from(bytes: Array[Byte]): Data =
+          if (DataSerializer.isJavaSerialized(bytes)) throw new AssertionError("the data is not migrated")
+          else DataSerializer.from(bytes)
+      })
+      .build()
+    try result(s.value[Node](node.key)) shouldBe node
+    finally s.close()
+  }
+
+  @Test
+  def testMigrateJavaSerializedData(): Unit = {
+    val node   = Node(CommonUtils.randomString(10), CommonUtils.randomString(10), CommonUtils.randomString(10))
+    val folder = legacyStore(node)
+
+    // the legacy data is readable and it is rewritten by reading
+    val s1 = DataStore.builder.persistentFolder(folder).build()
+    try result(s1.values[Node]()) shouldBe Seq(node)
+    finally s1.close()
+
+    checkMigrated(folder, node)
+  }
+
+  @Test
+  def testMigrateJavaSerializedDataByGet(): Unit = {
+    val node   = Node(CommonUtils.randomString(10), CommonUtils.randomString(10), CommonUtils.randomString(10))
+    val folder = legacyStore(node)
+
+    // the first read of single object rewrites the legacy data
+    val s1 = DataStore.builder.persistentFolder(folder).build()
+    try result(s1.get[Node](node.key)) shouldBe Some(node)
+    finally s1.close()
+
+    checkMigrated(folder, node)
+  }
+
   @Test
   def testGetter(): Unit = {
     val value = createData()
@@ -109,7 +178,7 @@ class TestRocksDataStore extends OharaTest {
     val value1 = createData(value0.name)
     result(store.addIfAbsent(value0)) shouldBe value0
     store.size() shouldBe 1
-    an[IllegalStateException] should be thrownBy result(store.addIfAbsent(value1))
+    an[DataStore.ConflictException] should be thrownBy result(store.addIfAbsent(value1))
     store.size() shouldBe 1
     result(store.addIfAbsent(createData()))
     store.size() shouldBe 2
@@ -247,6 +316,381 @@ class TestRocksDataStore extends OharaTest {
     )
   }
 
+  @Test
+  def testCache(): Unit = {
+    val value = createData()
+    result(store.add(value))
+    val hits = store.cacheHits
+    // the write fills the cache
+    result(store.value[SimpleData](value.key)) shouldBe value
+    result(store.value[SimpleData](value.key)) shouldBe value
+    store.cacheHits shouldBe hits + 2
+
+    // the cache is updated by write
+    val newValue = value.copy(lastModified = value.lastModified + 1)
+    result(store.addIfPresent[SimpleData](newValue)) shouldBe newValue
+    result(store.value[SimpleData](value.key)) shouldBe newValue
+    result(store.values[SimpleData]()) shouldBe Seq(newValue)
+
+    result(store.remove[SimpleData](value.key)) shouldBe true
+    result(store.get[SimpleData](value.key)) shouldBe None
+    result(store.exist[SimpleData](value.key)) shouldBe false
+  }
+
+  @Test
+  def testLoadToCache(): Unit = {
+    val folder = CommonUtils.createTempFolder(CommonUtils.randomString(10))
+    val value  = createData()
+    val s0     = DataStore.builder.persistentFolder(folder.getCanonicalPath).build()
+    try result(s0.add(value))
+    finally s0.close()
+
+    val s1 = DataStore.builder.persistentFolder(folder.getCanonicalPath).build()
+    try {
+      result(s1.get[SimpleData](value.key)) shouldBe Some(value)
+      s1.cacheMisses shouldBe 1
+      s1.cacheHits shouldBe 0
+      result(s1.get[SimpleData](value.key)) shouldBe Some(value)
+      result(s1.values[SimpleData]()) shouldBe Seq(value)
+      s1.cacheMisses shouldBe 1
+      s1.cacheHits shouldBe 2
+    } finally s1.close()
+  }
+
+  @Test
+  def testDisableCache(): Unit = {
+    val s = DataStore.builder.cacheSize(0).build()
+    try {
+      val value = createData()
+      result(s.add(value))
+      result(s.value[SimpleData](value.key)) shouldBe value
+      result(s.remove[SimpleData](value.key)) shouldBe true
+      result(s.get[SimpleData](value.key)) shouldBe None
+      s.cacheHits shouldBe 0
+    } finally s.close()
+  }
+
+  private[this] def topicInfo(group: String, tags: Map[String, JsValue], brokerClusterKey: ObjectKey): TopicInfo =
+    TopicInfo(
+      settings = TopicApi.access.request
+        .group(group)
+        .name(random())
+        .tags(tags)
+        .brokerClusterKey(brokerClusterKey)
+        .creation
+        .raw,
+      partitionInfos = Seq.empty,
+      nodeMetrics = Map.empty,
+      state = None,
+      lastModified = CommonUtils.current()
+    )
+
+  private[this] def query(raw: (String, String)*): Seq[TopicInfo] =
+    result(store.values[TopicInfo](QueryRequest(raw.toMap)))
+
+  @Test
+  def testQueryByIndex(): Unit = {
+    val bk0    = ObjectKey.of(random(), random())
+    val bk1    = ObjectKey.of(random(), random())
+    val group  = random()
+    val topic0 = result(store.add(topicInfo(group, Map("a" -> JsString("b"), "c" -> JsNumber(1)), bk0)))
+    val topic1 = result(store.add(topicInfo(group, Map("a" -> JsString("c")), bk1)))
+    val topic2 = result(store.add(topicInfo(random(), Map.empty, bk1)))
+
+    query("group" -> group).map(_.key).toSet shouldBe Set(topic0.key, topic1.key)
+    query("name" -> topic2.name).map(_.key) shouldBe Seq(topic2.key)
+    query("lastModified" -> topic2.lastModified.toString).map(_.key) should contain(topic2.key)
+    query("brokerClusterKey" -> ObjectKey.toJsonString(bk1)).map(_.key).toSet shouldBe Set(topic1.key, topic2.key)
+    query("tags" -> JsObject("a" -> JsString("b")).toString).map(_.key) shouldBe Seq(topic0.key)
+    query("tags" -> JsObject("c" -> JsString("1.0")).toString).map(_.key) shouldBe Seq(topic0.key)
+    query("group" -> group, "tags" -> JsObject("a" -> JsString("c")).toString).map(_.key) shouldBe Seq(topic1.key)
+    query("group" -> random()) shouldBe Seq.empty
+    // the unindexed fields are not matched
+    query("state" -> "RUNNING").size shouldBe 3
+  }
+
+  @Test
+  def testIndexIsUpdatedByWrites(): Unit = {
+    val bk    = ObjectKey.of(random(), random())
+    val topic = result(store.add(topicInfo(random(), Map("a" -> JsString("b")), bk)))
+    query("tags" -> JsObject("a" -> JsString("b")).toString).map(_.key) shouldBe Seq(topic.key)
+
+    result(store.add(topic.copy(settings = topic.settings + ("tags" -> JsObject("a" -> JsString("c"))))))
+    query("tags" -> JsObject("a" -> JsString("b")).toString) shouldBe Seq.empty
+    query("tags" -> JsObject("a" -> JsString("c")).toString).map(_.key) shouldBe Seq(topic.key)
+
+    result(store.remove[TopicInfo](topic.key)) shouldBe true
+    query("tags" -> JsObject("a" -> JsString("c")).toString) shouldBe Seq.empty
+    query("group" -> topic.group) shouldBe Seq.empty
+  }
+
+  @Test
+  def testIndexIsPersistent(): Unit = {
+    val folder = CommonUtils.createTempFolder(CommonUtils.randomString(10))
+    val topic  = topicInfo(random(), Map.empty, ObjectKey.of(random(), random()))
+    val s0     = DataStore.builder.persistentFolder(folder.getCanonicalPath).build()
+    try {
+      result(s0.add(topic))
+      s0.numberOfTypes() shouldBe 1
+    } finally s0.close()
+
+    val s1 = DataStore.builder.persistentFolder(folder.getCanonicalPath).build()
+    try {
+      s1.numberOfTypes() shouldBe 1
+      result(s1.values[TopicInfo](QueryRequest(Map("group" -> topic.group)))) shouldBe Seq(topic)
+    } finally s1.close()
+  }
+
+  @Test
+  def testCounts(): Unit = {
+    val node  = Node(random(), random(), random())
+    val data0 = createData()
+    val data1 = createData()
+    store.counts() shouldBe Map.empty
+    result(store.add(node))
+    result(store.add(data0))
+    result(store.add(data1))
+    store.counts() shouldBe Map(classOf[Node].getName -> 1, classOf[SimpleData].getName -> 2)
+    store.size() shouldBe 3
+
+    // update does not change the count
+    result(store.add(data0.copy(kind = random())))
+    store.counts() shouldBe Map(classOf[Node].getName -> 1, classOf[SimpleData].getName -> 2)
+
+    // remove the nonexistent data does not change the count
+    result(store.remove[SimpleData](ObjectKey.of(random(), random()))) shouldBe false
+    store.size() shouldBe 3
+
+    result(store.remove(node)) shouldBe true
+    result(store.remove[SimpleData](data0.key)) shouldBe true
+    store.counts() shouldBe Map(classOf[SimpleData].getName -> 1)
+    store.size() shouldBe 1
+  }
+
+  @Test
+  def testCountLegacyStore(): Unit = {
+    val folder = CommonUtils.createTempFolder(CommonUtils.randomString(10))
+    val s0     = DataStore.builder.persistentFolder(folder.getCanonicalPath).build()
+    try {
+      result(s0.add(createData()))
+      result(s0.add(createData()))
+    } finally s0.close()
+
+    // the store created by the older version has no counters
+    RocksDB.loadLibrary()
+    val names = {
+      val options = new Options()
+      try RocksDB.listColumnFamilies(options, folder.getCanonicalPath).asScala
+      finally options.close()
+    }
+    val handlers = new java.util.ArrayList[ColumnFamilyHandle]()
+    val options  = new DBOptions()
+    val db =
+      RocksDB.open(options, folder.getCanonicalPath, names.map(new ColumnFamilyDescriptor(_)).asJava, handlers)
+    try handlers.asScala
+      .filter(handler => new String(handler.getName) == RocksDataStore.COUNTER_FAMILY)
+      .foreach(db.dropColumnFamily)
+    finally {
+      handlers.asScala.foreach(Releasable.close)
+      Releasable.close(db)
+      Releasable.close(options)
+    }
+
+    val s1 = DataStore.builder.persistentFolder(folder.getCanonicalPath).build()
+    try {
+      s1.size() shouldBe 2
+      s1.counts() shouldBe Map(classOf[SimpleData].getName -> 2)
+      result(s1.add(createData()))
+      s1.size() shouldBe 3
+    } finally s1.close()
+  }
+
+  @Test
+  def testTransaction(): Unit = {
+    val node  = Node(random(), random(), random())
+    val data0 = createData()
+    val data1 = createData()
+    result(store.add(data1))
+    result(store.transaction().add(node).add(data0).remove(data1).commit())
+    result(store.values[Node]()) shouldBe Seq(node)
+    result(store.values[SimpleData]()) shouldBe Seq(data0)
+    store.counts() shouldBe Map(classOf[Node].getName -> 1, classOf[SimpleData].getName -> 1)
+
+    // the later write sees the earlier writes
+    val data2 = createData()
+    result(store.transaction().addIfAbsent(data2).remove(data2).addIfAbsent(data2).commit())
+    result(store.value[SimpleData](data2.key)) shouldBe data2
+    store.size() shouldBe 3
+  }
+
+  @Test
+  def testFailedTransactionWritesNothing(): Unit = {
+    val data0 = createData()
+    val data1 = createData()
+    result(store.add(data0))
+    an[DataStore.ConflictException] should be thrownBy result(
+      store.transaction().add(data1).addIfAbsent(data0.copy(kind = random())).commit()
+    )
+    result(store.values[SimpleData]()) shouldBe Seq(data0)
+    store.size() shouldBe 1
+  }
+
+  @Test
+  def testCompareAndSet(): Unit = {
+    val data = createData()
+    // the lastModified is not changed so the writes can't be distinguished by lastModified
+    val newData0 = data.copy(kind = random())
+    val newData1 = data.copy(kind = random())
+    // there is no existent data
+    an[DataStore.ConflictException] should be thrownBy result(store.transaction().compareAndSet(0, data).commit())
+    result(store.getWithRevision[SimpleData](data.key)) shouldBe None
+    result(store.add(data))
+    val (_, revision) = result(store.getWithRevision[SimpleData](data.key)).get
+    result(store.transaction().compareAndSet(revision, newData0).commit())
+    val (current, newRevision) = result(store.getWithRevision[SimpleData](data.key)).get
+    current shouldBe newData0
+    newRevision should be > revision
+
+    // the data is modified already
+    an[DataStore.ConflictException] should be thrownBy result(
+      store.transaction().compareAndSet(revision, newData1).commit()
+    )
+    result(store.value[SimpleData](data.key)) shouldBe newData0
+  }
+
+  @Test
+  def testRevisionIsIncreasedAfterReopen(): Unit = {
+    val folder = CommonUtils.createTempFolder(random()).getCanonicalPath
+    val data   = createData()
+    val s0     = DataStore.builder.persistentFolder(folder).build()
+    val revision =
+      try {
+        result(s0.add(data))
+        result(s0.getWithRevision[SimpleData](data.key)).get._2
+      } finally s0.close()
+    val s1 = DataStore.builder.persistentFolder(folder).build()
+    try {
+      // the object is not written since the store is opened
+      result(s1.getWithRevision[SimpleData](data.key)) shouldBe Some(data -> 0)
+      an[DataStore.ConflictException] should be thrownBy result(
+        s1.transaction().compareAndSet(revision, data).commit()
+      )
+      result(s1.transaction().compareAndSet(0, data).commit())
+      result(s1.getWithRevision[SimpleData](data.key)).get._2 should be > revision
+    } finally s1.close()
+  }
+
+  @Test
+  def testConcurrentAddIfAbsent(): Unit = {
+    val data = createData()
+    val futures = (0 until 10).map(
+      _ =>
+        Future(result(store.addIfAbsent(data.copy(kind = random())))).map(_ => true).recover {
+          case _: DataStore.ConflictException => false
+        }
+    )
+    futures.map(f => result(f)).count(b => b) shouldBe 1
+    store.size() shouldBe 1
+  }
+
+  @Test
+  def testChanges(): Unit = {
+    val data    = createData()
+    val newData = data.copy(kind = random())
+    store.sequence shouldBe 0
+    store.changes(0) shouldBe Some(Seq.empty)
+    result(store.add(data))
+    result(store.add(newData))
+    result(store.remove(newData)) shouldBe true
+    // removing nonexistent data is not a change
+    result(store.remove(newData)) shouldBe false
+    store.sequence shouldBe 3
+    store.changes(0) shouldBe Some(
+      Seq(
+        DataStore.Change(1, None, Some(data)),
+        DataStore.Change(2, Some(data), Some(newData)),
+        DataStore.Change(3, Some(newData), None)
+      )
+    )
+    store.changes(2).get.map(_.sequence) shouldBe Seq(3)
+    store.changes(3) shouldBe Some(Seq.empty)
+    // the sequence is not generated yet
+    store.changes(4) shouldBe None
+
+    // the changes in a transaction have continuous sequences
+    result(store.transaction().add(createData()).add(createData()).commit())
+    store.changes(3).get.map(_.sequence) shouldBe Seq(4, 5)
+  }
+
+  @Test
+  def testChangeLogIsBounded(): Unit = {
+    val folder = CommonUtils.createTempFolder(CommonUtils.randomString(10))
+    val s0     = DataStore.builder.persistentFolder(folder.getCanonicalPath).changeLogSize(2).build()
+    try {
+      (0 until 5).foreach(_ => result(s0.add(createData())))
+      s0.sequence shouldBe 5
+      s0.changes(2) shouldBe None
+      s0.changes(3).get.map(_.sequence) shouldBe Seq(4, 5)
+    } finally s0.close()
+
+    // the sequence is persistent but the log is not
+    val s1 = DataStore.builder.persistentFolder(folder.getCanonicalPath).build()
+    try {
+      s1.sequence shouldBe 5
+      s1.changes(4) shouldBe None
+      s1.changes(5) shouldBe Some(Seq.empty)
+      result(s1.add(createData()))
+      s1.changes(5).get.map(_.sequence) shouldBe Seq(6)
+    } finally s1.close()
+  }
+
+  @Test
+  def testTuning(): Unit = {
+    val s0 = DataStore.builder
+      .blockCacheSize(0)
+      .bloomFilterBits(0)
+      .compression("none")
+      .bottommostCompression("none")
+      .writeBufferSize(1024 * 1024)
+      .maxBackgroundJobs(1)
+      .statsInterval(Duration.Zero)
+      .build()
+    try {
+      val data = createData()
+      result(s0.add(data))
+      result(s0.value[SimpleData](data.key)) shouldBe data
+      s0.meters shouldBe Seq.empty
+    } finally s0.close()
+  }
+
+  @Test
+  def testUnsupportedCompression(): Unit = {
+    an[IllegalArgumentException] should be thrownBy DataStore.builder.compression(random())
+    an[IllegalArgumentException] should be thrownBy DataStore.builder.bottommostCompression(random())
+    DataStore.builder.compression("zstd").bottommostCompression("none")
+  }
+
+  @Test
+  def testStats(): Unit = {
+    val s0 = DataStore.builder.statsInterval(Duration(100, TimeUnit.MILLISECONDS)).build()
+    def gauges() = BeanChannel.local().gaugeMBeans().asScala.filter(_.key() == RocksDataStore.METRICS_KEY)
+    try {
+      (0 until 7).foreach(_ => result(s0.add(createData())))
+      CommonUtils.await(
+        () => gauges().exists(g => g.item() == RocksDataStore.OBJECTS && g.getValue == 7),
+        java.time.Duration.ofSeconds(20)
+      )
+      gauges().map(_.item()).toSet should contain allElementsOf Set(
+        RocksDataStore.MEMTABLE_BYTES,
+        RocksDataStore.BLOCK_CACHE_BYTES,
+        RocksDataStore.BLOCK_CACHE_HIT_RATE,
+        RocksDataStore.PENDING_COMPACTION_BYTES
+      )
+      s0.meters.map(_.name).toSet shouldBe gauges().map(_.item()).toSet
+      s0.meters.find(_.name == RocksDataStore.OBJECTS).get.value shouldBe 7
+    } finally s0.close()
+  }
+
   private[this] def random(): String = CommonUtils.randomString(5)
 
   @After
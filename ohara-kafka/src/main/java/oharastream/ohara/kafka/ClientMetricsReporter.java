@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.metrics.basic.Gauge;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The kafka producer and consumer record the batch size, request latency, lag and so on but they
+ * are not visible to ohara since ohara collects the beans registered in ohara domain only. This
+ * reporter is plugged into kafka client by {@link #configs(ObjectKey)} and it copies a few
+ * client-level metrics to ohara {@link Gauge} periodically. The gauges are owned by the object key
+ * (connector, stream, shabondi and so on) passed to {@link #configs(ObjectKey)}.
+ *
+ * <p>Noted: kafka instantiates the reporter by reflection so this class must be public and it must
+ * have a public no-arg constructor.
+ */
+public final class ClientMetricsReporter implements MetricsReporter {
+  private static final Logger LOG = LoggerFactory.getLogger(ClientMetricsReporter.class);
+
+  /** the config carrying the object key. It is ignored by kafka client. */
+  public static final String KEY_CONFIG = "ohara.metrics.key";
+
+  static final long PERIOD_IN_MILLIS = 5000;
+
+  /**
+   * the metrics we care about. The per-topic and per-node metrics are excluded since the number of
+   * them is unbounded.
+   */
+  private static final Map<String, Set<String>> METRICS =
+      Map.of(
+          "producer-metrics",
+          Set.of(
+              "batch-size-avg",
+              "batch-size-max",
+              "compression-rate-avg",
+              "record-queue-time-avg",
+              "record-queue-time-max",
+              "request-latency-avg",
+              "request-latency-max",
+              "record-send-rate",
+              "records-per-request-avg",
+              "record-error-rate",
+              "record-retry-rate",
+              "buffer-available-bytes",
+              "produce-throttle-time-avg"),
+          "consumer-fetch-manager-metrics",
+          Set.of(
+              "fetch-latency-avg",
+              "fetch-latency-max",
+              "fetch-rate",
+              "fetch-size-avg",
+              "records-lag-max",
+              "records-per-request-avg",
+              "bytes-consumed-rate",
+              "records-consumed-rate"));
+
+  /** all reporters share a thread since there may be many clients in a worker. */
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "client-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * @param key object key owning the metrics
+   * @return the client configs enabling this reporter
+   */
+  public static Map<String, String> configs(ObjectKey key) {
+    return Map.of(
+        CommonClientConfigs.METRIC_REPORTER_CLASSES_CONFIG,
+        ClientMetricsReporter.class.getName(),
+        KEY_CONFIG,
+        key.toPlain());
+  }
+
+  /**
+   * @param name metric name
+   * @return true if the metric is a client-level metric we care about
+   */
+  public static boolean accept(MetricName name) {
+    Set<String> names = METRICS.get(name.group());
+    return names != null
+        && names.contains(name.name())
+        && name.tags().keySet().equals(Set.of("client-id"));
+  }
+
+  static String item(MetricName name) {
+    return (name.group().startsWith("producer") ? "producer." : "consumer.") + name.name();
+  }
+
+  static String unit(MetricName name) {
+    if (name.name().endsWith("-rate")) return "per second";
+    if (name.name().contains("latency") || name.name().contains("time")) return "ms";
+    if (name.name().contains("bytes") || name.name().contains("size")) return "bytes";
+    return "N/A";
+  }
+
+  private final Map<MetricName, KafkaMetric> metrics = new ConcurrentHashMap<>();
+  private final Map<MetricName, Gauge> gauges = new HashMap<>();
+  private ObjectKey key = null;
+  private ScheduledFuture<?> future = null;
+
+  @Override
+  public void configure(Map<String, ?> configs) {
+    Object value = configs.get(KEY_CONFIG);
+    if (value == null) LOG.warn("{} is not defined so no metrics are reported", KEY_CONFIG);
+    else key = ObjectKey.requirePlain(value.toString());
+  }
+
+  @Override
+  public void init(List<KafkaMetric> metrics) {
+    metrics.forEach(this::metricChange);
+    if (key != null)
+      future =
+          EXECUTOR.scheduleAtFixedRate(
+              this::report, PERIOD_IN_MILLIS, PERIOD_IN_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void metricChange(KafkaMetric metric) {
+    if (accept(metric.metricName())) metrics.put(metric.metricName(), metric);
+  }
+
+  @Override
+  public void metricRemoval(KafkaMetric metric) {
+    metrics.remove(metric.metricName());
+  }
+
+  /** copy the kafka metrics to gauges. The gauges of removed metrics are unregistered. */
+  synchronized void report() {
+    if (key == null) return;
+    try {
+      metrics.forEach(
+          (name, metric) -> {
+            Object value = metric.metricValue();
+            if (!(value instanceof Number)) return;
+            double v = ((Number) value).doubleValue();
+            // kafka uses NaN and infinity to represent "no value"
+            if (Double.isNaN(v) || Double.isInfinite(v)) return;
+            gauges
+                .computeIfAbsent(
+                    name,
+                    n ->
+                        Gauge.builder()
+                            .key(key)
+                            .item(item(n))
+                            .unit(unit(n))
+                            .id(
+                                (n.tags().get("client-id") + "." + n.name())
+                                    .replaceAll("[,=:*?\"\\\\\\n]", "_"))
+                            .document(
+                                n.description() == null || n.description().isEmpty()
+                                    ? n.name()
+                                    : n.description())
+                            .register())
+                .set(v);
+          });
+      gauges.keySet().stream()
+          .filter(name -> !metrics.containsKey(name))
+          .collect(Collectors.toUnmodifiableList())
+          .forEach(name -> Releasable.close(gauges.remove(name)));
+    } catch (Throwable e) {
+      LOG.error("failed to report the metrics of kafka client", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (future != null) future.cancel(false);
+    metrics.clear();
+    synchronized (this) {
+      gauges.values().forEach(Gauge::close);
+      gauges.clear();
+    }
+  }
+}
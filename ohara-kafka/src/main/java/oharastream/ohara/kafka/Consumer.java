@@ -23,6 +23,7 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.common.util.Releasable;
@@ -174,6 +175,7 @@ public interface Consumer<K, V> extends Releasable {
     private String connectionProps;
     private Serializer<?> keySerializer = null;
     private Serializer<?> valueSerializer = null;
+    private ObjectKey metricsKey = null;
 
     private Builder() {
       // do nothing
@@ -298,6 +300,19 @@ public interface Consumer<K, V> extends Releasable {
       };
     }
 
+    /**
+     * copy the client metrics (fetch latency, lag and so on) to the gauges of specified object. see
+     * {@link ClientMetricsReporter}
+     *
+     * @param metricsKey the object owning the metrics
+     * @return this builder
+     */
+    @oharastream.ohara.common.annotations.Optional("default is disabled")
+    public Builder<Key, Value> metricsKey(ObjectKey metricsKey) {
+      this.metricsKey = Objects.requireNonNull(metricsKey);
+      return this;
+    }
+
     private void checkArguments() {
       CommonUtils.requireNonEmpty(connectionProps);
       CommonUtils.requireNonEmpty(groupId);
@@ -318,6 +333,7 @@ public interface Consumer<K, V> extends Releasable {
 
       Properties props = new Properties();
       options.forEach(props::setProperty);
+      if (metricsKey != null) ClientMetricsReporter.configs(metricsKey).forEach(props::setProperty);
       props.setProperty(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
       props.setProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId);
       // kafka demand us to pass lowe case words...
@@ -16,6 +16,7 @@
 
 package oharastream.ohara.kafka;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -25,13 +26,19 @@ import java.util.stream.Collectors;
 import oharastream.ohara.common.annotations.Optional;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.common.util.Releasable;
 import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.OutOfOrderSequenceException;
+import org.apache.kafka.common.errors.ProducerFencedException;
 
 /**
  * a simple wrap from kafka producer.
@@ -48,7 +55,10 @@ public interface Producer<Key, Value> extends Releasable {
    */
   Sender<Key, Value> sender();
 
-  /** flush all on-the-flight data. */
+  /**
+   * flush all on-the-flight data. If the producer is transactional, the ongoing transaction is
+   * committed.
+   */
   void flush();
 
   static Builder<byte[], byte[]> builder() {
@@ -63,6 +73,11 @@ public interface Producer<Key, Value> extends Releasable {
     private short numberOfAcks = 1;
     private Serializer<?> keySerializer = null;
     private Serializer<?> valueSerializer = null;
+    private boolean idempotence = false;
+    private String transactionalId = null;
+    private int transactionSize = 1000;
+    private Duration transactionInterval = Duration.ofSeconds(1);
+    private ObjectKey metricsKey = null;
 
     private Builder() {
       // no nothing
@@ -96,6 +111,73 @@ public interface Producer<Key, Value> extends Releasable {
       return this;
     }
 
+    /**
+     * enable the idempotent producer. The retries of producer don't generate duplicate records.
+     * Noted: the idempotent producer requires all acks.
+     *
+     * @return this builder
+     */
+    @Optional("default is disabled")
+    public Builder<Key, Value> idempotence() {
+      this.idempotence = true;
+      return this;
+    }
+
+    /**
+     * enable the transactional producer. The records are sent in transactions and a transaction is
+     * committed when the number of records reaches {@link #transactionSize(int)}, the transaction
+     * has been opened longer than {@link #transactionInterval(Duration)} or {@link
+     * Producer#flush()} is called. Committing a transaction is expensive so a bigger transaction
+     * has better throughput. The consumers reading committed data can't see the records before the
+     * transaction is committed.
+     *
+     * <p>Noted: the transactional producer is idempotent. If a transaction fails to be committed,
+     * it is aborted and the exception is thrown by the send or flush causing the commit.
+     *
+     * @param transactionalId transactional id. It should be unique and stable for each producer.
+     * @return this builder
+     */
+    @Optional("default is disabled")
+    public Builder<Key, Value> transactionalId(String transactionalId) {
+      this.transactionalId = CommonUtils.requireNonEmpty(transactionalId);
+      return this;
+    }
+
+    /**
+     * @param transactionSize the max number of records in a transaction
+     * @return this builder
+     */
+    @Optional("default is 1000")
+    public Builder<Key, Value> transactionSize(int transactionSize) {
+      this.transactionSize = CommonUtils.requirePositiveInt(transactionSize);
+      return this;
+    }
+
+    /**
+     * @param transactionInterval the max duration of a transaction. It is checked by sending record
+     *     so an idle producer should call {@link Producer#flush()} to commit the ongoing
+     *     transaction.
+     * @return this builder
+     */
+    @Optional("default is 1 second")
+    public Builder<Key, Value> transactionInterval(Duration transactionInterval) {
+      this.transactionInterval = Objects.requireNonNull(transactionInterval);
+      return this;
+    }
+
+    /**
+     * copy the client metrics (batch size, request latency and so on) to the gauges of specified
+     * object. see {@link ClientMetricsReporter}
+     *
+     * @param metricsKey the object owning the metrics
+     * @return this builder
+     */
+    @Optional("default is disabled")
+    public Builder<Key, Value> metricsKey(ObjectKey metricsKey) {
+      this.metricsKey = Objects.requireNonNull(metricsKey);
+      return this;
+    }
+
     @SuppressWarnings("unchecked")
     public <NewKey> Builder<NewKey, Value> keySerializer(Serializer<NewKey> keySerializer) {
       this.keySerializer = Objects.requireNonNull(keySerializer);
@@ -142,6 +224,8 @@ public interface Producer<Key, Value> extends Releasable {
       CommonUtils.requireNonEmpty(connectionProps);
       Objects.requireNonNull(keySerializer);
       Objects.requireNonNull(valueSerializer);
+      if ((idempotence || transactionalId != null) && numberOfAcks == 0)
+        throw new IllegalArgumentException("the idempotent producer requires all acks");
     }
 
     @SuppressWarnings("unchecked")
@@ -154,8 +238,15 @@ public interface Producer<Key, Value> extends Releasable {
         private Properties getProducerConfig() {
           Properties props = new Properties();
           options.forEach(props::setProperty);
+          if (metricsKey != null)
+            ClientMetricsReporter.configs(metricsKey).forEach(props::setProperty);
           props.setProperty(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
-          props.setProperty(ProducerConfig.ACKS_CONFIG, String.valueOf(numberOfAcks));
+          if (idempotence || transactionalId != null) {
+            props.setProperty(ProducerConfig.ACKS_CONFIG, "all");
+            props.setProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+          } else props.setProperty(ProducerConfig.ACKS_CONFIG, String.valueOf(numberOfAcks));
+          if (transactionalId != null)
+            props.setProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
           return props;
         }
 
@@ -165,6 +256,52 @@ public interface Producer<Key, Value> extends Releasable {
                 wrap((Serializer<Key>) keySerializer),
                 wrap((Serializer<Value>) valueSerializer));
 
+        // the following fields are used by transactional producer only. They are guarded by "this"
+        private int numberOfUncommittedRecords = 0;
+        private long transactionStartTime = -1;
+
+        {
+          if (transactionalId != null) {
+            try {
+              producer.initTransactions();
+            } catch (RuntimeException e) {
+              producer.close();
+              throw e;
+            }
+          }
+        }
+
+        private synchronized void sendInTransaction(
+            ProducerRecord<Key, Value> record, Callback callback) {
+          if (transactionStartTime < 0) {
+            producer.beginTransaction();
+            transactionStartTime = CommonUtils.current();
+          }
+          producer.send(record, callback);
+          ++numberOfUncommittedRecords;
+          if (numberOfUncommittedRecords >= transactionSize
+              || CommonUtils.current() - transactionStartTime >= transactionInterval.toMillis())
+            commitTransaction();
+        }
+
+        private synchronized void commitTransaction() {
+          if (transactionStartTime < 0) return;
+          try {
+            producer.commitTransaction();
+          } catch (ProducerFencedException
+              | OutOfOrderSequenceException
+              | AuthorizationException e) {
+            // those errors are fatal so the transaction can't be aborted.
+            throw e;
+          } catch (KafkaException e) {
+            producer.abortTransaction();
+            throw e;
+          } finally {
+            numberOfUncommittedRecords = 0;
+            transactionStartTime = -1;
+          }
+        }
+
         @Override
         public final Sender<Key, Value> sender() {
           return new Sender<Key, Value>() {
@@ -182,8 +319,7 @@ public interface Producer<Key, Value> extends Releasable {
                           .map(Builder.this::toKafkaHeader)
                           .collect(Collectors.toUnmodifiableList()));
 
-              producer.send(
-                  record,
+              Callback callback =
                   (metadata, exception) -> {
                     if (metadata == null && exception == null)
                       completableFuture.completeExceptionally(
@@ -195,7 +331,9 @@ public interface Producer<Key, Value> extends Releasable {
                               "Both meta and exception from kafka producer...It should be impossible"));
                     if (metadata != null) completableFuture.complete(RecordMetadata.of(metadata));
                     if (exception != null) completableFuture.completeExceptionally(exception);
-                  });
+                  };
+              if (transactionalId == null) producer.send(record, callback);
+              else sendInTransaction(record, callback);
               return completableFuture;
             }
           };
@@ -203,12 +341,18 @@ public interface Producer<Key, Value> extends Releasable {
 
         @Override
         public void flush() {
-          producer.flush();
+          // committing transaction flushes all records
+          if (transactionalId == null) producer.flush();
+          else commitTransaction();
         }
 
         @Override
         public void close() {
-          producer.close();
+          try {
+            if (transactionalId != null) commitTransaction();
+          } finally {
+            producer.close();
+          }
         }
       };
     }
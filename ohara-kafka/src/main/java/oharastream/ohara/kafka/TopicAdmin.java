@@ -16,7 +16,7 @@
 
 package oharastream.ohara.kafka;
 
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,21 +24,25 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.common.util.Releasable;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
 import org.apache.kafka.clients.admin.NewPartitions;
 import org.apache.kafka.clients.admin.NewTopic;
-import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigResource;
-import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 
 /**
  * a helper methods used by configurator. It provide many helper method to operate kafka cluster.
@@ -77,6 +81,15 @@ public interface TopicAdmin extends Releasable {
    */
   CompletionStage<TopicDescription> topicDescription(TopicKey key);
 
+  /**
+   * describe many topics in a batch. The nonexistent topics are excluded from the result. Noted
+   * that the descriptions may be cached for a short period (see {@link #of(String, Duration)}).
+   *
+   * @param keys topic keys
+   * @return the descriptions of existent topics
+   */
+  CompletionStage<List<TopicDescription>> topicDescriptions(Set<TopicKey> keys);
+
   /**
    * create new partitions for specified topic
    *
@@ -95,6 +108,40 @@ public interface TopicAdmin extends Releasable {
    */
   CompletionStage<Boolean> deleteTopic(TopicKey key);
 
+  /**
+   * list the ids of all consumer groups. It includes the groups having no active members.
+   *
+   * @return group ids
+   */
+  CompletionStage<Set<String>> consumerGroupIds();
+
+  /**
+   * filter the consumer groups having active members.
+   *
+   * @param groupIds group ids
+   * @return the group ids having active members
+   */
+  CompletionStage<Set<String>> activeConsumerGroupIds(Set<String> groupIds);
+
+  /**
+   * list the committed offsets of consumer group. Noted that the partitions of non-ohara topics are
+   * excluded.
+   *
+   * @param groupId group id
+   * @return partition -> committed offset. It is empty if the group does not exist
+   */
+  CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>> consumerGroupOffsets(
+      String groupId);
+
+  /**
+   * fetch the end offsets of many partitions in one request.
+   *
+   * @param partitions partitions
+   * @return partition -> end offset
+   */
+  CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>> endOffsets(
+      Set<oharastream.ohara.kafka.connector.TopicPartition> partitions);
+
   /** @return Connection information. form: host:port,host:port */
   String connectionProps();
 
@@ -110,56 +157,155 @@ public interface TopicAdmin extends Releasable {
   boolean closed();
 
   static TopicAdmin of(String connectionProps) {
+    return of(connectionProps, Duration.ofSeconds(1));
+  }
+
+  /**
+   * create a topic admin hosting a kafka admin client.
+   *
+   * @param connectionProps brokers
+   * @param cacheTimeout the descriptions of topics are cached in this period. The cached
+   *     description is removed when the topic is changed by this admin.
+   * @return topic admin
+   */
+  static TopicAdmin of(String connectionProps, Duration cacheTimeout) {
+    long cacheTimeoutInMillis = cacheTimeout.toMillis();
     return new TopicAdmin() {
 
       private final AdminClient admin = AdminClient.create(toAdminProps(connectionProps));
 
       private final AtomicBoolean closed = new AtomicBoolean(false);
 
-      private Map<TopicKey, List<PartitionInfo>> partitionInfos(Set<TopicKey> topicKeys) {
-        Properties properties = new Properties();
-        properties.setProperty(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, connectionProps);
-        properties.setProperty(ConsumerConfig.CLIENT_ID_CONFIG, CommonUtils.randomString());
-        try (KafkaConsumer<byte[], byte[]> consumer =
-            new KafkaConsumer<>(
-                properties, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
-          return consumer.listTopics().entrySet().stream()
-              .filter(
-                  entry -> TopicKey.ofPlain(entry.getKey()).map(topicKeys::contains).isPresent())
-              .map(
-                  entry -> {
-                    List<TopicPartition> tps =
-                        entry.getValue().stream()
-                            .map(p -> new TopicPartition(p.topic(), p.partition()))
-                            .collect(Collectors.toUnmodifiableList());
-                    Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(tps);
-                    Map<TopicPartition, Long> endOffsets = consumer.endOffsets(tps);
-                    List<PartitionInfo> ps =
-                        entry.getValue().stream()
-                            .map(
-                                p -> {
-                                  TopicPartition tp = new TopicPartition(p.topic(), p.partition());
-                                  return new PartitionInfo(
-                                      p.partition(),
-                                      PartitionNode.of(p.leader()),
-                                      p.replicas() == null
-                                          ? List.of()
-                                          : Arrays.stream(p.replicas())
-                                              .map(PartitionNode::of)
-                                              .collect(Collectors.toUnmodifiableList()),
-                                      p.inSyncReplicas() == null
-                                          ? List.of()
-                                          : Arrays.stream(p.inSyncReplicas())
-                                              .map(PartitionNode::of)
-                                              .collect(Collectors.toUnmodifiableList()),
-                                      beginningOffsets.getOrDefault(tp, -1L),
-                                      endOffsets.getOrDefault(tp, -1L));
-                                })
-                            .collect(Collectors.toUnmodifiableList());
-                    return Map.entry(TopicKey.requirePlain(entry.getKey()), ps);
-                  })
-              .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
-        }
+      // topic key -> (cached time, description)
+      private final Map<TopicKey, Map.Entry<Long, TopicDescription>> cache =
+          new ConcurrentHashMap<>();
+
+      private <T> CompletionStage<T> toStage(KafkaFuture<T> future) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        future.whenComplete(
+            (v, exception) -> {
+              if (exception != null) f.completeExceptionally(exception);
+              else f.complete(v);
+            });
+        return f;
+      }
+
+      /**
+       * collect the results of a batch request. The failed element is excluded rather than failing
+       * the whole batch.
+       *
+       * @param futures key -> future
+       * @return key -> value of succeeded futures
+       */
+      private <K, V> CompletionStage<Map<K, V>> succeeded(Map<K, KafkaFuture<V>> futures) {
+        Map<K, V> result = new ConcurrentHashMap<>();
+        return CompletableFuture.allOf(
+                futures.entrySet().stream()
+                    .map(
+                        entry ->
+                            toStage(entry.getValue())
+                                .handle(
+                                    (v, exception) -> {
+                                      if (exception == null) result.put(entry.getKey(), v);
+                                      return null;
+                                    })
+                                .toCompletableFuture())
+                    .toArray(CompletableFuture[]::new))
+            .thenApply(ignored -> Map.copyOf(result));
+      }
+
+      /**
+       * fetch the offsets of partitions by one request. The failed partition (for example, a
+       * partition having no leader) is excluded.
+       *
+       * @param tps partitions
+       * @param spec offset spec
+       * @return partition -> offset
+       */
+      private CompletionStage<Map<TopicPartition, Long>> offsets(
+          List<TopicPartition> tps, OffsetSpec spec) {
+        if (tps.isEmpty()) return CompletableFuture.completedFuture(Map.of());
+        ListOffsetsResult result =
+            admin.listOffsets(
+                tps.stream().collect(Collectors.toUnmodifiableMap(tp -> tp, tp -> spec)));
+        return succeeded(
+                tps.stream()
+                    .collect(Collectors.toUnmodifiableMap(tp -> tp, result::partitionResult)))
+            .thenApply(
+                offsets ->
+                    offsets.entrySet().stream()
+                        .collect(
+                            Collectors.toUnmodifiableMap(
+                                Map.Entry::getKey, e -> e.getValue().offset())));
+      }
+
+      private List<PartitionNode> nodes(List<Node> nodes) {
+        return nodes == null
+            ? List.of()
+            : nodes.stream().map(PartitionNode::of).collect(Collectors.toUnmodifiableList());
+      }
+
+      private List<PartitionInfo> partitionInfos(
+          org.apache.kafka.clients.admin.TopicDescription description,
+          Map<TopicPartition, Long> beginningOffsets,
+          Map<TopicPartition, Long> endOffsets) {
+        return description.partitions().stream()
+            .map(
+                p -> {
+                  TopicPartition tp = new TopicPartition(description.name(), p.partition());
+                  return new PartitionInfo(
+                      p.partition(),
+                      PartitionNode.of(p.leader() == null ? Node.noNode() : p.leader()),
+                      nodes(p.replicas()),
+                      nodes(p.isr()),
+                      beginningOffsets.getOrDefault(tp, -1L),
+                      endOffsets.getOrDefault(tp, -1L));
+                })
+            .collect(Collectors.toUnmodifiableList());
+      }
+
+      /**
+       * fetch the partitions, beginning offsets and end offsets of all topics by three requests.
+       * The topics deleted by others during the requests are excluded.
+       *
+       * @param topicKeys existent topics
+       * @return topic key -> partitions
+       */
+      private CompletionStage<Map<TopicKey, List<PartitionInfo>>> partitionInfos(
+          Set<TopicKey> topicKeys) {
+        if (topicKeys.isEmpty()) return CompletableFuture.completedFuture(Map.of());
+        return succeeded(
+                admin
+                    .describeTopics(
+                        topicKeys.stream()
+                            .map(TopicKey::topicNameOnKafka)
+                            .collect(Collectors.toUnmodifiableList()))
+                    .values())
+            .thenCompose(
+                descriptions -> {
+                  List<TopicPartition> tps =
+                      descriptions.values().stream()
+                          .flatMap(
+                              d ->
+                                  d.partitions().stream()
+                                      // the offsets of partition having no leader are unavailable
+                                      .filter(p -> p.leader() != null && !p.leader().isEmpty())
+                                      .map(p -> new TopicPartition(d.name(), p.partition())))
+                          .collect(Collectors.toUnmodifiableList());
+                  // send both requests before waiting for the responses
+                  CompletionStage<Map<TopicPartition, Long>> beginningOffsets =
+                      offsets(tps, OffsetSpec.earliest());
+                  CompletionStage<Map<TopicPartition, Long>> endOffsets =
+                      offsets(tps, OffsetSpec.latest());
+                  return beginningOffsets.thenCombine(
+                      endOffsets,
+                      (begins, ends) ->
+                          descriptions.values().stream()
+                              .collect(
+                                  Collectors.toUnmodifiableMap(
+                                      d -> TopicKey.requirePlain(d.name()),
+                                      d -> partitionInfos(d, begins, ends))));
+                });
       }
 
       @Override
@@ -184,6 +330,7 @@ public interface TopicAdmin extends Releasable {
                 .get(topicKey.topicNameOnKafka())
                 .whenComplete(
                     (v, exception) -> {
+                      cache.remove(topicKey);
                       if (exception != null) f.completeExceptionally(exception);
                       else f.complete(null);
                     });
@@ -264,28 +411,64 @@ public interface TopicAdmin extends Releasable {
 
       @Override
       public CompletionStage<TopicDescription> topicDescription(TopicKey key) {
-        return topicDescriptions(Set.of(key)).thenApply(keys -> keys.iterator().next());
+        return topicDescriptions(Set.of(key))
+            .thenApply(descriptions -> descriptions.iterator().next());
       }
 
-      private CompletionStage<List<TopicDescription>> topicDescriptions(Set<TopicKey> topicKeys) {
-        return options(topicKeys)
+      @Override
+      public CompletionStage<List<TopicDescription>> topicDescriptions(Set<TopicKey> keys) {
+        long now = CommonUtils.current();
+        // prune the expired descriptions. Otherwise, the topics deleted by others are never removed
+        cache.values().removeIf(e -> now - e.getKey() > cacheTimeoutInMillis);
+        List<TopicDescription> cached =
+            keys.stream()
+                .map(cache::get)
+                .filter(e -> e != null && now - e.getKey() <= cacheTimeoutInMillis)
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toUnmodifiableList());
+        Set<TopicKey> missed =
+            keys.stream()
+                .filter(key -> cached.stream().noneMatch(d -> d.topicKey().equals(key)))
+                .collect(Collectors.toUnmodifiableSet());
+        if (missed.isEmpty()) return CompletableFuture.completedFuture(cached);
+        return describe(missed)
             .thenApply(
-                nameAndOpts -> {
-                  Map<TopicKey, List<PartitionInfo>> partitionInfos = partitionInfos(topicKeys);
-                  return nameAndOpts.entrySet().stream()
-                      .map(
-                          entry -> {
-                            List<PartitionInfo> infos =
-                                partitionInfos.getOrDefault(entry.getKey(), List.of());
-                            return new TopicDescription(entry.getKey(), infos, entry.getValue());
-                          })
+                descriptions -> {
+                  descriptions.forEach(d -> cache.put(d.topicKey(), Map.entry(now, d)));
+                  return Stream.concat(cached.stream(), descriptions.stream())
                       .collect(Collectors.toUnmodifiableList());
                 });
       }
 
+      /**
+       * describe the topics without cache. All topics are described by a handful of requests.
+       *
+       * @param topicKeys topic keys
+       * @return the descriptions of existent topics
+       */
+      private CompletionStage<List<TopicDescription>> describe(Set<TopicKey> topicKeys) {
+        return options(topicKeys)
+            .thenCompose(
+                nameAndOpts ->
+                    partitionInfos(nameAndOpts.keySet())
+                        .thenApply(
+                            partitionInfos ->
+                                nameAndOpts.entrySet().stream()
+                                    // the topic may be deleted by others after listing the options
+                                    .filter(entry -> partitionInfos.containsKey(entry.getKey()))
+                                    .map(
+                                        entry ->
+                                            new TopicDescription(
+                                                entry.getKey(),
+                                                partitionInfos.get(entry.getKey()),
+                                                entry.getValue()))
+                                    .collect(Collectors.toUnmodifiableList())));
+      }
+
       @Override
       public CompletionStage<Void> createPartitions(TopicKey key, int numberOfPartitions) {
-        return topicDescription(key)
+        return describe(Set.of(key))
+            .thenApply(descriptions -> descriptions.iterator().next())
             .thenCompose(
                 current -> {
                   if (current.numberOfPartitions() > numberOfPartitions)
@@ -307,6 +490,7 @@ public interface TopicAdmin extends Releasable {
                         .get(key.topicNameOnKafka())
                         .whenComplete(
                             (v, exception) -> {
+                              cache.remove(key);
                               if (exception != null) f.completeExceptionally(exception);
                               else f.complete(null);
                             });
@@ -328,6 +512,7 @@ public interface TopicAdmin extends Releasable {
                         .get(key.topicNameOnKafka())
                         .whenComplete(
                             (v, exception) -> {
+                              cache.remove(key);
                               if (exception != null) f2.completeExceptionally(exception);
                               else f2.complete(true);
                             });
@@ -336,6 +521,102 @@ public interface TopicAdmin extends Releasable {
                 });
       }
 
+      @Override
+      public CompletionStage<Set<String>> consumerGroupIds() {
+        CompletableFuture<Set<String>> f = new CompletableFuture<>();
+        admin
+            .listConsumerGroups()
+            .all()
+            .whenComplete(
+                (groups, exception) -> {
+                  if (exception != null) f.completeExceptionally(exception);
+                  else
+                    f.complete(
+                        groups.stream()
+                            .map(ConsumerGroupListing::groupId)
+                            .collect(Collectors.toUnmodifiableSet()));
+                });
+        return f;
+      }
+
+      @Override
+      public CompletionStage<Set<String>> activeConsumerGroupIds(Set<String> groupIds) {
+        if (groupIds.isEmpty()) return CompletableFuture.completedFuture(Set.of());
+        CompletableFuture<Set<String>> f = new CompletableFuture<>();
+        admin
+            .describeConsumerGroups(groupIds)
+            .all()
+            .whenComplete(
+                (groups, exception) -> {
+                  if (exception != null) f.completeExceptionally(exception);
+                  else
+                    f.complete(
+                        groups.values().stream()
+                            .filter(group -> !group.members().isEmpty())
+                            .map(ConsumerGroupDescription::groupId)
+                            .collect(Collectors.toUnmodifiableSet()));
+                });
+        return f;
+      }
+
+      @Override
+      public CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>>
+          consumerGroupOffsets(String groupId) {
+        CompletableFuture<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>> f =
+            new CompletableFuture<>();
+        admin
+            .listConsumerGroupOffsets(groupId)
+            .partitionsToOffsetAndMetadata()
+            .whenComplete(
+                (offsets, exception) -> {
+                  if (exception != null) f.completeExceptionally(exception);
+                  else
+                    f.complete(
+                        offsets.entrySet().stream()
+                            .filter(e -> e.getValue() != null)
+                            .filter(e -> TopicKey.ofPlain(e.getKey().topic()).isPresent())
+                            .collect(
+                                Collectors.toUnmodifiableMap(
+                                    e ->
+                                        oharastream.ohara.kafka.connector.TopicPartition.of(
+                                            e.getKey()),
+                                    e -> e.getValue().offset())));
+                });
+        return f;
+      }
+
+      @Override
+      public CompletionStage<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>>
+          endOffsets(Set<oharastream.ohara.kafka.connector.TopicPartition> partitions) {
+        if (partitions.isEmpty()) return CompletableFuture.completedFuture(Map.of());
+        CompletableFuture<Map<oharastream.ohara.kafka.connector.TopicPartition, Long>> f =
+            new CompletableFuture<>();
+        admin
+            .listOffsets(
+                partitions.stream()
+                    .collect(
+                        Collectors.toUnmodifiableMap(
+                            tp ->
+                                new TopicPartition(
+                                    tp.topicKey().topicNameOnKafka(), tp.partition()),
+                            tp -> OffsetSpec.latest())))
+            .all()
+            .whenComplete(
+                (offsets, exception) -> {
+                  if (exception != null) f.completeExceptionally(exception);
+                  else
+                    f.complete(
+                        offsets.entrySet().stream()
+                            .collect(
+                                Collectors.toUnmodifiableMap(
+                                    e ->
+                                        oharastream.ohara.kafka.connector.TopicPartition.of(
+                                            e.getKey()),
+                                    e -> e.getValue().offset())));
+                });
+        return f;
+      }
+
       @Override
       public String connectionProps() {
         return connectionProps;
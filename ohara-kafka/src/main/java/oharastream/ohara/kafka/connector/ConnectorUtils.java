@@ -31,6 +31,8 @@ import oharastream.ohara.common.setting.WithDefinitions;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.kafka.connector.json.ConnectorDefUtils;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
+import oharastream.ohara.metrics.basic.Meter;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.connect.connector.ConnectRecord;
 
@@ -76,6 +78,7 @@ final class ConnectorUtils {
         .unit("messages")
         .document("number of messages")
         .value(0)
+        .striped()
         .register();
   }
 
@@ -92,6 +95,7 @@ final class ConnectorUtils {
         .unit("bytes")
         .document("size (in bytes) of messages")
         .value(0)
+        .striped()
         .register();
   }
 
@@ -108,6 +112,7 @@ final class ConnectorUtils {
         .unit("messages")
         .document("number of ignored messages")
         .value(0)
+        .striped()
         .register();
   }
 
@@ -124,6 +129,38 @@ final class ConnectorUtils {
         .unit("bytes")
         .document("size of ignored messages")
         .value(0)
+        .striped()
+        .register();
+  }
+
+  /**
+   * Create and register a meter tracking the rate of messages
+   *
+   * @param key It is normally equal to connector key
+   * @return rate meter
+   */
+  static Meter messageRateMeter(ObjectKey key) {
+    return Meter.builder()
+        .key(key)
+        .item("message.rate")
+        .unit("messages")
+        .document("rate of messages")
+        .register();
+  }
+
+  /**
+   * Create and register a histogram tracking the latency of poll (source) or put (sink)
+   *
+   * @param key It is normally equal to connector key
+   * @param operation poll or put
+   * @return latency histogram
+   */
+  static Histogram latencyHistogram(ObjectKey key, String operation) {
+    return Histogram.builder()
+        .key(key)
+        .item(operation + ".latency")
+        .unit("nanoseconds")
+        .document("latency of " + operation)
         .register();
   }
 
@@ -149,8 +186,8 @@ final class ConnectorUtils {
           return true;
         } catch (Throwable e) {
           if (rule == SettingDef.CheckRule.PERMISSIVE) {
-            if (ignoredMessageNumberCounter != null) ignoredMessageNumberCounter.incrementAndGet();
-            if (ignoredMessageSizeCounter != null) ignoredMessageSizeCounter.addAndGet(rowSize);
+            if (ignoredMessageNumberCounter != null) ignoredMessageNumberCounter.increment();
+            if (ignoredMessageSizeCounter != null) ignoredMessageSizeCounter.add(rowSize);
             return false;
           } else throw e;
         }
@@ -30,7 +30,10 @@ import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.Releasable;
 import oharastream.ohara.common.util.VersionUtils;
 import oharastream.ohara.kafka.TimestampType;
+import oharastream.ohara.metrics.MetricsPusher;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
+import oharastream.ohara.metrics.basic.Meter;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.sink.SinkTask;
@@ -115,6 +118,8 @@ public abstract class RowSinkTask extends SinkTask {
   @VisibleForTesting Counter messageSizeCounter = null;
   @VisibleForTesting Counter ignoredMessageNumberCounter = null;
   @VisibleForTesting Counter ignoredMessageSizeCounter = null;
+  @VisibleForTesting Meter messageRateMeter = null;
+  @VisibleForTesting Histogram putLatencyHistogram = null;
   @VisibleForTesting TaskSetting taskSetting = null;
 
   /**
@@ -157,14 +162,20 @@ public abstract class RowSinkTask extends SinkTask {
                           true,
                           ignoredMessageNumberCounter,
                           ignoredMessageSizeCounter);
-                  if (pass && messageSizeCounter != null) messageSizeCounter.addAndGet(rowSize);
+                  if (pass && messageSizeCounter != null) messageSizeCounter.add(rowSize);
 
                   return pass;
                 })
             .map(Map.Entry::getKey)
             .collect(Collectors.toUnmodifiableList());
-    if (messageNumberCounter != null) messageNumberCounter.addAndGet(records.size());
-    putRecords(records);
+    if (messageNumberCounter != null) messageNumberCounter.add(records.size());
+    if (messageRateMeter != null) messageRateMeter.mark(records.size());
+    long start = System.nanoTime();
+    try {
+      putRecords(records);
+    } finally {
+      if (putLatencyHistogram != null) putLatencyHistogram.update(System.nanoTime() - start);
+    }
   }
 
   /**
@@ -189,6 +200,10 @@ public abstract class RowSinkTask extends SinkTask {
         ConnectorUtils.ignoredMessageNumberCounter(taskSetting.connectorKey());
     ignoredMessageSizeCounter =
         ConnectorUtils.ignoredMessageSizeCounter(taskSetting.connectorKey());
+    messageRateMeter = ConnectorUtils.messageRateMeter(taskSetting.connectorKey());
+    putLatencyHistogram = ConnectorUtils.latencyHistogram(taskSetting.connectorKey(), "put");
+    // the counters are pushed to configurator if the push mode is enabled
+    MetricsPusher.startIfEnabled();
     run(taskSetting);
   }
 
@@ -201,6 +216,8 @@ public abstract class RowSinkTask extends SinkTask {
       Releasable.close(messageSizeCounter);
       Releasable.close(ignoredMessageNumberCounter);
       Releasable.close(ignoredMessageSizeCounter);
+      Releasable.close(messageRateMeter);
+      Releasable.close(putLatencyHistogram);
     }
   }
 
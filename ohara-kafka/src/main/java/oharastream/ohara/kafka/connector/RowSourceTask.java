@@ -33,7 +33,10 @@ import oharastream.ohara.common.util.Releasable;
 import oharastream.ohara.common.util.VersionUtils;
 import oharastream.ohara.kafka.Header;
 import oharastream.ohara.kafka.RecordMetadata;
+import oharastream.ohara.metrics.MetricsPusher;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
+import oharastream.ohara.metrics.basic.Meter;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.header.ConnectHeaders;
 import org.apache.kafka.connect.source.SourceRecord;
@@ -100,6 +103,8 @@ public abstract class RowSourceTask extends SourceTask {
   @VisibleForTesting Counter messageSizeCounter = null;
   @VisibleForTesting Counter ignoredMessageNumberCounter = null;
   @VisibleForTesting Counter ignoredMessageSizeCounter = null;
+  @VisibleForTesting Meter messageRateMeter = null;
+  @VisibleForTesting Histogram pollLatencyHistogram = null;
   @VisibleForTesting TaskSetting taskSetting = null;
   /**
    * this value should be immutable after starting this connector task. It is used to generate kafka
@@ -141,7 +146,13 @@ public abstract class RowSourceTask extends SourceTask {
 
   @Override
   public final List<SourceRecord> poll() {
-    List<RowSourceRecord> records = pollRecords();
+    long start = System.nanoTime();
+    List<RowSourceRecord> records;
+    try {
+      records = pollRecords();
+    } finally {
+      if (pollLatencyHistogram != null) pollLatencyHistogram.update(System.nanoTime() - start);
+    }
     // kafka connector doesn't support the empty list in testing. see
     // https://github.com/apache/kafka/pull/4958
     if (CommonUtils.isEmpty(records)) return null;
@@ -164,12 +175,13 @@ public abstract class RowSourceTask extends SourceTask {
                           false,
                           ignoredMessageNumberCounter,
                           ignoredMessageSizeCounter);
-                  if (pass && messageSizeCounter != null) messageSizeCounter.addAndGet(rowSize);
+                  if (pass && messageSizeCounter != null) messageSizeCounter.add(rowSize);
                   return pass;
                 })
             .map(Map.Entry::getValue)
             .collect(Collectors.toUnmodifiableList());
-    if (messageNumberCounter != null) messageNumberCounter.addAndGet(raw.size());
+    if (messageNumberCounter != null) messageNumberCounter.add(raw.size());
+    if (messageRateMeter != null) messageRateMeter.mark(raw.size());
     return raw;
   }
 
@@ -195,6 +207,10 @@ public abstract class RowSourceTask extends SourceTask {
         ConnectorUtils.ignoredMessageNumberCounter(taskSetting.connectorKey());
     ignoredMessageSizeCounter =
         ConnectorUtils.ignoredMessageSizeCounter(taskSetting.connectorKey());
+    messageRateMeter = ConnectorUtils.messageRateMeter(taskSetting.connectorKey());
+    pollLatencyHistogram = ConnectorUtils.latencyHistogram(taskSetting.connectorKey(), "poll");
+    // the counters are pushed to configurator if the push mode is enabled
+    MetricsPusher.startIfEnabled();
     keyInBytes =
         ObjectKey.toJsonString(taskSetting.connectorKey()).getBytes(StandardCharsets.UTF_8);
     run(taskSetting);
@@ -209,6 +225,8 @@ public abstract class RowSourceTask extends SourceTask {
       Releasable.close(messageSizeCounter);
       Releasable.close(ignoredMessageNumberCounter);
       Releasable.close(ignoredMessageSizeCounter);
+      Releasable.close(messageRateMeter);
+      Releasable.close(pollLatencyHistogram);
     }
   }
 
@@ -31,6 +31,7 @@ import oharastream.ohara.common.setting.PropGroup;
 import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.ClientMetricsReporter;
 
 /**
  * Kafka worker accept json and then unmarshal it to Map[String, String]. In most cases we can't
@@ -89,6 +90,24 @@ public final class ConnectorFormatter {
     return name(connectorKey.connectorNameOnKafka());
   }
 
+  /**
+   * let the worker plug {@link oharastream.ohara.kafka.ClientMetricsReporter} into the producer
+   * (source) and consumer (sink) created for the connector. It requires the worker to allow the
+   * client config overrides.
+   *
+   * @param key the object owning the client metrics
+   * @return this formatter
+   */
+  public ConnectorFormatter metricsKey(ObjectKey key) {
+    ClientMetricsReporter.configs(key)
+        .forEach(
+            (k, v) -> {
+              setting("producer.override." + k, v);
+              setting("consumer.override." + k, v);
+            });
+    return this;
+  }
+
   public ConnectorFormatter checkRule(SettingDef.CheckRule rule) {
     return setting(ConnectorDefUtils.CHECK_RULE_DEFINITION.key(), rule.name());
   }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.util.List;
+import java.util.Map;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import oharastream.ohara.metrics.basic.GaugeMBean;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.stats.Value;
+import org.apache.kafka.common.utils.Time;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestClientMetricsReporter extends OharaTest {
+
+  private static KafkaMetric metric(MetricName name, double v) {
+    Value value = new Value();
+    value.record(new MetricConfig(), v, 0);
+    return new KafkaMetric(new Object(), name, value, new MetricConfig(), Time.SYSTEM);
+  }
+
+  private static long count(ObjectKey key) {
+    return BeanChannel.local().gaugeMBeans().stream().filter(g -> g.key().equals(key)).count();
+  }
+
+  @Test
+  public void testConfigs() {
+    ObjectKey key = CommonUtils.randomKey();
+    Map<String, String> configs = ClientMetricsReporter.configs(key);
+    Assert.assertEquals(
+        ClientMetricsReporter.class.getName(),
+        configs.get(CommonClientConfigs.METRIC_REPORTER_CLASSES_CONFIG));
+    Assert.assertEquals(key.toPlain(), configs.get(ClientMetricsReporter.KEY_CONFIG));
+  }
+
+  @Test
+  public void testAccept() {
+    Assert.assertTrue(
+        ClientMetricsReporter.accept(
+            new MetricName("batch-size-avg", "producer-metrics", "", Map.of("client-id", "a"))));
+    // per-topic metric
+    Assert.assertFalse(
+        ClientMetricsReporter.accept(
+            new MetricName(
+                "records-lag-max",
+                "consumer-fetch-manager-metrics",
+                "",
+                Map.of("client-id", "a", "topic", "b"))));
+    Assert.assertFalse(
+        ClientMetricsReporter.accept(
+            new MetricName("unknown", "producer-metrics", "", Map.of("client-id", "a"))));
+  }
+
+  @Test
+  public void testItemAndUnit() {
+    MetricName name =
+        new MetricName("request-latency-avg", "producer-metrics", "", Map.of("client-id", "a"));
+    Assert.assertEquals("producer.request-latency-avg", ClientMetricsReporter.item(name));
+    Assert.assertEquals("ms", ClientMetricsReporter.unit(name));
+    name =
+        new MetricName(
+            "records-consumed-rate",
+            "consumer-fetch-manager-metrics",
+            "",
+            Map.of("client-id", "a"));
+    Assert.assertEquals("consumer.records-consumed-rate", ClientMetricsReporter.item(name));
+    Assert.assertEquals("per second", ClientMetricsReporter.unit(name));
+  }
+
+  @Test
+  public void testReport() {
+    ObjectKey key = CommonUtils.randomKey();
+    MetricName name =
+        new MetricName("batch-size-avg", "producer-metrics", "", Map.of("client-id", "a"));
+    MetricName ignored =
+        new MetricName("batch-size-avg", "producer-topic-metrics", "", Map.of("client-id", "a"));
+    ClientMetricsReporter reporter = new ClientMetricsReporter();
+    try {
+      reporter.configure(ClientMetricsReporter.configs(key));
+      reporter.init(List.of(metric(name, 10), metric(ignored, 20)));
+      reporter.report();
+      Assert.assertEquals(1, count(key));
+      GaugeMBean bean =
+          BeanChannel.local().gaugeMBeans().stream()
+              .filter(g -> g.key().equals(key))
+              .findFirst()
+              .get();
+      Assert.assertEquals(10, bean.getValue(), 0);
+      Assert.assertEquals("bytes", bean.getUnit());
+      Assert.assertEquals("producer.batch-size-avg", bean.item());
+
+      // the gauge of removed metric is unregistered
+      reporter.metricRemoval(metric(name, 10));
+      reporter.report();
+      Assert.assertEquals(0, count(key));
+    } finally {
+      reporter.close();
+    }
+  }
+
+  @Test
+  public void testNoKey() {
+    ClientMetricsReporter reporter = new ClientMetricsReporter();
+    reporter.configure(Map.of());
+    MetricName name =
+        new MetricName("batch-size-avg", "producer-metrics", "", Map.of("client-id", "a"));
+    reporter.init(List.of(metric(name, 10)));
+    long before = BeanChannel.local().gaugeMBeans().size();
+    reporter.report();
+    Assert.assertEquals(before, BeanChannel.local().gaugeMBeans().size());
+    reporter.close();
+  }
+}
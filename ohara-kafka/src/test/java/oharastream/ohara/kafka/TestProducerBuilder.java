@@ -40,4 +40,24 @@ public class TestProducerBuilder extends OharaTest {
   public void nullValueSerializer() {
     Producer.builder().valueSerializer(null);
   }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyTransactionalId() {
+    Producer.builder().transactionalId("");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeTransactionSize() {
+    Producer.builder().transactionSize(-1);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullTransactionInterval() {
+    Producer.builder().transactionInterval(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void idempotenceWithoutAcks() {
+    Producer.builder().connectionProps("localhost:12345").idempotence().noAcks().build();
+  }
 }
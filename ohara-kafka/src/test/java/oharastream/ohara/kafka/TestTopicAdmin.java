@@ -20,9 +20,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import oharastream.ohara.common.setting.TopicKey;
@@ -155,6 +157,46 @@ public class TestTopicAdmin extends With3Brokers {
             .value());
   }
 
+  @Test
+  public void testTopicDescriptions() throws ExecutionException, InterruptedException {
+    TopicKey anotherKey = TopicKey.of("TestTopicAdmin", CommonUtils.randomString(5));
+    for (TopicKey key : Set.of(topicKey, anotherKey)) {
+      client.topicCreator().topicKey(key).create().toCompletableFuture().get();
+      waitPartitions(key, 1);
+    }
+    TopicKey nonexistentKey = TopicKey.of("TestTopicAdmin", CommonUtils.randomString(5));
+    List<TopicDescription> descriptions =
+        client
+            .topicDescriptions(Set.of(topicKey, anotherKey, nonexistentKey))
+            .toCompletableFuture()
+            .get();
+    // the nonexistent topic is excluded
+    assertEquals(2, descriptions.size());
+    assertEquals(
+        Set.of(topicKey, anotherKey),
+        descriptions.stream().map(TopicDescription::topicKey).collect(Collectors.toSet()));
+    descriptions.forEach(
+        d -> assertEquals(d, client.topicDescription(d.topicKey()).toCompletableFuture().join()));
+
+    // the cached description is removed after the topic is changed
+    client.createPartitions(topicKey, 2).toCompletableFuture().get();
+    waitPartitions(topicKey, 2);
+  }
+
+  @Test
+  public void testTopicDeletedByOthers() throws ExecutionException, InterruptedException {
+    client.topicCreator().topicKey(topicKey).create().toCompletableFuture().get();
+    waitPartitions(topicKey, 1);
+    assertEquals(1, client.topicDescriptions(Set.of(topicKey)).toCompletableFuture().get().size());
+    try (TopicAdmin another = TopicAdmin.of(testUtil().brokersConnProps())) {
+      another.deleteTopic(topicKey).toCompletableFuture().get();
+    }
+    // the cached description is expired
+    CommonUtils.await(
+        () -> client.topicDescriptions(Set.of(topicKey)).toCompletableFuture().join().isEmpty(),
+        Duration.ofSeconds(10));
+  }
+
   @After
   public void cleanup() throws ExecutionException, InterruptedException {
     client
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.kafka;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.testing.WithBroker;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTransactionalProducer extends WithBroker {
+  private TopicKey createTopic() throws ExecutionException, InterruptedException {
+    TopicKey topicKey = TopicKey.of("group", CommonUtils.randomString());
+    try (TopicAdmin client = TopicAdmin.of(testUtil().brokersConnProps())) {
+      client
+          .topicCreator()
+          .numberOfReplications((short) 1)
+          .topicKey(topicKey)
+          .create()
+          .toCompletableFuture()
+          .get();
+    }
+    return topicKey;
+  }
+
+  private Consumer<String, String> readCommittedConsumer(TopicKey topicKey) {
+    return Consumer.builder()
+        .keySerializer(Serializer.STRING)
+        .valueSerializer(Serializer.STRING)
+        .offsetFromBegin()
+        .topicKey(topicKey)
+        .connectionProps(testUtil().brokersConnProps())
+        .options(Map.of(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"))
+        .build();
+  }
+
+  @Test
+  public void testUncommittedRecordsAreInvisible() throws Exception {
+    TopicKey topicKey = createTopic();
+    try (Producer<String, String> producer =
+            Producer.builder()
+                .keySerializer(Serializer.STRING)
+                .valueSerializer(Serializer.STRING)
+                .connectionProps(testUtil().brokersConnProps())
+                .transactionalId(CommonUtils.randomString())
+                .transactionSize(100)
+                .transactionInterval(Duration.ofDays(1))
+                .build();
+        Consumer<String, String> consumer = readCommittedConsumer(topicKey)) {
+      for (int i = 0; i != 10; ++i)
+        producer.sender().key("k" + i).value("v" + i).topicKey(topicKey).send();
+      // the transaction is not committed yet
+      Assert.assertEquals(0, consumer.poll(Duration.ofSeconds(3), 1).size());
+      producer.flush();
+      Assert.assertEquals(10, consumer.poll(Duration.ofSeconds(30), 10).size());
+    }
+  }
+
+  @Test
+  public void testCommitByTransactionSize() throws Exception {
+    TopicKey topicKey = createTopic();
+    try (Producer<String, String> producer =
+            Producer.builder()
+                .keySerializer(Serializer.STRING)
+                .valueSerializer(Serializer.STRING)
+                .connectionProps(testUtil().brokersConnProps())
+                .transactionalId(CommonUtils.randomString())
+                .transactionSize(5)
+                .transactionInterval(Duration.ofDays(1))
+                .build();
+        Consumer<String, String> consumer = readCommittedConsumer(topicKey)) {
+      // the first 5 records are committed by transaction size
+      for (int i = 0; i != 7; ++i)
+        producer.sender().key("k" + i).value("v" + i).topicKey(topicKey).send();
+      List<Consumer.Record<String, String>> records = consumer.poll(Duration.ofSeconds(30), 5);
+      Assert.assertEquals(5, records.size());
+      Assert.assertEquals(0, consumer.poll(Duration.ofSeconds(3), 1).size());
+    }
+  }
+
+  /**
+   * the records are committed by transactions having the specified size. Each committed transaction
+   * appends a commit marker to the partition so the end offset is equal to the number of records
+   * plus the number of transactions.
+   */
+  @Test
+  public void testTransactionSize() throws Exception {
+    int numberOfRecords = 2000;
+    for (int transactionSize : new int[] {100, 1000, 10000}) {
+      TopicKey topicKey = createTopic();
+      try (Producer<String, String> producer =
+              Producer.builder()
+                  .keySerializer(Serializer.STRING)
+                  .valueSerializer(Serializer.STRING)
+                  .connectionProps(testUtil().brokersConnProps())
+                  .transactionalId(CommonUtils.randomString())
+                  .transactionSize(transactionSize)
+                  .transactionInterval(Duration.ofDays(1))
+                  .build();
+          Consumer<String, String> consumer = readCommittedConsumer(topicKey)) {
+        for (int i = 0; i != numberOfRecords; ++i)
+          producer.sender().key("k" + i).value("v" + i).topicKey(topicKey).send();
+        producer.flush();
+        List<Consumer.Record<String, String>> records =
+            consumer.poll(Duration.ofSeconds(60), numberOfRecords);
+        Assert.assertEquals(numberOfRecords, records.size());
+        for (int i = 0; i != numberOfRecords; ++i)
+          Assert.assertEquals("k" + i, records.get(i).key().get());
+        long numberOfTransactions = (numberOfRecords + transactionSize - 1) / transactionSize;
+        Assert.assertEquals(
+            numberOfRecords + numberOfTransactions,
+            consumer.endOffsets().entrySet().stream()
+                .filter(e -> e.getKey().topicKey().equals(topicKey))
+                .mapToLong(Map.Entry::getValue)
+                .sum());
+      }
+    }
+  }
+}
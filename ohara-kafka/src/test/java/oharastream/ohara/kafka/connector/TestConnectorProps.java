@@ -127,12 +127,16 @@ public class TestConnectorProps extends OharaTest {
       Assert.assertEquals(task.ignoredMessageNumberCounter.getValue(), 1);
       Assert.assertNotEquals(task.ignoredMessageSizeCounter.getValue(), 0);
 
+      Assert.assertEquals(1, task.messageRateMeter.getCount());
+      Assert.assertEquals(2, task.putLatencyHistogram.getCount());
     } finally {
       task.stop();
       Assert.assertTrue(task.messageNumberCounter.isClosed());
       Assert.assertTrue(task.messageSizeCounter.isClosed());
       Assert.assertTrue(task.ignoredMessageSizeCounter.isClosed());
       Assert.assertTrue(task.ignoredMessageNumberCounter.isClosed());
+      Assert.assertTrue(task.messageRateMeter.isClosed());
+      Assert.assertTrue(task.putLatencyHistogram.isClosed());
     }
 
     RowSinkTask task2 = new DumbSinkTask();
@@ -226,12 +230,16 @@ public class TestConnectorProps extends OharaTest {
       Assert.assertEquals(task.ignoredMessageNumberCounter.getValue(), 1);
       Assert.assertNotEquals(task.ignoredMessageSizeCounter.getValue(), 0);
 
+      Assert.assertEquals(1, task.messageRateMeter.getCount());
+      Assert.assertEquals(2, task.pollLatencyHistogram.getCount());
     } finally {
       task.stop();
       Assert.assertTrue(task.messageNumberCounter.isClosed());
       Assert.assertTrue(task.messageSizeCounter.isClosed());
       Assert.assertTrue(task.ignoredMessageNumberCounter.isClosed());
       Assert.assertTrue(task.ignoredMessageSizeCounter.isClosed());
+      Assert.assertTrue(task.messageRateMeter.isClosed());
+      Assert.assertTrue(task.pollLatencyHistogram.isClosed());
     }
 
     RowSourceTask task2 =
@@ -18,44 +18,47 @@ package oharastream.ohara.metrics;
 
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.function.Function;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import javax.management.AttributeNotFoundException;
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
+import javax.management.IntrospectionException;
 import javax.management.MBeanAttributeInfo;
-import javax.management.MBeanException;
 import javax.management.MBeanInfo;
 import javax.management.MBeanRegistrationException;
-import javax.management.MBeanServer;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
 import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
-import javax.management.remote.JMXConnector;
-import javax.management.remote.JMXConnectorFactory;
-import javax.management.remote.JMXServiceURL;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.metrics.basic.CounterMBean;
+import oharastream.ohara.metrics.basic.GaugeMBean;
+import oharastream.ohara.metrics.basic.HistogramMBean;
+import oharastream.ohara.metrics.basic.MeterMBean;
 import oharastream.ohara.metrics.kafka.TopicMeter;
 
 /**
  * This channel is a SNAPSHOT of all bean objects from local/remote bean server. Since Java APIs
- * don't allow us to get all objects in single connection, the implementation has to send multi
- * requests to fetch all bean objects. If you really case the performance, you should set both
- * {@link BeanChannel.Builder#domainName} and {@link BeanChannel.Builder#properties(Map)} to filter
- * unwanted objects. If you don't set both arguments, the filter will happen after the connection to
- * local/remote bean server. It won't save your life.
+ * don't allow us to get all objects in single request, the implementation has to send a request for
+ * each bean object (all attributes of a bean are fetched by single request). If you really case the
+ * performance, you should set {@link BeanChannel.Builder#domainName} and {@link
+ * BeanChannel.Builder#properties(Map)} to filter unwanted objects. Both filters are pushed to the
+ * bean server.
+ *
+ * <p>The connectors to remote bean servers are pooled by hostname and port, and a slow remote bean
+ * server is given up after {@link BeanChannel.Builder#timeout(Duration)}.
  */
 @FunctionalInterface
 public interface BeanChannel extends Iterable<BeanObject> {
@@ -97,6 +100,30 @@ public interface BeanChannel extends Iterable<BeanObject> {
         .collect(Collectors.toUnmodifiableList());
   }
 
+  /** @return get only gauge type from bean objects */
+  default List<GaugeMBean> gaugeMBeans() {
+    return stream()
+        .filter(GaugeMBean::is)
+        .map(GaugeMBean::of)
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  /** @return get only histogram type from bean objects */
+  default List<HistogramMBean> histogramMBeans() {
+    return stream()
+        .filter(HistogramMBean::is)
+        .map(HistogramMBean::of)
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  /** @return get only meter type from bean objects */
+  default List<MeterMBean> meterMBeans() {
+    return stream()
+        .filter(MeterMBean::is)
+        .map(MeterMBean::of)
+        .collect(Collectors.toUnmodifiableList());
+  }
+
   /** @return get only TopicMeter type from bean objects */
   default List<TopicMeter> topicMeters() {
     return stream()
@@ -142,6 +169,8 @@ public interface BeanChannel extends Iterable<BeanObject> {
     private Map<String, String> properties = Map.of();
     private String hostname = null;
     private int port = -1;
+    private boolean propertyListPattern = false;
+    private Duration timeout = Duration.ofSeconds(10);
     @VisibleForTesting boolean local = true;
 
     private Builder() {}
@@ -206,126 +235,130 @@ public interface BeanChannel extends Iterable<BeanObject> {
       return this;
     }
 
-    private BeanObject to(
-        ObjectName objectName,
-        MBeanInfo beanInfo,
-        Function<String, Object> valueGetter,
-        long queryTime) {
-      // used to filter the "illegal" attribute
-      Object unknown = new Object();
-      Map<String, Object> attributes =
-          Stream.of(beanInfo.getAttributes())
-              .collect(
-                  Collectors.toUnmodifiableMap(
-                      MBeanAttributeInfo::getName,
-                      attribute -> {
-                        try {
-                          return valueGetter.apply(attribute.getName());
-                        } catch (Throwable e) {
-                          // It is not allow to access the value.
-                          return unknown;
-                        }
-                      }))
-              .entrySet().stream()
-              .filter(e -> e.getValue() != unknown)
-              .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
-      return BeanObject.builder()
-          .domainName(objectName.getDomain())
-          .properties(objectName.getKeyPropertyList())
-          .attributes(attributes)
-          // For all metrics, we will have a time of querying object
-          .queryTime(queryTime)
-          .build();
+    /**
+     * treat the properties as a subset of the properties of beans. By default, the beans must have
+     * exactly the same properties. This is useful to fetch a specific type of ohara's beans, for
+     * example, {@code domainName(CounterMBean.DOMAIN).property("type",
+     * "counter").propertyListPattern()}. The filter is executed by the bean server.
+     *
+     * @return this builder
+     */
+    @oharastream.ohara.common.annotations.Optional("default value is false")
+    public Builder propertyListPattern() {
+      this.propertyListPattern = true;
+      return this;
     }
 
-    private ObjectName objectName() {
-      if (domainName == null || properties.isEmpty()) return null;
-      else {
+    /**
+     * the max time to wait for the remote bean server. A slow node fails the query with {@link
+     * oharastream.ohara.common.exception.TimeoutException} rather than blocking the caller.
+     *
+     * @param timeout timeout
+     * @return this builder
+     */
+    @oharastream.ohara.common.annotations.Optional("default value is 10 seconds")
+    public Builder timeout(Duration timeout) {
+      this.timeout = Objects.requireNonNull(timeout);
+      return this;
+    }
+
+    /**
+     * generate the ObjectName used to query bean server. The domain and properties are pushed to
+     * bean server so the unwanted beans are not transferred.
+     *
+     * @return object name or pattern. null if there is no filter or the filter can't be converted
+     *     to ObjectName (the filter will happen after the query)
+     */
+    @VisibleForTesting
+    ObjectName objectName() {
+      if (domainName == null && properties.isEmpty()) return null;
+      try {
+        if (properties.isEmpty()) return ObjectName.getInstance(domainName + ":*");
+        ObjectName name =
+            ObjectName.getInstance(
+                domainName == null ? "*" : domainName, new Hashtable<>(properties));
+        if (!propertyListPattern) return name;
+        return ObjectName.getInstance(
+            name.getDomain() + ":" + name.getKeyPropertyListString() + ",*");
+      } catch (MalformedObjectNameException e) {
+        return null;
+      }
+    }
+
+    /**
+     * fetch the beans from bean server. The attributes of a bean are fetched by single request.
+     *
+     * @param connection bean server
+     * @param beanInfos the cached bean infos
+     * @return beans
+     * @throws IOException if the connection is broken
+     */
+    private List<BeanObject> fetch(
+        MBeanServerConnection connection, Map<ObjectName, MBeanInfo> beanInfos)
+        throws IOException {
+      // for each query, we should have same "queryTime" for each metric
+      final long queryTime = CommonUtils.current();
+      ObjectName query = objectName();
+      Set<ObjectName> names = connection.queryNames(query, null);
+      // remove the infos of unregistered beans. Noted that the infos are shared by all queries
+      beanInfos
+          .keySet()
+          .removeIf(name -> (query == null || query.apply(name)) && !names.contains(name));
+      List<BeanObject> objs = new ArrayList<>(names.size());
+      for (ObjectName name : names) {
         try {
-          return ObjectName.getInstance(domainName, new Hashtable<>(properties));
-        } catch (MalformedObjectNameException e) {
-          throw new IllegalArgumentException(e);
+          MBeanInfo beanInfo = beanInfos.get(name);
+          if (beanInfo == null) {
+            beanInfo = connection.getMBeanInfo(name);
+            beanInfos.put(name, beanInfo);
+          }
+          String[] attributeNames =
+              Stream.of(beanInfo.getAttributes())
+                  .filter(MBeanAttributeInfo::isReadable)
+                  .map(MBeanAttributeInfo::getName)
+                  .toArray(String[]::new);
+          // the attribute which is not allowed to access is excluded from the returned list
+          Map<String, Object> attributes = new HashMap<>();
+          connection
+              .getAttributes(name, attributeNames)
+              .asList()
+              .forEach(
+                  attribute -> {
+                    if (attribute.getValue() != null)
+                      attributes.put(attribute.getName(), attribute.getValue());
+                  });
+          objs.add(
+              BeanObject.builder()
+                  .domainName(name.getDomain())
+                  .properties(name.getKeyPropertyList())
+                  .attributes(attributes)
+                  // For all metrics, we will have a time of querying object
+                  .queryTime(queryTime)
+                  .build());
+        } catch (InstanceNotFoundException
+            | IntrospectionException
+            | ReflectionException
+            | RuntimeException e) {
+          // the bean is unregistered or it is not accessible
+          beanInfos.remove(name);
         }
       }
+      return Collections.unmodifiableList(objs);
     }
 
     private List<BeanObject> doBuild() {
       if (local) {
-        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
-        // for each query, we should have same "queryTime" for each metric
-        final long queryTime = CommonUtils.current();
-        return server.queryMBeans(objectName(), null).stream()
-            .map(
-                objectInstance -> {
-                  try {
-                    return Optional.of(
-                        to(
-                            objectInstance.getObjectName(),
-                            server.getMBeanInfo(objectInstance.getObjectName()),
-                            (attribute) -> {
-                              try {
-                                return server.getAttribute(
-                                    objectInstance.getObjectName(), attribute);
-                              } catch (MBeanException
-                                  | AttributeNotFoundException
-                                  | InstanceNotFoundException
-                                  | ReflectionException e) {
-                                throw new IllegalArgumentException(e);
-                              }
-                            },
-                            queryTime));
-                  } catch (Throwable e) {
-                    return Optional.empty();
-                  }
-                })
-            .filter(Optional::isPresent)
-            .map(o -> (BeanObject) o.get())
-            .collect(Collectors.toUnmodifiableList());
-      } else {
-        try (JMXConnector connector =
-            JMXConnectorFactory.connect(
-                new JMXServiceURL(
-                    "service:jmx:rmi:///jndi/rmi://"
-                        + CommonUtils.requireNonEmpty(hostname)
-                        + ":"
-                        + CommonUtils.requireConnectionPort(port)
-                        + "/jmxrmi"),
-                null)) {
-          MBeanServerConnection connection = connector.getMBeanServerConnection();
-          // for each query, we should have same "queryTime" for each metric
-          final long queryTime = CommonUtils.current();
-          return connection.queryMBeans(objectName(), null).stream()
-              .map(
-                  objectInstance -> {
-                    try {
-                      return Optional.of(
-                          to(
-                              objectInstance.getObjectName(),
-                              connection.getMBeanInfo(objectInstance.getObjectName()),
-                              (attribute) -> {
-                                try {
-                                  return connection.getAttribute(
-                                      objectInstance.getObjectName(), attribute);
-                                } catch (MBeanException
-                                    | AttributeNotFoundException
-                                    | InstanceNotFoundException
-                                    | ReflectionException
-                                    | IOException e) {
-                                  throw new IllegalArgumentException(e);
-                                }
-                              },
-                              queryTime));
-                    } catch (Throwable e) {
-                      return Optional.empty();
-                    }
-                  })
-              .filter(Optional::isPresent)
-              .map(o -> (BeanObject) o.get())
-              .collect(Collectors.toUnmodifiableList());
+        try {
+          return fetch(ManagementFactory.getPlatformMBeanServer(), new HashMap<>());
         } catch (IOException e) {
           throw new IllegalArgumentException(e);
         }
-      }
+      } else
+        return ConnectorPool.INSTANCE.run(
+            CommonUtils.requireNonEmpty(hostname),
+            CommonUtils.requireConnectionPort(port),
+            timeout,
+            this::fetch);
     }
 
     @Override
@@ -336,7 +369,9 @@ public interface BeanChannel extends Iterable<BeanObject> {
               .filter(
                   o ->
                       CommonUtils.isEmpty(properties)
-                          || new HashMap<>(o.properties()).equals(new HashMap<>(properties)))
+                          || (propertyListPattern
+                              ? o.properties().entrySet().containsAll(properties.entrySet())
+                              : new HashMap<>(o.properties()).equals(new HashMap<>(properties))))
               .collect(Collectors.toUnmodifiableList());
       return () -> objs;
     }
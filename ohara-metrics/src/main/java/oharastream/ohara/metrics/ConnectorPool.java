@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+
+/**
+ * A pool of remote jmx connectors keyed by hostname and port. The metrics of all nodes are fetched
+ * periodically so it is expensive to build a new RMI connection for each query. The pooled
+ * connector is closed and removed if it throws exception, is timeout, or is idle for {@link
+ * #IDLE_TIMEOUT}. The idle connectors are evicted lazily when the pool is used.
+ *
+ * <p>All requests are executed by a bounded pool of daemon threads so the caller is able to give up
+ * a slow node. Closing the connector of a timeout request aborts the pending RMI call as well. The
+ * connection is built with a connect timeout so a dead node does not hold the thread forever.
+ */
+final class ConnectorPool {
+  static final Duration IDLE_TIMEOUT = Duration.ofMinutes(1);
+  /** the max number of threads executing the requests. The excess requests are queued. */
+  static final int MAX_THREADS = 16;
+  /** the period of checking the pooled connection. The broken connection is closed by the check */
+  static final Duration CONNECTION_CHECK_PERIOD = Duration.ofSeconds(10);
+
+  static final ConnectorPool INSTANCE = new ConnectorPool(IDLE_TIMEOUT);
+
+  @FunctionalInterface
+  interface Request<T> {
+    /**
+     * @param connection remote connection
+     * @param beanInfos the cached bean infos of the remote jvm. The info of bean is not changed so
+     *     it is cached to save the round trip. The request is responsible for updating it
+     * @return result
+     * @throws Exception any exception
+     */
+    T process(MBeanServerConnection connection, Map<ObjectName, MBeanInfo> beanInfos)
+        throws Exception;
+  }
+
+  private static final class Entry {
+    private final JMXConnector connector;
+    private final Map<ObjectName, MBeanInfo> beanInfos = new ConcurrentHashMap<>();
+    private volatile long lastUsed = CommonUtils.current();
+
+    private Entry(JMXConnector connector) {
+      this.connector = connector;
+    }
+  }
+
+  private final long idleTimeout;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final ThreadPoolExecutor executor =
+      new ThreadPoolExecutor(
+          MAX_THREADS,
+          MAX_THREADS,
+          IDLE_TIMEOUT.toMillis(),
+          TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(),
+          runnable -> {
+            Thread thread = new Thread(runnable, "ohara-metrics-jmx");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  @VisibleForTesting
+  ConnectorPool(Duration idleTimeout) {
+    this.idleTimeout = idleTimeout.toMillis();
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  private static String key(String hostname, int port) {
+    return hostname + ":" + port;
+  }
+
+  /** the socket factory used to look up the rmi registry. It applies the connect timeout. */
+  private static final class TimeoutSocketFactory implements RMIClientSocketFactory, Serializable {
+    private static final long serialVersionUID = 1L;
+    private final int timeout;
+
+    private TimeoutSocketFactory(int timeout) {
+      this.timeout = timeout;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+      Socket socket = new Socket();
+      try {
+        socket.connect(new InetSocketAddress(host, port), timeout);
+        socket.setSoTimeout(timeout);
+        return socket;
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+    }
+  }
+
+  private static JMXConnector connect(String hostname, int port, Duration timeout) {
+    try {
+      return JMXConnectorFactory.connect(
+          new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + key(hostname, port) + "/jmxrmi"),
+          Map.of(
+              "com.sun.jndi.rmi.factory.socket",
+              new TimeoutSocketFactory((int) Math.min(Integer.MAX_VALUE, timeout.toMillis())),
+              "jmx.remote.x.client.connection.check.period",
+              CONNECTION_CHECK_PERIOD.toMillis()));
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * get the pooled connector or create a new one. The connection is built outside the map lock so a
+   * slow node does not block the requests to other nodes.
+   */
+  private Entry entry(String key, String hostname, int port, Duration timeout) {
+    Entry entry = entries.get(key);
+    if (entry != null) return entry;
+    Entry newEntry = new Entry(connect(hostname, port, timeout));
+    Entry previous = entries.putIfAbsent(key, newEntry);
+    if (previous == null) return newEntry;
+    // another request is faster than us
+    Releasable.close(newEntry.connector);
+    return previous;
+  }
+
+  private void evictIdle() {
+    long now = CommonUtils.current();
+    entries.forEach(
+        (key, entry) -> {
+          if (now - entry.lastUsed > idleTimeout && entries.remove(key, entry))
+            Releasable.close(entry.connector);
+        });
+  }
+
+  private void invalidate(String key, Entry entry) {
+    if (entry != null && entries.remove(key, entry)) Releasable.close(entry.connector);
+  }
+
+  /**
+   * execute the request by the pooled connector. If there is no connector for the node, a new
+   * connector is created. The connector is closed and removed if the request fails since the remote
+   * jvm may be restarted.
+   *
+   * @param hostname hostname
+   * @param port jmx port
+   * @param timeout the max time to wait for the request (including the connection)
+   * @param request request
+   * @param <T> result type
+   * @return result of request
+   */
+  <T> T run(String hostname, int port, Duration timeout, Request<T> request) {
+    evictIdle();
+    String key = key(hostname, port);
+    Entry[] used = new Entry[1];
+    Future<T> future =
+        executor.submit(
+            () -> {
+              Entry entry = entry(key, hostname, port, timeout);
+              used[0] = entry;
+              entry.lastUsed = CommonUtils.current();
+              return request.process(entry.connector.getMBeanServerConnection(), entry.beanInfos);
+            });
+    try {
+      return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      invalidate(key, entries.get(key));
+      throw new oharastream.ohara.common.exception.TimeoutException(
+          "failed to fetch beans from " + key + " in " + timeout.toMillis() + " ms", e);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      throw new oharastream.ohara.common.exception.InterruptedException(e);
+    } catch (ExecutionException e) {
+      invalidate(key, used[0]);
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new IllegalArgumentException(e.getCause());
+    }
+  }
+
+  /** @return the number of pooled connectors */
+  @VisibleForTesting
+  int size() {
+    return entries.size();
+  }
+
+  /** close all pooled connectors. */
+  @VisibleForTesting
+  void clear() {
+    entries.forEach(this::invalidate);
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.json.JsonUtils;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.metrics.basic.CounterMBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class pushes the counters of local jvm to a remote endpoint (normally, it is the
+ * configurator) periodically. It is the alternative to fetching the counters by remote jmx.
+ *
+ * <p>The snapshot is delta-encoded. Only the counters changed since last push are sent, and the
+ * unit and document are sent only once. The removed counters are carried by their ids. The first
+ * snapshot, and the snapshot after a failed push, is a full snapshot. The endpoint responds non-2xx
+ * if it receives a delta but it has no previous state (for example, it is restarted), and then
+ * this pusher sends a full snapshot next time.
+ *
+ * <p>The process is identified by the hostname and jmx port so the endpoint can map the counters
+ * to the cluster as the remote jmx does.
+ */
+public final class MetricsPusher extends ReleaseOnce {
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsPusher.class);
+
+  /** the environment variable carrying the url of endpoint. */
+  public static final String URL_ENV = "OHARA_METRICS_PUSH_URL";
+
+  private static MetricsPusher global = null;
+
+  /**
+   * start the pusher of this jvm if the environment variable {@link #URL_ENV} is defined. It is ok
+   * to call this method many times since the pusher is a singleton.
+   */
+  public static synchronized void startIfEnabled() {
+    String url = System.getenv(URL_ENV);
+    if (global != null || CommonUtils.isEmpty(url)) return;
+    try {
+      global = builder().url(url).build();
+      LOG.info("start to push metrics to " + url);
+    } catch (Throwable e) {
+      LOG.error("failed to start the metrics pusher for " + url, e);
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private final String hostname;
+  private final int jmxPort;
+  private final Predicate<String> sender;
+  private final ScheduledExecutorService executor;
+  /** the counters which were sent to endpoint. id -> counter */
+  private final Map<String, CounterMBean> sent = new HashMap<>();
+
+  private MetricsPusher(String hostname, int jmxPort, Duration period, Predicate<String> sender) {
+    this.hostname = hostname;
+    this.jmxPort = jmxPort;
+    this.sender = sender;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "ohara-metrics-pusher");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.executor.scheduleWithFixedDelay(
+        this::push, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @VisibleForTesting
+  synchronized void push() {
+    try {
+      if (!sender.test(JsonUtils.toString(snapshot()))) sent.clear();
+    } catch (Throwable e) {
+      LOG.debug("failed to push metrics", e);
+      sent.clear();
+    }
+  }
+
+  /**
+   * generate the snapshot from the changed counters. The state of this pusher is updated so the
+   * snapshot must be sent.
+   *
+   * @return snapshot
+   */
+  @VisibleForTesting
+  synchronized Map<String, Object> snapshot() {
+    BeanChannel channel =
+        BeanChannel.builder()
+            .local()
+            .domainName(CounterMBean.DOMAIN)
+            .property(CounterMBean.TYPE_KEY, CounterMBean.TYPE_VALUE)
+            .propertyListPattern()
+            .build();
+    boolean full = sent.isEmpty();
+    long queryTime = CommonUtils.current();
+    Set<String> alive = new HashSet<>();
+    List<Map<String, Object>> counters = new ArrayList<>();
+    channel.stream()
+        .filter(CounterMBean::is)
+        .forEach(
+            obj -> {
+              String id = obj.properties().get(CounterMBean.ID_KEY);
+              if (id == null) return;
+              CounterMBean counter = CounterMBean.of(obj);
+              alive.add(id);
+              CounterMBean previous = sent.get(id);
+              if (previous != null
+                  && previous.getValue() == counter.getValue()
+                  && previous.getLastModified() == counter.getLastModified()) return;
+              Map<String, Object> c = new HashMap<>();
+              c.put("id", id);
+              c.put("key", counter.key().toPlain());
+              c.put("item", counter.item());
+              c.put("value", counter.getValue());
+              c.put("startTime", counter.getStartTime());
+              c.put("lastModified", counter.getLastModified());
+              if (previous == null) {
+                c.put("unit", counter.getUnit());
+                c.put("document", counter.getDocument());
+              }
+              counters.add(c);
+              sent.put(id, counter);
+            });
+    Set<String> removed = new HashSet<>(sent.keySet());
+    removed.removeAll(alive);
+    sent.keySet().removeAll(removed);
+    return Map.of(
+        "hostname",
+        hostname,
+        "jmxPort",
+        jmxPort,
+        "full",
+        full,
+        "queryTime",
+        queryTime,
+        "counters",
+        counters,
+        "removed",
+        removed);
+  }
+
+  @Override
+  protected void doClose() {
+    executor.shutdownNow();
+  }
+
+  public static class Builder implements oharastream.ohara.common.pattern.Builder<MetricsPusher> {
+    private String url = null;
+    private String hostname = System.getProperty("java.rmi.server.hostname");
+    private int jmxPort = Integer.getInteger("com.sun.management.jmxremote.port", -1);
+    private Duration period = Duration.ofSeconds(3);
+    private Predicate<String> sender = null;
+
+    private Builder() {}
+
+    public Builder url(String url) {
+      this.url = CommonUtils.requireNonEmpty(url);
+      return this;
+    }
+
+    @Optional("default value is the system property java.rmi.server.hostname")
+    public Builder hostname(String hostname) {
+      this.hostname = CommonUtils.requireNonEmpty(hostname);
+      return this;
+    }
+
+    @Optional("default value is the system property com.sun.management.jmxremote.port")
+    public Builder jmxPort(int jmxPort) {
+      this.jmxPort = CommonUtils.requireConnectionPort(jmxPort);
+      return this;
+    }
+
+    @Optional("default value is 3 seconds")
+    public Builder period(Duration period) {
+      this.period = Objects.requireNonNull(period);
+      return this;
+    }
+
+    /**
+     * replace the http client by custom sender.
+     *
+     * @param sender return true if the snapshot is accepted by the endpoint
+     * @return this builder
+     */
+    @VisibleForTesting
+    Builder sender(Predicate<String> sender) {
+      this.sender = Objects.requireNonNull(sender);
+      return this;
+    }
+
+    private static Predicate<String> httpSender(String url, Duration timeout) {
+      HttpClient client = HttpClient.newBuilder().connectTimeout(timeout).build();
+      URI uri = URI.create(url);
+      return body -> {
+        try {
+          HttpResponse<Void> response =
+              client.send(
+                  HttpRequest.newBuilder(uri)
+                      .timeout(timeout)
+                      .header("Content-Type", "application/json")
+                      .POST(HttpRequest.BodyPublishers.ofString(body))
+                      .build(),
+                  HttpResponse.BodyHandlers.discarding());
+          return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      };
+    }
+
+    @Override
+    public MetricsPusher build() {
+      CommonUtils.requireNonEmpty(hostname);
+      CommonUtils.requireConnectionPort(jmxPort);
+      return new MetricsPusher(
+          hostname,
+          jmxPort,
+          period,
+          sender == null ? httpSender(CommonUtils.requireNonEmpty(url), period) : sender);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import oharastream.ohara.common.util.CommonUtils;
+
+/**
+ * A clock updated by a background thread. Reading this clock is a plain volatile read so the hot
+ * path of metrics is not blocked by {@link CommonUtils#current()}. The precision is {@link
+ * #PRECISION_MS} and it follows the timer injected to {@link CommonUtils} with the same delay.
+ *
+ * <p>The background thread is a daemon thread and it is started when this class is used first.
+ */
+final class CoarseClock {
+  static final long PRECISION_MS = 100;
+
+  private static volatile long now = CommonUtils.current();
+
+  static {
+    ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "ohara-metrics-clock");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.scheduleAtFixedRate(
+        () -> now = CommonUtils.current(), PRECISION_MS, PRECISION_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /** @return the time (in ms) of last tick */
+  static long current() {
+    return now;
+  }
+
+  // prevent construction
+  private CoarseClock() {
+    throw new AssertionError();
+  }
+}
@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import oharastream.ohara.common.annotations.Optional;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.setting.ObjectKey;
@@ -30,6 +31,12 @@ import oharastream.ohara.metrics.BeanChannel;
 /**
  * This class is an implementation of JMX Bean. We need to implement serializable since we write
  * metrics data to rocksDB.
+ *
+ * <p>The counter has two modes. The default mode keeps the value by an atomic long so all methods
+ * are atomic. The striped mode ({@link Builder#striped()}) keeps the value by a {@link LongAdder}
+ * and the last modified time is taken from a coarse clock, so the counter is updated by many
+ * threads with low contention. In striped mode, the methods returning a value are NOT atomic and
+ * the hot path should call {@link #increment()} and {@link #add(long)} instead.
  */
 public final class Counter extends ReleaseOnce implements CounterMBean, Serializable {
 
@@ -45,7 +52,8 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
   private final String item;
   private final String document;
   private final String unit;
-  private final AtomicLong value = new AtomicLong(0);
+  private final boolean striped;
+  private final Value value;
   private final AtomicLong lastModified = new AtomicLong(CommonUtils.current());
   private final long startTime;
   private final long queryTime;
@@ -60,7 +68,8 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
       long startTime,
       long queryTime,
       long value,
-      long lastModified) {
+      long lastModified,
+      boolean striped) {
     this.needClose = needClose;
     this.properties = Map.copyOf(CommonUtils.requireNonEmpty(properties));
     this.key = Objects.requireNonNull(key);
@@ -69,6 +78,8 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
     this.unit = CommonUtils.requireNonEmpty(unit);
     this.startTime = startTime;
     this.queryTime = queryTime;
+    this.striped = striped;
+    this.value = striped ? new StripedValue() : new AtomicValue();
     this.value.set(value);
     this.lastModified.set(lastModified);
   }
@@ -93,8 +104,35 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
     return unit;
   }
 
-  private long updateLastModified() {
-    return lastModified.updateAndGet(last -> Math.max(last, CommonUtils.current()));
+  private void updateLastModified() {
+    if (striped) {
+      // the cas is executed only once per tick so the threads don't contend for lastModified
+      long now = CoarseClock.current();
+      if (now > lastModified.get()) lastModified.accumulateAndGet(now, Math::max);
+    } else lastModified.updateAndGet(last -> Math.max(last, CommonUtils.current()));
+  }
+
+  /** @return true if this counter is in striped mode */
+  public boolean striped() {
+    return striped;
+  }
+
+  /** Increments by one the current value. */
+  public void increment() {
+    add(1);
+  }
+
+  /**
+   * Adds the given value to the current value.
+   *
+   * @param delta the value to add
+   */
+  public void add(long delta) {
+    try {
+      value.add(delta);
+    } finally {
+      updateLastModified();
+    }
   }
 
   /**
@@ -104,7 +142,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
    */
   public long incrementAndGet() {
     try {
-      return value.incrementAndGet();
+      return value.addAndGet(1);
     } finally {
       updateLastModified();
     }
@@ -117,7 +155,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
    */
   public long getAndIncrement() {
     try {
-      return value.getAndIncrement();
+      return value.getAndAdd(1);
     } finally {
       updateLastModified();
     }
@@ -130,7 +168,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
    */
   public long decrementAndGet() {
     try {
-      return value.decrementAndGet();
+      return value.addAndGet(-1);
     } finally {
       updateLastModified();
     }
@@ -143,7 +181,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
    */
   public long getAndDecrement() {
     try {
-      return value.getAndDecrement();
+      return value.getAndAdd(-1);
     } finally {
       updateLastModified();
     }
@@ -279,6 +317,7 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
     private long startTime = CommonUtils.current();
     private long lastModified = startTime;
     private long queryTime = CommonUtils.current();
+    private boolean striped = false;
 
     private Builder() {}
 
@@ -334,6 +373,18 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
       return this;
     }
 
+    /**
+     * keep the value by striped cells. It is useful to the counter which is updated by many
+     * threads. Noted that the precision of last modified time is reduced to 100 ms.
+     *
+     * @return this builder
+     */
+    @Optional("default is atomic mode")
+    public Builder striped() {
+      this.striped = true;
+      return this;
+    }
+
     private void checkArgument() {
       Objects.requireNonNull(key);
       CommonUtils.requireNonEmpty(item);
@@ -399,7 +450,78 @@ public final class Counter extends ReleaseOnce implements CounterMBean, Serializ
           startTime,
           queryTime,
           value,
-          lastModified);
+          lastModified,
+          striped);
+    }
+  }
+
+  /** the storage of counter value */
+  private interface Value extends Serializable {
+    long get();
+
+    void set(long newValue);
+
+    void add(long delta);
+
+    long addAndGet(long delta);
+
+    long getAndAdd(long delta);
+
+    long getAndSet(long newValue);
+  }
+
+  private static final class AtomicValue extends AtomicLong implements Value {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void add(long delta) {
+      addAndGet(delta);
+    }
+  }
+
+  /**
+   * the values returned by this class are NOT atomic since LongAdder does not offer snapshot. Noted
+   * that this class wraps the LongAdder rather than extending it. The serialized LongAdder is
+   * resolved to a plain LongAdder so a subclass can't be deserialized.
+   */
+  private static final class StripedValue implements Value {
+    private static final long serialVersionUID = 1L;
+    private final LongAdder adder = new LongAdder();
+
+    @Override
+    public long get() {
+      return adder.sum();
+    }
+
+    @Override
+    public void set(long newValue) {
+      adder.reset();
+      adder.add(newValue);
+    }
+
+    @Override
+    public void add(long delta) {
+      adder.add(delta);
+    }
+
+    @Override
+    public long addAndGet(long delta) {
+      adder.add(delta);
+      return adder.sum();
+    }
+
+    @Override
+    public long getAndAdd(long delta) {
+      long previous = adder.sum();
+      adder.add(delta);
+      return previous;
+    }
+
+    @Override
+    public long getAndSet(long newValue) {
+      long previous = adder.sumThenReset();
+      adder.add(newValue);
+      return previous;
     }
   }
 }
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.metrics.basic;
+
+import java.util.Map;
+import java.util.Objects;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.metrics.BeanChannel;
+
+/** This class is an implementation of {@link GaugeMBean}. */
+public final class Gauge extends ReleaseOnce implements GaugeMBean {
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @VisibleForTesting final boolean needClose;
+  @VisibleForTesting final Map<String, String> properties;
+  private final ObjectKey key;
+  private final String item;
+  private final String document;
+  private final String unit;
+  private final long startTime;
+  private final long queryTime;
+  private volatile double value;
+  private volatile long lastModified;
+
+  private Gauge(
+      boolean needClose,
+      Map<String, String> properties,
+      ObjectKey key,
+      String item,
+      String document,
+      String unit,
+      long startTime,
+      long queryTime,
+      double value,
+      long lastModified) {
+    this.needClose = needClose;
+    this.properties = Map.copyOf(CommonUtils.requireNonEmpty(properties));
+    this.key = Objects.requireNonNull(key);
+    this.item = CommonUtils.requireNonEmpty(item);
+    this.document = CommonUtils.requireNonEmpty(document);
+    this.unit = CommonUtils.requireNonEmpty(unit);
+    this.startTime = startTime;
+    this.queryTime = queryTime;
+    this.value = value;
+    this.lastModified = lastModified;
+  }
+
+  @Override
+  public ObjectKey key() {
+    return key;
+  }
+
+  @Override
+  public String item() {
+    return item;
+  }
+
+  @Override
+  public String getDocument() {
+    return document;
+  }
+
+  @Override
+  public String getUnit() {
+    return unit;
+  }
+
+  /**
+   * update the value of this gauge. Noted that the gauge is NOT a accumulator so the previous value
+   * is replaced.
+   *
+   * @param newValue new value
+   */
+  public void set(double newValue) {
+    this.value = newValue;
+    this.lastModified = CommonUtils.current();
+  }
+
+  @Override
+  public long getStartTime() {
+    return startTime;
+  }
+
+  @Override
+  public long getQueryTime() {
+    return queryTime;
+  }
+
+  @Override
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  @Override
+  public double getValue() {
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof Gauge) {
+      Gauge another = (Gauge) obj;
+      return another.key().equals(key())
+          && another.item().equals(item())
+          && another.getStartTime() == getStartTime()
+          && Double.compare(another.getValue(), getValue()) == 0
+          && another.getUnit().equals(getUnit())
+          && another.getQueryTime() == getQueryTime()
+          && another.getLastModified() == getLastModified();
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key(), item(), getValue(), getStartTime(), getUnit(), getLastModified());
+  }
+
+  @Override
+  public String toString() {
+    return "key:"
+        + key()
+        + " item:"
+        + item()
+        + " start:"
+        + getStartTime()
+        + " value:"
+        + getValue()
+        + " unit:"
+        + getUnit()
+        + " query time:"
+        + getQueryTime()
+        + " last modified:"
+        + getLastModified();
+  }
+
+  @Override
+  protected void doClose() {
+    if (needClose) BeanChannel.unregister(GaugeMBean.DOMAIN, properties);
+  }
+
+  public static class Builder implements oharastream.ohara.common.pattern.Builder<Gauge> {
+    private String id;
+    private ObjectKey key;
+    private String item;
+    private String unit = "N/A";
+    private String document = "there is no document for this gauge...";
+    private double value = 0;
+    private long startTime = CommonUtils.current();
+    private long lastModified = startTime;
+    private long queryTime = CommonUtils.current();
+
+    private Builder() {}
+
+    @Optional("default is random string")
+    public Builder id(String id) {
+      this.id = CommonUtils.requireNonEmpty(id);
+      return this;
+    }
+
+    public Builder key(ObjectKey key) {
+      this.key = Objects.requireNonNull(key);
+      return this;
+    }
+
+    public Builder item(String item) {
+      this.item = CommonUtils.requireNonEmpty(item);
+      return this;
+    }
+
+    @Optional("default is zero")
+    public Builder value(double value) {
+      this.value = value;
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder startTime(long startTime) {
+      this.startTime = CommonUtils.requirePositiveLong(startTime);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder lastModified(long lastModified) {
+      this.lastModified = CommonUtils.requirePositiveLong(lastModified);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder queryTime(long queryTime) {
+      this.queryTime = CommonUtils.requirePositiveLong(queryTime);
+      return this;
+    }
+
+    @Optional("default is no document")
+    public Builder document(String document) {
+      this.document = CommonUtils.requireNonEmpty(document);
+      return this;
+    }
+
+    @Optional("default is N/A")
+    public Builder unit(String unit) {
+      this.unit = CommonUtils.requireNonEmpty(unit);
+      return this;
+    }
+
+    private void checkArgument() {
+      Objects.requireNonNull(key);
+      CommonUtils.requireNonEmpty(item);
+    }
+
+    /**
+     * create a mutable gauge without registry.
+     *
+     * @return Gauge
+     */
+    @Override
+    public Gauge build() {
+      return build(false);
+    }
+
+    /**
+     * create and register a mutable gauge.
+     *
+     * @return Gauge
+     */
+    public Gauge register() {
+      Gauge gauge = build(true);
+      return BeanChannel.<Gauge>register()
+          .domain(DOMAIN)
+          .properties(gauge.properties)
+          .beanObject(gauge)
+          .run();
+    }
+
+    private Gauge build(boolean needClose) {
+      checkArgument();
+      var properties =
+          Map.of(
+              TYPE_KEY,
+              TYPE_VALUE,
+              KEY_KEY,
+              key.toPlain(),
+              ITEM_KEY,
+              item,
+              // see Counter.Builder
+              ID_KEY,
+              CommonUtils.isEmpty(id) ? CommonUtils.randomString() : id);
+      return new Gauge(
+          needClose,
+          properties,
+          key,
+          item,
+          document,
+          unit,
+          startTime,
+          queryTime,
+          value,
+          lastModified);
+    }
+  }
+}
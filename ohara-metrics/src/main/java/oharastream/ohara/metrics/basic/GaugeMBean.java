@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.metrics.basic;
+
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.metrics.BeanObject;
+
+/**
+ * A gauge is a instantaneous measurement of a value. It is different from {@link CounterMBean} that
+ * the value is a double and it may go up and down. It is used to carry the metrics copied from
+ * other metrics systems (for example, kafka streams).
+ */
+public interface GaugeMBean {
+  String DOMAIN = CounterMBean.DOMAIN;
+  String TYPE_KEY = CounterMBean.TYPE_KEY;
+  String TYPE_VALUE = "gauge";
+  String KEY_KEY = CounterMBean.KEY_KEY;
+  String ITEM_KEY = CounterMBean.ITEM_KEY;
+  String ID_KEY = CounterMBean.ID_KEY;
+
+  String START_TIME_KEY = "StartTime";
+  String VALUE_KEY = "Value";
+  String LAST_MODIFIED_KEY = "LastModified";
+  String DOCUMENT_KEY = "Document";
+  String UNIT_KEY = "Unit";
+
+  static boolean is(BeanObject obj) {
+    return obj.domainName().equals(DOMAIN)
+        && TYPE_VALUE.equals(obj.properties().get(TYPE_KEY))
+        && obj.properties().containsKey(ITEM_KEY)
+        && obj.properties().containsKey(KEY_KEY)
+        && ObjectKey.ofPlain(obj.properties().get(KEY_KEY)).isPresent()
+        && obj.attributes().containsKey(START_TIME_KEY)
+        && obj.attributes().containsKey(LAST_MODIFIED_KEY)
+        && obj.attributes().containsKey(VALUE_KEY)
+        && obj.attributes().containsKey(DOCUMENT_KEY)
+        && obj.attributes().containsKey(UNIT_KEY);
+  }
+
+  static GaugeMBean of(BeanObject obj) {
+    return Gauge.builder()
+        // NOTED: key is NOT a part of attribute!!!!
+        .key(ObjectKey.requirePlain(obj.properties().get(KEY_KEY)))
+        // NOTED: item is NOT a part of attribute!!!!
+        .item(obj.properties().get(ITEM_KEY))
+        .startTime((long) obj.attributes().get(START_TIME_KEY))
+        .lastModified((long) obj.attributes().get(LAST_MODIFIED_KEY))
+        .queryTime(obj.queryTime())
+        .value((double) obj.attributes().get(VALUE_KEY))
+        .document((String) obj.attributes().get(DOCUMENT_KEY))
+        .unit((String) obj.attributes().get(UNIT_KEY))
+        .build();
+  }
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return key of this gauge
+   */
+  ObjectKey key();
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return item of this gauge
+   */
+  String item();
+
+  /** @return the start time of this gauge */
+  long getStartTime();
+
+  /** @return the time of querying metrics object */
+  long getQueryTime();
+
+  /** @return the time of modifying metrics object */
+  long getLastModified();
+
+  /** @return current value of gauge */
+  double getValue();
+
+  /** @return the unit of value */
+  String getUnit();
+
+  /** @return description of gauge */
+  String getDocument();
+}
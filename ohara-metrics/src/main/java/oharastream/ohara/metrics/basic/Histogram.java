@@ -0,0 +1,343 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.metrics.basic;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.metrics.BeanChannel;
+
+/**
+ * This class is an implementation of {@link HistogramMBean}. The recorded values are put into
+ * log-linear buckets (similar to HdrHistogram) so the memory is fixed and the recording is
+ * lock-free. The relative error of percentiles is less than 1/64. Noted that the negative values
+ * are recorded as zero.
+ */
+public final class Histogram extends ReleaseOnce implements HistogramMBean {
+
+  private static final int HALF_SUB_BUCKETS_BITS = 5;
+  @VisibleForTesting static final int HALF_SUB_BUCKETS = 1 << HALF_SUB_BUCKETS_BITS;
+  /** the values smaller than this number are recorded exactly. */
+  private static final int SUB_BUCKETS = HALF_SUB_BUCKETS * 2;
+  /** the highest bit of a positive long is 62 */
+  private static final int MAX_SHIFT = 62 - HALF_SUB_BUCKETS_BITS;
+
+  @VisibleForTesting
+  static final int NUMBER_OF_BUCKETS = SUB_BUCKETS + MAX_SHIFT * HALF_SUB_BUCKETS;
+
+  @VisibleForTesting
+  static int index(long value) {
+    if (value < SUB_BUCKETS) return (int) Math.max(0, value);
+    int shift = 63 - Long.numberOfLeadingZeros(value) - HALF_SUB_BUCKETS_BITS;
+    int mantissa = (int) (value >>> shift);
+    return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (mantissa - HALF_SUB_BUCKETS);
+  }
+
+  /**
+   * @param index bucket index
+   * @return the middle value of bucket
+   */
+  @VisibleForTesting
+  static long value(int index) {
+    if (index < SUB_BUCKETS) return index;
+    int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    long mantissa = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    return (mantissa << shift) + ((1L << shift) - 1) / 2;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @VisibleForTesting final boolean needClose;
+  @VisibleForTesting final Map<String, String> properties;
+  private final ObjectKey key;
+  private final String item;
+  private final String document;
+  private final String unit;
+  private final long startTime;
+  private final long queryTime;
+  private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+  private volatile long lastModified;
+
+  private Histogram(
+      boolean needClose,
+      Map<String, String> properties,
+      ObjectKey key,
+      String item,
+      String document,
+      String unit,
+      long startTime,
+      long queryTime) {
+    this.needClose = needClose;
+    this.properties = Map.copyOf(CommonUtils.requireNonEmpty(properties));
+    this.key = Objects.requireNonNull(key);
+    this.item = CommonUtils.requireNonEmpty(item);
+    this.document = CommonUtils.requireNonEmpty(document);
+    this.unit = CommonUtils.requireNonEmpty(unit);
+    this.startTime = startTime;
+    this.queryTime = queryTime;
+    this.lastModified = startTime;
+  }
+
+  /**
+   * record a value and update the last modified time. The time is read from {@link CoarseClock} so
+   * the hot path does not call {@link CommonUtils#current()} for each value.
+   *
+   * @param value value
+   */
+  public void update(long value) {
+    long v = Math.max(0, value);
+    buckets.incrementAndGet(index(v));
+    count.increment();
+    sum.add(v);
+    if (v < min.get()) min.accumulateAndGet(v, Math::min);
+    if (v > max.get()) max.accumulateAndGet(v, Math::max);
+    long now = CoarseClock.current();
+    if (now > lastModified) lastModified = now;
+  }
+
+  private long percentile(double quantile) {
+    long total = 0;
+    long[] snapshot = new long[NUMBER_OF_BUCKETS];
+    for (int i = 0; i != snapshot.length; ++i) {
+      snapshot[i] = buckets.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) return 0;
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long accumulated = 0;
+    for (int i = 0; i != snapshot.length; ++i) {
+      accumulated += snapshot[i];
+      if (accumulated >= rank) return Math.min(getMax(), Math.max(getMin(), value(i)));
+    }
+    return getMax();
+  }
+
+  @Override
+  public ObjectKey key() {
+    return key;
+  }
+
+  @Override
+  public String item() {
+    return item;
+  }
+
+  @Override
+  public String getDocument() {
+    return document;
+  }
+
+  @Override
+  public String getUnit() {
+    return unit;
+  }
+
+  @Override
+  public long getStartTime() {
+    return startTime;
+  }
+
+  @Override
+  public long getQueryTime() {
+    return queryTime;
+  }
+
+  @Override
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public long getMin() {
+    long v = min.get();
+    return v == Long.MAX_VALUE ? 0 : v;
+  }
+
+  @Override
+  public long getMax() {
+    long v = max.get();
+    return v == Long.MIN_VALUE ? 0 : v;
+  }
+
+  @Override
+  public double getMean() {
+    long c = count.sum();
+    return c == 0 ? 0 : (double) sum.sum() / (double) c;
+  }
+
+  @Override
+  public long getP50() {
+    return percentile(0.5);
+  }
+
+  @Override
+  public long getP75() {
+    return percentile(0.75);
+  }
+
+  @Override
+  public long getP95() {
+    return percentile(0.95);
+  }
+
+  @Override
+  public long getP99() {
+    return percentile(0.99);
+  }
+
+  @Override
+  public long getP999() {
+    return percentile(0.999);
+  }
+
+  @Override
+  public String toString() {
+    return "key:"
+        + key()
+        + " item:"
+        + item()
+        + " start:"
+        + getStartTime()
+        + " count:"
+        + getCount()
+        + " mean:"
+        + getMean()
+        + " p99:"
+        + getP99()
+        + " unit:"
+        + getUnit();
+  }
+
+  @Override
+  protected void doClose() {
+    if (needClose) BeanChannel.unregister(HistogramMBean.DOMAIN, properties);
+  }
+
+  public static class Builder implements oharastream.ohara.common.pattern.Builder<Histogram> {
+    private String id;
+    private ObjectKey key;
+    private String item;
+    private String unit = "N/A";
+    private String document = "there is no document for this histogram...";
+    private long startTime = CommonUtils.current();
+    private long queryTime = CommonUtils.current();
+
+    private Builder() {}
+
+    @Optional("default is random string")
+    public Builder id(String id) {
+      this.id = CommonUtils.requireNonEmpty(id);
+      return this;
+    }
+
+    public Builder key(ObjectKey key) {
+      this.key = Objects.requireNonNull(key);
+      return this;
+    }
+
+    public Builder item(String item) {
+      this.item = CommonUtils.requireNonEmpty(item);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder startTime(long startTime) {
+      this.startTime = CommonUtils.requirePositiveLong(startTime);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder queryTime(long queryTime) {
+      this.queryTime = CommonUtils.requirePositiveLong(queryTime);
+      return this;
+    }
+
+    @Optional("default is no document")
+    public Builder document(String document) {
+      this.document = CommonUtils.requireNonEmpty(document);
+      return this;
+    }
+
+    @Optional("default is N/A")
+    public Builder unit(String unit) {
+      this.unit = CommonUtils.requireNonEmpty(unit);
+      return this;
+    }
+
+    private void checkArgument() {
+      Objects.requireNonNull(key);
+      CommonUtils.requireNonEmpty(item);
+    }
+
+    /**
+     * create a mutable histogram without registry.
+     *
+     * @return Histogram
+     */
+    @Override
+    public Histogram build() {
+      return build(false);
+    }
+
+    /**
+     * create and register a mutable histogram.
+     *
+     * @return Histogram
+     */
+    public Histogram register() {
+      Histogram histogram = build(true);
+      return BeanChannel.<Histogram>register()
+          .domain(DOMAIN)
+          .properties(histogram.properties)
+          .beanObject(histogram)
+          .run();
+    }
+
+    private Histogram build(boolean needClose) {
+      checkArgument();
+      var properties =
+          Map.of(
+              TYPE_KEY,
+              TYPE_VALUE,
+              KEY_KEY,
+              key.toPlain(),
+              ITEM_KEY,
+              item,
+              // see Counter.Builder
+              ID_KEY,
+              CommonUtils.isEmpty(id) ? CommonUtils.randomString() : id);
+      return new Histogram(needClose, properties, key, item, document, unit, startTime, queryTime);
+    }
+  }
+}
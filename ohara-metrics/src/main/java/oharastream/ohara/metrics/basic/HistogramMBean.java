@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.metrics.basic;
+
+import java.util.Map;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.metrics.BeanObject;
+
+/**
+ * A histogram tracks the distribution of recorded values (for example, latency). Noted that the
+ * percentiles are approximate values (see {@link Histogram}).
+ */
+public interface HistogramMBean {
+  String DOMAIN = CounterMBean.DOMAIN;
+  String TYPE_KEY = CounterMBean.TYPE_KEY;
+  String TYPE_VALUE = "histogram";
+  String KEY_KEY = CounterMBean.KEY_KEY;
+  String ITEM_KEY = CounterMBean.ITEM_KEY;
+  String ID_KEY = CounterMBean.ID_KEY;
+
+  String START_TIME_KEY = "StartTime";
+  String LAST_MODIFIED_KEY = "LastModified";
+  String DOCUMENT_KEY = "Document";
+  String UNIT_KEY = "Unit";
+  String COUNT_KEY = "Count";
+  String MIN_KEY = "Min";
+  String MAX_KEY = "Max";
+  String MEAN_KEY = "Mean";
+  String P50_KEY = "P50";
+  String P75_KEY = "P75";
+  String P95_KEY = "P95";
+  String P99_KEY = "P99";
+  String P999_KEY = "P999";
+
+  static boolean is(BeanObject obj) {
+    return obj.domainName().equals(DOMAIN)
+        && TYPE_VALUE.equals(obj.properties().get(TYPE_KEY))
+        && obj.properties().containsKey(ITEM_KEY)
+        && obj.properties().containsKey(KEY_KEY)
+        && ObjectKey.ofPlain(obj.properties().get(KEY_KEY)).isPresent()
+        && obj.attributes().containsKey(START_TIME_KEY)
+        && obj.attributes().containsKey(LAST_MODIFIED_KEY)
+        && obj.attributes().containsKey(DOCUMENT_KEY)
+        && obj.attributes().containsKey(UNIT_KEY)
+        && obj.attributes().containsKey(COUNT_KEY);
+  }
+
+  /**
+   * create a immutable snapshot from the bean object.
+   *
+   * @param obj bean object
+   * @return histogram snapshot
+   */
+  static HistogramMBean of(BeanObject obj) {
+    ObjectKey key = ObjectKey.requirePlain(obj.properties().get(KEY_KEY));
+    String item = obj.properties().get(ITEM_KEY);
+    Map<String, Object> attributes = Map.copyOf(obj.attributes());
+    long queryTime = obj.queryTime();
+    return new HistogramMBean() {
+      @Override
+      public ObjectKey key() {
+        return key;
+      }
+
+      @Override
+      public String item() {
+        return item;
+      }
+
+      @Override
+      public long getStartTime() {
+        return (long) attributes.get(START_TIME_KEY);
+      }
+
+      @Override
+      public long getQueryTime() {
+        return queryTime;
+      }
+
+      @Override
+      public long getLastModified() {
+        return (long) attributes.get(LAST_MODIFIED_KEY);
+      }
+
+      @Override
+      public String getUnit() {
+        return (String) attributes.get(UNIT_KEY);
+      }
+
+      @Override
+      public String getDocument() {
+        return (String) attributes.get(DOCUMENT_KEY);
+      }
+
+      @Override
+      public long getCount() {
+        return (long) attributes.get(COUNT_KEY);
+      }
+
+      @Override
+      public long getMin() {
+        return (long) attributes.getOrDefault(MIN_KEY, 0L);
+      }
+
+      @Override
+      public long getMax() {
+        return (long) attributes.getOrDefault(MAX_KEY, 0L);
+      }
+
+      @Override
+      public double getMean() {
+        return (double) attributes.getOrDefault(MEAN_KEY, 0D);
+      }
+
+      @Override
+      public long getP50() {
+        return (long) attributes.getOrDefault(P50_KEY, 0L);
+      }
+
+      @Override
+      public long getP75() {
+        return (long) attributes.getOrDefault(P75_KEY, 0L);
+      }
+
+      @Override
+      public long getP95() {
+        return (long) attributes.getOrDefault(P95_KEY, 0L);
+      }
+
+      @Override
+      public long getP99() {
+        return (long) attributes.getOrDefault(P99_KEY, 0L);
+      }
+
+      @Override
+      public long getP999() {
+        return (long) attributes.getOrDefault(P999_KEY, 0L);
+      }
+    };
+  }
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return key of this histogram
+   */
+  ObjectKey key();
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return item of this histogram
+   */
+  String item();
+
+  /** @return the start time of this histogram */
+  long getStartTime();
+
+  /** @return the time of querying metrics object */
+  long getQueryTime();
+
+  /** @return the time of recording last value */
+  long getLastModified();
+
+  /** @return the unit of recorded values */
+  String getUnit();
+
+  /** @return description of histogram */
+  String getDocument();
+
+  /** @return the number of recorded values */
+  long getCount();
+
+  /** @return the min recorded value. zero if there is no recorded value */
+  long getMin();
+
+  /** @return the max recorded value. zero if there is no recorded value */
+  long getMax();
+
+  /** @return the mean of recorded values. zero if there is no recorded value */
+  double getMean();
+
+  /** @return the 50th percentile */
+  long getP50();
+
+  /** @return the 75th percentile */
+  long getP75();
+
+  /** @return the 95th percentile */
+  long getP95();
+
+  /** @return the 99th percentile */
+  long getP99();
+
+  /** @return the 99.9th percentile */
+  long getP999();
+}
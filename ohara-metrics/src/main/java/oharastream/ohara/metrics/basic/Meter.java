@@ -0,0 +1,329 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import oharastream.ohara.common.annotations.Optional;
+import oharastream.ohara.common.annotations.VisibleForTesting;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.metrics.BeanChannel;
+
+/**
+ * This class is an implementation of {@link MeterMBean}. The events are accumulated by striped
+ * cells and the rates are updated every {@link #TICK_INTERVAL} milliseconds. The moving average
+ * rates are exponentially weighted (the same as the load average of unix) so the recent events are
+ * more significant than the old events. It is different from {@link Counter#valueInPerSec()} which
+ * is the average of whole lifetime.
+ *
+ * <p>There is no background thread. The rates are ticked by the thread marking events or reading
+ * rates, and the lagged ticks are caught up at once. Both of them read the time from {@link
+ * CoarseClock} so the ticks are not moved back and forth by different clocks.
+ */
+public final class Meter extends ReleaseOnce implements MeterMBean {
+  @VisibleForTesting static final long TICK_INTERVAL = 5000;
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** exponentially weighted moving average */
+  private static final class Ewma {
+    private final double alpha;
+    private volatile boolean initialized = false;
+    private volatile double rate = 0;
+
+    private Ewma(int minutes) {
+      this.alpha = 1 - Math.exp(-TICK_INTERVAL / 1000D / 60D / minutes);
+    }
+
+    private void tick(double instantRate) {
+      if (initialized) rate += alpha * (instantRate - rate);
+      else {
+        rate = instantRate;
+        initialized = true;
+      }
+    }
+  }
+
+  @VisibleForTesting final boolean needClose;
+  @VisibleForTesting final Map<String, String> properties;
+  private final ObjectKey key;
+  private final String item;
+  private final String document;
+  private final String unit;
+  private final long startTime;
+  private final long queryTime;
+  private final LongAdder count = new LongAdder();
+  /** the events which are not ticked yet */
+  private final LongAdder uncounted = new LongAdder();
+
+  private final AtomicLong lastTick;
+  private final Ewma m1 = new Ewma(1);
+  private final Ewma m5 = new Ewma(5);
+  private final Ewma m15 = new Ewma(15);
+  private volatile double instantRate = 0;
+  private volatile long lastModified;
+
+  private Meter(
+      boolean needClose,
+      Map<String, String> properties,
+      ObjectKey key,
+      String item,
+      String document,
+      String unit,
+      long startTime,
+      long queryTime) {
+    this.needClose = needClose;
+    this.properties = Map.copyOf(CommonUtils.requireNonEmpty(properties));
+    this.key = Objects.requireNonNull(key);
+    this.item = CommonUtils.requireNonEmpty(item);
+    this.document = CommonUtils.requireNonEmpty(document);
+    this.unit = CommonUtils.requireNonEmpty(unit);
+    this.startTime = startTime;
+    this.queryTime = queryTime;
+    this.lastModified = startTime;
+    this.lastTick = new AtomicLong(startTime);
+  }
+
+  /** mark an event. */
+  public void mark() {
+    mark(1);
+  }
+
+  /**
+   * mark events. The time is taken from a coarse clock so this method is cheap.
+   *
+   * @param n number of events
+   */
+  public void mark(long n) {
+    long now = CoarseClock.current();
+    tickIfNecessary(now);
+    count.add(n);
+    uncounted.add(n);
+    if (now > lastModified) lastModified = now;
+  }
+
+  private void tickIfNecessary(long now) {
+    long previous = lastTick.get();
+    long age = now - previous;
+    if (age >= TICK_INTERVAL && lastTick.compareAndSet(previous, now - age % TICK_INTERVAL))
+      for (long i = 0; i != age / TICK_INTERVAL; ++i) tick();
+  }
+
+  /** move the rates to next tick. */
+  @VisibleForTesting
+  void tick() {
+    double rate = uncounted.sumThenReset() / (TICK_INTERVAL / 1000D);
+    instantRate = rate;
+    m1.tick(rate);
+    m5.tick(rate);
+    m15.tick(rate);
+  }
+
+  @Override
+  public ObjectKey key() {
+    return key;
+  }
+
+  @Override
+  public String item() {
+    return item;
+  }
+
+  @Override
+  public String getDocument() {
+    return document;
+  }
+
+  @Override
+  public String getUnit() {
+    return unit;
+  }
+
+  @Override
+  public long getStartTime() {
+    return startTime;
+  }
+
+  @Override
+  public long getQueryTime() {
+    return queryTime;
+  }
+
+  @Override
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public double getMeanRate() {
+    long elapsed = CoarseClock.current() - startTime;
+    return elapsed <= 0 ? 0 : count.sum() / (elapsed / 1000D);
+  }
+
+  @Override
+  public double getInstantRate() {
+    tickIfNecessary(CoarseClock.current());
+    return instantRate;
+  }
+
+  @Override
+  public double getOneMinuteRate() {
+    tickIfNecessary(CoarseClock.current());
+    return m1.rate;
+  }
+
+  @Override
+  public double getFiveMinuteRate() {
+    tickIfNecessary(CoarseClock.current());
+    return m5.rate;
+  }
+
+  @Override
+  public double getFifteenMinuteRate() {
+    tickIfNecessary(CoarseClock.current());
+    return m15.rate;
+  }
+
+  @Override
+  public String toString() {
+    return "key:"
+        + key()
+        + " item:"
+        + item()
+        + " start:"
+        + getStartTime()
+        + " count:"
+        + getCount()
+        + " 1m rate:"
+        + getOneMinuteRate()
+        + " unit:"
+        + getUnit();
+  }
+
+  @Override
+  protected void doClose() {
+    if (needClose) BeanChannel.unregister(MeterMBean.DOMAIN, properties);
+  }
+
+  public static class Builder implements oharastream.ohara.common.pattern.Builder<Meter> {
+    private String id;
+    private ObjectKey key;
+    private String item;
+    private String unit = "N/A";
+    private String document = "there is no document for this meter...";
+    private long startTime = CommonUtils.current();
+    private long queryTime = CommonUtils.current();
+
+    private Builder() {}
+
+    @Optional("default is random string")
+    public Builder id(String id) {
+      this.id = CommonUtils.requireNonEmpty(id);
+      return this;
+    }
+
+    public Builder key(ObjectKey key) {
+      this.key = Objects.requireNonNull(key);
+      return this;
+    }
+
+    public Builder item(String item) {
+      this.item = CommonUtils.requireNonEmpty(item);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder startTime(long startTime) {
+      this.startTime = CommonUtils.requirePositiveLong(startTime);
+      return this;
+    }
+
+    @Optional("default is current time")
+    Builder queryTime(long queryTime) {
+      this.queryTime = CommonUtils.requirePositiveLong(queryTime);
+      return this;
+    }
+
+    @Optional("default is no document")
+    public Builder document(String document) {
+      this.document = CommonUtils.requireNonEmpty(document);
+      return this;
+    }
+
+    @Optional("default is N/A")
+    public Builder unit(String unit) {
+      this.unit = CommonUtils.requireNonEmpty(unit);
+      return this;
+    }
+
+    private void checkArgument() {
+      Objects.requireNonNull(key);
+      CommonUtils.requireNonEmpty(item);
+    }
+
+    /**
+     * create a mutable meter without registry.
+     *
+     * @return Meter
+     */
+    @Override
+    public Meter build() {
+      return build(false);
+    }
+
+    /**
+     * create and register a mutable meter.
+     *
+     * @return Meter
+     */
+    public Meter register() {
+      Meter meter = build(true);
+      return BeanChannel.<Meter>register()
+          .domain(DOMAIN)
+          .properties(meter.properties)
+          .beanObject(meter)
+          .run();
+    }
+
+    private Meter build(boolean needClose) {
+      checkArgument();
+      var properties =
+          Map.of(
+              TYPE_KEY,
+              TYPE_VALUE,
+              KEY_KEY,
+              key.toPlain(),
+              ITEM_KEY,
+              item,
+              // see Counter.Builder
+              ID_KEY,
+              CommonUtils.isEmpty(id) ? CommonUtils.randomString() : id);
+      return new Meter(needClose, properties, key, item, document, unit, startTime, queryTime);
+    }
+  }
+}
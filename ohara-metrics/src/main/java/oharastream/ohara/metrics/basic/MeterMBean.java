@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import java.util.Map;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.metrics.BeanObject;
+
+/**
+ * A meter tracks the rate of events. Apart from the mean rate, it offers the exponentially weighted
+ * moving average rates (1, 5 and 15 minutes) and the instantaneous rate. All rates are in "unit /
+ * second" (see {@link Meter}).
+ */
+public interface MeterMBean {
+  String DOMAIN = CounterMBean.DOMAIN;
+  String TYPE_KEY = CounterMBean.TYPE_KEY;
+  String TYPE_VALUE = "meter";
+  String KEY_KEY = CounterMBean.KEY_KEY;
+  String ITEM_KEY = CounterMBean.ITEM_KEY;
+  String ID_KEY = CounterMBean.ID_KEY;
+
+  String START_TIME_KEY = "StartTime";
+  String LAST_MODIFIED_KEY = "LastModified";
+  String DOCUMENT_KEY = "Document";
+  String UNIT_KEY = "Unit";
+  String COUNT_KEY = "Count";
+  String MEAN_RATE_KEY = "MeanRate";
+  String INSTANT_RATE_KEY = "InstantRate";
+  String ONE_MINUTE_RATE_KEY = "OneMinuteRate";
+  String FIVE_MINUTE_RATE_KEY = "FiveMinuteRate";
+  String FIFTEEN_MINUTE_RATE_KEY = "FifteenMinuteRate";
+
+  static boolean is(BeanObject obj) {
+    return obj.domainName().equals(DOMAIN)
+        && TYPE_VALUE.equals(obj.properties().get(TYPE_KEY))
+        && obj.properties().containsKey(ITEM_KEY)
+        && obj.properties().containsKey(KEY_KEY)
+        && ObjectKey.ofPlain(obj.properties().get(KEY_KEY)).isPresent()
+        && obj.attributes().containsKey(START_TIME_KEY)
+        && obj.attributes().containsKey(LAST_MODIFIED_KEY)
+        && obj.attributes().containsKey(DOCUMENT_KEY)
+        && obj.attributes().containsKey(UNIT_KEY)
+        && obj.attributes().containsKey(COUNT_KEY);
+  }
+
+  /**
+   * create a immutable snapshot from the bean object.
+   *
+   * @param obj bean object
+   * @return meter snapshot
+   */
+  static MeterMBean of(BeanObject obj) {
+    ObjectKey key = ObjectKey.requirePlain(obj.properties().get(KEY_KEY));
+    String item = obj.properties().get(ITEM_KEY);
+    Map<String, Object> attributes = Map.copyOf(obj.attributes());
+    long queryTime = obj.queryTime();
+    return new MeterMBean() {
+      @Override
+      public ObjectKey key() {
+        return key;
+      }
+
+      @Override
+      public String item() {
+        return item;
+      }
+
+      @Override
+      public long getStartTime() {
+        return (long) attributes.get(START_TIME_KEY);
+      }
+
+      @Override
+      public long getQueryTime() {
+        return queryTime;
+      }
+
+      @Override
+      public long getLastModified() {
+        return (long) attributes.get(LAST_MODIFIED_KEY);
+      }
+
+      @Override
+      public String getUnit() {
+        return (String) attributes.get(UNIT_KEY);
+      }
+
+      @Override
+      public String getDocument() {
+        return (String) attributes.get(DOCUMENT_KEY);
+      }
+
+      @Override
+      public long getCount() {
+        return (long) attributes.get(COUNT_KEY);
+      }
+
+      @Override
+      public double getMeanRate() {
+        return (double) attributes.getOrDefault(MEAN_RATE_KEY, 0D);
+      }
+
+      @Override
+      public double getInstantRate() {
+        return (double) attributes.getOrDefault(INSTANT_RATE_KEY, 0D);
+      }
+
+      @Override
+      public double getOneMinuteRate() {
+        return (double) attributes.getOrDefault(ONE_MINUTE_RATE_KEY, 0D);
+      }
+
+      @Override
+      public double getFiveMinuteRate() {
+        return (double) attributes.getOrDefault(FIVE_MINUTE_RATE_KEY, 0D);
+      }
+
+      @Override
+      public double getFifteenMinuteRate() {
+        return (double) attributes.getOrDefault(FIFTEEN_MINUTE_RATE_KEY, 0D);
+      }
+    };
+  }
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return key of this meter
+   */
+  ObjectKey key();
+
+  /**
+   * NOTED: this is NOT a part of java beans!!!
+   *
+   * @return item of this meter
+   */
+  String item();
+
+  /** @return the start time of this meter */
+  long getStartTime();
+
+  /** @return the time of querying metrics object */
+  long getQueryTime();
+
+  /** @return the time of marking last event */
+  long getLastModified();
+
+  /** @return the unit of events */
+  String getUnit();
+
+  /** @return description of meter */
+  String getDocument();
+
+  /** @return the number of marked events */
+  long getCount();
+
+  /** @return the mean rate since this meter is created */
+  double getMeanRate();
+
+  /** @return the rate of last tick (5 seconds) */
+  double getInstantRate();
+
+  /** @return the one-minute exponentially weighted moving average rate */
+  double getOneMinuteRate();
+
+  /** @return the five-minute exponentially weighted moving average rate */
+  double getFiveMinuteRate();
+
+  /** @return the fifteen-minute exponentially weighted moving average rate */
+  double getFifteenMinuteRate();
+}
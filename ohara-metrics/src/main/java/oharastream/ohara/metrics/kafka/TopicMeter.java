@@ -26,9 +26,9 @@ import oharastream.ohara.metrics.BeanObject;
 /** this class represents the topic metrics recorded by kafka. */
 public class TopicMeter {
   // -------------------------[property keys]-------------------------//
-  private static final String DOMAIN = "kafka.server";
-  private static final String TYPE_KEY = "type";
-  private static final String TYPE_VALUE = "BrokerTopicMetrics";
+  public static final String DOMAIN = "kafka.server";
+  public static final String TYPE_KEY = "type";
+  public static final String TYPE_VALUE = "BrokerTopicMetrics";
   private static final String TOPIC_KEY = "topic";
   private static final String NAME_KEY = "name";
   // -------------------------[attribute keys]-------------------------//
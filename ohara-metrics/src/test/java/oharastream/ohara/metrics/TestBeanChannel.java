@@ -16,8 +16,19 @@
 
 package oharastream.ohara.metrics;
 
+import java.lang.management.ManagementFactory;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import oharastream.ohara.common.exception.TimeoutException;
 import oharastream.ohara.common.rule.OharaTest;
 import oharastream.ohara.common.util.CommonUtils;
 import org.junit.Assert;
@@ -67,6 +78,130 @@ public class TestBeanChannel extends OharaTest {
             });
   }
 
+  @Test
+  public void testObjectName() throws Exception {
+    Assert.assertNull(BeanChannel.builder().objectName());
+    Assert.assertEquals(
+        ObjectName.getInstance("a:*"), BeanChannel.builder().domainName("a").objectName());
+    Assert.assertEquals(
+        ObjectName.getInstance("a:k=v"),
+        BeanChannel.builder().domainName("a").property("k", "v").objectName());
+    Assert.assertEquals(
+        ObjectName.getInstance("a:k=v,*"),
+        BeanChannel.builder()
+            .domainName("a")
+            .property("k", "v")
+            .propertyListPattern()
+            .objectName());
+    Assert.assertEquals(
+        ObjectName.getInstance("*:k=v"), BeanChannel.builder().property("k", "v").objectName());
+  }
+
+  @Test
+  public void testPropertyListPattern() {
+    String domain = CommonUtils.randomString();
+    BeanChannel.register()
+        .domain(domain)
+        .properties(Map.of("a", "b", "c", "d"))
+        .beanObject(new SimpleInfo(1, 2))
+        .run();
+    Assert.assertEquals(
+        0, BeanChannel.builder().local().domainName(domain).property("a", "b").build().size());
+    Assert.assertEquals(
+        1,
+        BeanChannel.builder()
+            .local()
+            .domainName(domain)
+            .property("a", "b")
+            .propertyListPattern()
+            .build()
+            .size());
+    Assert.assertEquals(
+        0,
+        BeanChannel.builder()
+            .local()
+            .domainName(domain)
+            .property("a", "c")
+            .propertyListPattern()
+            .build()
+            .size());
+  }
+
+  @Test
+  public void testRemote() throws Exception {
+    String domain = CommonUtils.randomString();
+    BeanChannel.register()
+        .domain(domain)
+        .properties(Map.of("a", "b"))
+        .beanObject(new SimpleInfo(1, 2))
+        .run();
+    int port = CommonUtils.availablePort();
+    Registry registry = LocateRegistry.createRegistry(port);
+    JMXConnectorServer server =
+        JMXConnectorServerFactory.newJMXConnectorServer(
+            new JMXServiceURL("service:jmx:rmi:///jndi/rmi://localhost:" + port + "/jmxrmi"),
+            null,
+            ManagementFactory.getPlatformMBeanServer());
+    server.start();
+    try {
+      for (int i = 0; i != 3; ++i) {
+        BeanChannel channel =
+            BeanChannel.builder().hostname("localhost").port(port).domainName(domain).build();
+        Assert.assertEquals(1, channel.size());
+        Assert.assertEquals(1, (double) channel.beanObjects().get(0).attributes().get("Value0"), 0);
+        Assert.assertEquals(2, (double) channel.beanObjects().get(0).attributes().get("Value1"), 0);
+      }
+
+      ConnectorPool pool = new ConnectorPool(Duration.ofMinutes(1));
+      for (int i = 0; i != 3; ++i) {
+        Assert.assertEquals(
+            1,
+            (int)
+                pool.run(
+                    "localhost",
+                    port,
+                    Duration.ofSeconds(10),
+                    (connection, beanInfos) ->
+                        connection.queryNames(ObjectName.getInstance(domain + ":*"), null).size()));
+        // the connector is reused
+        Assert.assertEquals(1, pool.size());
+      }
+
+      // the slow request is given up and the connector is closed
+      Assert.assertThrows(
+          TimeoutException.class,
+          () ->
+              pool.run(
+                  "localhost",
+                  port,
+                  Duration.ofMillis(100),
+                  (connection, beanInfos) -> {
+                    TimeUnit.SECONDS.sleep(3);
+                    return connection.getMBeanCount();
+                  }));
+      Assert.assertEquals(0, pool.size());
+      pool.clear();
+    } finally {
+      server.stop();
+      UnicastRemoteObject.unexportObject(registry, true);
+    }
+  }
+
+  @Test
+  public void testConnectToDeadNode() {
+    ConnectorPool pool = new ConnectorPool(Duration.ofMinutes(1));
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            pool.run(
+                "localhost",
+                CommonUtils.availablePort(),
+                Duration.ofSeconds(10),
+                (connection, beanInfos) -> connection.getMBeanCount()));
+    // the failed connection is not pooled
+    Assert.assertEquals(0, pool.size());
+  }
+
   public interface SimpleInfoMBean {
     double getValue0();
 
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.basic.Counter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMetricsPusher extends OharaTest {
+
+  private static MetricsPusher.Builder builder() {
+    return MetricsPusher.builder()
+        .hostname(CommonUtils.hostname())
+        .jmxPort(CommonUtils.availablePort())
+        // disable the background push
+        .period(Duration.ofDays(1));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Optional<Map<String, Object>> counter(Map<String, Object> snapshot, String id) {
+    return ((List<Map<String, Object>>) snapshot.get("counters"))
+        .stream().filter(c -> c.get("id").equals(id)).findFirst();
+  }
+
+  @Test
+  public void testNullUrl() {
+    Assert.assertThrows(NullPointerException.class, () -> MetricsPusher.builder().url(null));
+  }
+
+  @Test
+  public void testNegativeJmxPort() {
+    Assert.assertThrows(IllegalArgumentException.class, () -> MetricsPusher.builder().jmxPort(-1));
+  }
+
+  @Test
+  public void testDelta() {
+    String id = CommonUtils.randomString();
+    ObjectKey key = CommonUtils.randomKey();
+    try (MetricsPusher pusher = builder().sender(s -> true).build()) {
+      Map<String, Object> snapshot;
+      try (Counter counter =
+          Counter.builder()
+              .key(key)
+              .item(CommonUtils.randomString())
+              .unit("unit")
+              .id(id)
+              .register()) {
+        snapshot = pusher.snapshot();
+        Assert.assertTrue((boolean) snapshot.get("full"));
+        Map<String, Object> first = counter(snapshot, id).get();
+        Assert.assertEquals(key.toPlain(), first.get("key"));
+        Assert.assertEquals("unit", first.get("unit"));
+
+        // nothing is changed
+        snapshot = pusher.snapshot();
+        Assert.assertFalse((boolean) snapshot.get("full"));
+        Assert.assertFalse(counter(snapshot, id).isPresent());
+
+        counter.setAndGet(100);
+        snapshot = pusher.snapshot();
+        Map<String, Object> changed = counter(snapshot, id).get();
+        Assert.assertEquals(100L, changed.get("value"));
+        // the unit is sent only once
+        Assert.assertFalse(changed.containsKey("unit"));
+      }
+      snapshot = pusher.snapshot();
+      Assert.assertTrue(((Collection<?>) snapshot.get("removed")).contains(id));
+    }
+  }
+
+  @Test
+  public void testFullSnapshotAfterFailure() {
+    String id = CommonUtils.randomString();
+    List<String> bodies = new ArrayList<>();
+    try (MetricsPusher pusher =
+            builder()
+                .sender(
+                    s -> {
+                      bodies.add(s);
+                      return false;
+                    })
+                .build();
+        Counter counter =
+            Counter.builder().key(CommonUtils.randomKey()).item("item").id(id).register()) {
+      pusher.push();
+      Assert.assertEquals(1, bodies.size());
+      Assert.assertTrue(bodies.get(0).contains(id));
+      // the endpoint rejects the snapshot so the pusher sends all counters again
+      Assert.assertTrue((boolean) pusher.snapshot().get("full"));
+      Assert.assertTrue(counter(pusher.snapshot(), id).isEmpty());
+      counter.increment();
+      Assert.assertTrue(counter(pusher.snapshot(), id).isPresent());
+    }
+  }
+}
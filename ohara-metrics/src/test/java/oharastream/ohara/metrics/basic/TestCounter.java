@@ -18,6 +18,12 @@ package oharastream.ohara.metrics.basic;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import oharastream.ohara.common.data.Serializer;
 import oharastream.ohara.common.rule.OharaTest;
 import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.common.util.CommonUtils;
@@ -457,4 +463,97 @@ public class TestCounter extends OharaTest {
       Assert.assertNotEquals(0.0f, counter.valueInPerSec());
     }
   }
+
+  private static Counter stripedCounter() {
+    return Counter.builder()
+        .key(CommonUtils.randomKey())
+        .item(CommonUtils.randomString(10))
+        .striped()
+        .build();
+  }
+
+  @Test
+  public void testStripedCounter() {
+    try (Counter counter = stripedCounter()) {
+      Assert.assertTrue(counter.striped());
+      counter.increment();
+      counter.add(10);
+      Assert.assertEquals(11, counter.getValue());
+      Assert.assertEquals(12, counter.incrementAndGet());
+      Assert.assertEquals(12, counter.getAndDecrement());
+      Assert.assertEquals(11, counter.getAndSet(100));
+      Assert.assertEquals(100, counter.getValue());
+      Assert.assertEquals(5, counter.setAndGet(5));
+      Assert.assertEquals(5, counter.getValue());
+    }
+  }
+
+  @Test
+  public void testDefaultModeIsNotStriped() {
+    try (Counter counter =
+        Counter.builder().key(CommonUtils.randomKey()).item(CommonUtils.randomString(10)).build()) {
+      Assert.assertFalse(counter.striped());
+      counter.increment();
+      counter.add(10);
+      Assert.assertEquals(11, counter.getValue());
+    }
+  }
+
+  @Test
+  public void testStripedCounterWithMultiThreads() throws Exception {
+    int numberOfThreads = 8;
+    int numberOfIncrements = 10000;
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+    try (Counter counter = stripedCounter()) {
+      List<Future<?>> futures =
+          IntStream.range(0, numberOfThreads)
+              .mapToObj(
+                  i ->
+                      executor.submit(
+                          () -> {
+                            for (int j = 0; j != numberOfIncrements; ++j) counter.add(1);
+                          }))
+              .collect(Collectors.toUnmodifiableList());
+      for (Future<?> f : futures) f.get();
+      Assert.assertEquals(numberOfThreads * numberOfIncrements, counter.getValue());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLastModifiedOfStripedCounter() {
+    try (Counter counter = stripedCounter()) {
+      long lastModified = counter.getLastModified();
+      CommonUtils.await(
+          () -> {
+            counter.increment();
+            return counter.getLastModified() > lastModified;
+          },
+          java.time.Duration.ofSeconds(10));
+    }
+  }
+
+  @Test
+  public void testSerialization() {
+    try (Counter counter =
+        Counter.builder().key(CommonUtils.randomKey()).item(CommonUtils.randomString(10)).build()) {
+      counter.add(10);
+      Counter another = (Counter) Serializer.OBJECT.from(Serializer.OBJECT.to(counter));
+      Assert.assertEquals(counter, another);
+      Assert.assertFalse(another.striped());
+      Assert.assertEquals(11, another.incrementAndGet());
+    }
+  }
+
+  @Test
+  public void testSerializationOfStripedCounter() {
+    try (Counter counter = stripedCounter()) {
+      counter.add(10);
+      Counter another = (Counter) Serializer.OBJECT.from(Serializer.OBJECT.to(counter));
+      Assert.assertEquals(counter, another);
+      Assert.assertTrue(another.striped());
+      Assert.assertEquals(11, another.incrementAndGet());
+    }
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.metrics.basic;
+
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGauge extends OharaTest {
+
+  @Test
+  public void testSet() {
+    try (Gauge gauge =
+        Gauge.builder().key(CommonUtils.randomKey()).item(CommonUtils.randomString()).build()) {
+      gauge.set(1.5);
+      Assert.assertEquals(1.5, gauge.getValue(), 0);
+      gauge.set(-0.5);
+      Assert.assertEquals(-0.5, gauge.getValue(), 0);
+    }
+  }
+
+  @Test
+  public void testRegister() {
+    ObjectKey key = CommonUtils.randomKey();
+    String item = CommonUtils.randomString();
+    try (Gauge gauge = Gauge.builder().key(key).item(item).unit("ms").register()) {
+      gauge.set(10.5);
+      GaugeMBean bean =
+          BeanChannel.local().gaugeMBeans().stream()
+              .filter(g -> g.key().equals(key))
+              .findFirst()
+              .get();
+      Assert.assertEquals(item, bean.item());
+      Assert.assertEquals("ms", bean.getUnit());
+      Assert.assertEquals(10.5, bean.getValue(), 0);
+      // gauge is not a counter
+      Assert.assertTrue(
+          BeanChannel.local().counterMBeans().stream().noneMatch(c -> c.key().equals(key)));
+    }
+    Assert.assertTrue(
+        BeanChannel.local().gaugeMBeans().stream().noneMatch(g -> g.key().equals(key)));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.metrics.basic;
+
+import java.util.stream.IntStream;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHistogram extends OharaTest {
+
+  private static Histogram histogram() {
+    return Histogram.builder()
+        .key(CommonUtils.randomKey())
+        .item(CommonUtils.randomString())
+        .build();
+  }
+
+  @Test
+  public void testIndex() {
+    Assert.assertEquals(0, Histogram.index(-1));
+    Assert.assertEquals(0, Histogram.index(0));
+    Assert.assertEquals(63, Histogram.index(63));
+    Assert.assertEquals(Histogram.NUMBER_OF_BUCKETS - 1, Histogram.index(Long.MAX_VALUE));
+    // the index is monotonic
+    long previous = -1;
+    for (long v = 0; v < 1000000; v += 7) {
+      int index = Histogram.index(v);
+      Assert.assertTrue(index >= previous);
+      previous = index;
+    }
+  }
+
+  @Test
+  public void testRelativeError() {
+    for (long v = 1; v > 0 && v < Long.MAX_VALUE / 3; v = v * 3 + 1) {
+      long approximate = Histogram.value(Histogram.index(v));
+      Assert.assertTrue(Math.abs(approximate - v) <= v / Histogram.HALF_SUB_BUCKETS);
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    try (Histogram histogram = histogram()) {
+      Assert.assertEquals(0, histogram.getCount());
+      Assert.assertEquals(0, histogram.getMin());
+      Assert.assertEquals(0, histogram.getMax());
+      Assert.assertEquals(0, histogram.getMean(), 0);
+      Assert.assertEquals(0, histogram.getP99());
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    try (Histogram histogram = histogram()) {
+      IntStream.rangeClosed(1, 10000).forEach(histogram::update);
+      Assert.assertEquals(10000, histogram.getCount());
+      Assert.assertEquals(1, histogram.getMin());
+      Assert.assertEquals(10000, histogram.getMax());
+      Assert.assertEquals(5000.5, histogram.getMean(), 0.001);
+      Assert.assertEquals(5000, histogram.getP50(), 5000 / 32);
+      Assert.assertEquals(9900, histogram.getP99(), 9900 / 32);
+      Assert.assertTrue(histogram.getP999() <= histogram.getMax());
+    }
+  }
+
+  @Test
+  public void testRegister() {
+    ObjectKey key = CommonUtils.randomKey();
+    try (Histogram histogram =
+        Histogram.builder().key(key).item(CommonUtils.randomString()).register()) {
+      histogram.update(100);
+      HistogramMBean bean =
+          BeanChannel.local().histogramMBeans().stream()
+              .filter(h -> h.key().equals(key))
+              .findFirst()
+              .get();
+      Assert.assertEquals(1, bean.getCount());
+      Assert.assertEquals(100, bean.getP50());
+      Assert.assertEquals(100, bean.getMax());
+    }
+    Assert.assertTrue(
+        BeanChannel.local().histogramMBeans().stream().noneMatch(h -> h.key().equals(key)));
+  }
+
+  @Test
+  public void testLastModified() {
+    try (Histogram histogram = histogram()) {
+      long lastModified = histogram.getLastModified();
+      CommonUtils.await(
+          () -> {
+            histogram.update(100);
+            return histogram.getLastModified() > lastModified;
+          },
+          java.time.Duration.ofSeconds(10));
+    }
+  }
+}
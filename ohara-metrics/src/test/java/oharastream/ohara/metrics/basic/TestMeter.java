@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.metrics.basic;
+
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMeter extends OharaTest {
+
+  private static Meter meter() {
+    return Meter.builder().key(CommonUtils.randomKey()).item(CommonUtils.randomString()).build();
+  }
+
+  /** the number of events to get the rate "1 / second" in a tick */
+  private static final long ONE_PER_SECOND = Meter.TICK_INTERVAL / 1000;
+
+  @Test
+  public void testEmpty() {
+    try (Meter meter = meter()) {
+      Assert.assertEquals(0, meter.getCount());
+      Assert.assertEquals(0, meter.getInstantRate(), 0);
+      Assert.assertEquals(0, meter.getOneMinuteRate(), 0);
+      Assert.assertEquals(0, meter.getFiveMinuteRate(), 0);
+      Assert.assertEquals(0, meter.getFifteenMinuteRate(), 0);
+    }
+  }
+
+  @Test
+  public void testMark() {
+    try (Meter meter = meter()) {
+      meter.mark();
+      meter.mark(10);
+      Assert.assertEquals(11, meter.getCount());
+    }
+  }
+
+  @Test
+  public void testFirstTick() {
+    try (Meter meter = meter()) {
+      meter.mark(10 * ONE_PER_SECOND);
+      meter.tick();
+      Assert.assertEquals(10, meter.getInstantRate(), 0.0001);
+      // the first tick initializes the moving averages
+      Assert.assertEquals(10, meter.getOneMinuteRate(), 0.0001);
+      Assert.assertEquals(10, meter.getFiveMinuteRate(), 0.0001);
+      Assert.assertEquals(10, meter.getFifteenMinuteRate(), 0.0001);
+    }
+  }
+
+  @Test
+  public void testDecay() {
+    try (Meter meter = meter()) {
+      meter.mark(10 * ONE_PER_SECOND);
+      meter.tick();
+      // no events in next minute
+      for (int i = 0; i != 60 * 1000 / Meter.TICK_INTERVAL; ++i) meter.tick();
+      Assert.assertEquals(0, meter.getInstantRate(), 0);
+      // one minute rate decays to 1/e
+      Assert.assertEquals(10 / Math.E, meter.getOneMinuteRate(), 0.0001);
+      // the longer window decays slower
+      Assert.assertTrue(meter.getFiveMinuteRate() > meter.getOneMinuteRate());
+      Assert.assertTrue(meter.getFifteenMinuteRate() > meter.getFiveMinuteRate());
+      // the count is not changed by ticks
+      Assert.assertEquals(10 * ONE_PER_SECOND, meter.getCount());
+    }
+  }
+
+  @Test
+  public void testConverge() {
+    try (Meter meter = meter()) {
+      for (int i = 0; i != 1000; ++i) {
+        meter.mark(5 * ONE_PER_SECOND);
+        meter.tick();
+      }
+      Assert.assertEquals(5, meter.getOneMinuteRate(), 0.0001);
+      Assert.assertEquals(5, meter.getFiveMinuteRate(), 0.01);
+    }
+  }
+
+  @Test
+  public void testRegister() {
+    ObjectKey key = CommonUtils.randomKey();
+    try (Meter meter = Meter.builder().key(key).item(CommonUtils.randomString()).register()) {
+      meter.mark(100);
+      MeterMBean bean =
+          BeanChannel.local().meterMBeans().stream()
+              .filter(m -> m.key().equals(key))
+              .findFirst()
+              .get();
+      Assert.assertEquals(100, bean.getCount());
+      Assert.assertEquals(meter.item(), bean.item());
+    }
+    Assert.assertTrue(
+        BeanChannel.local().meterMBeans().stream().noneMatch(m -> m.key().equals(key)));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullKey() {
+    Meter.builder().item(CommonUtils.randomString()).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyItem() {
+    Meter.builder().item("");
+  }
+}
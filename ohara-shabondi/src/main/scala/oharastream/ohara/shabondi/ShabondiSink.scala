@@ -17,8 +17,9 @@
 package oharastream.ohara.shabondi
 
 import com.typesafe.scalalogging.Logger
-import oharastream.ohara.common.setting.WithDefinitions
+import oharastream.ohara.common.setting.{ObjectKey, WithDefinitions}
 import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.metrics.MetricsPusher
 import oharastream.ohara.shabondi.common.ShabondiUtils
 import oharastream.ohara.shabondi.sink.WebServer
 
@@ -40,10 +41,26 @@ class ShabondiSink extends WithDefinitions with Releasable {
 object ShabondiSink {
   private val log = Logger(ShabondiSink.getClass)
 
+  /**
+    * the consumer groups of shabondi sink have a fixed prefix so the configurator is able to track their lag.
+    * @param key shabondi key
+    * @return prefix of consumer group ids
+    */
+  def consumerGroupPrefix(key: ObjectKey): String = s"shabondi-${key.toPlain}-"
+
+  /**
+    * each data group is consumed by a random group so the data groups having same name don't share the offsets.
+    * @param key shabondi key
+    * @return a random consumer group id
+    */
+  def consumerGroupId(key: ObjectKey): String = consumerGroupPrefix(key) + CommonUtils.randomString()
+
   def main(args: Array[String]): Unit = {
     val newArgs = ShabondiUtils.parseArgs(args)
     log.info("Arguments:")
     newArgs.foreach { case (k, v) => log.info(s"    $k=$v") }
+    // the counters are pushed to configurator if the push mode is enabled
+    MetricsPusher.startIfEnabled()
 
     val sink = new ShabondiSink()
     try sink.start(newArgs)
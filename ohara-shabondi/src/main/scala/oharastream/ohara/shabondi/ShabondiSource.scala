@@ -19,6 +19,7 @@ package oharastream.ohara.shabondi
 import com.typesafe.scalalogging.Logger
 import oharastream.ohara.common.setting.WithDefinitions
 import oharastream.ohara.common.util.{CommonUtils, Releasable}
+import oharastream.ohara.metrics.MetricsPusher
 import oharastream.ohara.shabondi.common.ShabondiUtils
 import oharastream.ohara.shabondi.source.WebServer
 
@@ -44,6 +45,8 @@ object ShabondiSource {
     val newArgs = ShabondiUtils.parseArgs(args)
     log.info("Shabondi arguments({}):", newArgs.size)
     newArgs.foreach { case (k, v) => log.info(s"  $k=$v") }
+    // the counters are pushed to configurator if the push mode is enabled
+    MetricsPusher.startIfEnabled()
 
     val source = new ShabondiSource()
     try source.start(newArgs)
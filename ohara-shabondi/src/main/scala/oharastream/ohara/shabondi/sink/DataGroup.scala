@@ -41,10 +41,11 @@ private[sink] class DataGroup(
       .unit("row")
       .document(s"The number of received rows of group $name")
       .value(0)
+      .striped()
       .register()
 
   val queue                = new RowQueue
-  val queueProducer        = new QueueProducer(name, queue, brokerProps, topicKeys, pollTimeout, rowCounter)
+  val queueProducer        = new QueueProducer(name, objectKey, queue, brokerProps, topicKeys, pollTimeout, rowCounter)
   private[this] val closed = new AtomicBoolean(false)
 
   def resume(): Unit =
@@ -25,13 +25,15 @@ import oharastream.ohara.common.data.{Row, Serializer}
 import oharastream.ohara.common.util.Releasable
 import oharastream.ohara.kafka.Consumer
 import com.typesafe.scalalogging.Logger
-import oharastream.ohara.common.setting.TopicKey
+import oharastream.ohara.common.setting.{ObjectKey, TopicKey}
 import oharastream.ohara.metrics.basic.Counter
+import oharastream.ohara.shabondi.ShabondiSink
 
 import scala.jdk.CollectionConverters._
 
 private[sink] class QueueProducer(
   val groupName: String,
+  val objectKey: ObjectKey,
   val queue: JQueue[Row],
   val brokerProps: String,
   val topicKeys: Set[TopicKey],
@@ -48,8 +50,10 @@ private[sink] class QueueProducer(
     .keySerializer(Serializer.ROW)
     .valueSerializer(Serializer.BYTES)
     .offsetFromBegin()
+    .groupId(ShabondiSink.consumerGroupId(objectKey))
     .topicKeys(topicKeys.asJava)
     .connectionProps(brokerProps)
+    .metricsKey(objectKey)
     .build()
 
   override def run(): Unit = {
@@ -66,7 +70,7 @@ private[sink] class QueueProducer(
           val rows = consumer.poll(pollTimeout).asScala.map(_.key.get)
           rows.foreach { r =>
             queue.add(r)
-            rowCounter.incrementAndGet()
+            rowCounter.increment()
           }
           log.trace("    group[{}], queue: {}, rows: {}", groupName, queue.size, rows.size)
         } else {
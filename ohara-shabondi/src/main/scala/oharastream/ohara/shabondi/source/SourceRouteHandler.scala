@@ -56,6 +56,7 @@ private[shabondi] class SourceRouteHandler(
       .unit("row")
       .document("The number of received rows")
       .value(0)
+      .striped()
       .register()
 
   private val exceptionHandler = ExceptionHandler {
@@ -69,6 +70,7 @@ private[shabondi] class SourceRouteHandler(
     .connectionProps(config.brokers)
     .keySerializer(Serializer.ROW)
     .valueSerializer(Serializer.BYTES)
+    .metricsKey(config.objectKey)
     .build()
 
   private val topicKeys = config.sourceToTopics
@@ -93,7 +95,7 @@ private[shabondi] class SourceRouteHandler(
     pathEndOrSingleSlash {
       post {
         entity(as[RowData]) { rowData =>
-          totalRowsCounter.incrementAndGet()
+          totalRowsCounter.increment()
           rowQueue.offer(rowData)
           complete(StatusCodes.OK)
         } ~ {
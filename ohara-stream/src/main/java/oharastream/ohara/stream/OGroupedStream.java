@@ -35,6 +35,17 @@ public interface OGroupedStream<T extends Row> {
    */
   OStream<T> count();
 
+  /**
+   * Same as {@link #count()} but the counts are kept by a queryable state store. The store can be
+   * queried through the http server of stream (see {@link
+   * oharastream.ohara.stream.ostream.OStreamBuilder#queryPort(int)}) without consuming the output
+   * topic.
+   *
+   * @param storeName the name of queryable store. It must be unique in this stream
+   * @return {@code OStream}
+   */
+  OStream<T> count(String storeName);
+
   /**
    * Combine the values of each record in this {@code OGroupedStream} by the grouped key. This
    * operation will return the reduce value of specific column, and result a new {@code Row} with
@@ -48,4 +59,17 @@ public interface OGroupedStream<T extends Row> {
    *     org.apache.kafka.streams.kstream.KGroupedStream#reduce(org.apache.kafka.streams.kstream.Reducer)
    */
   <V> OStream<T> reduce(final Reducer<V> reducer, final String reduceColumn);
+
+  /**
+   * Same as {@link #reduce(Reducer, String)} but the reduced values are kept by a queryable state
+   * store.
+   *
+   * @param reducer a {@link Reducer} that computes a new aggregate result.
+   * @param reduceColumn the column that computing reduce function
+   * @param storeName the name of queryable store. It must be unique in this stream
+   * @param <V> the type of value of reducer
+   * @return {@code OStream}
+   */
+  <V> OStream<T> reduce(
+      final Reducer<V> reducer, final String reduceColumn, final String storeName);
 }
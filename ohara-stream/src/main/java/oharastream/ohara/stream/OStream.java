@@ -83,6 +83,39 @@ public interface OStream<T extends Row> {
    */
   OStream<T> leftJoin(String joinTopicName, Conditions conditions, ValueJoiner joiner);
 
+  /**
+   * Join this stream with required topic using the lookup table. The lookup table is a global state
+   * store containing all records of required topic, and it is replicated to all instances of this
+   * stream. Hence, this stream is NOT repartitioned, which is much cheaper than {@link
+   * #leftJoin(String, Conditions, ValueJoiner)} when the required topic is small. The join
+   * operation will use the specify {@code Conditions} to lookup {@code stream.cell ==
+   * topic.cell}. If there is no matched row, the joiner receives null.
+   *
+   * @param lookupTopicName the topic name to be looked up by this OStream
+   * @param conditions the join cell pairs
+   * @param joiner a {@link ValueJoiner} that computes the join result for a pair of matching
+   *     records
+   * @return {@code OStream}
+   * @see org.apache.kafka.streams.StreamsBuilder#addGlobalStore
+   */
+  default OStream<T> lookup(String lookupTopicName, Conditions conditions, ValueJoiner joiner) {
+    return lookup(lookupTopicName, conditions, joiner, LookupOptions.create());
+  }
+
+  /**
+   * Join this stream with required topic using the lookup table. see {@link #lookup(String,
+   * Conditions, ValueJoiner)}
+   *
+   * @param lookupTopicName the topic name to be looked up by this OStream
+   * @param conditions the join cell pairs
+   * @param joiner a {@link ValueJoiner} that computes the join result for a pair of matching
+   *     records
+   * @param options the store type and cache size of lookup table
+   * @return {@code OStream}
+   */
+  OStream<T> lookup(
+      String lookupTopicName, Conditions conditions, ValueJoiner joiner, LookupOptions options);
+
   /**
    * Transform the value of each record to a new value of the output record. The provided {@link
    * ValueMapper} is applied to each input record value and computes a new output record value. This
@@ -28,8 +28,10 @@ import oharastream.ohara.common.setting.SettingDef;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.setting.WithDefinitions;
 import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.MetricsPusher;
 import oharastream.ohara.stream.config.StreamDefUtils;
 import oharastream.ohara.stream.config.StreamSetting;
+import oharastream.ohara.stream.ostream.OStreamBuilder;
 
 @SuppressWarnings({"unchecked", "rawtypes"})
 public abstract class Stream implements WithDefinitions {
@@ -56,7 +58,7 @@ public abstract class Stream implements WithDefinitions {
           StreamSetting streamSetting =
               StreamSetting.of(theApp.settingDefinitions().values(), configs);
 
-          OStream<Row> ostream =
+          OStreamBuilder builder =
               OStream.builder()
                   .key(streamSetting.key())
                   .bootstrapServers(streamSetting.brokerConnectionProps())
@@ -74,7 +76,12 @@ public abstract class Stream implements WithDefinitions {
                           .map(TopicKey::topicNameOnKafka)
                           .findFirst()
                           .orElse(null))
-                  .build();
+                  .exactlyOnce(streamSetting.exactlyOnce())
+                  .debugMetrics(streamSetting.debugMetrics());
+          // the query server is enabled only if the query port is defined
+          streamSetting.queryPort().ifPresent(builder::queryPort);
+          streamSetting.queryHostname().ifPresent(builder::queryHostname);
+          OStream<Row> ostream = builder.build();
           theApp.init();
           theApp.start(ostream, streamSetting);
           return null;
@@ -94,6 +101,8 @@ public abstract class Stream implements WithDefinitions {
       throw new RuntimeException(
           "Where is the value of " + StreamDefUtils.CLASS_NAME_DEFINITION.key());
     Class clz = handler.handle(() -> Class.forName(className));
+    // the counters are pushed to configurator if the push mode is enabled
+    MetricsPusher.startIfEnabled();
     if (Stream.class.isAssignableFrom(clz)) execute(clz, args);
     else
       throw new RuntimeException(
@@ -154,6 +154,17 @@ public final class StreamDefUtils {
           .bindingPortWithRandomDefault()
           .build();
 
+  public static final SettingDef QUERY_PORT_DEFINITION =
+      SettingDef.builder()
+          .key("queryPort")
+          .group(CORE_GROUP)
+          .orderInGroup(ORDER_COUNTER.getAndIncrement())
+          .displayName("Query port")
+          .documentation(
+              "The port of this stream using to serve the queries of state stores. The query server is disabled if this port is not defined")
+          .optional(Type.BINDING_PORT)
+          .build();
+
   public static final SettingDef NODE_NAMES_DEFINITION =
       SettingDef.builder()
           .key("nodeNames")
@@ -208,6 +219,28 @@ public final class StreamDefUtils {
           .optional(1024L)
           .build();
 
+  public static final SettingDef EXACTLY_ONCE_DEFINITION =
+      SettingDef.builder()
+          .key("exactlyOnce")
+          .group(CORE_GROUP)
+          .orderInGroup(ORDER_COUNTER.getAndIncrement())
+          .displayName("Exactly once")
+          .documentation(
+              "enable the exactly-once processing. The output is committed by transaction so it costs the throughput and latency")
+          .optional(false)
+          .build();
+
+  public static final SettingDef DEBUG_METRICS_DEFINITION =
+      SettingDef.builder()
+          .key("debugMetrics")
+          .group(CORE_GROUP)
+          .orderInGroup(ORDER_COUNTER.getAndIncrement())
+          .displayName("Debug metrics")
+          .documentation(
+              "record the debug-level metrics of kafka streams and the latency of each operator. Every record is timed so it costs the throughput")
+          .optional(false)
+          .build();
+
   /**
    * Load configDefs from default definitions.
    *
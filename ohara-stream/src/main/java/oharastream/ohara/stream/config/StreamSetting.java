@@ -34,6 +34,13 @@ import oharastream.ohara.common.setting.TopicKey;
  */
 public final class StreamSetting {
 
+  /**
+   * the hostname advertised by the query server of this instance. It is not a setting of stream
+   * since each instance has its own hostname. The collie appends it to the arguments of each
+   * instance.
+   */
+  public static final String QUERY_HOSTNAME_KEY = "queryHostname";
+
   public static StreamSetting of(
       Collection<SettingDef> settingDefinitions, Map<String, String> raw) {
     return new StreamSetting(settingDefinitions, raw);
@@ -117,6 +124,33 @@ public final class StreamSetting {
             .orElseThrow(() -> new RuntimeException("TO_TOPIC_KEYS_DEFINITION not found in env.")));
   }
 
+  /**
+   * @return the port of http server used to query the state stores. empty means the http server is
+   *     disabled
+   */
+  public Optional<Integer> queryPort() {
+    return string(StreamDefUtils.QUERY_PORT_DEFINITION.key()).map(Integer::parseInt);
+  }
+
+  /** @return the hostname advertised by the http server used to query the state stores */
+  public Optional<String> queryHostname() {
+    return string(QUERY_HOSTNAME_KEY);
+  }
+
+  /** @return true if the exactly-once processing is enabled. Default is false */
+  public boolean exactlyOnce() {
+    return string(StreamDefUtils.EXACTLY_ONCE_DEFINITION.key())
+        .map(Boolean::parseBoolean)
+        .orElse(false);
+  }
+
+  /** @return true if the debug-level metrics and operator latency are recorded. Default is false */
+  public boolean debugMetrics() {
+    return string(StreamDefUtils.DEBUG_METRICS_DEFINITION.key())
+        .map(Boolean::parseBoolean)
+        .orElse(false);
+  }
+
   // ---------------------[command-line tools]---------------------//
 
   /** this is a specific string used to replace the quota in the env. */
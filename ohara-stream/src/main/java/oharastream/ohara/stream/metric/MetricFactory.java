@@ -18,6 +18,7 @@ package oharastream.ohara.stream.metric;
 
 import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
 
 /** This is a helper class to Get the desire bean object */
 public final class MetricFactory {
@@ -36,6 +37,23 @@ public final class MetricFactory {
         .unit("row")
         .document(type.value + ": the number of rows")
         .value(0)
+        .striped()
+        .register();
+  }
+
+  /**
+   * Get histogram beans recording the latency of an operator.
+   *
+   * @param key object key
+   * @param operator the name of operator
+   * @return histogram bean
+   */
+  public static Histogram getLatencyHistogram(ObjectKey key, String operator) {
+    return Histogram.builder()
+        .key(key)
+        .item(operator + "-latency")
+        .unit("nanoseconds")
+        .document(operator + ": the latency of processing a row")
         .register();
   }
 
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.stream.metric;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.Releasable;
+import oharastream.ohara.common.util.ReleaseOnce;
+import oharastream.ohara.kafka.ClientMetricsReporter;
+import oharastream.ohara.metrics.basic.Gauge;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Kafka Streams records a lot of metrics (per thread, per task, per processor node and per state
+ * store) but they are not visible to ohara since ohara collects the beans registered in ohara domain
+ * only. This reporter copies the kafka metrics to ohara {@link Gauge} periodically so the
+ * configurator can show them per stream object.
+ */
+public final class StreamsMetricsReporter extends ReleaseOnce {
+  private static final Logger LOG = LoggerFactory.getLogger(StreamsMetricsReporter.class);
+
+  /** the metric groups we care about. see org.apache.kafka.streams.processor.internals.metrics */
+  static final Set<String> GROUPS =
+      Set.of(
+          "stream-metrics",
+          "stream-thread-metrics",
+          "stream-task-metrics",
+          "stream-processor-node-metrics",
+          "stream-state-metrics",
+          "stream-record-cache-metrics",
+          // the lag of consumer
+          "consumer-fetch-manager-metrics",
+          // the rebalance latency
+          "consumer-coordinator-metrics");
+
+  /** the tags are used to generate the item. The client id is skipped since it is too long. */
+  private static final Set<String> SKIPPED_TAGS = Set.of("client-id");
+
+  public static StreamsMetricsReporter of(
+      ObjectKey key, Supplier<Map<MetricName, ? extends Metric>> metrics, long periodInMillis) {
+    return new StreamsMetricsReporter(key, metrics, periodInMillis);
+  }
+
+  /**
+   * generate the item name of gauge. The JMX disallows some chars (for example, comma and colon) in
+   * the property value so those chars are replaced by underscore.
+   *
+   * @param name metric name
+   * @return item name
+   */
+  static String item(MetricName name) {
+    String tags =
+        name.tags().entrySet().stream()
+            .filter(e -> !SKIPPED_TAGS.contains(e.getKey()))
+            .sorted(Map.Entry.comparingByKey())
+            .map(Map.Entry::getValue)
+            .collect(Collectors.joining("."));
+    String item = name.group() + "." + name.name() + (tags.isEmpty() ? "" : "." + tags);
+    return item.replaceAll("[,=:*?\"\\\\\\n]", "_");
+  }
+
+  static String unit(MetricName name) {
+    if (name.name().endsWith("-rate")) return "per second";
+    if (name.name().endsWith("-total")) return "count";
+    return "N/A";
+  }
+
+  private final ObjectKey key;
+  private final Supplier<Map<MetricName, ? extends Metric>> metrics;
+  private final Map<MetricName, Gauge> gauges = new HashMap<>();
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "streams-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private StreamsMetricsReporter(
+      ObjectKey key, Supplier<Map<MetricName, ? extends Metric>> metrics, long periodInMillis) {
+    this.key = Objects.requireNonNull(key);
+    this.metrics = Objects.requireNonNull(metrics);
+    executor.scheduleAtFixedRate(this::report, 0, periodInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** copy the kafka metrics to gauges. The gauges of disappeared metrics are unregistered. */
+  synchronized void report() {
+    try {
+      Map<MetricName, ? extends Metric> current = metrics.get();
+      current.forEach(
+          (name, metric) -> {
+            if (!GROUPS.contains(name.group()) && !ClientMetricsReporter.accept(name)) return;
+            Object value = metric.metricValue();
+            if (!(value instanceof Number)) return;
+            double v = ((Number) value).doubleValue();
+            // kafka uses NaN and infinity to represent "no value"
+            if (Double.isNaN(v) || Double.isInfinite(v)) return;
+            gauges
+                .computeIfAbsent(
+                    name,
+                    n ->
+                        Gauge.builder()
+                            .key(key)
+                            .item(item(n))
+                            .unit(unit(n))
+                            .document(
+                                n.description() == null || n.description().isEmpty()
+                                    ? n.name()
+                                    : n.description())
+                            .register())
+                .set(v);
+          });
+      gauges.keySet().stream()
+          .filter(name -> !current.containsKey(name))
+          .collect(Collectors.toUnmodifiableList())
+          .forEach(name -> Releasable.close(gauges.remove(name)));
+    } catch (Throwable e) {
+      LOG.error("failed to report the metrics of kafka streams", e);
+    }
+  }
+
+  @Override
+  protected void doClose() {
+    executor.shutdownNow();
+    synchronized (this) {
+      gauges.values().forEach(Gauge::close);
+      gauges.clear();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
 import oharastream.ohara.stream.metric.MetricFactory;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.KGroupedStream;
@@ -68,6 +69,18 @@ abstract class AbstractStream<K, V> {
     }
   }
 
+  /**
+   * create a histogram to record the latency of operator. Each operator has its own histogram and
+   * the fused stateless operators share a histogram.
+   *
+   * @param type operator type
+   * @return histogram or null if the debug metrics are disabled
+   */
+  Histogram latency(String type) {
+    if (!builder.debugMetrics()) return null;
+    return MetricFactory.getLatencyHistogram(builder.key(), builder.operatorName(type));
+  }
+
   KTable<K, V> ktable;
   KStream<K, V> kstreams;
   KGroupedStream<K, V> kgroupstream;
@@ -83,13 +96,13 @@ abstract class AbstractStream<K, V> {
         newBuilder.stream(builder.getFromTopic(), builder.getFromSerde().get())
             // since the value is "byte array" of nothing, we only care the key part, i.e, the real
             // row data.
-            // here we convert the row data to both the key and value part
-            // TODO : is there any good way to avoid this ugly convert?...by Sam
-            .map(
+            // here we copy the row data to the value part. mapValues keeps the key so kafka streams
+            // does not mark this stream as "key-changed" (which may cause extra repartition).
+            .mapValues(
                 (key, value) -> {
                   // we calculate the input record size
-                  counter.incrementAndGet();
-                  return KeyValue.pair(key, key);
+                  counter.increment();
+                  return key;
                 });
     this.builder = builder;
     this.innerBuilder = newBuilder;
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import java.util.Arrays;
+import java.util.Objects;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.metrics.basic.Histogram;
+
+/**
+ * A chain of consecutive stateless operators (filter and map). Kafka streams creates a processor
+ * node for each operator and every node forwards the record to its child, so a long chain of simple
+ * operators costs more than the operators themselves. {@link OStreamImpl} collects the stateless
+ * operators to this chain and materializes the whole chain by a single processor when a stateful
+ * operator or a sink is added.
+ *
+ * <p>This class is immutable. Appending an operator creates a new chain so the branches sharing the
+ * same parent stream are not affected by each other.
+ */
+final class FusedOperator {
+  static final FusedOperator EMPTY = new FusedOperator(new Step[0]);
+
+  /**
+   * the marker of dropped record. It is compared by reference so a user-defined empty row is never
+   * treated as a dropped record. Noted that the null row returned by mapper is passed to the next
+   * operator as before.
+   */
+  static final Row DROPPED = Row.of();
+
+  private interface Step {
+    /**
+     * @param value input row
+     * @return output row or {@link #DROPPED} if the record is filtered out
+     */
+    Row apply(Row value);
+  }
+
+  private final Step[] steps;
+
+  private FusedOperator(Step[] steps) {
+    this.steps = steps;
+  }
+
+  /**
+   * @param predicate filter
+   * @return a new chain with the filter appended
+   */
+  FusedOperator filter(Predicate predicate) {
+    Objects.requireNonNull(predicate);
+    return append(value -> predicate.test(value) ? value : DROPPED);
+  }
+
+  /**
+   * @param mapper mapper
+   * @return a new chain with the mapper appended
+   */
+  FusedOperator map(ValueMapper mapper) {
+    Objects.requireNonNull(mapper);
+    return append(mapper::valueMapper);
+  }
+
+  private FusedOperator append(Step step) {
+    Step[] newSteps = Arrays.copyOf(steps, steps.length + 1);
+    newSteps[steps.length] = step;
+    return new FusedOperator(newSteps);
+  }
+
+  /** @return true if there is no operator in this chain */
+  boolean isEmpty() {
+    return steps.length == 0;
+  }
+
+  /** @return the number of fused operators */
+  int size() {
+    return steps.length;
+  }
+
+  /**
+   * pass the row through all operators. The loop stops at the first filter which rejects the row.
+   *
+   * @param value input row
+   * @return output row or {@link #DROPPED} if the record is filtered out
+   */
+  Row apply(Row value) {
+    Row current = value;
+    for (Step step : steps) {
+      current = step.apply(current);
+      if (current == DROPPED) return DROPPED;
+    }
+    return current;
+  }
+
+  /**
+   * pass the row through all operators and record the latency of whole chain. The chain is timed
+   * once rather than timing each operator since the operators are usually cheaper than reading the
+   * clock.
+   *
+   * @param value input row
+   * @param latency histogram recording the latency of chain. null means the latency is not recorded
+   * @return output row or {@link #DROPPED} if the record is filtered out
+   */
+  Row apply(Row value, Histogram latency) {
+    if (latency == null) return apply(value);
+    long start = System.nanoTime();
+    try {
+      return apply(value);
+    } finally {
+      latency.update(System.nanoTime() - start);
+    }
+  }
+}
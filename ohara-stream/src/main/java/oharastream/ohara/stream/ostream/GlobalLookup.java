@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.metrics.basic.Histogram;
+import org.apache.kafka.streams.kstream.ValueTransformerWithKey;
+import org.apache.kafka.streams.processor.AbstractProcessor;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.state.KeyValueBytesStoreSupplier;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+/**
+ * The helpers of {@link oharastream.ohara.stream.OStream#lookup}. The lookup table is loaded into a
+ * global state store so every stream instance keeps a full copy of it. The records of the streaming
+ * side are joined with the local store directly, hence the (large) stream is never repartitioned.
+ *
+ * <p>The store is keyed by the "join row", which is composed of the join cells. The cells of join
+ * row use the names of streaming side so the row generated by both sides are equal.
+ */
+final class GlobalLookup {
+
+  /**
+   * the lookup topic is re-keyed by join row to an internal topic. The internal topic is named by
+   * the stream key, both topics and join cells of both sides (the join row is composed of the names
+   * of streaming side). It must be deterministic since all instances of the stream application
+   * share the same topic. The global store uses the same name.
+   *
+   * @param streamKey the key of stream
+   * @param leftTopicName the topic name of streaming side
+   * @param lookupTopicName lookup topic name
+   * @param leftHeaders the join cells of streaming side
+   * @param rightHeaders the join cells of lookup topic
+   * @return the key of re-keyed topic
+   */
+  static TopicKey rekeyedTopicKey(
+      ObjectKey streamKey,
+      String leftTopicName,
+      String lookupTopicName,
+      List<String> leftHeaders,
+      List<String> rightHeaders) {
+    return TopicKey.of(
+        streamKey.group(),
+        streamKey.name()
+            + "-lookup-"
+            + lookupTopicName
+            + "-"
+            + Integer.toHexString(Objects.hash(leftTopicName, leftHeaders, rightHeaders)));
+  }
+
+  /**
+   * @param storeName store name
+   * @param inMemory true if the table should be kept by memory. Otherwise, RocksDB is used
+   * @return the builder of global store. Noted that global store can't enable the changelog
+   */
+  static StoreBuilder<KeyValueStore<Row, Row>> storeBuilder(String storeName, boolean inMemory) {
+    KeyValueBytesStoreSupplier supplier =
+        inMemory
+            ? Stores.inMemoryKeyValueStore(storeName)
+            : Stores.persistentKeyValueStore(storeName);
+    return Stores.keyValueStoreBuilder(supplier, Serdes.ROW, Serdes.ROW).withLoggingDisabled();
+  }
+
+  /**
+   * convert the row from lookup topic to the join row.
+   *
+   * @param row row from lookup topic
+   * @param leftHeaders the join cells of streaming side
+   * @param rightHeaders the join cells of lookup topic
+   * @return join row
+   */
+  static Row rightKey(Row row, List<String> leftHeaders, List<String> rightHeaders) {
+    Cell<?>[] cells = new Cell<?>[rightHeaders.size()];
+    for (int i = 0; i != cells.length; ++i)
+      cells[i] = Cell.of(leftHeaders.get(i), row.cell(rightHeaders.get(i)).value());
+    return Row.of(cells);
+  }
+
+  /**
+   * convert the row from streaming side to the join row.
+   *
+   * @param row row from streaming side
+   * @param leftHeaders the join cells of streaming side
+   * @return join row
+   */
+  static Row leftKey(Row row, List<String> leftHeaders) {
+    Cell<?>[] cells = new Cell<?>[leftHeaders.size()];
+    for (int i = 0; i != cells.length; ++i) cells[i] = row.cell(leftHeaders.get(i));
+    return Row.of(cells);
+  }
+
+  /**
+   * @param cacheSize max number of cached rows. zero means the cache is disabled
+   * @return cache or null if the cache is disabled
+   */
+  static LookupCache cache(int cacheSize) {
+    if (cacheSize < 0) throw new IllegalArgumentException("cacheSize can't be negative");
+    if (cacheSize == 0) return null;
+    return new LookupCache(cacheSize);
+  }
+
+  /**
+   * a bounded cache of deserialized rows. It is shared by the store updater and the lookup
+   * transformers of all stream threads in the same instance.
+   *
+   * <p>A cache miss may load a row which is updated by the store updater before the loaded row is
+   * put into cache. Each update increases the generation so the loader can find the concurrent
+   * update and then invalidate the stale row.
+   */
+  static final class LookupCache {
+    private final Cache<Row, Optional<Row>> cache;
+    private final AtomicLong generation = new AtomicLong(0);
+
+    private LookupCache(int cacheSize) {
+      this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * @param key join row
+     * @param loader used to load the row from store if the cache is missed
+     * @return the row or null if there is no such row
+     */
+    Row get(Row key, Function<Row, Row> loader) {
+      Optional<Row> cached = cache.getIfPresent(key);
+      if (cached != null) return cached.orElse(null);
+      long current = generation.get();
+      Row row = loader.apply(key);
+      cache.put(key, Optional.ofNullable(row));
+      if (generation.get() != current) cache.invalidate(key);
+      return row;
+    }
+
+    /**
+     * invalidate the cached row. It must be called after the store is updated.
+     *
+     * @param key join row
+     */
+    void invalidate(Row key) {
+      generation.incrementAndGet();
+      cache.invalidate(key);
+    }
+
+    long size() {
+      return cache.size();
+    }
+  }
+
+  /**
+   * This processor updates the global store. The records of re-keyed topic are already keyed by
+   * join row so it is fine that kafka restores the global store without passing through this
+   * processor.
+   */
+  static final class StoreUpdater extends AbstractProcessor<Row, Row> {
+    private final String storeName;
+    private final LookupCache cache;
+    private KeyValueStore<Row, Row> store;
+
+    StoreUpdater(String storeName, LookupCache cache) {
+      this.storeName = storeName;
+      this.cache = cache;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void init(ProcessorContext context) {
+      super.init(context);
+      this.store = (KeyValueStore<Row, Row>) context.getStateStore(storeName);
+    }
+
+    @Override
+    public void process(Row key, Row value) {
+      if (key == null) return;
+      if (value == null) store.delete(key);
+      else store.put(key, value);
+      if (cache != null) cache.invalidate(key);
+    }
+  }
+
+  /** This transformer joins the streaming record with the global store. */
+  static final class Joiner implements ValueTransformerWithKey<Row, Row, Row> {
+    private final String storeName;
+    private final List<String> leftHeaders;
+    private final ValueJoiner valueJoiner;
+    private final LookupCache cache;
+    private final Histogram latency;
+    private KeyValueStore<Row, Row> store;
+
+    Joiner(
+        String storeName,
+        List<String> leftHeaders,
+        ValueJoiner valueJoiner,
+        LookupCache cache,
+        Histogram latency) {
+      this.storeName = storeName;
+      this.leftHeaders = leftHeaders;
+      this.valueJoiner = valueJoiner;
+      this.cache = cache;
+      this.latency = latency;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void init(ProcessorContext context) {
+      this.store = (KeyValueStore<Row, Row>) context.getStateStore(storeName);
+    }
+
+    @Override
+    public Row transform(Row readOnlyKey, Row value) {
+      if (latency == null) return join(value);
+      long start = System.nanoTime();
+      try {
+        return join(value);
+      } finally {
+        latency.update(System.nanoTime() - start);
+      }
+    }
+
+    private Row join(Row value) {
+      Row joinKey = leftKey(value, leftHeaders);
+      Row right = cache == null ? store.get(joinKey) : cache.get(joinKey, store::get);
+      return valueJoiner.apply(value, right);
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  // prevent construction
+  private GlobalLookup() {
+    throw new AssertionError();
+  }
+}
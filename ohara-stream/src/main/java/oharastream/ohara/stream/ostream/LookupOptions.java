@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import oharastream.ohara.common.util.CommonUtils;
+
+/**
+ * The options of {@link oharastream.ohara.stream.OStream#lookup(String, Conditions, ValueJoiner,
+ * LookupOptions)}. By default, the lookup table is stored by RocksDB and there is no cache.
+ */
+public class LookupOptions {
+
+  private boolean inMemory = false;
+  private int cacheSize = 0;
+
+  private LookupOptions() {}
+
+  public static LookupOptions create() {
+    return new LookupOptions();
+  }
+
+  /**
+   * keep the whole lookup table in memory rather than RocksDB. It is fast but the table must be
+   * small enough to fit in the heap of each instance.
+   *
+   * @return the options
+   */
+  public LookupOptions inMemory() {
+    this.inMemory = true;
+    return this;
+  }
+
+  /**
+   * cache the hot rows of the lookup table. It avoids the deserialization of store when the lookup
+   * table is stored by RocksDB.
+   *
+   * @param cacheSize the max number of cached rows
+   * @return the options
+   */
+  public LookupOptions cacheSize(int cacheSize) {
+    this.cacheSize = CommonUtils.requirePositiveInt(cacheSize);
+    return this;
+  }
+
+  boolean isInMemory() {
+    return inMemory;
+  }
+
+  int getCacheSize() {
+    return cacheSize;
+  }
+}
@@ -22,9 +22,13 @@ import oharastream.ohara.common.data.Row;
 import oharastream.ohara.stream.OGroupedStream;
 import oharastream.ohara.stream.OStream;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.KGroupedStream;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.KeyValueStore;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class OGroupedStreamImpl extends AbstractStream<Row, Row> implements OGroupedStream<Row> {
@@ -34,41 +38,64 @@ public class OGroupedStreamImpl extends AbstractStream<Row, Row> implements OGro
     super(ob, kgroupstream, builder);
   }
 
+  /** the output row of count is composed of the key cells and the count cell */
+  private static Row countRow(Row key, Long count) {
+    return Row.of(ArrayUtils.add(key.cells().toArray(new Cell[0]), Cell.of("count", count)));
+  }
+
+  /** the output row of reduce is composed of the key cells and the reduced cells */
+  private static Row reduceRow(Row key, Row value) {
+    return Row.of(
+        Stream.concat(key.cells().stream(), value.cells().stream())
+            .distinct()
+            .toArray(Cell[]::new));
+  }
+
+  private OStream<Row> count(KTable<Row, Long> counts) {
+    return new OStreamImpl(
+        builder,
+        counts.toStream().map(((key, value) -> KeyValue.pair(key, countRow(key, value)))),
+        innerBuilder);
+  }
+
   @Override
   public OStream<Row> count() {
+    return count(kgroupstream.count());
+  }
+
+  @Override
+  public OStream<Row> count(String storeName) {
+    builder.queryableStore(storeName, (key, value) -> countRow(key, (Long) value));
+    return count(
+        kgroupstream.count(
+            Materialized.<Row, Long, KeyValueStore<Bytes, byte[]>>as(storeName)
+                .withKeySerde(Serdes.ROW)
+                .withValueSerde(org.apache.kafka.common.serialization.Serdes.Long())));
+  }
+
+  private OStream<Row> reduce(KTable<Row, Row> reduced) {
     return new OStreamImpl(
         builder,
-        kgroupstream
-            .count()
-            .mapValues(count -> Row.of(Cell.of("count", count)))
-            .toStream()
-            .map(
-                ((key, value) ->
-                    KeyValue.pair(
-                        key,
-                        Row.of(
-                            ArrayUtils.addAll(
-                                key.cells().toArray(new Cell[0]),
-                                value.cells().toArray(new Cell[0])))))),
+        reduced.toStream().map(((key, value) -> KeyValue.pair(key, reduceRow(key, value)))),
         innerBuilder);
   }
 
   @Override
   public <T> OStream<Row> reduce(final Reducer<T> reducer, String reduceColumn) {
     Reducer.TrueReducer<T> trueReducer = new Reducer.TrueReducer(reducer, reduceColumn);
-    return new OStreamImpl(
-        builder,
-        kgroupstream
-            .reduce(trueReducer)
-            .toStream()
-            .map(
-                ((key, value) ->
-                    KeyValue.pair(
-                        key,
-                        Row.of(
-                            Stream.concat(key.cells().stream(), value.cells().stream())
-                                .distinct()
-                                .toArray(Cell[]::new))))),
-        innerBuilder);
+    return reduce(kgroupstream.reduce(trueReducer));
+  }
+
+  @Override
+  public <T> OStream<Row> reduce(
+      final Reducer<T> reducer, final String reduceColumn, final String storeName) {
+    Reducer.TrueReducer<T> trueReducer = new Reducer.TrueReducer(reducer, reduceColumn);
+    builder.queryableStore(storeName, (key, value) -> reduceRow(key, (Row) value));
+    return reduce(
+        kgroupstream.reduce(
+            trueReducer,
+            Materialized.<Row, Row, KeyValueStore<Bytes, byte[]>>as(storeName)
+                .withKeySerde(Serdes.ROW)
+                .withValueSerde(Serdes.ROW)));
   }
 }
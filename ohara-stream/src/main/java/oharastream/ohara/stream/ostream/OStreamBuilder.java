@@ -16,13 +16,26 @@
 
 package oharastream.ohara.stream.ostream;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import oharastream.ohara.common.annotations.Optional;
 import oharastream.ohara.common.annotations.VisibleForTesting;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.pattern.Builder;
 import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.stream.OStream;
+import org.apache.kafka.streams.kstream.KStream;
 
 /**
  * This class is responsible for managing all the properties that will use in {@code OStream}. Use
@@ -38,6 +51,14 @@ public final class OStreamBuilder implements Builder<OStream<Row>> {
   private Class<? extends TimestampExtractor> extractor = null;
   private boolean cleanStart = false;
   private boolean exactlyOnce = false;
+  private boolean debugMetrics = false;
+  private final AtomicInteger operatorIndex = new AtomicInteger(0);
+  private int queryPort = -1;
+  private String queryHostname = null;
+  private final Map<String, BiFunction<Row, Object, Row>> queryableStores = new LinkedHashMap<>();
+  private final Set<TopicKey> compactedTopics = new LinkedHashSet<>();
+  private final Map<String, KStream<Row, byte[]>> lookupSources = new HashMap<>();
+  private final Set<String> lookupStores = new HashSet<>();
 
   // We are in Ohara world, the data type of topics must be <Row, byte[]> for current version...
   private final Consumed fromSerde = new Consumed<>(Serdes.ROW, Serdes.BYTES);
@@ -86,14 +107,60 @@ public final class OStreamBuilder implements Builder<OStream<Row>> {
   }
 
   /**
-   * enable exactly once. Note: This method is intend to test the functionality for current version.
-   * Since we will have a better way to passing the "configurable" properties for cluster settings.
+   * enable exactly once. The stream commits the consumed offsets and the output by transaction so
+   * the throughput is lower than at-least-once.
    *
    * @return this builder
    */
-  @VisibleForTesting
-  OStreamBuilder enableExactlyOnce() {
-    this.exactlyOnce = true;
+  @Optional("default is at-least-once")
+  public OStreamBuilder enableExactlyOnce() {
+    return exactlyOnce(true);
+  }
+
+  /**
+   * @param exactlyOnce true if the stream should process the records exactly once
+   * @return this builder
+   */
+  @Optional("default is false")
+  public OStreamBuilder exactlyOnce(boolean exactlyOnce) {
+    this.exactlyOnce = exactlyOnce;
+    return this;
+  }
+
+  /**
+   * record the debug-level metrics of kafka streams and the latency of each operator. Every record
+   * is timed by {@link System#nanoTime()} so it costs the throughput.
+   *
+   * @param debugMetrics true if the debug metrics should be recorded
+   * @return this builder
+   */
+  @Optional("default is false")
+  public OStreamBuilder debugMetrics(boolean debugMetrics) {
+    this.debugMetrics = debugMetrics;
+    return this;
+  }
+
+  /**
+   * enable the http server used to query the queryable state stores. see {@link
+   * oharastream.ohara.stream.OGroupedStream#count(String)}
+   *
+   * @param queryPort the port of http server
+   * @return this builder
+   */
+  @Optional("default is disabled")
+  public OStreamBuilder queryPort(int queryPort) {
+    this.queryPort = CommonUtils.requireConnectionPort(queryPort);
+    return this;
+  }
+
+  /**
+   * @param queryHostname the hostname used by other instances and configurator to connect to the
+   *     http server of this instance
+   * @return this builder
+   */
+  @Optional("default is local hostname")
+  public OStreamBuilder queryHostname(String queryHostname) {
+    this.queryHostname = CommonUtils.requireNonEmpty(queryHostname);
     return this;
   }
 
@@ -174,7 +241,86 @@ public final class OStreamBuilder implements Builder<OStream<Row>> {
     return cleanStart;
   }
 
+  /**
+   * generate a name for the operator. The name is used to distinguish the metrics of operators.
+   *
+   * @param type operator type
+   * @return operator name
+   */
+  String operatorName(String type) {
+    return type + "-" + operatorIndex.getAndIncrement();
+  }
+
   boolean getExactlyOnce() {
     return exactlyOnce;
   }
+
+  boolean debugMetrics() {
+    return debugMetrics;
+  }
+
+  int queryPort() {
+    return queryPort;
+  }
+
+  String queryHostname() {
+    return queryHostname == null ? CommonUtils.hostname() : queryHostname;
+  }
+
+  /**
+   * register a queryable store.
+   *
+   * @param storeName store name. It must be unique in this stream
+   * @param converter used to convert the key-value of store to the output row
+   */
+  void queryableStore(String storeName, BiFunction<Row, Object, Row> converter) {
+    CommonUtils.requireNonEmpty(storeName);
+    if (queryableStores.containsKey(storeName))
+      throw new IllegalArgumentException("store:" + storeName + " is already existent");
+    queryableStores.put(storeName, Objects.requireNonNull(converter));
+  }
+
+  Map<String, BiFunction<Row, Object, Row>> queryableStores() {
+    return Collections.unmodifiableMap(queryableStores);
+  }
+
+  /**
+   * register an internal compacted topic. The topic is created when the stream is started, so
+   * describing the topology does not create any topic.
+   *
+   * @param topicKey topic key
+   */
+  void compactedTopic(TopicKey topicKey) {
+    compactedTopics.add(Objects.requireNonNull(topicKey));
+  }
+
+  Set<TopicKey> compactedTopics() {
+    return Collections.unmodifiableSet(compactedTopics);
+  }
+
+  /**
+   * get the source stream of lookup topic. A topic can't be registered as source twice in kafka
+   * streams, so all lookups on the same topic share the source stream.
+   *
+   * @param topicName lookup topic
+   * @param creator used to create the source stream if the topic is not registered yet
+   * @return the source stream of lookup topic
+   */
+  KStream<Row, byte[]> lookupSource(
+      String topicName, Function<String, KStream<Row, byte[]>> creator) {
+    CommonUtils.requireNonEmpty(topicName);
+    return lookupSources.computeIfAbsent(topicName, Objects.requireNonNull(creator));
+  }
+
+  /**
+   * register the global store of lookup.
+   *
+   * @param storeName store name. It must be unique in this stream
+   */
+  void lookupStore(String storeName) {
+    CommonUtils.requireNonEmpty(storeName);
+    if (!lookupStores.add(storeName))
+      throw new IllegalArgumentException(
+          "the lookup:" + storeName + " is already existent. Please reuse the result of lookup");
+  }
 }
@@ -17,15 +17,18 @@
 package oharastream.ohara.stream.ostream;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.function.UnaryOperator;
 import oharastream.ohara.common.data.Cell;
 import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.setting.TopicKey;
 import oharastream.ohara.common.util.CommonUtils;
 import oharastream.ohara.kafka.TopicAdmin;
 import oharastream.ohara.metrics.basic.Counter;
+import oharastream.ohara.metrics.basic.Histogram;
 import oharastream.ohara.stream.OGroupedStream;
 import oharastream.ohara.stream.OStream;
 import oharastream.ohara.stream.OTable;
@@ -35,24 +38,103 @@ import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Grouped;
 import org.apache.kafka.streams.kstream.KStream;
 import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.ValueTransformerWithKeySupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @SuppressWarnings({"unchecked"})
 class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
 
+  /**
+   * the value of output record. The row is stored in the key part so the value is always empty.
+   * Serializing an empty array is stateless, hence all records share the same instance.
+   */
+  private static final byte[] EMPTY_VALUE = new byte[0];
+
   private final Logger log = LoggerFactory.getLogger(OStreamImpl.class);
   private static Topology topology = null;
   private final Counter counter;
+  /** the stateless operators which are not materialized to kafka streams yet */
+  private final FusedOperator fusedOperator;
+  /** the kafka stream with fused operator. It is created when the first stateful operator comes */
+  private KStream<Row, Row> fusedStream = null;
 
   OStreamImpl(OStreamBuilder ob) {
     super(ob);
     this.counter = counter(ob.key(), MetricFactory.IOType.TOPIC_OUT);
+    this.fusedOperator = FusedOperator.EMPTY;
   }
 
   OStreamImpl(OStreamBuilder ob, KStream<Row, Row> stream, StreamsBuilder builder) {
+    this(ob, stream, builder, FusedOperator.EMPTY);
+  }
+
+  private OStreamImpl(
+      OStreamBuilder ob,
+      KStream<Row, Row> stream,
+      StreamsBuilder builder,
+      FusedOperator fusedOperator) {
     super(ob, stream, builder);
     this.counter = counter(ob.key(), MetricFactory.IOType.TOPIC_OUT);
+    this.fusedOperator = fusedOperator;
+  }
+
+  /**
+   * materialize the pending stateless operators by a single processor. The result is cached so the
+   * operators are not executed twice if this stream is consumed by multiple downstream operators.
+   *
+   * @return kafka stream having all operators of this stream
+   */
+  private KStream<Row, Row> stream() {
+    if (fusedOperator.isEmpty()) return kstreams;
+    if (fusedStream == null) {
+      Histogram latency = latency("fused");
+      fusedStream =
+          kstreams.<Row>flatMapValues(
+              value -> {
+                Row row = fusedOperator.apply(value, latency);
+                if (row == FusedOperator.DROPPED) return Collections.emptyList();
+                return Collections.singletonList(row);
+              });
+    }
+    return fusedStream;
+  }
+
+  /**
+   * append a stateless operator to this stream. If the operators of this stream are materialized
+   * already, the new operator is chained to the materialized stream so the materialized operators
+   * are not executed again.
+   *
+   * @param append appends the operator to chain
+   * @return new stream
+   */
+  private OStreamImpl fuse(UnaryOperator<FusedOperator> append) {
+    if (fusedStream != null)
+      return new OStreamImpl(builder, fusedStream, innerBuilder, append.apply(FusedOperator.EMPTY));
+    return new OStreamImpl(builder, kstreams, innerBuilder, append.apply(fusedOperator));
+  }
+
+  /**
+   * convert this stream to the output format (row in the key part and empty value). The pending
+   * stateless operators are fused with the conversion so a simple filter/map stream has only one
+   * processor between source and sink.
+   *
+   * @param counter counts the output records. null means no counting
+   * @return output stream
+   */
+  private KStream<Row, byte[]> output(Counter counter) {
+    boolean materialized = fusedOperator.isEmpty() || fusedStream != null;
+    FusedOperator operator = materialized ? FusedOperator.EMPTY : fusedOperator;
+    KStream<Row, Row> stream = materialized ? stream() : kstreams;
+    Histogram latency = materialized ? null : latency("fused");
+    return stream.<Row, byte[]>flatMap(
+        (noUse, value) -> {
+          Row row = operator.apply(value, latency);
+          if (row == FusedOperator.DROPPED) return Collections.emptyList();
+          // we calculate the output record size
+          if (counter != null) counter.increment();
+          return Collections.singletonList(KeyValue.pair(row, EMPTY_VALUE));
+        });
   }
 
   @Override
@@ -66,8 +148,8 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
 
   @Override
   public OStream<Row> filter(final Predicate predicate) {
-    Predicate.TruePredicate truePredicate = new Predicate.TruePredicate(predicate);
-    return new OStreamImpl(builder, kstreams.filter(truePredicate), innerBuilder);
+    // filter is stateless so it is fused with the adjacent stateless operators
+    return fuse(operator -> operator.filter(predicate));
   }
 
   @Override
@@ -76,9 +158,10 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
     client.topicCreator().topicKey(topicKey).numberOfPartitions(partitions).create();
     return new OStreamImpl(
         builder,
-        kstreams.through(
-            topicKey.topicNameOnKafka(),
-            org.apache.kafka.streams.kstream.Produced.with(Serdes.ROW, Serdes.ROW)),
+        stream()
+            .through(
+                topicKey.topicNameOnKafka(),
+                org.apache.kafka.streams.kstream.Produced.with(Serdes.ROW, Serdes.ROW)),
         innerBuilder);
   }
 
@@ -123,7 +206,7 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
     // do left join
     return new OStreamImpl(
         builder,
-        kstreams
+        stream()
             .map(
                 (row, value) ->
                     new KeyValue<>(
@@ -132,9 +215,66 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
         innerBuilder);
   }
 
+  @Override
+  public OStream<Row> lookup(
+      String lookupTopicName,
+      Conditions conditions,
+      ValueJoiner valueJoiner,
+      LookupOptions options) {
+    CommonUtils.requireNonEmpty(lookupTopicName, () -> "lookupTopicName cannot be null");
+    // kafka streams can't register the source topic twice
+    if (lookupTopicName.equals(builder.getFromTopic()))
+      throw new IllegalArgumentException(
+          "the lookup topic:" + lookupTopicName + " can't be the source topic of stream");
+    Objects.requireNonNull(valueJoiner);
+    Objects.requireNonNull(options);
+    var list = conditions.conditionList();
+    CommonUtils.requireNonEmpty(list, () -> "the conditions cannot be empty");
+
+    List<String> leftHeaders = new ArrayList<>();
+    List<String> rightHeaders = new ArrayList<>();
+    list.forEach(
+        pair -> {
+          leftHeaders.add(pair.getKey());
+          rightHeaders.add(pair.getValue());
+        });
+
+    // the global store can't re-key the records (kafka restores the global store from the source
+    // topic directly) so we re-key the lookup topic to an internal topic first. Noted that only
+    // the (small) lookup topic is re-keyed.
+    TopicKey rekeyedTopicKey =
+        GlobalLookup.rekeyedTopicKey(
+            builder.key(), builder.getFromTopic(), lookupTopicName, leftHeaders, rightHeaders);
+    String storeName = rekeyedTopicKey.topicNameOnKafka();
+    builder.lookupStore(storeName);
+    builder.compactedTopic(rekeyedTopicKey);
+    builder
+        .lookupSource(
+            lookupTopicName,
+            topicName ->
+                innerBuilder.stream(topicName, new Consumed<>(Serdes.ROW, Serdes.BYTES).get()))
+        .map(
+            (row, value) ->
+                new KeyValue<>(GlobalLookup.rightKey(row, leftHeaders, rightHeaders), row))
+        .to(storeName, org.apache.kafka.streams.kstream.Produced.with(Serdes.ROW, Serdes.ROW));
+
+    var cache = GlobalLookup.cache(options.getCacheSize());
+    innerBuilder.addGlobalStore(
+        GlobalLookup.storeBuilder(storeName, options.isInMemory()),
+        storeName,
+        new Consumed<>(Serdes.ROW, Serdes.ROW).get(),
+        () -> new GlobalLookup.StoreUpdater(storeName, cache));
+
+    Histogram latency = latency("lookup");
+    ValueTransformerWithKeySupplier<Row, Row, Row> joiner =
+        () -> new GlobalLookup.Joiner(storeName, leftHeaders, valueJoiner, cache, latency);
+    return new OStreamImpl(builder, stream().transformValues(joiner), innerBuilder);
+  }
+
   @Override
   public OStream<Row> map(final ValueMapper mapper) {
-    return new OStreamImpl(builder, kstreams.mapValues(mapper::valueMapper), innerBuilder);
+    // map is stateless so it is fused with the adjacent stateless operators
+    return fuse(operator -> operator.map(mapper));
   }
 
   @Override
@@ -143,7 +283,7 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
 
     return new OGroupedStreamImpl(
         builder,
-        kstreams
+        stream()
             .map(
                 (row, value) ->
                     new KeyValue<>(
@@ -178,8 +318,15 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
       // Reference : https://docs.confluent.io/current/streams/developer-guide/memory-mgmt.html
       prop.put(StreamsConfig.CACHE_BUFFER, 0);
       prop.put(StreamsConfig.TASK_IDLE_MS, 3 * 1000);
-
-      topology = new Topology(innerBuilder, prop, builder.isCleanStart(), isDryRun);
+      // the metrics of task, processor node and state store are recorded in debug level. Those
+      // metrics are reported to ohara beans by StreamsMetricsReporter
+      if (builder.debugMetrics()) prop.put(StreamsConfig.METRICS_RECORDING_LEVEL, "DEBUG");
+      // the instance hosting the key of queryable store is found by this endpoint
+      if (builder.queryPort() > 0)
+        prop.put(
+            StreamsConfig.APPLICATION_SERVER, builder.queryHostname() + ":" + builder.queryPort());
+
+      topology = new Topology(builder.key(), innerBuilder, prop, builder.isCleanStart(), isDryRun);
       log.info(String.format("poneglyph:%s", topology.getPoneglyphs().toString()));
     }
   }
@@ -187,29 +334,56 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
   @Override
   public void foreach(ForeachAction action) {
     ForeachAction.TrueForeachAction trueForeachAction = new ForeachAction.TrueForeachAction(action);
-    kstreams.map(((noUse, value) -> KeyValue.pair(value, new byte[0]))).foreach(trueForeachAction);
+    Histogram latency = latency("foreach");
+    if (latency == null) output(null).foreach(trueForeachAction);
+    else
+      output(null)
+          .foreach(
+              (key, value) -> {
+                long start = System.nanoTime();
+                try {
+                  trueForeachAction.apply(key, value);
+                } finally {
+                  latency.update(System.nanoTime() - start);
+                }
+              });
 
     // Initial properties and topology for "actual" action
     baseActionInitial(false);
 
-    topology.start();
+    startTopology();
   }
 
   @Override
   public void start() {
-    kstreams
-        .map(
-            ((noUse, value) -> {
-              // we calculate the output record size
-              counter.incrementAndGet();
-              return KeyValue.pair(value, new byte[0]);
-            }))
-        .to(builder.getToTopic(), builder.getToSerde().get());
+    output(counter).to(builder.getToTopic(), builder.getToSerde().get());
 
     // Initial properties and topology for "actual" action
     baseActionInitial(false);
 
+    startTopology();
+  }
+
+  private void startTopology() {
+    if (!builder.compactedTopics().isEmpty())
+      try (TopicAdmin client = TopicAdmin.of(builder.getBootstrapServers())) {
+        builder
+            .compactedTopics()
+            .forEach(
+                topicKey -> {
+                  if (!client.exist(topicKey).toCompletableFuture().join())
+                    client
+                        .topicCreator()
+                        .topicKey(topicKey)
+                        .compacted()
+                        .create()
+                        .toCompletableFuture()
+                        .join();
+                });
+      }
     topology.start();
+    if (builder.queryPort() > 0)
+      topology.startQueryServer(builder.queryPort(), builder.queryableStores());
   }
 
   @Override
@@ -222,9 +396,7 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
 
   @Override
   public String describe() {
-    kstreams
-        .map(((noUse, value) -> KeyValue.pair(value, new byte[0])))
-        .to(builder.getToTopic(), builder.getToSerde().get());
+    output(null).to(builder.getToTopic(), builder.getToSerde().get());
 
     // Initial properties and topology for "actual" action
     baseActionInitial(true);
@@ -234,9 +406,7 @@ class OStreamImpl extends AbstractStream<Row, Row> implements OStream<Row> {
 
   @Override
   public List<Poneglyph> getPoneglyph() {
-    kstreams
-        .map(((noUse, value) -> KeyValue.pair(value, new byte[0])))
-        .to(builder.getToTopic(), builder.getToSerde().get());
+    output(null).to(builder.getToTopic(), builder.getToSerde().get());
 
     // Initial properties and topology for "actual" action
     baseActionInitial(true);
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.json.JsonUtils;
+import oharastream.ohara.common.util.ReleaseOnce;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded http server used to query the queryable state stores of this stream instance. The
+ * apis are shown below.
+ *
+ * <ul>
+ *   <li>GET /stores : list the names of queryable stores
+ *   <li>GET /stores/{name}?key={json} : lookup the key from the local store
+ *   <li>GET /stores/{name}?limit={number} : scan the rows of the local store
+ *   <li>GET /stores/{name}/metadata?key={json} : the hostname and port of instance hosting the key
+ * </ul>
+ *
+ * <p>The key is a json object composed of the cells of grouped key. Noted: the json number is
+ * converted to integer (or long if it is too big) and double so only those types can be looked up.
+ * The errors are returned by json object having the field "message".
+ */
+final class StoreQueryServer extends ReleaseOnce {
+  private static final Logger log = LoggerFactory.getLogger(StoreQueryServer.class);
+  static final String PATH = "/stores";
+  static final String METADATA_PATH = "metadata";
+  static final String KEY_KEY = "key";
+  static final String LIMIT_KEY = "limit";
+  static final String HOSTNAME_KEY = "hostname";
+  static final String PORT_KEY = "port";
+  static final String MESSAGE_KEY = "message";
+  private static final int DEFAULT_LIMIT = 100;
+
+  /**
+   * @param streams kafka streams
+   * @param port bound port
+   * @param stores the queryable stores and the functions converting the key-value to output row
+   * @return a running server
+   * @throws IOException if it fails to bind the port
+   */
+  static StoreQueryServer of(
+      KafkaStreams streams, int port, Map<String, BiFunction<Row, Object, Row>> stores)
+      throws IOException {
+    return new StoreQueryServer(streams, port, stores);
+  }
+
+  private final KafkaStreams streams;
+  private final Map<String, BiFunction<Row, Object, Row>> stores;
+  private final ExecutorService executor;
+  private final HttpServer server;
+
+  private StoreQueryServer(
+      KafkaStreams streams, int port, Map<String, BiFunction<Row, Object, Row>> stores)
+      throws IOException {
+    this.streams = Objects.requireNonNull(streams);
+    this.stores = Map.copyOf(stores);
+    this.server = HttpServer.create(new InetSocketAddress(port), 0);
+    this.executor =
+        Executors.newFixedThreadPool(
+            2,
+            r -> {
+              Thread thread = new Thread(r, "store-query-" + port);
+              thread.setDaemon(true);
+              return thread;
+            });
+    server.setExecutor(executor);
+    server.createContext(PATH, this::handle);
+    server.start();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!"GET".equals(exchange.getRequestMethod()))
+        response(exchange, 405, error("only GET is supported"));
+      else response(exchange, 200, route(exchange));
+    } catch (NotFoundException e) {
+      response(exchange, 404, error(e.getMessage()));
+    } catch (IllegalArgumentException e) {
+      response(exchange, 400, error(e.getMessage()));
+    } catch (InvalidStateStoreException e) {
+      // the store is migrating or not ready
+      response(exchange, 503, error(e.getMessage()));
+    } catch (Throwable e) {
+      log.error("failed to handle " + exchange.getRequestURI(), e);
+      response(exchange, 500, error(e.getMessage()));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private Object route(HttpExchange exchange) {
+    List<String> segments =
+        Arrays.stream(exchange.getRequestURI().getPath().substring(PATH.length()).split("/"))
+            .filter(s -> !s.isEmpty())
+            .collect(Collectors.toUnmodifiableList());
+    Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+    if (segments.isEmpty()) return stores.keySet();
+    String storeName = segments.get(0);
+    BiFunction<Row, Object, Row> converter = stores.get(storeName);
+    if (converter == null) throw new NotFoundException("store:" + storeName + " does not exist");
+    if (segments.size() == 2 && segments.get(1).equals(METADATA_PATH))
+      return metadata(storeName, key(parameters));
+    if (segments.size() != 1)
+      throw new NotFoundException(exchange.getRequestURI().getPath() + " does not exist");
+    if (parameters.containsKey(KEY_KEY)) return lookup(storeName, converter, key(parameters));
+    return scan(
+        storeName,
+        converter,
+        parameters.containsKey(LIMIT_KEY)
+            ? Integer.parseInt(parameters.get(LIMIT_KEY))
+            : DEFAULT_LIMIT);
+  }
+
+  private Map<String, Object> metadata(String storeName, Row key) {
+    KeyQueryMetadata metadata =
+        streams.queryMetadataForKey(storeName, key, Serdes.ROW.serializer());
+    if (metadata == null || metadata.equals(KeyQueryMetadata.NOT_AVAILABLE))
+      throw new InvalidStateStoreException(
+          "the metadata of store:" + storeName + " is unavailable");
+    return Map.of(
+        HOSTNAME_KEY, metadata.getActiveHost().host(), PORT_KEY, metadata.getActiveHost().port());
+  }
+
+  private ReadOnlyKeyValueStore<Row, Object> store(String storeName) {
+    return streams.store(
+        StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.keyValueStore()));
+  }
+
+  private Map<String, Object> lookup(
+      String storeName, BiFunction<Row, Object, Row> converter, Row key) {
+    Object value = store(storeName).get(key);
+    if (value == null)
+      throw new NotFoundException("key:" + key + " does not exist in local store:" + storeName);
+    return toMap(converter.apply(key, value));
+  }
+
+  private List<Map<String, Object>> scan(
+      String storeName, BiFunction<Row, Object, Row> converter, int limit) {
+    if (limit <= 0) throw new IllegalArgumentException("limit must be bigger than zero");
+    List<Map<String, Object>> rows = new ArrayList<>();
+    try (KeyValueIterator<Row, Object> iterator = store(storeName).all()) {
+      while (iterator.hasNext() && rows.size() < limit) {
+        org.apache.kafka.streams.KeyValue<Row, Object> keyValue = iterator.next();
+        rows.add(toMap(converter.apply(keyValue.key, keyValue.value)));
+      }
+    }
+    return rows;
+  }
+
+  private static Row key(Map<String, String> parameters) {
+    String json = parameters.get(KEY_KEY);
+    if (json == null) throw new IllegalArgumentException(KEY_KEY + " is required");
+    return toRow(JsonUtils.toObject(json, new TypeReference<Map<String, Object>>() {}));
+  }
+
+  private static Map<String, String> parameters(String rawQuery) {
+    Map<String, String> parameters = new HashMap<>();
+    if (rawQuery == null) return parameters;
+    for (String pair : rawQuery.split("&")) {
+      int index = pair.indexOf('=');
+      if (index <= 0) continue;
+      parameters.put(
+          URLDecoder.decode(pair.substring(0, index), StandardCharsets.UTF_8),
+          URLDecoder.decode(pair.substring(index + 1), StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  @SuppressWarnings("unchecked")
+  static Row toRow(Map<String, Object> map) {
+    return Row.of(
+        map.entrySet().stream()
+            .map(
+                e ->
+                    Cell.of(
+                        e.getKey(),
+                        e.getValue() instanceof Map
+                            ? toRow((Map<String, Object>) e.getValue())
+                            : e.getValue()))
+            .toArray(Cell[]::new));
+  }
+
+  static Map<String, Object> toMap(Row row) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    row.cells()
+        .forEach(
+            cell ->
+                map.put(
+                    cell.name(),
+                    cell.value() instanceof Row ? toMap((Row) cell.value()) : cell.value()));
+    return map;
+  }
+
+  private static Map<String, Object> error(String message) {
+    return Map.of(MESSAGE_KEY, message == null ? "unknown error" : message);
+  }
+
+  private static void response(HttpExchange exchange, int code, Object body) throws IOException {
+    byte[] bytes = JsonUtils.toString(body).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(code, bytes.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  /** @return the port bound by this server */
+  int port() {
+    return server.getAddress().getPort();
+  }
+
+  @Override
+  protected void doClose() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private static class NotFoundException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    NotFoundException(String message) {
+      super(message);
+    }
+  }
+}
@@ -42,6 +42,10 @@ class StreamsConfig {
       org.apache.kafka.streams.StreamsConfig.PROCESSING_GUARANTEE_CONFIG;
   static final String ACKS = ProducerConfig.ACKS_CONFIG;
   static final String TASK_IDLE_MS = org.apache.kafka.streams.StreamsConfig.MAX_TASK_IDLE_MS_CONFIG;
+  static final String APPLICATION_SERVER =
+      org.apache.kafka.streams.StreamsConfig.APPLICATION_SERVER_CONFIG;
+  static final String METRICS_RECORDING_LEVEL =
+      org.apache.kafka.streams.StreamsConfig.METRICS_RECORDING_LEVEL_CONFIG;
 
   enum GUARANTEES {
     EXACTLY_ONCE(org.apache.kafka.streams.StreamsConfig.EXACTLY_ONCE),
@@ -19,12 +19,17 @@ package oharastream.ohara.stream.ostream;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import oharastream.ohara.common.data.Row;
 import oharastream.ohara.common.exception.ExceptionHandler;
+import oharastream.ohara.common.setting.ObjectKey;
 import oharastream.ohara.common.util.Releasable;
 import oharastream.ohara.stream.data.Poneglyph;
 import oharastream.ohara.stream.data.Stele;
+import oharastream.ohara.stream.metric.StreamsMetricsReporter;
 import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.TopologyDescription;
 import org.apache.kafka.streams.processor.internals.InternalTopologyBuilder;
@@ -33,16 +38,24 @@ import org.slf4j.LoggerFactory;
 
 public class Topology implements Releasable {
 
+  /** the period of copying kafka streams metrics to ohara beans */
+  private static final long METRICS_REPORT_PERIOD = 5 * 1000;
+
+  private final ObjectKey key;
   private final org.apache.kafka.streams.Topology topology;
   private org.apache.kafka.streams.KafkaStreams streams;
+  private StreamsMetricsReporter metricsReporter;
+  private StoreQueryServer queryServer;
 
   private static final Logger log = LoggerFactory.getLogger(Topology.class);
 
   Topology(
+      ObjectKey key,
       org.apache.kafka.streams.StreamsBuilder builder,
       Properties config,
       boolean isCleanStart,
       boolean describeOnly) {
+    this.key = key;
     this.topology = builder.build();
 
     // Temporary solution to set default `state.dir` value
@@ -121,12 +134,29 @@ public class Topology implements Releasable {
     ExceptionHandler.DEFAULT.handle(
         () -> {
           streams.start();
+          metricsReporter = StreamsMetricsReporter.of(key, streams::metrics, METRICS_REPORT_PERIOD);
+          return null;
+        });
+  }
+
+  /**
+   * start the http server used to query the state stores. It must be called after {@link #start()}.
+   *
+   * @param port bound port
+   * @param stores the queryable stores and the functions converting the key-value to output row
+   */
+  void startQueryServer(int port, Map<String, BiFunction<Row, Object, Row>> stores) {
+    ExceptionHandler.DEFAULT.handle(
+        () -> {
+          queryServer = StoreQueryServer.of(streams, port, stores);
           return null;
         });
   }
 
   @Override
   public void close() {
+    Releasable.close(queryServer);
+    Releasable.close(metricsReporter);
     streams.close();
   }
 }
@@ -16,6 +16,7 @@
 
 package oharastream.ohara.stream.config;
 
+import java.util.Map;
 import oharastream.ohara.common.rule.OharaTest;
 import oharastream.ohara.common.util.CommonUtils;
 import org.junit.Assert;
@@ -32,4 +33,42 @@ public class TestStreamSetting extends OharaTest {
   public void failToUseEnvString() {
     StreamSetting.toEnvString(CommonUtils.randomString() + StreamSetting.INTERNAL_STRING_FOR_ENV);
   }
+
+  @Test
+  public void testExactlyOnce() {
+    Assert.assertFalse(StreamSetting.of(StreamDefUtils.DEFAULT.values(), Map.of()).exactlyOnce());
+    Assert.assertTrue(
+        StreamSetting.of(
+                StreamDefUtils.DEFAULT.values(),
+                Map.of(StreamDefUtils.EXACTLY_ONCE_DEFINITION.key(), "true"))
+            .exactlyOnce());
+  }
+
+  @Test
+  public void testDebugMetrics() {
+    Assert.assertFalse(StreamSetting.of(StreamDefUtils.DEFAULT.values(), Map.of()).debugMetrics());
+    Assert.assertTrue(
+        StreamSetting.of(
+                StreamDefUtils.DEFAULT.values(),
+                Map.of(StreamDefUtils.DEBUG_METRICS_DEFINITION.key(), "true"))
+            .debugMetrics());
+  }
+
+  @Test
+  public void testQueryServerIsDisabledByDefault() {
+    StreamSetting setting = StreamSetting.of(StreamDefUtils.DEFAULT.values(), Map.of());
+    Assert.assertTrue(setting.queryPort().isEmpty());
+    Assert.assertTrue(setting.queryHostname().isEmpty());
+  }
+
+  @Test
+  public void testQueryHostname() {
+    String hostname = CommonUtils.randomString();
+    Assert.assertEquals(
+        hostname,
+        StreamSetting.of(
+                StreamDefUtils.DEFAULT.values(), Map.of(StreamSetting.QUERY_HOSTNAME_KEY, hostname))
+            .queryHostname()
+            .get());
+  }
 }
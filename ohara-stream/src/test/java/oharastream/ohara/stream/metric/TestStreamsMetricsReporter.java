@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package oharastream.ohara.stream.metric;
+
+import java.util.Map;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.BeanChannel;
+import oharastream.ohara.metrics.basic.GaugeMBean;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.stats.Value;
+import org.apache.kafka.common.utils.Time;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestStreamsMetricsReporter extends OharaTest {
+
+  @Test
+  public void testItem() {
+    MetricName name =
+        new MetricName(
+            "process-rate",
+            "stream-task-metrics",
+            "",
+            Map.of("client-id", "abc", "thread-id", "t:1", "task-id", "0_1"));
+    Assert.assertEquals(
+        "stream-task-metrics.process-rate.0_1.t_1", StreamsMetricsReporter.item(name));
+    Assert.assertEquals("per second", StreamsMetricsReporter.unit(name));
+  }
+
+  @Test
+  public void testReport() {
+    ObjectKey key = CommonUtils.randomKey();
+    MetricName name = new MetricName("commit-total", "stream-thread-metrics", "", Map.of());
+    Value value = new Value();
+    value.record(new MetricConfig(), 10, 0);
+    KafkaMetric metric = new KafkaMetric(new Object(), name, value, new MetricConfig(), Time.SYSTEM);
+    MetricName ignored = new MetricName("commit-total", "unknown-group", "", Map.of());
+    try (StreamsMetricsReporter reporter =
+        StreamsMetricsReporter.of(key, () -> Map.of(name, metric, ignored, metric), 1000)) {
+      reporter.report();
+      GaugeMBean bean =
+          BeanChannel.local().gaugeMBeans().stream()
+              .filter(g -> g.key().equals(key))
+              .findFirst()
+              .get();
+      Assert.assertEquals(10, bean.getValue(), 0);
+      Assert.assertEquals("count", bean.getUnit());
+      Assert.assertEquals(
+          1, BeanChannel.local().gaugeMBeans().stream().filter(g -> g.key().equals(key)).count());
+    }
+    Assert.assertTrue(
+        BeanChannel.local().gaugeMBeans().stream().noneMatch(g -> g.key().equals(key)));
+  }
+}
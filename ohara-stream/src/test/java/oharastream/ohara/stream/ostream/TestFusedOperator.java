@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.metrics.basic.Histogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestFusedOperator extends OharaTest {
+
+  private static Histogram histogram() {
+    return Histogram.builder()
+        .key(CommonUtils.randomKey())
+        .item(CommonUtils.randomString())
+        .build();
+  }
+
+  @Test
+  public void testEmpty() {
+    Row row = Row.of(Cell.of("a", 1));
+    Assert.assertTrue(FusedOperator.EMPTY.isEmpty());
+    Assert.assertSame(row, FusedOperator.EMPTY.apply(row));
+  }
+
+  @Test
+  public void testImmutable() {
+    FusedOperator parent = FusedOperator.EMPTY.filter(row -> true);
+    FusedOperator child0 = parent.map(row -> Row.of(Cell.of("b", 2)));
+    FusedOperator child1 = parent.filter(row -> false);
+    Assert.assertEquals(1, parent.size());
+    Assert.assertEquals(2, child0.size());
+    Assert.assertEquals(2, child1.size());
+    Assert.assertTrue(FusedOperator.EMPTY.isEmpty());
+  }
+
+  @Test
+  public void testFilterAndMap() {
+    AtomicInteger count = new AtomicInteger();
+    FusedOperator operator =
+        FusedOperator.EMPTY
+            .filter(row -> (int) row.cell("a").value() > 1)
+            .map(
+                row -> {
+                  count.incrementAndGet();
+                  return Row.of(Cell.of("a", (int) row.cell("a").value() * 10));
+                });
+
+    Assert.assertSame(FusedOperator.DROPPED, operator.apply(Row.of(Cell.of("a", 1))));
+    Assert.assertEquals(Row.of(Cell.of("a", 20)), operator.apply(Row.of(Cell.of("a", 2))));
+
+    // the rejected row does not reach the mapper
+    Assert.assertEquals(1, count.get());
+  }
+
+  @Test
+  public void testChainIsTimedOnce() {
+    Histogram latency = histogram();
+    FusedOperator operator =
+        FusedOperator.EMPTY
+            .filter(row -> (int) row.cell("a").value() > 1)
+            .map(row -> Row.of(Cell.of("a", (int) row.cell("a").value() * 10)))
+            .map(row -> row);
+
+    Assert.assertSame(FusedOperator.DROPPED, operator.apply(Row.of(Cell.of("a", 1)), latency));
+    Assert.assertEquals(Row.of(Cell.of("a", 20)), operator.apply(Row.of(Cell.of("a", 2)), latency));
+    Assert.assertEquals(2, latency.getCount());
+
+    // null histogram means the latency is not recorded
+    Assert.assertEquals(Row.of(Cell.of("a", 20)), operator.apply(Row.of(Cell.of("a", 2)), null));
+  }
+
+  @Test
+  public void testStopAtFirstRejection() {
+    AtomicInteger count = new AtomicInteger();
+    FusedOperator operator =
+        FusedOperator.EMPTY
+            .filter(row -> false)
+            .map(
+                row -> {
+                  count.incrementAndGet();
+                  return row;
+                });
+    Assert.assertSame(FusedOperator.DROPPED, operator.apply(Row.of(Cell.of("a", 1))));
+    Assert.assertEquals(0, count.get());
+  }
+
+  @Test
+  public void testEmptyRowIsNotDropped() {
+    FusedOperator operator = FusedOperator.EMPTY.map(row -> Row.of());
+    Row result = operator.apply(Row.of(Cell.of("a", 1)));
+    Assert.assertNotSame(FusedOperator.DROPPED, result);
+    Assert.assertEquals(0, result.size());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullPredicate() {
+    FusedOperator.EMPTY.filter(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullMapper() {
+    FusedOperator.EMPTY.map(null);
+  }
+}
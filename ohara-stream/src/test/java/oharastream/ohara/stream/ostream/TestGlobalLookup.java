@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.util.CommonUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestGlobalLookup extends OharaTest {
+
+  @Test
+  public void testJoinKeysAreEqual() {
+    Row left = Row.of(Cell.of("pk", 1), Cell.of("name", "a"));
+    Row right = Row.of(Cell.of("fk", 1), Cell.of("region", "tw"));
+    Assert.assertEquals(
+        GlobalLookup.leftKey(left, List.of("pk")),
+        GlobalLookup.rightKey(right, List.of("pk"), List.of("fk")));
+  }
+
+  @Test
+  public void testRekeyedTopicKeyIsDeterministic() {
+    ObjectKey key = CommonUtils.randomKey();
+    String left = CommonUtils.randomString();
+    String topic = CommonUtils.randomString();
+    Assert.assertEquals(
+        GlobalLookup.rekeyedTopicKey(key, left, topic, List.of("c", "d"), List.of("a", "b")),
+        GlobalLookup.rekeyedTopicKey(key, left, topic, List.of("c", "d"), List.of("a", "b")));
+    Assert.assertNotEquals(
+        GlobalLookup.rekeyedTopicKey(key, left, topic, List.of("c", "d"), List.of("a", "b")),
+        GlobalLookup.rekeyedTopicKey(key, left, topic, List.of("c", "d"), List.of("b", "a")));
+    Assert.assertNotEquals(
+        GlobalLookup.rekeyedTopicKey(key, left, topic, List.of("c", "d"), List.of("a", "b")),
+        GlobalLookup.rekeyedTopicKey(key, left, topic, List.of("d", "c"), List.of("a", "b")));
+    Assert.assertNotEquals(
+        GlobalLookup.rekeyedTopicKey(key, left, topic, List.of("c", "d"), List.of("a", "b")),
+        GlobalLookup.rekeyedTopicKey(
+            key, CommonUtils.randomString(), topic, List.of("c", "d"), List.of("a", "b")));
+  }
+
+  @Test
+  public void testDisabledCache() {
+    Assert.assertNull(GlobalLookup.cache(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCacheSize() {
+    GlobalLookup.cache(-1);
+  }
+
+  @Test
+  public void testBoundedCache() {
+    var cache = GlobalLookup.cache(10);
+    for (int i = 0; i != 100; ++i) cache.get(Row.of(Cell.of("k", i)), key -> null);
+    Assert.assertTrue(cache.size() <= 10);
+  }
+
+  @Test
+  public void testCachedRow() {
+    var cache = GlobalLookup.cache(10);
+    Row key = Row.of(Cell.of("k", 1));
+    Row value = Row.of(Cell.of("v", 1));
+    AtomicInteger count = new AtomicInteger(0);
+    for (int i = 0; i != 3; ++i)
+      Assert.assertEquals(
+          value,
+          cache.get(
+              key,
+              k -> {
+                count.incrementAndGet();
+                return value;
+              }));
+    Assert.assertEquals(1, count.get());
+
+    cache.invalidate(key);
+    Assert.assertEquals(value, cache.get(key, k -> value));
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testRowUpdatedDuringLoadIsNotCached() {
+    var cache = GlobalLookup.cache(10);
+    Row key = Row.of(Cell.of("k", 1));
+    Row oldValue = Row.of(Cell.of("v", 1));
+    Row newValue = Row.of(Cell.of("v", 2));
+    // the store is updated after the loader reads the old row
+    Assert.assertEquals(
+        oldValue,
+        cache.get(
+            key,
+            k -> {
+              cache.invalidate(k);
+              return oldValue;
+            }));
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(newValue, cache.get(key, k -> newValue));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositiveCacheSizeOfOptions() {
+    LookupOptions.create().cacheSize(0);
+  }
+
+  private static OStreamImpl stream(String fromTopic) {
+    return (OStreamImpl)
+        OStreamBuilder.builder()
+            .key(CommonUtils.randomKey())
+            .bootstrapServers("fake")
+            .fromTopic(fromTopic)
+            .toTopic(CommonUtils.randomString())
+            .build();
+  }
+
+  private static Conditions conditions(String left, String right) {
+    return Conditions.create().add(List.of(Map.entry(left, right)));
+  }
+
+  @Test
+  public void testLookupSameTopicTwice() {
+    String lookupTopic = CommonUtils.randomString();
+    OStreamImpl stream =
+        (OStreamImpl)
+            stream(CommonUtils.randomString())
+                .lookup(lookupTopic, conditions("a", "b"), (row, profile) -> row)
+                .lookup(lookupTopic, conditions("c", "d"), (row, profile) -> row);
+    // the lookup topic is registered as source only once
+    Assert.assertEquals(
+        1,
+        stream.innerBuilder.build().describe().subtopologies().stream()
+            .flatMap(s -> s.nodes().stream())
+            .filter(n -> n.toString().contains("topics: [" + lookupTopic + "]"))
+            .count());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateLookup() {
+    String lookupTopic = CommonUtils.randomString();
+    stream(CommonUtils.randomString())
+        .lookup(lookupTopic, conditions("a", "b"), (row, profile) -> row)
+        .lookup(lookupTopic, conditions("a", "b"), (row, profile) -> row);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLookupSourceTopic() {
+    String fromTopic = CommonUtils.randomString();
+    stream(fromTopic).lookup(fromTopic, conditions("a", "b"), (row, profile) -> row);
+  }
+}
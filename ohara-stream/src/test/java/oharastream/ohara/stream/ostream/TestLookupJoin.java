@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.data.Serializer;
+import oharastream.ohara.common.setting.ObjectKey;
+import oharastream.ohara.common.setting.TopicKey;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.kafka.Consumer;
+import oharastream.ohara.kafka.Producer;
+import oharastream.ohara.kafka.TopicAdmin;
+import oharastream.ohara.stream.OStream;
+import oharastream.ohara.stream.StreamTestUtils;
+import oharastream.ohara.testing.WithBroker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLookupJoin extends WithBroker {
+  private final TopicAdmin client = TopicAdmin.of(testUtil().brokersConnProps());
+  private final Producer<Row, byte[]> producer =
+      Producer.builder()
+          .connectionProps(client.connectionProps())
+          .keySerializer(Serializer.ROW)
+          .valueSerializer(Serializer.BYTES)
+          .build();
+  private final ObjectKey streamKey = CommonUtils.randomKey();
+  private final TopicKey fromTopic = TopicKey.of("default", CommonUtils.randomString(5));
+  private final TopicKey toTopic = TopicKey.of("default", CommonUtils.randomString(5));
+  private final TopicKey lookupTopic = TopicKey.of("default", CommonUtils.randomString(5));
+  private final TopicKey rekeyedTopic =
+      GlobalLookup.rekeyedTopicKey(
+          streamKey,
+          fromTopic.topicNameOnKafka(),
+          lookupTopic.topicNameOnKafka(),
+          List.of("user"),
+          List.of("name"));
+
+  private final List<Row> profiles =
+      List.of(
+          Row.of(Cell.of("name", "abbie"), Cell.of("region", "Russian")),
+          Row.of(Cell.of("name", "tommy"), Cell.of("region", "Jordan")),
+          Row.of(Cell.of("name", "elsa"), Cell.of("region", "Cuba")));
+
+  private final List<Row> views =
+      List.of(
+          Row.of(Cell.of("user", "abbie"), Cell.of("page", "http://example.com/")),
+          Row.of(Cell.of("user", "tommy"), Cell.of("page", "http://example.net/")),
+          Row.of(Cell.of("user", "chia"), Cell.of("page", "http://example.org/")));
+
+  @Before
+  public void setup() {
+    StreamTestUtils.createTopic(client, fromTopic, 1, (short) 1);
+    StreamTestUtils.createTopic(client, toTopic, 1, (short) 1);
+    StreamTestUtils.createTopic(client, lookupTopic, 1, (short) 1);
+  }
+
+  private OStream<Row> lookup() {
+    return OStreamBuilder.builder()
+        .key(streamKey)
+        .bootstrapServers(client.connectionProps())
+        .fromTopic(fromTopic.topicNameOnKafka())
+        .toTopic(toTopic.topicNameOnKafka())
+        .cleanStart()
+        .build()
+        .lookup(
+            lookupTopic.topicNameOnKafka(),
+            Conditions.create().add(List.of(Map.entry("user", "name"))),
+            (row, profile) ->
+                Row.of(
+                    row.cell("user"),
+                    profile == null ? Cell.of("region", "unknown") : profile.cell("region")));
+  }
+
+  @Test
+  public void testJoin() {
+    StreamTestUtils.produceData(producer, profiles, lookupTopic);
+    OStream<Row> stream = lookup();
+    // the re-keyed topic is created by start rather than building the topology
+    Assert.assertFalse(client.exist(rekeyedTopic).toCompletableFuture().join());
+    stream.start();
+    try {
+      Assert.assertTrue(client.exist(rekeyedTopic).toCompletableFuture().join());
+      List<Row> expected =
+          List.of(
+              Row.of(Cell.of("user", "abbie"), Cell.of("region", "Russian")),
+              Row.of(Cell.of("user", "tommy"), Cell.of("region", "Jordan")),
+              Row.of(Cell.of("user", "chia"), Cell.of("region", "unknown")));
+      List<Row> result = new ArrayList<>();
+      try (Consumer<Row, byte[]> consumer =
+          Consumer.builder()
+              .topicKey(toTopic)
+              .connectionProps(client.connectionProps())
+              .offsetFromBegin()
+              .keySerializer(Serializer.ROW)
+              .valueSerializer(Serializer.BYTES)
+              .build()) {
+        // the global store is loaded asynchronously so we keep sending the views until all of them
+        // are joined with the lookup rows
+        CommonUtils.await(
+            () -> {
+              StreamTestUtils.produceData(producer, views, fromTopic);
+              consumer.poll(Duration.ofSeconds(3)).forEach(r -> r.key().ifPresent(result::add));
+              return result.containsAll(expected);
+            },
+            Duration.ofSeconds(60));
+      }
+    } finally {
+      stream.stop();
+    }
+  }
+
+  @After
+  public void cleanUp() {
+    producer.close();
+    client.close();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 is-land
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package oharastream.ohara.stream.ostream;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import oharastream.ohara.common.data.Cell;
+import oharastream.ohara.common.data.Row;
+import oharastream.ohara.common.rule.OharaTest;
+import oharastream.ohara.common.util.CommonUtils;
+import oharastream.ohara.common.util.Releasable;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestStoreQueryServer extends OharaTest {
+  private final String storeName = CommonUtils.randomString();
+  private final Row key = Row.of(Cell.of("name", "chia"));
+  private final HttpClient client = HttpClient.newHttpClient();
+  private StoreQueryServer server;
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setup() throws Exception {
+    KafkaStreams streams = Mockito.mock(KafkaStreams.class);
+    ReadOnlyKeyValueStore<Row, Object> store = Mockito.mock(ReadOnlyKeyValueStore.class);
+    Mockito.when(store.get(key)).thenReturn(10L);
+    Mockito.when(streams.store(Mockito.any(StoreQueryParameters.class))).thenReturn(store);
+    Mockito.when(
+            streams.queryMetadataForKey(
+                Mockito.eq(storeName), Mockito.eq(key), Mockito.any(Serializer.class)))
+        .thenReturn(new KeyQueryMetadata(new HostInfo("node0", 12345), Set.of(), 0));
+    BiFunction<Row, Object, Row> converter =
+        (k, v) -> Row.of(k.cell("name"), Cell.of("count", v));
+    server = StoreQueryServer.of(streams, 0, Map.of(storeName, converter));
+  }
+
+  private HttpResponse<String> get(String path) throws Exception {
+    return client.send(
+        HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static String encode(String json) {
+    return URLEncoder.encode(json, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testListStores() throws Exception {
+    HttpResponse<String> response = get(StoreQueryServer.PATH);
+    Assert.assertEquals(200, response.statusCode());
+    Assert.assertEquals("[\"" + storeName + "\"]", response.body());
+  }
+
+  @Test
+  public void testNonexistentStore() throws Exception {
+    Assert.assertEquals(
+        404, get(StoreQueryServer.PATH + "/" + CommonUtils.randomString()).statusCode());
+  }
+
+  @Test
+  public void testLookup() throws Exception {
+    HttpResponse<String> response =
+        get(StoreQueryServer.PATH + "/" + storeName + "?key=" + encode("{\"name\":\"chia\"}"));
+    Assert.assertEquals(200, response.statusCode());
+    Assert.assertEquals("{\"name\":\"chia\",\"count\":10}", response.body());
+
+    Assert.assertEquals(
+        404,
+        get(StoreQueryServer.PATH + "/" + storeName + "?key=" + encode("{\"name\":\"abc\"}"))
+            .statusCode());
+    Assert.assertEquals(
+        400, get(StoreQueryServer.PATH + "/" + storeName + "?key=" + encode("{")).statusCode());
+  }
+
+  @Test
+  public void testMetadata() throws Exception {
+    HttpResponse<String> response =
+        get(
+            StoreQueryServer.PATH
+                + "/"
+                + storeName
+                + "/"
+                + StoreQueryServer.METADATA_PATH
+                + "?key="
+                + encode("{\"name\":\"chia\"}"));
+    Assert.assertEquals(200, response.statusCode());
+    Assert.assertTrue(response.body().contains("\"hostname\":\"node0\""));
+    Assert.assertTrue(response.body().contains("\"port\":12345"));
+  }
+
+  @Test
+  public void testConvertRow() {
+    Row row = Row.of(Cell.of("a", "b"), Cell.of("c", 1), Cell.of("d", Row.of(Cell.of("e", 2.0))));
+    Map<String, Object> map = StoreQueryServer.toMap(row);
+    Assert.assertEquals(List.of("a", "c", "d"), List.copyOf(map.keySet()));
+    Assert.assertEquals(row, StoreQueryServer.toRow(map));
+  }
+
+  @After
+  public void tearDown() {
+    Releasable.close(server);
+  }
+}
@@ -55,6 +55,15 @@ public interface Brokers extends Releasable {
                       KafkaConfig$.MODULE$.OffsetsTopicPartitionsProp(), String.valueOf(1));
                   config.setProperty(
                       KafkaConfig$.MODULE$.OffsetsTopicReplicationFactorProp(), String.valueOf(1));
+                  // the transaction log must be available on a single node in order to test the
+                  // transactional producer and the exactly-once stream
+                  config.setProperty(
+                      KafkaConfig$.MODULE$.TransactionsTopicPartitionsProp(), String.valueOf(1));
+                  config.setProperty(
+                      KafkaConfig$.MODULE$.TransactionsTopicReplicationFactorProp(),
+                      String.valueOf(1));
+                  config.setProperty(
+                      KafkaConfig$.MODULE$.TransactionsTopicMinISRProp(), String.valueOf(1));
                   config.setProperty(KafkaConfig$.MODULE$.ZkConnectProp(), zk.connectionProps());
                   config.setProperty(KafkaConfig$.MODULE$.BrokerIdProp(), String.valueOf(index));
                   config.setProperty(